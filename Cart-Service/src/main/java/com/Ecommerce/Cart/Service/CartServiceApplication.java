@@ -7,12 +7,14 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @EnableMongoRepositories(basePackages = "com.Ecommerce.Cart.Service.Repositories")
 @SpringBootApplication
 @EnableConfigurationProperties
 @OpenAPIDefinition(info = @Info(title = "Cart Service API", version = "1.0"))
 @EnableCaching
+@EnableScheduling
 public class CartServiceApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,156 @@
+package com.Ecommerce.Cart.Service.Config;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.SavedForLater;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * ✅ Compact binary codec for cache values.
+ *
+ * Layout: {@code MAGIC | version | type | flags | payload}. The payload is Jackson Smile of the
+ * model class named by {@code type} - no class names are embedded, the model classes are the
+ * schema, and unknown fields are skipped so entries written by a newer model still decode.
+ * Payloads above {@code compressThreshold} bytes are deflated ({@link #FLAG_DEFLATED}).
+ *
+ * Values of other types, and every entry that does not start with {@link #MAGIC} (the JSON
+ * written before this codec), go through the {@code legacy} serializer - so old entries keep
+ * reading during the rollout and simply age out with their TTL.
+ */
+@Slf4j
+public class CartCacheSerializer implements RedisSerializer<Object> {
+
+    /** Can't start a JSON document */
+    static final byte MAGIC = (byte) 0xCA;
+    static final byte VERSION = 1;
+
+    static final byte TYPE_SHOPPING_CART = 1;
+    static final byte TYPE_CART_ITEM = 2;
+    static final byte TYPE_SAVED_FOR_LATER = 3;
+    static final byte TYPE_SAVED_FOR_LATER_LIST = 4;
+
+    static final byte FLAG_DEFLATED = 1;
+
+    private static final int HEADER_LENGTH = 4;
+
+    private static final ObjectMapper SMILE = new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build())
+            .registerModule(new JavaTimeModule())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final JavaType SAVED_FOR_LATER_LIST =
+            SMILE.getTypeFactory().constructCollectionType(List.class, SavedForLater.class);
+
+    private final RedisSerializer<Object> legacy;
+    private final int compressThreshold;
+
+    public CartCacheSerializer(RedisSerializer<Object> legacy, int compressThreshold) {
+        this.legacy = legacy;
+        this.compressThreshold = compressThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte type = typeOf(value);
+        if (type == 0) {
+            return legacy.serialize(value);
+        }
+        try {
+            byte[] payload = SMILE.writeValueAsBytes(value);
+            byte flags = 0;
+            if (payload.length > compressThreshold) {
+                payload = deflate(payload);
+                flags |= FLAG_DEFLATED;
+            }
+            byte[] data = new byte[HEADER_LENGTH + payload.length];
+            data[0] = MAGIC;
+            data[1] = VERSION;
+            data[2] = type;
+            data[3] = flags;
+            System.arraycopy(payload, 0, data, HEADER_LENGTH, payload.length);
+            return data;
+        } catch (IOException e) {
+            throw new SerializationException("Can't encode " + value.getClass().getName() + " for the cache", e);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] data) throws SerializationException {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (data[0] != MAGIC) {
+            return legacy.deserialize(data);
+        }
+        if (data.length < HEADER_LENGTH || data[1] > VERSION) {
+            // written by a newer release - treat as a miss rather than fail the read
+            log.warn("Skipping cache entry in unsupported binary format version {}", data.length > 1 ? data[1] : -1);
+            return null;
+        }
+        try (InputStream payload = payload(data)) {
+            return switch (data[2]) {
+                case TYPE_SHOPPING_CART -> SMILE.readValue(payload, ShoppingCart.class);
+                case TYPE_CART_ITEM -> SMILE.readValue(payload, CartItem.class);
+                case TYPE_SAVED_FOR_LATER -> SMILE.readValue(payload, SavedForLater.class);
+                case TYPE_SAVED_FOR_LATER_LIST -> SMILE.readValue(payload, SAVED_FOR_LATER_LIST);
+                default -> {
+                    log.warn("Skipping cache entry of unknown binary type {}", data[2]);
+                    yield null;
+                }
+            };
+        } catch (IOException e) {
+            throw new SerializationException("Can't decode binary cache entry of type " + data[2], e);
+        }
+    }
+
+    private static byte typeOf(Object value) {
+        if (value instanceof ShoppingCart) {
+            return TYPE_SHOPPING_CART;
+        }
+        if (value instanceof CartItem) {
+            return TYPE_CART_ITEM;
+        }
+        if (value instanceof SavedForLater) {
+            return TYPE_SAVED_FOR_LATER;
+        }
+        // an empty list carries no element type - leave it to the legacy serializer
+        if (value instanceof List<?> list && !list.isEmpty() && list.stream().allMatch(SavedForLater.class::isInstance)) {
+            return TYPE_SAVED_FOR_LATER_LIST;
+        }
+        return 0;
+    }
+
+    private static InputStream payload(byte[] data) {
+        InputStream raw = new ByteArrayInputStream(data, HEADER_LENGTH, data.length - HEADER_LENGTH);
+        return (data[3] & FLAG_DEFLATED) != 0 ? new InflaterInputStream(raw) : raw;
+    }
+
+    private static byte[] deflate(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream stream = new DeflaterOutputStream(out, deflater)) {
+            stream.write(payload);
+        } finally {
+            deflater.end();
+        }
+        return out.toByteArray();
+    }
+}
@@ -1,9 +1,16 @@
 package com.Ecommerce.Cart.Service.Config;
 
+import com.Ecommerce.Cart.Service.Payload.kafka.CartRequestDTO;
+import com.Ecommerce.Cart.Service.Payload.kafka.ProductChangedEventDTO;
+import com.Ecommerce.Cart.Service.Payload.kafka.Saved4LaterRequestDTO;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireDeserializer;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireSerializer;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -12,6 +19,7 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
 import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
@@ -65,6 +73,17 @@ public class KafkaProducerConfig {
     public static final String TOPIC_SAVED4LATER_RESPONSE = "saved4later.response";
     public static final String TOPIC_SAVED4LATER_ERROR = "saved4later.error";
 
+    // Cart Topics (for BFF communication)
+    public static final String TOPIC_CART_REQUEST = "cart.request";
+
+    // Product Topics (consumed - published by Product Service)
+    public static final String TOPIC_PRODUCT_PRICE_CHANGED = "product-price-changed";
+    public static final String TOPIC_PRODUCT_STOCK_CHANGED = "product-stock-changed";
+    public static final String TOPIC_PRODUCT_STATUS_CHANGED = "product-status-changed";
+
+    @Value("${kafka.wire-format.binary:true}")
+    private boolean binaryWireFormat;
+
     /**
      * ✅ FIXED Producer Configuration
      */
@@ -72,16 +91,19 @@ public class KafkaProducerConfig {
     public ProducerFactory<String, Object> CARTProducerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
-
-        // ✅ CRITICAL: Disable type headers to avoid classpath issues
-        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
-
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
-        return new DefaultKafkaProducerFactory<>(configProps);
+
+        // ✅ CRITICAL: Disable type headers to avoid classpath issues
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>().noTypeInfo();
+
+        // ✅ Replies to the gateway (cart.*, saved4later.*) use the binary wire format, domain events stay JSON
+        Serializer<Object> valueSerializer = binaryWireFormat
+                ? new DelegatingByTopicSerializer(Map.of(KafkaWireFormat.BFF_TOPICS, new KafkaWireSerializer()), jsonSerializer)
+                : jsonSerializer;
+
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), valueSerializer);
     }
 
     @Bean
@@ -141,27 +163,92 @@ public class KafkaProducerConfig {
         return factory;
     }
 
-    // ✅ Alternative simpler consumer factory (you can use this instead if above doesn't work)
+    /**
+     * ✅ Gateway requests (cart.request, saved4later.request) decoded straight into their DTOs -
+     * Smile or JSON, per the record's wire-format header, so older gateways keep working.
+     * Undecodable requests reach the listeners as null values and are answered with an error reply
+     */
     @Bean
-    public ConsumerFactory<String, String> simpleConsumerFactory() {
+    public ConsumerFactory<String, Object> bffRequestConsumerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-simple");
-        configProps.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        configProps.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
         configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
-        return new DefaultKafkaConsumerFactory<>(configProps);
+        KafkaWireDeserializer valueDeserializer = new KafkaWireDeserializer(Object.class)
+                .withType(TOPIC_CART_REQUEST, CartRequestDTO.class)
+                .withType(TOPIC_SAVED4LATER_REQUEST, Saved4LaterRequestDTO.class)
+                .undecodableAsNull();
+
+        return new DefaultKafkaConsumerFactory<>(configProps, new StringDeserializer(), valueDeserializer);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> simpleKafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(simpleConsumerFactory());
+    public ConcurrentKafkaListenerContainerFactory<String, Object> bffRequestKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(bffRequestConsumerFactory());
         factory.setConcurrency(3);
 
         DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(1000L, 3L));
+        errorHandler.addNotRetryableExceptions(
+                org.springframework.kafka.support.serializer.DeserializationException.class,
+                org.apache.kafka.common.errors.SerializationException.class
+        );
+        factory.setCommonErrorHandler(errorHandler);
+
+        return factory;
+    }
+
+    /**
+     * ✅ Same gateway requests handed over a poll at a time, for listeners that answer them in bulk
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, Object> bffRequestBatchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(bffRequestConsumerFactory());
+        factory.setConcurrency(3);
+        factory.setBatchListener(true);
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(1000L, 3L));
+        errorHandler.addNotRetryableExceptions(
+                org.springframework.kafka.support.serializer.DeserializationException.class,
+                org.apache.kafka.common.errors.SerializationException.class
+        );
+        factory.setCommonErrorHandler(errorHandler);
+
+        return factory;
+    }
+
+    /**
+     * ✅ Product Service events (plain JSON without type headers) decoded into one DTO
+     */
+    @Bean
+    public ConsumerFactory<String, ProductChangedEventDTO> productEventConsumerFactory() {
+        Map<String, Object> configProps = new HashMap<>();
+        configProps.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        configProps.put(ConsumerConfig.GROUP_ID_CONFIG, groupId + "-product-sync");
+        configProps.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        configProps.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+
+        JsonDeserializer<ProductChangedEventDTO> valueDeserializer = new JsonDeserializer<>(ProductChangedEventDTO.class, false);
+        valueDeserializer.addTrustedPackages("*");
+
+        return new DefaultKafkaConsumerFactory<>(configProps,
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(valueDeserializer));
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ProductChangedEventDTO> productEventKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, ProductChangedEventDTO> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(productEventConsumerFactory());
+        factory.setConcurrency(3);
+
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(new FixedBackOff(1000L, 3L));
+        errorHandler.addNotRetryableExceptions(
+                org.springframework.kafka.support.serializer.DeserializationException.class,
+                org.apache.kafka.common.errors.SerializationException.class
+        );
         factory.setCommonErrorHandler(errorHandler);
 
         return factory;
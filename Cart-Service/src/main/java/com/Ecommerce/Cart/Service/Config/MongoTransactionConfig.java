@@ -0,0 +1,46 @@
+package com.Ecommerce.Cart.Service.Config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+
+/**
+ * Mongo transactions for the {@code @Transactional} cart operations, so a cart change and its
+ * outbox entry commit together. Off by default - set {@code cart.outbox.transactional=true} to
+ * turn it on.
+ *
+ * Transactions need a replica set (a single node started with --replSet will do) or a sharded
+ * cluster, which a plain local MongoDB is not. With the property off the outbox entry is recorded
+ * right after the change, outside any transaction. Once it is switched on, startup fails when the
+ * server turns out to be a standalone node rather than losing events silently.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "cart.outbox.transactional", havingValue = "true")
+public class MongoTransactionConfig {
+
+    @Bean
+    public MongoTransactionManager transactionManager(MongoDatabaseFactory databaseFactory) {
+        requireTransactionSupport(databaseFactory);
+        return new MongoTransactionManager(databaseFactory);
+    }
+
+    static void requireTransactionSupport(MongoDatabaseFactory databaseFactory) {
+        Document hello;
+        try {
+            hello = databaseFactory.getMongoDatabase("admin").runCommand(new Document("hello", 1));
+        } catch (Exception e) {
+            // unreachable now is not proof of a standalone server - transactional writes fail loudly if it is
+            log.warn("Could not check whether MongoDB supports transactions: {}", e.getMessage());
+            return;
+        }
+        if (hello.get("setName") == null && !"isdbgrid".equals(hello.get("msg"))) {
+            throw new IllegalStateException("cart.outbox.transactional needs a MongoDB replica set or sharded cluster, "
+                    + "but the server is a standalone node - start it with --replSet or set cart.outbox.transactional=false");
+        }
+    }
+}
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -11,12 +14,17 @@ import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
 import java.time.Duration;
+import java.util.Set;
 
 @Configuration
 @EnableCaching
@@ -25,7 +33,7 @@ public class RedisConfig {
     /**
      * Creates a custom Jackson2JsonRedisSerializer with Java 8 date/time support
      */
-    private GenericJackson2JsonRedisSerializer createRedisSerializer() {
+    public static GenericJackson2JsonRedisSerializer createRedisSerializer() {
         ObjectMapper mapper = new ObjectMapper();
         mapper.registerModule(new JavaTimeModule());
         mapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
@@ -33,11 +41,49 @@ public class RedisConfig {
         return new GenericJackson2JsonRedisSerializer(mapper);
     }
 
+    /**
+     * ✅ Redis cache manager, wrapped with an in-process L1 for {@code cart.cache.l1.caches}
+     * unless {@code cart.cache.l1.enabled} is false
+     */
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     StringRedisTemplate stringRedisTemplate,
+                                     MeterRegistry meterRegistry,
+                                     @Value("${cart.cache.l1.enabled:true}") boolean l1Enabled,
+                                     @Value("${cart.cache.l1.caches:shoppingCarts}") Set<String> l1Caches,
+                                     @Value("${cart.cache.l1.ttl-ms:5000}") long l1TtlMs,
+                                     @Value("${cart.cache.l1.max-size:10000}") long l1MaxSize,
+                                     @Value("${cart.cache.invalidation-channel:cart:cache:invalidate}") String channel,
+                                     @Value("${cart.cache.serializer.format:json}") String format,
+                                     @Value("${cart.cache.serializer.compress-threshold:1024}") int compressThreshold) {
+        RedisSerializer<Object> serializer = "json".equalsIgnoreCase(format)
+                ? createRedisSerializer()
+                : new CartCacheSerializer(createRedisSerializer(), compressThreshold);
+        RedisCacheManager redisCacheManager = redisCacheManager(connectionFactory, serializer);
+        if (!l1Enabled) {
+            return redisCacheManager;
+        }
+        // not a bean of its own - initialise it here
+        redisCacheManager.afterPropertiesSet();
+        return new TwoLevelCacheManager(redisCacheManager, stringRedisTemplate, meterRegistry,
+                l1Caches, Duration.ofMillis(l1TtlMs), l1MaxSize, channel);
+    }
+
+    /**
+     * ✅ Receives the L1 invalidations published by the other Cart instances
+     */
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory connectionFactory) {
-        // Create Redis serializer that can handle Java 8 date/time types
-        GenericJackson2JsonRedisSerializer serializer = createRedisSerializer();
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                          CacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        if (cacheManager instanceof TwoLevelCacheManager twoLevelCacheManager) {
+            container.addMessageListener(twoLevelCacheManager, new ChannelTopic(twoLevelCacheManager.getChannel()));
+        }
+        return container;
+    }
 
+    private RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory, RedisSerializer<Object> serializer) {
         RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(Duration.ofMinutes(10))  // Cache entries expire after 10 minutes
                 .serializeKeysWith(RedisSerializationContext.SerializationPair.fromSerializer(new StringRedisSerializer()))
@@ -48,7 +94,6 @@ public class RedisConfig {
                 .cacheDefaults(cacheConfig)
                 .withCacheConfiguration("shoppingCarts", cacheConfig.entryTtl(Duration.ofMinutes(30)))  // Shopping cart cache expiration
                 .withCacheConfiguration("savedItems", cacheConfig.entryTtl(Duration.ofMinutes(60)))     // Saved items cache expiration
-                .withCacheConfiguration("cartTotals", cacheConfig.entryTtl(Duration.ofMinutes(15)))     // Cart totals cache expiration
                 .build();
     }
 
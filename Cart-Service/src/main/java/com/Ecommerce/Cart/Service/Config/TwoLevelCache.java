@@ -0,0 +1,175 @@
+package com.Ecommerce.Cart.Service.Config;
+
+import com.Ecommerce.Cart.Service.Models.SavedForLater;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * ✅ In-process L1 (Caffeine) in front of a Redis L2 cache.
+ *
+ * Reads are served from L1 while the entry is fresh, so the hottest carts skip the Redis round
+ * trip and the JSON deserialisation. Every write and eviction goes to Redis first, then drops the
+ * key from L1 here and on the other instances through {@link TwoLevelCacheManager}.
+ *
+ * Carts are mutable, so L1 keeps its own copy of what it stores and hands out a fresh copy on
+ * every hit - a caller merging into the cart it read cannot change the cached entry.
+ */
+public class TwoLevelCache implements org.springframework.cache.Cache {
+
+    private final String name;
+    private final Cache<String, Object> local;
+    private final org.springframework.cache.Cache remote;
+    private final TwoLevelCacheManager manager;
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+
+    TwoLevelCache(String name, Cache<String, Object> local, org.springframework.cache.Cache remote,
+                  TwoLevelCacheManager manager, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.manager = manager;
+        this.l1Hits = lookups(meterRegistry, "l1", "hit");
+        this.l1Misses = lookups(meterRegistry, "l1", "miss");
+        this.l2Hits = lookups(meterRegistry, "l2", "hit");
+        this.l2Misses = lookups(meterRegistry, "l2", "miss");
+    }
+
+    private Counter lookups(MeterRegistry meterRegistry, String level, String result) {
+        return Counter.builder("cart.cache.lookups")
+                .description("Cache lookups per level - hit ratio = hit / (hit + miss)")
+                .tag("cache", name)
+                .tag("level", level)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return remote.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object value = local.getIfPresent(localKey);
+        if (value != null) {
+            l1Hits.increment();
+            return new SimpleValueWrapper(copyOf(value));
+        }
+        l1Misses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null || wrapper.get() == null) {
+            l2Misses.increment();
+            return wrapper;
+        }
+        l2Hits.increment();
+        local.put(localKey, copyOf(wrapper.get()));
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value = remote.get(key, valueLoader);
+        if (value != null) {
+            local.put(localKey(key), copyOf(value));
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        String localKey = localKey(key);
+        if (value != null) {
+            local.put(localKey, copyOf(value));
+        } else {
+            local.invalidate(localKey);
+        }
+        manager.publishInvalidation(name, localKey);
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        manager.publishInvalidation(name, localKey);
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        manager.publishInvalidation(name, TwoLevelCacheManager.ALL_KEYS);
+    }
+
+    /**
+     * Drop an entry from L1 only - for invalidations published by other instances
+     */
+    void invalidateLocal(String key) {
+        if (TwoLevelCacheManager.ALL_KEYS.equals(key)) {
+            local.invalidateAll();
+        } else {
+            local.invalidate(key);
+        }
+    }
+
+    long localSize() {
+        return local.estimatedSize();
+    }
+
+    /**
+     * Copy of the mutable cart values; anything else is returned as is
+     */
+    static Object copyOf(Object value) {
+        if (value instanceof ShoppingCart cart) {
+            return cart.copy();
+        }
+        if (value instanceof SavedForLater item) {
+            return item.copy();
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copies = new ArrayList<>(list.size());
+            list.forEach(element -> copies.add(copyOf(element)));
+            return copies;
+        }
+        return value;
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
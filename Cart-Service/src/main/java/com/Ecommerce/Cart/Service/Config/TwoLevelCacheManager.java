@@ -0,0 +1,148 @@
+package com.Ecommerce.Cart.Service.Config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ✅ Puts an in-process L1 in front of the Redis cache manager for the configured caches.
+ *
+ * Writes on one instance are broadcast on a Redis pub/sub channel as
+ * {@code instanceId|publishedAtMillis|cache|key}; the other instances drop that key from their
+ * L1. Pub/sub is fire-and-forget, so the short L1 TTL bounds how long a missed invalidation can
+ * serve a stale entry. Metrics:
+ * <ul>
+ *   <li>{@code cart.cache.lookups} - hits and misses per cache and level (l1 / l2)</li>
+ *   <li>{@code cart.cache.l1.size} - entries held in L1</li>
+ *   <li>{@code cart.cache.invalidation.lag} - publish to L1 drop on a remote instance</li>
+ *   <li>{@code cart.cache.invalidation.errors} - invalidations that could not be published</li>
+ * </ul>
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    static final String ALL_KEYS = "*";
+    private static final String SEPARATOR = "|";
+
+    private final CacheManager remote;
+    private final StringRedisTemplate redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Set<String> localCacheNames;
+    private final Duration localTtl;
+    private final long localMaxSize;
+    private final String channel;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+    private final Timer invalidationLag;
+
+    public TwoLevelCacheManager(CacheManager remote,
+                                StringRedisTemplate redisTemplate,
+                                MeterRegistry meterRegistry,
+                                Set<String> localCacheNames,
+                                Duration localTtl,
+                                long localMaxSize,
+                                String channel) {
+        this.remote = remote;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.localCacheNames = localCacheNames;
+        this.localTtl = localTtl;
+        this.localMaxSize = localMaxSize;
+        this.channel = channel;
+        this.invalidationLag = Timer.builder("cart.cache.invalidation.lag")
+                .description("Time from a cache write on one instance until another dropped its L1 entry")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache remoteCache = remote.getCache(name);
+        if (remoteCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, ignored -> localCacheNames.contains(name)
+                ? twoLevel(name, remoteCache)
+                : remoteCache);
+    }
+
+    private TwoLevelCache twoLevel(String name, Cache remoteCache) {
+        TwoLevelCache cache = new TwoLevelCache(name,
+                Caffeine.newBuilder()
+                        .expireAfterWrite(localTtl)
+                        .maximumSize(localMaxSize)
+                        .build(),
+                remoteCache, this, meterRegistry);
+        Gauge.builder("cart.cache.l1.size", cache, TwoLevelCache::localSize)
+                .description("Entries held in the in-process L1 cache")
+                .tag("cache", name)
+                .register(meterRegistry);
+        return cache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remote.getCacheNames();
+    }
+
+    public String getChannel() {
+        return channel;
+    }
+
+    /**
+     * ✅ Tell the other instances to drop {@code key} from their L1
+     */
+    void publishInvalidation(String cacheName, String key) {
+        String message = String.join(SEPARATOR, instanceId,
+                Long.toString(System.currentTimeMillis()), cacheName, key);
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            // other instances still drop the entry when its L1 TTL runs out
+            meterRegistry.counter("cart.cache.invalidation.errors").increment();
+            log.warn("Could not publish cache invalidation for {}:{}: {}", cacheName, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\" + SEPARATOR, 4);
+        if (parts.length < 4) {
+            log.warn("Ignoring malformed cache invalidation message");
+            return;
+        }
+        if (instanceId.equals(parts[0])) {
+            return;
+        }
+        if (caches.get(parts[2]) instanceof TwoLevelCache cache) {
+            cache.invalidateLocal(parts[3]);
+        }
+        try {
+            long lag = System.currentTimeMillis() - Long.parseLong(parts[1]);
+            invalidationLag.record(Math.max(lag, 0), TimeUnit.MILLISECONDS);
+        } catch (NumberFormatException e) {
+            log.debug("Cache invalidation without a valid timestamp: {}", parts[1]);
+        }
+    }
+}
@@ -74,7 +74,7 @@ public class ShoppingCartEvents {
             super("CART_UPDATED");
             this.cartId = cart.getId();
             this.userId = cart.getUserId();
-            this.itemCount = cart.getItems().size();
+            this.itemCount = cart.getItemCount();
             this.totalAmount = cart.calculateTotal();
             this.updatedAt = cart.getUpdatedAt();
         }
@@ -122,7 +122,7 @@ public class ShoppingCartEvents {
             super("CART_ABANDONED");
             this.cartId = cart.getId();
             this.userId = cart.getUserId();
-            this.itemCount = cart.getItems().size();
+            this.itemCount = cart.getItemCount();
             this.items = cart.getItems();
             this.totalAmount = cart.calculateTotal();
             this.lastActiveAt = cart.getUpdatedAt();
@@ -181,7 +181,7 @@ public class ShoppingCartEvents {
             this.cartId = cart.getId();
             this.userId = cart.getUserId();
             this.orderId = orderId;
-            this.itemCount = cart.getItems().size();
+            this.itemCount = cart.getItemCount();
             this.items = cart.getItems();
             this.subtotal = cart.calculateTotal();
             this.tax = tax;
@@ -6,76 +6,142 @@ import com.Ecommerce.Cart.Service.Payload.Response.ShoppingCartResponse;
 import com.Ecommerce.Cart.Service.Payload.kafka.CartRequestDTO;
 import com.Ecommerce.Cart.Service.Payload.kafka.CartResponseDTO;
 import com.Ecommerce.Cart.Service.Services.ShoppingCartService;
-import com.Ecommerce.Cart.Service.Repositories.ShoppingCartRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+/**
+ * Answers the gateway's {@code cart.request} messages.
+ *
+ * By default requests are consumed a poll at a time ({@code cart.request.batch.max-records}):
+ * the carts of the whole poll are read with one {@code $in} query on {@code userId}, missing
+ * carts are created with one bulk insert, and the replies are sent together and flushed once
+ * before the offsets are committed. {@code cart.request.batch.enabled=false} switches back to
+ * one record per call, answered through the same path.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class CartKafkaEventHandler {
 
     private final ShoppingCartService cartService;
-    private final ShoppingCartRepository cartRepository; // ✅ Add direct repository access
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     @KafkaListener(
             topics = "cart.request",
             groupId = "cart-service-group",
-            containerFactory = "simpleKafkaListenerContainerFactory"
+            containerFactory = "bffRequestKafkaListenerContainerFactory",
+            autoStartup = "#{!${cart.request.batch.enabled:true}}"
     )
-    public void handleCartRequest(@Payload String messagePayload) {
-        log.info("Received cart request message: {}", messagePayload);
-
-        try {
-            CartRequestDTO request = objectMapper.readValue(messagePayload, CartRequestDTO.class);
-
-            log.info("Parsed cart request for user: {} with correlationId: {}",
-                    request.getUserId(), request.getCorrelationId());
-
-            // Handle UUID parsing exactly like the controller
-            UUID parsedUserId = parseUUID(request.getUserId());
+    public void handleCartRequest(@Payload(required = false) CartRequestDTO request,
+                                  @Header(name = KafkaHeaders.RECEIVED_KEY, required = false) String key,
+                                  @Header(name = ReplyRouting.REPLY_INSTANCE_HEADER, required = false) String replyInstance,
+                                  @Header(name = RequestDeadline.REQUEST_DEADLINE_HEADER, required = false) String deadline) {
+        if (request == null) {
+            answer(List.of(), sendUndecodable(key, replyInstance));
+            return;
+        }
+        answer(List.of(new PendingRequest(request, replyInstance, deadline, System.currentTimeMillis())), 0);
+    }
 
-            // ✅ ADD DEBUGGING: Log the parsed UUID
-            log.info("Original userId: '{}', Parsed UUID: '{}'", request.getUserId(), parsedUserId);
+    @KafkaListener(
+            topics = "cart.request",
+            groupId = "cart-service-group",
+            containerFactory = "bffRequestBatchKafkaListenerContainerFactory",
+            autoStartup = "${cart.request.batch.enabled:true}",
+            properties = "max.poll.records=${cart.request.batch.max-records:200}"
+    )
+    public void handleCartRequests(List<ConsumerRecord<String, Object>> records) {
+        long receivedAt = System.currentTimeMillis();
+        List<PendingRequest> requests = new ArrayList<>(records.size());
+        int replies = 0;
+
+        for (ConsumerRecord<String, Object> record : records) {
+            String replyInstance = header(record, ReplyRouting.REPLY_INSTANCE_HEADER);
+            if (record.value() instanceof CartRequestDTO request) {
+                requests.add(new PendingRequest(request, replyInstance,
+                        header(record, RequestDeadline.REQUEST_DEADLINE_HEADER), receivedAt));
+            } else {
+                // the wire deserializer hands over undecodable records as null
+                log.warn("Undecodable cart request at {}-{}@{}", record.topic(), record.partition(), record.offset());
+                replies += sendUndecodable(record.key(), replyInstance);
+            }
+        }
 
-            // ✅ FIXED: Check if cart exists BEFORE calling getOrCreateCart
-            Optional<ShoppingCart> existingCart = cartRepository.findByUserId(parsedUserId);
+        meterRegistry.summary("bff.requests.batch.size", "topic", "cart.request").record(records.size());
+        answer(requests, replies);
+    }
 
-            if (existingCart.isPresent()) {
-                log.info("Found existing cart with {} items for user: {}",
-                        existingCart.get().getItems().size(), parsedUserId);
-            } else {
-                log.warn("No existing cart found for user: {}. Will create new cart.", parsedUserId);
+    /**
+     * Reply to each request: expired ones are dropped, the rest share one cart lookup;
+     * {@code replies} already sent for this poll are flushed along with them
+     */
+    private void answer(List<PendingRequest> requests, int replies) {
+        List<ParsedRequest> live = new ArrayList<>(requests.size());
+
+        for (PendingRequest pending : requests) {
+            // ✅ The gateway already gave up on this request - don't spend a Mongo round trip on it
+            if (RequestDeadline.isExpired(pending.deadline())) {
+                log.warn("Skipping expired cart request with correlationId: {}", pending.request().getCorrelationId());
+                meterRegistry.counter("bff.requests.expired", "topic", "cart.request").increment();
+                continue;
+            }
+            try {
+                live.add(new ParsedRequest(pending, parseUUID(pending.request().getUserId())));
+            } catch (IllegalArgumentException e) {
+                replies += sendError(pending, e);
+            }
+        }
 
-                // ✅ DEBUGGING: Let's also check with different UUID formats
-                log.info("Debugging: Checking different UUID formats in database...");
-                debugDatabaseSearch(request.getUserId());
+        if (!live.isEmpty()) {
+            Map<UUID, ShoppingCart> carts = Map.of();
+            Exception lookupFailure = null;
+            try {
+                carts = cartService.findOrCreateCarts(live.stream().map(ParsedRequest::userId).toList());
+            } catch (Exception e) {
+                log.error("Error loading carts for {} cart requests", live.size(), e);
+                lookupFailure = e;
             }
 
-            // ✅ Use the existing cart or get/create new one
-            ShoppingCart cart = existingCart.orElseGet(() -> {
-                log.info("Creating new cart for user: {}", parsedUserId);
-                return cartService.getOrCreateCart(parsedUserId);
-            });
+            for (ParsedRequest parsed : live) {
+                ShoppingCart cart = carts.get(parsed.userId());
+                if (lookupFailure != null) {
+                    replies += sendError(parsed.pending(), lookupFailure);
+                } else if (cart == null) {
+                    replies += sendError(parsed.pending(), new IllegalStateException("No cart for user: " + parsed.userId()));
+                } else {
+                    replies += sendCart(parsed.pending(), cart);
+                }
+            }
+        }
 
-            // ✅ Log cart details before mapping
-            log.info("Cart details - ID: {}, UserId: {}, Items: {}, Total: {}",
-                    cart.getId(), cart.getUserId(),
-                    cart.getItems() != null ? cart.getItems().size() : 0,
-                    cart.calculateTotal());
+        if (replies > 0) {
+            // one flush for the whole poll - its offsets are committed only after the replies left
+            kafkaTemplate.flush();
+            log.debug("Answered {} cart requests", replies);
+        }
+    }
 
+    private int sendCart(PendingRequest pending, ShoppingCart cart) {
+        CartRequestDTO request = pending.request();
+        try {
             ShoppingCartResponse cartData = mapToCartResponse(cart);
 
             CartResponseDTO response = CartResponseDTO.builder()
@@ -84,73 +150,54 @@ public class CartKafkaEventHandler {
                     .message("Cart retrieved successfully")
                     .data(cartData)
                     .timestamp(System.currentTimeMillis())
+                    .requestTimestamp(request.getTimestamp() != null ? request.getTimestamp() : 0)
+                    .receivedAt(pending.receivedAt())
                     .build();
 
-            kafkaTemplate.send("cart.response", request.getCorrelationId(), response);
-            log.info("Sent cart response for correlationId: {} with {} items",
+            kafkaTemplate.send(ReplyRouting.replyTopic("cart.response", pending.replyInstance()),
+                    request.getCorrelationId(), response);
+            log.debug("Sent cart response for correlationId: {} with {} items",
                     request.getCorrelationId(), cartData.getItems().size());
-
+            return 1;
         } catch (Exception e) {
-            log.error("Error processing cart request from message: {}", messagePayload, e);
-
-            String correlationId = extractCorrelationId(messagePayload);
-
-            CartResponseDTO errorResponse = CartResponseDTO.builder()
-                    .correlationId(correlationId)
-                    .success(false)
-                    .message("Failed to process cart request: " + e.getMessage())
-                    .data(null)
-                    .timestamp(System.currentTimeMillis())
-                    .build();
-
-            kafkaTemplate.send("cart.error", correlationId, errorResponse);
+            return sendError(pending, e);
         }
     }
 
+    private int sendError(PendingRequest pending, Exception e) {
+        return sendError(pending.request().getCorrelationId(), pending.replyInstance(), e);
+    }
+
     /**
-     * ✅ DEBUGGING METHOD: Check different UUID formats in database
+     * The gateway keys requests by correlation id, so an undecodable one can still be answered
      */
-    private void debugDatabaseSearch(String originalUserId) {
-        try {
-            // Check original format
-            try {
-                UUID original = UUID.fromString(originalUserId);
-                Optional<ShoppingCart> cart1 = cartRepository.findByUserId(original);
-                log.debug("Search with original UUID '{}': {}", original, cart1.isPresent() ? "FOUND" : "NOT FOUND");
-            } catch (Exception e) {
-                log.debug("Original format '{}' is not a valid UUID", originalUserId);
-            }
+    private int sendUndecodable(String key, String replyInstance) {
+        meterRegistry.counter("bff.requests.undecodable", "topic", "cart.request").increment();
+        if (key == null) {
+            log.error("Undecodable cart request without a key, no one to answer");
+            return 0;
+        }
+        return sendError(key, replyInstance, new IllegalArgumentException("Undecodable cart request"));
+    }
 
-            // Check padded format
-            String cleaned = originalUserId.replaceAll("-", "");
-            if (cleaned.length() == 24) {
-                String padded = cleaned + "00000000";
-                String formatted = padded.substring(0, 8) + "-" +
-                        padded.substring(8, 12) + "-" +
-                        padded.substring(12, 16) + "-" +
-                        padded.substring(16, 20) + "-" +
-                        padded.substring(20, 32);
-                UUID paddedUuid = UUID.fromString(formatted);
-                Optional<ShoppingCart> cart2 = cartRepository.findByUserId(paddedUuid);
-                log.debug("Search with padded UUID '{}': {}", paddedUuid, cart2.isPresent() ? "FOUND" : "NOT FOUND");
-            }
+    private int sendError(String correlationId, String replyInstance, Exception e) {
+        log.error("Error processing cart request with correlationId: {}", correlationId, e);
 
-            // ✅ NEW: Check all carts in database to see what UUIDs actually exist
-            List<ShoppingCart> allCarts = cartRepository.findAll();
-            log.debug("Total carts in database: {}", allCarts.size());
-            for (ShoppingCart cart : allCarts) {
-                log.debug("Cart userId in DB: '{}'", cart.getUserId());
+        CartResponseDTO errorResponse = CartResponseDTO.builder()
+                .correlationId(correlationId)
+                .success(false)
+                .message("Failed to process cart request: " + e.getMessage())
+                .data(null)
+                .timestamp(System.currentTimeMillis())
+                .build();
 
-                // Check if this matches our parsed UUID in any way
-                if (cart.getUserId().toString().contains(cleaned.substring(0, 8))) {
-                    log.warn("POTENTIAL MATCH FOUND: DB userId '{}' contains part of requested '{}'",
-                            cart.getUserId(), originalUserId);
-                }
-            }
+        kafkaTemplate.send(ReplyRouting.replyTopic("cart.error", replyInstance), correlationId, errorResponse);
+        return 1;
+    }
 
-        } catch (Exception e) {
-            log.error("Error during database debugging", e);
-        }
+    private static String header(ConsumerRecord<String, Object> record, String name) {
+        org.apache.kafka.common.header.Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
     }
 
     /**
@@ -196,30 +243,6 @@ public class CartKafkaEventHandler {
         }
     }
 
-    /**
-     * ✅ Enhanced correlationId extraction
-     */
-    private String extractCorrelationId(String messagePayload) {
-        try {
-            if (messagePayload.contains("correlationId")) {
-                String[] parts = messagePayload.split("\"correlationId\"\\s*:\\s*\"");
-                if (parts.length > 1) {
-                    String[] endParts = parts[1].split("\"");
-                    if (endParts.length > 0) {
-                        return endParts[0];
-                    }
-                }
-            }
-
-            CartRequestDTO partialRequest = objectMapper.readValue(messagePayload, CartRequestDTO.class);
-            return partialRequest.getCorrelationId();
-
-        } catch (Exception extractionError) {
-            log.warn("Failed to extract correlationId from message: {}", extractionError.getMessage());
-            return "unknown-" + System.currentTimeMillis();
-        }
-    }
-
     /**
      * ✅ Same mapping method as controller
      */
@@ -248,4 +271,10 @@ public class CartKafkaEventHandler {
 
         return response;
     }
-}
\ No newline at end of file
+
+    private record PendingRequest(CartRequestDTO request, String replyInstance, String deadline, long receivedAt) {
+    }
+
+    private record ParsedRequest(PendingRequest pending, UUID userId) {
+    }
+}
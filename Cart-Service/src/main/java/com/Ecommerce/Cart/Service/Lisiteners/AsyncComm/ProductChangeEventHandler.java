@@ -0,0 +1,77 @@
+package com.Ecommerce.Cart.Service.Lisiteners.AsyncComm;
+
+import com.Ecommerce.Cart.Service.Config.KafkaProducerConfig;
+import com.Ecommerce.Cart.Service.Payload.kafka.ProductChangedEventDTO;
+import com.Ecommerce.Cart.Service.Services.CartProductSyncService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * ✅ Keeps cart lines in step with Product Service: reprices them on product-price-changed and
+ * flags them on product-stock-changed / product-status-changed. Events are keyed by product id,
+ * so the changes of one product arrive in order.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductChangeEventHandler {
+
+    /** Product statuses under which the product can't be bought at all */
+    private static final Set<String> UNAVAILABLE_STATUSES = Set.of("INACTIVE", "DISCONTINUED");
+
+    private final CartProductSyncService cartProductSyncService;
+
+    @KafkaListener(
+            topics = {
+                    KafkaProducerConfig.TOPIC_PRODUCT_PRICE_CHANGED,
+                    KafkaProducerConfig.TOPIC_PRODUCT_STOCK_CHANGED,
+                    KafkaProducerConfig.TOPIC_PRODUCT_STATUS_CHANGED
+            },
+            containerFactory = "productEventKafkaListenerContainerFactory"
+    )
+    public void handleProductChanged(@Payload ProductChangedEventDTO event,
+                                     @Header(KafkaHeaders.RECEIVED_TOPIC) String topic) {
+        if (event == null || event.getProductId() == null) {
+            log.warn("Ignoring {} event without a product id", topic);
+            return;
+        }
+
+        switch (topic) {
+            case KafkaProducerConfig.TOPIC_PRODUCT_PRICE_CHANGED -> {
+                if (event.getNewPrice() != null) {
+                    cartProductSyncService.applyPriceChange(event.getProductId(), event.getNewPrice());
+                }
+            }
+            case KafkaProducerConfig.TOPIC_PRODUCT_STOCK_CHANGED -> {
+                if (event.getNewStock() != null) {
+                    cartProductSyncService.applyStockChange(event.getProductId(), event.getNewStock() <= 0);
+                }
+            }
+            case KafkaProducerConfig.TOPIC_PRODUCT_STATUS_CHANGED -> applyStatus(event);
+            default -> log.warn("Unexpected product event topic {}", topic);
+        }
+    }
+
+    private void applyStatus(ProductChangedEventDTO event) {
+        String status = event.getNewStatus();
+        if (status == null) {
+            return;
+        }
+        if ("OUT_OF_STOCK".equals(status)) {
+            cartProductSyncService.applyStockChange(event.getProductId(), true);
+        } else if ("ACTIVE".equals(status)) {
+            // back on sale - also clears a flag left by an earlier OUT_OF_STOCK
+            cartProductSyncService.applyStockChange(event.getProductId(), false);
+            cartProductSyncService.applyAvailabilityChange(event.getProductId(), false);
+        } else {
+            cartProductSyncService.applyAvailabilityChange(event.getProductId(), UNAVAILABLE_STATUSES.contains(status));
+        }
+    }
+}
@@ -6,11 +6,15 @@ import com.Ecommerce.Cart.Service.Payload.Response.SavedItemResponse;
 import com.Ecommerce.Cart.Service.Payload.kafka.Saved4LaterRequestDTO;
 import com.Ecommerce.Cart.Service.Payload.kafka.Saved4LaterResponseDTO;
 import com.Ecommerce.Cart.Service.Services.SavedForLaterService;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
@@ -26,22 +30,33 @@ public class Saved4LaterKafkaEventHandler {
 
     private final SavedForLaterService savedForLaterService;
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     @KafkaListener(
             topics = "saved4later.request",
             groupId = "cart-service-group",
-            containerFactory = "simpleKafkaListenerContainerFactory"
+            containerFactory = "bffRequestKafkaListenerContainerFactory"
     )
-    public void handleSaved4LaterRequest(@Payload String messagePayload) {
-        log.info("Received saved4later request message: {}", messagePayload);
-
-        try {
-            Saved4LaterRequestDTO request = objectMapper.readValue(messagePayload, Saved4LaterRequestDTO.class);
+    public void handleSaved4LaterRequest(@Payload(required = false) Saved4LaterRequestDTO request,
+                                         @Header(name = KafkaHeaders.RECEIVED_KEY, required = false) String key,
+                                         @Header(name = ReplyRouting.REPLY_INSTANCE_HEADER, required = false) String replyInstance,
+                                         @Header(name = RequestDeadline.REQUEST_DEADLINE_HEADER, required = false) String deadline) {
+        long receivedAt = System.currentTimeMillis();
+        if (request == null) {
+            // undecodable - the gateway keys requests by correlation id, so it can still be answered
+            sendError(key, replyInstance, new IllegalArgumentException("Undecodable saved4later request"));
+            return;
+        }
+        log.info("Received saved4later request for user: {} with correlationId: {}",
+                request.getUserId(), request.getCorrelationId());
 
-            log.info("Parsed saved4later request for user: {} with correlationId: {}",
-                    request.getUserId(), request.getCorrelationId());
+        if (RequestDeadline.isExpired(deadline)) {
+            log.warn("Skipping expired saved4later request with correlationId: {}", request.getCorrelationId());
+            meterRegistry.counter("bff.requests.expired", "topic", "saved4later.request").increment();
+            return;
+        }
 
+        try {
             // Handle UUID parsing exactly like the cart controller
             UUID parsedUserId = parseUUID(request.getUserId());
 
@@ -72,27 +87,31 @@ public class Saved4LaterKafkaEventHandler {
                     .message("Saved items retrieved successfully")
                     .data(savedItemsData)
                     .timestamp(System.currentTimeMillis())
+                    .requestTimestamp(request.getTimestamp() != null ? request.getTimestamp() : 0)
+                    .receivedAt(receivedAt)
                     .build();
 
-            kafkaTemplate.send("saved4later.response", request.getCorrelationId(), response);
+            kafkaTemplate.send(ReplyRouting.replyTopic("saved4later.response", replyInstance), request.getCorrelationId(), response);
             log.info("Sent saved4later response for correlationId: {} with {} items",
                     request.getCorrelationId(), savedItemResponses.size());
 
         } catch (Exception e) {
-            log.error("Error processing saved4later request from message: {}", messagePayload, e);
+            sendError(request.getCorrelationId(), replyInstance, e);
+        }
+    }
 
-            String correlationId = extractCorrelationId(messagePayload);
+    private void sendError(String correlationId, String replyInstance, Exception e) {
+        log.error("Error processing saved4later request with correlationId: {}", correlationId, e);
 
-            Saved4LaterResponseDTO errorResponse = Saved4LaterResponseDTO.builder()
-                    .correlationId(correlationId)
-                    .success(false)
-                    .message("Failed to process saved4later request: " + e.getMessage())
-                    .data(null)
-                    .timestamp(System.currentTimeMillis())
-                    .build();
+        Saved4LaterResponseDTO errorResponse = Saved4LaterResponseDTO.builder()
+                .correlationId(correlationId)
+                .success(false)
+                .message("Failed to process saved4later request: " + e.getMessage())
+                .data(null)
+                .timestamp(System.currentTimeMillis())
+                .build();
 
-            kafkaTemplate.send("saved4later.error", correlationId, errorResponse);
-        }
+        kafkaTemplate.send(ReplyRouting.replyTopic("saved4later.error", replyInstance), correlationId, errorResponse);
     }
 
     /**
@@ -138,30 +157,6 @@ public class Saved4LaterKafkaEventHandler {
         }
     }
 
-    /**
-     * Extract correlationId from message payload
-     */
-    private String extractCorrelationId(String messagePayload) {
-        try {
-            if (messagePayload.contains("correlationId")) {
-                String[] parts = messagePayload.split("\"correlationId\"\\s*:\\s*\"");
-                if (parts.length > 1) {
-                    String[] endParts = parts[1].split("\"");
-                    if (endParts.length > 0) {
-                        return endParts[0];
-                    }
-                }
-            }
-
-            Saved4LaterRequestDTO partialRequest = objectMapper.readValue(messagePayload, Saved4LaterRequestDTO.class);
-            return partialRequest.getCorrelationId();
-
-        } catch (Exception extractionError) {
-            log.warn("Failed to extract correlationId from message: {}", extractionError.getMessage());
-            return "unknown-" + System.currentTimeMillis();
-        }
-    }
-
     /**
      * Map SavedForLater to SavedItemResponse
      */
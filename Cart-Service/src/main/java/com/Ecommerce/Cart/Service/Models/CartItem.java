@@ -23,6 +23,9 @@ public class CartItem {
     private int quantity;
     private BigDecimal price;
     private LocalDateTime addedAt;
+    // Kept current from Product Service events - checkout still validates against the product
+    private boolean outOfStock;
+    private boolean unavailable;
 
     public void updateQuantity(int newQuantity) {
         if (newQuantity < 1) {
@@ -35,4 +38,8 @@ public class CartItem {
     public BigDecimal getSubtotal() {
         return price.multiply(BigDecimal.valueOf(quantity));
     }
+
+    public CartItem copy() {
+        return new CartItem(id, cartId, productId, quantity, price, addedAt, outOfStock, unavailable);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.Ecommerce.Cart.Service.Models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A cart event waiting to be published to Kafka. Written next to the cart change it describes
+ * and removed by the relay once Kafka acknowledged it; {@code id} travels as the event id header
+ * so consumers can drop the duplicates a relay crash between send and delete can produce.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "cart_outbox")
+public class OutboxEvent {
+    @Id
+    private UUID id;
+    private String topic;
+    private String messageKey;
+    /** Event serialized as JSON, exactly what the Kafka JsonSerializer would have written */
+    private String payload;
+    private LocalDateTime createdAt;
+    private int attempts;
+    private String lastError;
+    /** Relay instance currently publishing the event, and until when it holds it */
+    private String claimedBy;
+    private LocalDateTime claimedUntil;
+}
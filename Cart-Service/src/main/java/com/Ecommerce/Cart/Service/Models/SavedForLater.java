@@ -25,5 +25,7 @@ public class SavedForLater {
     private UUID productId;
     private LocalDateTime savedAt;
 
-
+    public SavedForLater copy() {
+        return new SavedForLater(id, userId, productId, savedAt);
+    }
 }
\ No newline at end of file
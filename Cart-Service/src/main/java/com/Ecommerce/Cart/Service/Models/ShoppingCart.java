@@ -6,11 +6,14 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DocumentReference;
 import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,6 +26,11 @@ import java.util.UUID;
 @Document(collection = "shopping_carts")
 @JsonIgnoreProperties(ignoreUnknown = true)  // Ignore unknown properties during deserialization
 public class ShoppingCart {
+    /**
+     * ✅ A cart expires this long after its last change - every mutation pushes expiresAt forward
+     */
+    public static final Duration IDLE_LIFETIME = Duration.ofDays(7);
+
     @Id
     private UUID id;
     private UUID userId;
@@ -35,6 +43,28 @@ public class ShoppingCart {
     private LocalDateTime updatedAt;
     private LocalDateTime expiresAt;
 
+    /**
+     * ✅ Optimistic-locking version - bumped by every atomic item update, checked by full-document saves
+     */
+    @Version
+    private Long version;
+
+    /**
+     * ✅ Aggregates stored on the document and kept current by every mutation, so reads are O(1).
+     * Null on a cart assembled in memory until {@link #recalculateTotals()} runs. Decimal128 so
+     * Mongo can {@code $inc} the total.
+     */
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal total;
+    private Integer itemCount;
+    private Integer totalQuantity;
+
+    /**
+     * ✅ Write-behind revision of the snapshot last flushed to this document - a flush of an older
+     * revision is refused. Null for carts never held in write-behind mode.
+     */
+    private Long rev;
+
     // Business methods
     public void addItem(CartItem item) {
         // Check if items is still null (defensive programming)
@@ -45,7 +75,8 @@ public class ShoppingCart {
         for (CartItem existingItem : items) {
             if (existingItem.getProductId().equals(item.getProductId())) {
                 existingItem.updateQuantity(existingItem.getQuantity() + item.getQuantity());
-                this.updatedAt = LocalDateTime.now();
+                adjustTotals(existingItem.getPrice(), item.getQuantity(), 0);
+                touch();
                 return;
             }
         }
@@ -53,40 +84,126 @@ public class ShoppingCart {
         item.setCartId(this.id);
         item.setAddedAt(LocalDateTime.now());
         items.add(item);
-        this.updatedAt = LocalDateTime.now();
+        adjustTotals(item.getPrice(), item.getQuantity(), 1);
+        touch();
     }
 
     public void removeItem(UUID productId) {
-        items.removeIf(item -> item.getProductId().equals(productId));
-        this.updatedAt = LocalDateTime.now();
+        items.removeIf(item -> {
+            if (!item.getProductId().equals(productId)) {
+                return false;
+            }
+            adjustTotals(item.getPrice(), -item.getQuantity(), -1);
+            return true;
+        });
+        touch();
     }
 
     public void updateQuantity(UUID productId, int newQuantity) {
         for (CartItem item : items) {
             if (item.getProductId().equals(productId)) {
+                int delta = newQuantity - item.getQuantity();
                 item.updateQuantity(newQuantity);
-                this.updatedAt = LocalDateTime.now();
+                adjustTotals(item.getPrice(), delta, 0);
+                touch();
                 return;
             }
         }
     }
 
+    /**
+     * Replacing the items invalidates the stored aggregates
+     */
+    public void setItems(List<CartItem> items) {
+        this.items = items;
+        this.total = null;
+        this.itemCount = null;
+        this.totalQuantity = null;
+    }
+
     public void applyCoupon(String couponCode) {
         // Implementation depends on coupon system
-        this.updatedAt = LocalDateTime.now();
+        touch();
     }
 
     public BigDecimal calculateTotal() {
-        if (items == null || items.isEmpty()) {
-            return BigDecimal.ZERO;
+        return getTotal();
+    }
+
+    public BigDecimal getTotal() {
+        if (total == null) {
+            recalculateTotals();
+        }
+        return total;
+    }
+
+    public int getItemCount() {
+        if (itemCount == null) {
+            recalculateTotals();
+        }
+        return itemCount;
+    }
+
+    public int getTotalQuantity() {
+        if (totalQuantity == null) {
+            recalculateTotals();
         }
-        return items.stream()
-                .map(CartItem::getSubtotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return totalQuantity;
+    }
+
+    /**
+     * ✅ Full recomputation - for carts built in memory, whole-document saves and legacy documents
+     */
+    public void recalculateTotals() {
+        BigDecimal sum = BigDecimal.ZERO;
+        int quantity = 0;
+        if (items != null) {
+            for (CartItem item : items) {
+                sum = sum.add(item.getSubtotal());
+                quantity += item.getQuantity();
+            }
+        }
+        this.total = sum;
+        this.itemCount = items != null ? items.size() : 0;
+        this.totalQuantity = quantity;
+    }
+
+    private void adjustTotals(BigDecimal price, int quantityDelta, int lineDelta) {
+        if (total == null || itemCount == null || totalQuantity == null) {
+            return; // computed on first read
+        }
+        total = total.add(price.multiply(BigDecimal.valueOf(quantityDelta)));
+        itemCount += lineDelta;
+        totalQuantity += quantityDelta;
     }
 
     public void checkout() {
         // Checkout logic
-        this.updatedAt = LocalDateTime.now();
+        touch();
+    }
+
+    /**
+     * ✅ Record a change: updatedAt is now, and the cart lives another {@link #IDLE_LIFETIME}
+     */
+    public void touch() {
+        LocalDateTime now = LocalDateTime.now();
+        this.updatedAt = now;
+        this.expiresAt = expiresAfter(now);
+    }
+
+    public static LocalDateTime expiresAfter(LocalDateTime lastChange) {
+        return lastChange.plus(IDLE_LIFETIME);
+    }
+
+    /**
+     * ✅ Independent copy, items included - for caches that must not share a mutable cart
+     */
+    public ShoppingCart copy() {
+        List<CartItem> itemCopies = new ArrayList<>(items != null ? items.size() : 0);
+        if (items != null) {
+            items.forEach(item -> itemCopies.add(item.copy()));
+        }
+        return new ShoppingCart(id, userId, itemCopies, createdAt, updatedAt, expiresAt,
+                version, total, itemCount, totalQuantity, rev);
     }
 }
\ No newline at end of file
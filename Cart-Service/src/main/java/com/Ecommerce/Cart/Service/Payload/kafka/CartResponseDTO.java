@@ -16,4 +16,7 @@ public class CartResponseDTO {
     private String message;
     private ShoppingCartResponse data;
     private long timestamp;
+    // Echoed request timestamp and pick-up time - lets the gateway separate queue time from processing
+    private long requestTimestamp;
+    private long receivedAt;
 }
\ No newline at end of file
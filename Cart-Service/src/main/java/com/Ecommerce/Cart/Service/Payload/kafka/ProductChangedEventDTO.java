@@ -0,0 +1,36 @@
+package com.Ecommerce.Cart.Service.Payload.kafka;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Product Service's product-price-changed, product-stock-changed and product-status-changed
+ * events - one shape, each topic fills the pair of fields it is about
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ProductChangedEventDTO {
+    private UUID productId;
+    private String sku;
+
+    private BigDecimal previousPrice;
+    private BigDecimal newPrice;
+
+    private Integer previousStock;
+    private Integer newStock;
+
+    private String previousStatus;
+    private String newStatus;
+
+    private LocalDateTime updatedAt;
+}
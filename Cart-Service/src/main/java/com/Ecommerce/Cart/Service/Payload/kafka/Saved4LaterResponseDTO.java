@@ -16,4 +16,6 @@ public class Saved4LaterResponseDTO {
     private String message;
     private Saved4LaterKafkaEventHandler.SavedItemsDataDTO data;
     private long timestamp;
+    private long requestTimestamp;
+    private long receivedAt;
 }
@@ -2,7 +2,7 @@ package com.Ecommerce.Cart.Service.ScheduledTaskes;
 
 
 
-import com.Ecommerce.Cart.Service.Services.ShoppingCartService;
+import com.Ecommerce.Cart.Service.Services.ExpiredCartSweeper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
@@ -10,10 +10,10 @@ import org.springframework.stereotype.Component;
 @Component
 @RequiredArgsConstructor
 public class CartCleanupTask {
-    private final ShoppingCartService cartService;
+    private final ExpiredCartSweeper expiredCartSweeper;
 
-    @Scheduled(cron = "0 0 0 * * ?") // Run at midnight every day
+    @Scheduled(fixedDelayString = "${cart.cleanup.interval-ms:300000}", initialDelayString = "${cart.cleanup.initial-delay-ms:60000}") // Small batches all day instead of one midnight purge
     public void cleanupExpiredCarts() {
-        cartService.cleanupExpiredCarts();
+        expiredCartSweeper.sweep();
     }
-}
\ No newline at end of file
+}
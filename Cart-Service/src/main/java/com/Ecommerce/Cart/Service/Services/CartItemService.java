@@ -2,6 +2,7 @@ package com.Ecommerce.Cart.Service.Services;
 
 import com.Ecommerce.Cart.Service.Models.CartItem;
 import com.Ecommerce.Cart.Service.Repositories.CartItemRepository;
+import com.Ecommerce.Cart.Service.Services.Kafka.CartItemKafkaService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.mongodb.core.MongoTemplate;
@@ -17,7 +18,8 @@ import java.util.Optional;
 import java.util.UUID;
 
 /**
- * Service for managing cart items
+ * Service for managing cart items. Events are recorded here, where the previous quantity is
+ * still known, rather than reconstructed from the save afterwards.
  */
 @Slf4j
 @Service
@@ -26,6 +28,7 @@ public class CartItemService {
 
     private final CartItemRepository cartItemRepository;
     private final MongoTemplate mongoTemplate;
+    private final CartItemKafkaService kafkaService;
 
     /**
      * Add a new item to cart
@@ -37,8 +40,11 @@ public class CartItemService {
         if (existingItem.isPresent()) {
             // Update quantity of existing item
             CartItem item = existingItem.get();
-            item.updateQuantity(item.getQuantity() + quantity);
-            return cartItemRepository.save(item);
+            int oldQuantity = item.getQuantity();
+            item.updateQuantity(oldQuantity + quantity);
+            CartItem saved = cartItemRepository.save(item);
+            kafkaService.publishCartItemQuantityChanged(saved, oldQuantity);
+            return saved;
         } else {
             // Create new cart item
             CartItem newItem = CartItem.builder()
@@ -50,7 +56,9 @@ public class CartItemService {
                     .addedAt(LocalDateTime.now())
                     .build();
 
-            return cartItemRepository.save(newItem);
+            CartItem saved = cartItemRepository.save(newItem);
+            kafkaService.publishCartItemAdded(saved, productId);
+            return saved;
         }
     }
 
@@ -61,15 +69,21 @@ public class CartItemService {
         CartItem cartItem = cartItemRepository.findById(cartItemId)
                 .orElseThrow(() -> new IllegalArgumentException("Cart item not found: " + cartItemId));
 
+        int oldQuantity = cartItem.getQuantity();
         cartItem.updateQuantity(newQuantity);
-        return cartItemRepository.save(cartItem);
+        CartItem saved = cartItemRepository.save(cartItem);
+        kafkaService.publishCartItemQuantityChanged(saved, oldQuantity);
+        return saved;
     }
 
     /**
      * Remove item from cart
      */
     public void removeItem(UUID cartItemId) {
-        cartItemRepository.deleteById(cartItemId);
+        cartItemRepository.findById(cartItemId).ifPresent(item -> {
+            cartItemRepository.delete(item);
+            kafkaService.publishCartItemRemoved(item, "user_removed");
+        });
     }
 
     /**
@@ -118,13 +132,16 @@ public class CartItemService {
             if (item.getQuantity() > availableQuantity) {
                 if (availableQuantity > 0) {
                     // Reduce quantity
+                    int oldQuantity = item.getQuantity();
                     item.updateQuantity(availableQuantity);
                     cartItemRepository.save(item);
+                    kafkaService.publishCartItemQuantityChanged(item, oldQuantity);
                     log.info("Adjusted quantity to {} for cart item: {}",
                             availableQuantity, item.getId());
                 } else {
                     // Remove item if no stock available
                     cartItemRepository.delete(item);
+                    kafkaService.publishCartItemRemoved(item, "out_of_stock");
                     log.info("Removed out-of-stock cart item: {}", item.getId());
                 }
             }
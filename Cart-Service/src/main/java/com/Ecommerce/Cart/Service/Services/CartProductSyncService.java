@@ -0,0 +1,246 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * ✅ Applies product changes to the carts holding the product.
+ *
+ * Carts are found through the {@code items.productId} index and walked in {@code _id} order,
+ * {@code batch-size} carts at a time, so a change to a product sitting in many carts is a series
+ * of bounded writes rather than one long one. Only the touched users' cache entries are evicted.
+ * <ul>
+ *   <li>price - one bulk write per batch: each line is repriced under a guard on its current price
+ *       and quantity, so the stored total moves by exactly quantity x price difference; lines changed
+ *       in between are re-read and retried, and the event fails for redelivery if they keep changing</li>
+ *   <li>stock / status - one {@code updateMany} per batch setting {@code outOfStock} /
+ *       {@code unavailable} on the product's lines</li>
+ * </ul>
+ * In write-behind mode the same change is applied to the lines of the carts held in Redis, so
+ * the next flush writes the changed line instead of putting the old one back.
+ */
+@Service
+@Slf4j
+public class CartProductSyncService {
+
+    static final String CHANGE_PRICE = "price";
+    static final String CHANGE_STOCK = "stock";
+    static final String CHANGE_STATUS = "status";
+
+    private static final int REPRICE_ATTEMPTS = 3;
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final MeterRegistry meterRegistry;
+    private final CartWriteBehindStore writeBehindStore;
+    private final int batchSize;
+
+    public CartProductSyncService(MongoTemplate mongoTemplate,
+                                  CacheManager cacheManager,
+                                  MeterRegistry meterRegistry,
+                                  CartWriteBehindStore writeBehindStore,
+                                  @Value("${cart.product-sync.batch-size:500}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.cacheManager = cacheManager;
+        this.meterRegistry = meterRegistry;
+        this.writeBehindStore = writeBehindStore;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * ✅ Index the product-to-carts lookup
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureProductIndex() {
+        try {
+            mongoTemplate.indexOps(ShoppingCart.class).ensureIndex(new Index()
+                    .on("items.productId", Sort.Direction.ASC)
+                    .named("items_productId"));
+        } catch (Exception e) {
+            log.warn("Could not create index on shopping_carts.items.productId: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * ✅ Reprice the product's lines; returns the number of carts updated
+     */
+    public int applyPriceChange(UUID productId, BigDecimal newPrice) {
+        Criteria stale = Criteria.where("productId").is(productId).and("price").ne(newPrice);
+        int updated = 0;
+        UUID after = null;
+
+        while (true) {
+            List<ShoppingCart> batch = nextBatch(stale, after, true);
+            if (batch.isEmpty()) {
+                break;
+            }
+            updated += reprice(batch, productId, newPrice, stale);
+            after = finish(batch, productId, line -> {
+                line.setPrice(newPrice);
+                return line;
+            });
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return recordUpdated(CHANGE_PRICE, productId, updated);
+    }
+
+    /**
+     * One guarded bulk write for the batch; lines whose guard missed (the quantity or price changed
+     * in between) are re-read and repriced again, since the cursor moves past them afterwards
+     */
+    private int reprice(List<ShoppingCart> batch, UUID productId, BigDecimal newPrice, Criteria stale) {
+        int updated = 0;
+        List<ShoppingCart> pending = batch;
+        for (int attempt = 0; attempt < REPRICE_ATTEMPTS; attempt++) {
+            BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class);
+            for (ShoppingCart cart : pending) {
+                CartItem line = cart.getItems().get(0);
+                BigDecimal delta = newPrice.subtract(line.getPrice()).multiply(BigDecimal.valueOf(line.getQuantity()));
+                operations.updateOne(
+                        Query.query(Criteria.where("_id").is(cart.getId()).and("items").elemMatch(Criteria
+                                .where("productId").is(productId)
+                                .and("price").is(line.getPrice())
+                                .and("quantity").is(line.getQuantity()))),
+                        touch(new Update().set("items.$.price", newPrice).inc("total", delta)));
+            }
+            int modified = operations.execute().getModifiedCount();
+            updated += modified;
+            if (modified == pending.size()) {
+                return updated;
+            }
+            pending = stillStale(pending, stale);
+            if (pending.isEmpty()) {
+                return updated;
+            }
+            meterRegistry.counter("cart.product-sync.conflicts", "change", CHANGE_PRICE).increment(pending.size());
+        }
+        // fail the event - the listener redelivers it and the walk picks up whatever is still stale
+        throw new OptimisticLockingFailureException("Could not reprice product " + productId + " in "
+                + pending.size() + " carts changing concurrently");
+    }
+
+    private List<ShoppingCart> stillStale(List<ShoppingCart> carts, Criteria stale) {
+        Query query = Query.query(Criteria.where("_id").in(carts.stream().map(ShoppingCart::getId).toList())
+                .and("items").elemMatch(stale));
+        query.fields().include("userId").position("items", 1);
+        return mongoTemplate.find(query, ShoppingCart.class);
+    }
+
+    /**
+     * ✅ Flag or clear the product's lines as out of stock
+     */
+    public int applyStockChange(UUID productId, boolean outOfStock) {
+        return applyFlag(CHANGE_STOCK, productId, "outOfStock", outOfStock);
+    }
+
+    /**
+     * ✅ Flag or clear the product's lines as no longer sold (inactive, discontinued)
+     */
+    public int applyAvailabilityChange(UUID productId, boolean unavailable) {
+        return applyFlag(CHANGE_STATUS, productId, "unavailable", unavailable);
+    }
+
+    private int applyFlag(String change, UUID productId, String flag, boolean value) {
+        Criteria stale = Criteria.where("productId").is(productId).and(flag).ne(value);
+        int updated = 0;
+        UUID after = null;
+
+        while (true) {
+            List<ShoppingCart> batch = nextBatch(stale, after, false);
+            if (batch.isEmpty()) {
+                break;
+            }
+            List<UUID> ids = batch.stream().map(ShoppingCart::getId).toList();
+            updated += (int) mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("_id").in(ids)),
+                    touch(new Update().set("items.$[line]." + flag, value))
+                            .filterArray(Criteria.where("line.productId").is(productId)),
+                    ShoppingCart.class).getModifiedCount();
+            after = finish(batch, productId, line -> {
+                if (CHANGE_STOCK.equals(change)) {
+                    line.setOutOfStock(value);
+                } else {
+                    line.setUnavailable(value);
+                }
+                return line;
+            });
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        return recordUpdated(change, productId, updated);
+    }
+
+    /**
+     * Next carts (by id) with a line matching {@code line}; {@code withLine} also projects that
+     * line, otherwise only the ids and users are read
+     */
+    private List<ShoppingCart> nextBatch(Criteria line, UUID after, boolean withLine) {
+        Criteria criteria = Criteria.where("items").elemMatch(line);
+        if (after != null) {
+            criteria = criteria.and("_id").gt(after);
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(batchSize);
+        query.fields().include("userId");
+        if (withLine) {
+            query.fields().position("items", 1);
+        }
+        return mongoTemplate.find(query, ShoppingCart.class);
+    }
+
+    /**
+     * Apply the change to the batch's write-behind carts and evict its cache entries; returns the
+     * cursor for the next batch
+     */
+    private UUID finish(List<ShoppingCart> batch, UUID productId, UnaryOperator<CartItem> lineChange) {
+        if (writeBehindStore.isEnabled()) {
+            batch.stream().map(ShoppingCart::getUserId).filter(Objects::nonNull)
+                    .forEach(userId -> writeBehindStore.updateLine(userId, productId, lineChange));
+        }
+        Cache cache = cacheManager.getCache("shoppingCarts");
+        if (cache != null) {
+            batch.stream().map(ShoppingCart::getUserId).filter(Objects::nonNull)
+                    .forEach(userId -> cache.evict(userId.toString()));
+        }
+        return batch.get(batch.size() - 1).getId();
+    }
+
+    private int recordUpdated(String change, UUID productId, int updated) {
+        if (updated > 0) {
+            meterRegistry.counter("cart.product-sync.updated", "change", change).increment(updated);
+            log.info("Applied {} change of product {} to {} carts", change, productId, updated);
+        }
+        return updated;
+    }
+
+    private static Update touch(Update update) {
+        return update.set("updatedAt", LocalDateTime.now()).inc("version", 1);
+    }
+}
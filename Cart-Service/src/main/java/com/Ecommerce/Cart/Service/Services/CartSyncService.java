@@ -34,7 +34,7 @@ public class CartSyncService {
     private ShoppingCartService shoppingCartService;
 
     // Add ProductService injection for price validation
-    @CachePut(value = "shoppingCarts", key = "#serverCart.userId.toString()")
+    @CachePut(value = "shoppingCarts", key = "#serverCart.userId.toString()", condition = "!@cartWriteBehindStore.enabled")
     @Transactional
     public ShoppingCart mergeWithLocalStorage(ShoppingCart serverCart,
                                               CartSyncRequest syncRequest , UUID userId) {
@@ -52,7 +52,7 @@ public class CartSyncService {
             }
         }
 
-        ShoppingCart savedCart = cartRepository.save(serverCart);
+        ShoppingCart savedCart = shoppingCartService.saveCart(serverCart);
 //        ShoppingCart savedCart = shoppingCartService.bulkUpdateCart(parsedUserId,serverCart);
         log.info("Successfully merged cart for user: {}, final item count: {}",
                 serverCart.getUserId(), savedCart.getItems().size());
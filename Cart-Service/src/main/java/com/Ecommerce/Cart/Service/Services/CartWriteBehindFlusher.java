@@ -0,0 +1,274 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ✅ Write-behind flusher: persists carts journaled as dirty by {@link CartWriteBehindStore}
+ * to Mongo in batches, every {@code interval-ms} or as soon as {@code flush-threshold} writes
+ * piled up. On startup it first drains whatever the journal still holds from before a crash.
+ *
+ * A cart leaves the journal only if it was not written again while being flushed, so no write
+ * is lost between the snapshot and the Mongo bulk write. Each upsert only lands on a document
+ * holding an older {@code rev}: a snapshot that lost a race against a newer flush of the same
+ * cart fails as a duplicate key and is left to the journal, which still holds the newer write.
+ * Metrics:
+ * <ul>
+ *   <li>{@code cart.writebehind.dirty} - carts waiting to be flushed</li>
+ *   <li>{@code cart.writebehind.flush.lag} - age of the oldest unflushed write (ms)</li>
+ *   <li>{@code cart.writebehind.persist.lag} - first unflushed write to Mongo, per cart</li>
+ *   <li>{@code cart.writebehind.flush.duration}, {@code cart.writebehind.flushed},
+ *       {@code cart.writebehind.flush.errors}</li>
+ *   <li>{@code cart.writebehind.stale} - snapshots refused because Mongo held a newer revision</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class CartWriteBehindFlusher {
+
+    /** Bounds one flush when the same carts keep getting rewritten at the head of the journal */
+    private static final int MAX_BATCHES_PER_FLUSH = 50;
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final CartWriteBehindStore store;
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long intervalMs;
+    private final int batchSize;
+    private final int flushThreshold;
+
+    private final AtomicInteger writesSinceFlush = new AtomicInteger();
+    private final AtomicBoolean flushing = new AtomicBoolean();
+    private final AtomicLong dirty = new AtomicLong();
+    private final AtomicLong flushLagMs = new AtomicLong();
+    private final Timer persistLag;
+    private final Timer flushDuration;
+
+    private volatile ScheduledExecutorService executor;
+
+    public CartWriteBehindFlusher(CartWriteBehindStore store,
+                                  MongoTemplate mongoTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${cart.write-behind.interval-ms:1000}") long intervalMs,
+                                  @Value("${cart.write-behind.batch-size:200}") int batchSize,
+                                  @Value("${cart.write-behind.flush-threshold:500}") int flushThreshold) {
+        this.store = store;
+        this.mongoTemplate = mongoTemplate;
+        this.meterRegistry = meterRegistry;
+        this.intervalMs = intervalMs;
+        this.batchSize = batchSize;
+        this.flushThreshold = flushThreshold;
+
+        Gauge.builder("cart.writebehind.dirty", dirty, AtomicLong::get)
+                .description("Carts written to Redis and not yet persisted to Mongo")
+                .register(meterRegistry);
+        Gauge.builder("cart.writebehind.flush.lag", flushLagMs, AtomicLong::get)
+                .description("Age of the oldest unflushed cart write at the last flush (ms)")
+                .register(meterRegistry);
+        this.persistLag = Timer.builder("cart.writebehind.persist.lag")
+                .description("Time from a cart's first unflushed write until it was persisted")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushDuration = Timer.builder("cart.writebehind.flush.duration")
+                .description("Duration of one write-behind flush")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!store.isEnabled()) {
+            return;
+        }
+        long pending = store.dirtyCount();
+        if (pending > 0) {
+            log.info("Recovering {} dirty carts from the write-behind journal", pending);
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, 0, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Cart write-behind enabled: interval={}ms, batchSize={}, flushThreshold={}",
+                intervalMs, batchSize, flushThreshold);
+    }
+
+    /**
+     * ✅ Called after every Redis cart write - triggers an early flush past the size threshold
+     */
+    public void onWrite() {
+        ScheduledExecutorService current = executor;
+        if (current != null && writesSinceFlush.incrementAndGet() >= flushThreshold && !flushing.get()) {
+            current.execute(this::flush);
+        }
+    }
+
+    /**
+     * ✅ Drain the journal; returns the number of carts persisted
+     */
+    public int flush() {
+        if (!flushing.compareAndSet(false, true)) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        int flushed = 0;
+        try {
+            writesSinceFlush.set(0);
+            for (int round = 0; round < MAX_BATCHES_PER_FLUSH; round++) {
+                Set<ZSetOperations.TypedTuple<String>> batch = store.dirtyBatch(batchSize);
+                if (round == 0) {
+                    // the journal is ordered by first unflushed write, so the head is the oldest
+                    flushLagMs.set(batch.stream().findFirst()
+                            .map(oldest -> System.currentTimeMillis() - oldest.getScore().longValue())
+                            .orElse(0L));
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                flushed += flushBatch(batch);
+                if (batch.size() < batchSize) {
+                    break;
+                }
+            }
+            dirty.set(store.dirtyCount());
+            if (flushed > 0) {
+                meterRegistry.counter("cart.writebehind.flushed").increment(flushed);
+                log.debug("Write-behind flushed {} carts, {} still dirty", flushed, dirty.get());
+            }
+        } catch (Exception e) {
+            meterRegistry.counter("cart.writebehind.flush.errors").increment();
+            log.error("Write-behind flush failed, carts stay in the journal for the next attempt", e);
+        } finally {
+            flushDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            flushing.set(false);
+        }
+        return flushed;
+    }
+
+    private int flushBatch(Set<ZSetOperations.TypedTuple<String>> batch) {
+        long now = System.currentTimeMillis();
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class);
+        List<Pending> pending = new ArrayList<>();
+
+        for (ZSetOperations.TypedTuple<String> entry : batch) {
+            long dirtySince = entry.getScore() != null ? entry.getScore().longValue() : now;
+
+            UUID userId = UUID.fromString(entry.getValue());
+            CartWriteBehindStore.Snapshot snapshot = store.snapshot(userId).orElse(null);
+            if (snapshot == null) {
+                log.warn("Dirty cart for user {} expired from Redis before it was flushed", userId);
+                store.markClean(userId, "");
+                continue;
+            }
+
+            ShoppingCart cart = snapshot.cart();
+            long rev = Long.parseLong(snapshot.rev());
+            Criteria olderRevision = new Criteria().orOperator(
+                    Criteria.where("rev").exists(false),
+                    Criteria.where("rev").lt(rev));
+            operations.upsert(Query.query(Criteria.where("_id").is(cart.getId()).andOperator(olderRevision)), new Update()
+                    .set("userId", cart.getUserId())
+                    .set("items", cart.getItems())
+                    .set("total", cart.getTotal())
+                    .set("itemCount", cart.getItemCount())
+                    .set("totalQuantity", cart.getTotalQuantity())
+                    .set("updatedAt", cart.getUpdatedAt())
+                    .set("expiresAt", cart.getExpiresAt())
+                    .set("rev", rev)
+                    .setOnInsert("createdAt", cart.getCreatedAt())
+                    .inc("version", 1));
+            pending.add(new Pending(userId, snapshot.rev(), dirtySince));
+        }
+
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        Set<Integer> failed = execute(operations);
+
+        int flushed = 0;
+        for (int i = 0; i < pending.size(); i++) {
+            Pending cart = pending.get(i);
+            // still dirty if it was written again meanwhile - the next flush picks it up
+            if (!failed.contains(i) && store.markClean(cart.userId(), cart.rev())) {
+                persistLag.record(now - cart.dirtySince(), TimeUnit.MILLISECONDS);
+                flushed++;
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * Run the bulk write; returns the positions of upserts that failed for any reason other than
+     * Mongo already holding a newer revision
+     */
+    private Set<Integer> execute(BulkOperations operations) {
+        try {
+            operations.execute();
+            return Set.of();
+        } catch (BulkOperationException e) {
+            Set<Integer> failed = new HashSet<>();
+            for (BulkWriteError error : e.getErrors()) {
+                if (error.getCode() == DUPLICATE_KEY) {
+                    // the document already holds this revision or a newer one
+                    meterRegistry.counter("cart.writebehind.stale").increment();
+                } else {
+                    failed.add(error.getIndex());
+                }
+            }
+            if (!failed.isEmpty()) {
+                meterRegistry.counter("cart.writebehind.flush.errors").increment();
+                log.warn("Write-behind flush could not persist {} carts, they stay in the journal: {}",
+                        failed.size(), e.getMessage());
+            }
+            return failed;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            current.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // last drain so a clean shutdown leaves nothing for recovery
+        flush();
+    }
+
+    private record Pending(UUID userId, String rev, long dirtySince) {
+    }
+}
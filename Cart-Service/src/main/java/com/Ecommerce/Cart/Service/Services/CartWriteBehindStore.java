@@ -0,0 +1,465 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.Ecommerce.Cart.Service.Payload.Request.BulkUpdateItem;
+import com.Ecommerce.Cart.Service.Repositories.ShoppingCartRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+/**
+ * ✅ Redis-primary store for active carts (write-behind mode).
+ *
+ * Each cart is a hash {@code cart:active:{userId}} with per-item fields, so a mutation touches
+ * only the fields of one product:
+ * <ul>
+ *   <li>{@code meta} - cart id, user id, createdAt, expiresAt as JSON</li>
+ *   <li>{@code item:{productId}} - the cart line as JSON (its quantity is ignored)</li>
+ *   <li>{@code qty:{productId}} - the quantity, updated with HINCRBY / HSET</li>
+ *   <li>{@code updatedAt}, {@code rev} - last change and a revision bumped on every write</li>
+ * </ul>
+ * Every write also adds the user to the {@code cart:dirty} sorted set (score = first unflushed
+ * write) - the journal {@link CartWriteBehindFlusher} drains into Mongo. Since the journal lives
+ * in Redis, carts dirtied before a crash are flushed on the next start. A dirty hash never
+ * expires; it gets its {@code ttl-hours} back once the flusher marks it clean.
+ *
+ * {@code rev} continues from the revision stored with the cart in Mongo, so it only ever grows
+ * and the flusher can refuse to write a snapshot older than the one Mongo holds.
+ */
+@Component
+@Slf4j
+public class CartWriteBehindStore {
+
+    static final String CART_KEY_PREFIX = "cart:active:";
+    static final String DIRTY_KEY = "cart:dirty";
+
+    static final String META = "meta";
+    static final String UPDATED_AT = "updatedAt";
+    static final String REV = "rev";
+    static final String ITEM_PREFIX = "item:";
+    static final String QTY_PREFIX = "qty:";
+
+    static final String OP_ADD = "add";
+    static final String OP_SET = "set";
+    static final String OP_REMOVE = "remove";
+
+    /**
+     * Applies groups of (op, productId, quantity, itemJson) and journals the cart as dirty.
+     * Returns nil when the cart is not loaded in Redis yet, otherwise the resulting hash.
+     */
+    private static final RedisScript<List> MUTATE = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return false end
+            for i = 4, #ARGV, 4 do
+              local itemField = 'item:' .. ARGV[i + 1]
+              local qtyField = 'qty:' .. ARGV[i + 1]
+              if ARGV[i] == 'add' then
+                redis.call('HSETNX', KEYS[1], itemField, ARGV[i + 3])
+                redis.call('HINCRBY', KEYS[1], qtyField, ARGV[i + 2])
+              elseif ARGV[i] == 'set' then
+                if redis.call('HEXISTS', KEYS[1], itemField) == 1 then
+                  redis.call('HSET', KEYS[1], qtyField, ARGV[i + 2])
+                end
+              elseif ARGV[i] == 'remove' then
+                redis.call('HDEL', KEYS[1], itemField, qtyField)
+              end
+            end
+            redis.call('HINCRBY', KEYS[1], 'rev', 1)
+            redis.call('HSET', KEYS[1], 'updatedAt', ARGV[2])
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[1], ARGV[3])
+            redis.call('PERSIST', KEYS[1])
+            return redis.call('HGETALL', KEYS[1])
+            """, List.class);
+
+    /**
+     * Loads a cart into Redis unless another request already did. ARGV[1] = ttl, ARGV[2] = 1 to
+     * journal it as dirty (new cart) with score ARGV[3], member ARGV[4], then field/value pairs.
+     */
+    private static final RedisScript<Long> LOAD = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            for i = 5, #ARGV, 2 do
+              redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            if ARGV[2] == '1' then
+              redis.call('ZADD', KEYS[2], 'NX', ARGV[3], ARGV[4])
+            else
+              redis.call('EXPIRE', KEYS[1], ARGV[1])
+            end
+            return 1
+            """, Long.class);
+
+    /**
+     * Replaces the whole cart (sync, checkout) keeping the revision increasing - past the one the
+     * cart was read with (ARGV[1]) too, in case the hash expired meanwhile
+     */
+    private static final RedisScript<Long> REPLACE = new DefaultRedisScript<>("""
+            local rev = math.max(tonumber(redis.call('HGET', KEYS[1], 'rev') or '0'), tonumber(ARGV[1])) + 1
+            redis.call('DEL', KEYS[1])
+            for i = 4, #ARGV, 2 do
+              redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+            end
+            redis.call('HSET', KEYS[1], 'rev', rev)
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[2], ARGV[3])
+            return rev
+            """, Long.class);
+
+    /**
+     * Removes the cart from the journal only if nothing was written since the flushed snapshot,
+     * and lets the now clean hash expire after ARGV[3] seconds
+     */
+    private static final RedisScript<Long> MARK_CLEAN = new DefaultRedisScript<>("""
+            local rev = redis.call('HGET', KEYS[1], 'rev')
+            if rev == false or rev == ARGV[1] then
+              if rev ~= false then
+                redis.call('EXPIRE', KEYS[1], ARGV[3])
+              end
+              return redis.call('ZREM', KEYS[2], ARGV[2])
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * Replaces one line's JSON if it still is ARGV[2] - a product change racing a user's edit
+     * of the same line loses and is retried - and journals the cart as dirty
+     */
+    private static final RedisScript<Long> REPLACE_LINE = new DefaultRedisScript<>("""
+            if redis.call('HGET', KEYS[1], ARGV[1]) ~= ARGV[2] then return 0 end
+            redis.call('HSET', KEYS[1], ARGV[1], ARGV[3])
+            redis.call('HINCRBY', KEYS[1], 'rev', 1)
+            redis.call('ZADD', KEYS[2], 'NX', ARGV[4], ARGV[5])
+            redis.call('PERSIST', KEYS[1])
+            return 1
+            """, Long.class);
+
+    /** Attempts per line when a product change races edits of the same line */
+    private static final int LINE_UPDATE_ATTEMPTS = 3;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ShoppingCartRepository cartRepository;
+    private final boolean enabled;
+    private final Duration ttl;
+
+    public CartWriteBehindStore(StringRedisTemplate redisTemplate,
+                                ObjectMapper objectMapper,
+                                ShoppingCartRepository cartRepository,
+                                @Value("${cart.write-behind.enabled:false}") boolean enabled,
+                                @Value("${cart.write-behind.ttl-hours:168}") long ttlHours) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.cartRepository = cartRepository;
+        this.enabled = enabled;
+        this.ttl = Duration.ofHours(ttlHours);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * ✅ Read an active cart, loading it from Mongo into Redis on a miss
+     */
+    public Optional<ShoppingCart> find(UUID userId) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(cartKey(userId));
+        if (!hash.isEmpty()) {
+            return Optional.of(toCart(stringMap(hash)));
+        }
+        Optional<ShoppingCart> stored = cartRepository.findByUserId(userId);
+        stored.ifPresent(cart -> load(cart, false));
+        return stored;
+    }
+
+    public ShoppingCart getOrCreate(UUID userId) {
+        return find(userId).orElseGet(() -> {
+            ShoppingCart newCart = ShoppingCart.builder()
+                    .id(UUID.randomUUID())
+                    .userId(userId)
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            newCart.touch();
+            if (!load(newCart, true)) {
+                // another request created it first
+                return find(userId).orElse(newCart);
+            }
+            log.info("Created new write-behind cart: ID={} for userId: {}", newCart.getId(), userId);
+            return newCart;
+        });
+    }
+
+    public ShoppingCart addItem(UUID userId, UUID productId, int quantity, BigDecimal price) {
+        return mutate(userId, List.of(operation(OP_ADD, productId, quantity, price)));
+    }
+
+    public ShoppingCart updateQuantity(UUID userId, UUID productId, int quantity) {
+        return mutate(userId, List.of(operation(OP_SET, productId, quantity, null)));
+    }
+
+    public ShoppingCart removeItem(UUID userId, UUID productId) {
+        return mutate(userId, List.of(operation(OP_REMOVE, productId, 0, null)));
+    }
+
+    public ShoppingCart bulkUpdate(UUID userId, List<BulkUpdateItem> items) {
+        List<List<String>> operations = new ArrayList<>();
+        for (BulkUpdateItem item : items) {
+            switch (item.getOperation()) {
+                case ADD:
+                    operations.add(operation(OP_ADD, item.getProductId(), item.getQuantity(), item.getPrice()));
+                    break;
+                case UPDATE:
+                    operations.add(operation(OP_SET, item.getProductId(), item.getQuantity(), null));
+                    break;
+                case REMOVE:
+                    operations.add(operation(OP_REMOVE, item.getProductId(), 0, null));
+                    break;
+            }
+        }
+        return mutate(userId, operations);
+    }
+
+    /**
+     * ✅ Replace the whole cart (sync merge, checkout) and journal it for the flusher
+     */
+    public ShoppingCart replace(ShoppingCart cart) {
+        cart.setUpdatedAt(LocalDateTime.now());
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(cart.getRev() != null ? cart.getRev() : 0L));
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(cart.getUserId().toString());
+        toFields(cart).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        Long rev = redisTemplate.execute(REPLACE, List.of(cartKey(cart.getUserId()), DIRTY_KEY), args.toArray());
+        cart.setRev(rev);
+        return cart;
+    }
+
+    /**
+     * ✅ Apply a product change (price, stock, status) to the user's line for the product, if the
+     * cart is held here; returns whether the line was changed
+     */
+    public boolean updateLine(UUID userId, UUID productId, UnaryOperator<CartItem> change) {
+        String key = cartKey(userId);
+        String field = ITEM_PREFIX + productId;
+        for (int attempt = 0; attempt < LINE_UPDATE_ATTEMPTS; attempt++) {
+            Object current = redisTemplate.opsForHash().get(key, field);
+            if (current == null) {
+                return false;
+            }
+            String updated = write(change.apply(read(current.toString(), CartItem.class)));
+            Long replaced = redisTemplate.execute(REPLACE_LINE, List.of(key, DIRTY_KEY),
+                    field, current.toString(), updated, String.valueOf(System.currentTimeMillis()), userId.toString());
+            if (replaced != null && replaced > 0) {
+                return true;
+            }
+        }
+        log.warn("Product {} change could not be applied to the write-behind cart of user {}", productId, userId);
+        return false;
+    }
+
+    /**
+     * ✅ Drop an expired cart from Redis and the journal so the flusher cannot resurrect it
+     */
+    public void remove(UUID userId) {
+        redisTemplate.delete(cartKey(userId));
+        redisTemplate.opsForZSet().remove(DIRTY_KEY, userId.toString());
+    }
+
+    // ==================== JOURNAL (used by the flusher) ====================
+
+    /**
+     * Oldest dirty carts first, with the time of their first unflushed write
+     */
+    public Set<ZSetOperations.TypedTuple<String>> dirtyBatch(int size) {
+        Set<ZSetOperations.TypedTuple<String>> batch = redisTemplate.opsForZSet().rangeWithScores(DIRTY_KEY, 0, size - 1);
+        return batch != null ? batch : Set.of();
+    }
+
+    public long dirtyCount() {
+        Long count = redisTemplate.opsForZSet().zCard(DIRTY_KEY);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Current cart and its revision, or empty if the hash expired before it was flushed
+     */
+    public Optional<Snapshot> snapshot(UUID userId) {
+        Map<Object, Object> hash = redisTemplate.opsForHash().entries(cartKey(userId));
+        if (hash.isEmpty()) {
+            return Optional.empty();
+        }
+        Map<String, String> fields = stringMap(hash);
+        return Optional.of(new Snapshot(toCart(fields), fields.getOrDefault(REV, "0")));
+    }
+
+    /**
+     * @return true if the cart left the journal, false if it was written again meanwhile
+     */
+    public boolean markClean(UUID userId, String rev) {
+        Long removed = redisTemplate.execute(MARK_CLEAN, List.of(cartKey(userId), DIRTY_KEY),
+                rev, userId.toString(), String.valueOf(ttl.toSeconds()));
+        return removed != null && removed > 0;
+    }
+
+    public record Snapshot(ShoppingCart cart, String rev) {
+    }
+
+    // ==================== INTERNALS ====================
+
+    private ShoppingCart mutate(UUID userId, List<List<String>> operations) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(LocalDateTime.now().toString());
+        args.add(userId.toString());
+        operations.forEach(args::addAll);
+
+        List<String> keys = List.of(cartKey(userId), DIRTY_KEY);
+        List<?> result = redisTemplate.execute(MUTATE, keys, args.toArray());
+        if (result == null) {
+            // not in Redis yet - load it from Mongo (or create it) and apply once more
+            getOrCreate(userId);
+            result = redisTemplate.execute(MUTATE, keys, args.toArray());
+        }
+        if (result == null) {
+            throw new IllegalStateException("Cart for user " + userId + " could not be loaded into Redis");
+        }
+        return toCart(pairs(result));
+    }
+
+    private boolean load(ShoppingCart cart, boolean dirty) {
+        List<String> args = new ArrayList<>();
+        args.add(String.valueOf(ttl.toSeconds()));
+        args.add(dirty ? "1" : "0");
+        args.add(String.valueOf(System.currentTimeMillis()));
+        args.add(cart.getUserId().toString());
+        toFields(cart).forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        args.add(REV);
+        args.add(String.valueOf(cart.getRev() != null ? cart.getRev() : 0L));
+        Long loaded = redisTemplate.execute(LOAD, List.of(cartKey(cart.getUserId()), DIRTY_KEY), args.toArray());
+        return loaded != null && loaded > 0;
+    }
+
+    private List<String> operation(String op, UUID productId, Integer quantity, BigDecimal price) {
+        String itemJson = "";
+        if (OP_ADD.equals(op)) {
+            itemJson = write(CartItem.builder()
+                    .id(UUID.randomUUID())
+                    .productId(productId)
+                    .price(price)
+                    .addedAt(LocalDateTime.now())
+                    .build());
+        }
+        if (!OP_REMOVE.equals(op) && (quantity == null || quantity < 1)) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+        return List.of(op, productId.toString(), String.valueOf(quantity), itemJson);
+    }
+
+    /**
+     * Cart to hash fields (without {@code rev})
+     */
+    Map<String, String> toFields(ShoppingCart cart) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put(META, write(ShoppingCart.builder()
+                .id(cart.getId())
+                .userId(cart.getUserId())
+                .createdAt(cart.getCreatedAt())
+                .expiresAt(cart.getExpiresAt())
+                .build()));
+        if (cart.getUpdatedAt() != null) {
+            fields.put(UPDATED_AT, cart.getUpdatedAt().toString());
+        }
+        if (cart.getItems() != null) {
+            for (CartItem item : cart.getItems()) {
+                fields.put(ITEM_PREFIX + item.getProductId(), write(item));
+                fields.put(QTY_PREFIX + item.getProductId(), String.valueOf(item.getQuantity()));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Hash fields back to a cart; items ordered by when they were added
+     */
+    ShoppingCart toCart(Map<String, String> fields) {
+        ShoppingCart cart = read(fields.get(META), ShoppingCart.class);
+        String updatedAt = fields.get(UPDATED_AT);
+        cart.setUpdatedAt(updatedAt != null ? LocalDateTime.parse(updatedAt) : cart.getCreatedAt());
+        if (cart.getUpdatedAt() != null) {
+            // the Lua scripts only move updatedAt; expiry follows the last change
+            cart.setExpiresAt(ShoppingCart.expiresAfter(cart.getUpdatedAt()));
+        }
+
+        List<CartItem> items = new ArrayList<>();
+        fields.forEach((field, value) -> {
+            if (field.startsWith(ITEM_PREFIX)) {
+                CartItem item = read(value, CartItem.class);
+                String quantity = fields.get(QTY_PREFIX + field.substring(ITEM_PREFIX.length()));
+                item.setQuantity(quantity != null ? Integer.parseInt(quantity) : 0);
+                item.setCartId(cart.getId());
+                items.add(item);
+            }
+        });
+        items.sort(Comparator.comparing(CartItem::getAddedAt, Comparator.nullsLast(Comparator.naturalOrder())));
+        cart.setItems(items);
+        cart.setRev(Long.parseLong(fields.getOrDefault(REV, "0")));
+        return cart;
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize cart field", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to deserialize cart field", e);
+        }
+    }
+
+    private static String cartKey(UUID userId) {
+        return CART_KEY_PREFIX + userId;
+    }
+
+    private static Map<String, String> stringMap(Map<Object, Object> hash) {
+        Map<String, String> fields = new HashMap<>();
+        hash.forEach((field, value) -> fields.put(String.valueOf(field), String.valueOf(value)));
+        return fields;
+    }
+
+    private static Map<String, String> pairs(List<?> flat) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            fields.put(String.valueOf(flat.get(i)), String.valueOf(flat.get(i + 1)));
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,191 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.Ecommerce.Cart.Service.Services.Kafka.ShoppingCartKafkaService;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.aggregation.ArithmeticOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * ✅ Incremental expiry of shopping carts.
+ *
+ * Replaces the midnight purge that loaded every expired cart at once and cleared the whole
+ * {@code shoppingCarts} cache. Each run deletes expired carts by id in batches of
+ * {@code batch-size} (at most {@code max-batches} per run), publishes {@code cart-abandoned}
+ * for the deleted carts that still held items and evicts only those users' cache entries.
+ * Expiry slides: every change moves {@code expiresAt} to {@link ShoppingCart#IDLE_LIFETIME}
+ * after it, so only carts left untouched that long are swept.
+ *
+ * A TTL index on {@code expiresAt} with a grace period backs the sweeper up: it removes carts
+ * the sweeper never got to, without events, so it only fires well after the sweeper should have.
+ */
+@Component
+@Slf4j
+public class ExpiredCartSweeper {
+
+    private final MongoTemplate mongoTemplate;
+    private final ShoppingCartKafkaService cartKafkaService;
+    private final CacheManager cacheManager;
+    private final CartWriteBehindStore writeBehindStore;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration ttlGrace;
+
+    public ExpiredCartSweeper(MongoTemplate mongoTemplate,
+                              ShoppingCartKafkaService cartKafkaService,
+                              CacheManager cacheManager,
+                              CartWriteBehindStore writeBehindStore,
+                              MeterRegistry meterRegistry,
+                              @Value("${cart.cleanup.batch-size:500}") int batchSize,
+                              @Value("${cart.cleanup.max-batches:20}") int maxBatches,
+                              @Value("${cart.cleanup.ttl-grace-hours:72}") long ttlGraceHours) {
+        this.mongoTemplate = mongoTemplate;
+        this.cartKafkaService = cartKafkaService;
+        this.cacheManager = cacheManager;
+        this.writeBehindStore = writeBehindStore;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.ttlGrace = Duration.ofHours(ttlGraceHours);
+    }
+
+    /**
+     * ✅ Align expiry with the last change, then create the TTL backstop index - which also
+     * serves the sweeper's range query on expiresAt
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureExpiryIndex() {
+        try {
+            // carts written while expiresAt was fixed at creation + 7 days: move it to updatedAt + lifetime
+            long moved = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("updatedAt").exists(true).andOperator(Criteria.expr(
+                            ComparisonOperators.Lt.valueOf("expiresAt").lessThan(ArithmeticOperators.Add
+                                    .valueOf("updatedAt").add(ShoppingCart.IDLE_LIFETIME.toMillis()))))),
+                    AggregationUpdate.update().set("expiresAt").toValue(ArithmeticOperators.Add
+                            .valueOf("updatedAt").add(ShoppingCart.IDLE_LIFETIME.toMillis())),
+                    ShoppingCart.class).getModifiedCount();
+            if (moved > 0) {
+                log.info("Moved expiresAt of {} carts to their last change + {}", moved, ShoppingCart.IDLE_LIFETIME);
+            }
+        } catch (Exception e) {
+            log.warn("Could not align shopping_carts.expiresAt with updatedAt: {}", e.getMessage());
+        }
+        try {
+            mongoTemplate.indexOps(ShoppingCart.class).ensureIndex(new Index()
+                    .on("expiresAt", Sort.Direction.ASC)
+                    .named("expiresAt_ttl")
+                    .expire(ttlGrace));
+        } catch (Exception e) {
+            log.warn("Could not create TTL index on shopping_carts.expiresAt: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * ✅ Delete expired carts in bounded batches; returns how many were removed.
+     * A cart is expired when expiresAt has passed and it has not changed for {@link ShoppingCart#IDLE_LIFETIME}.
+     */
+    public int sweep() {
+        LocalDateTime now = LocalDateTime.now();
+        int removed = 0;
+        int abandoned = 0;
+
+        for (int round = 0; round < maxBatches; round++) {
+            Query expired = Query.query(expired(now))
+                    .with(Sort.by(Sort.Direction.ASC, "expiresAt"))
+                    .limit(batchSize);
+            List<ShoppingCart> batch = mongoTemplate.find(expired, ShoppingCart.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            // re-check expiry so a cart changed since the read is kept
+            List<ShoppingCart> deleted = delete(batch, now);
+            for (ShoppingCart cart : deleted) {
+                if (cart.getItems() != null && !cart.getItems().isEmpty()) {
+                    publishAbandoned(cart, now);
+                    abandoned++;
+                }
+                evict(cart.getUserId());
+            }
+            removed += deleted.size();
+
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (removed > 0) {
+            meterRegistry.counter("cart.cleanup.removed").increment(removed);
+            meterRegistry.counter("cart.cleanup.abandoned").increment(abandoned);
+            log.info("Cleaned up {} expired carts ({} abandoned with items)", removed, abandoned);
+        }
+        return removed;
+    }
+
+    private static Criteria expired(LocalDateTime now) {
+        return new Criteria().andOperator(
+                Criteria.where("expiresAt").lt(now),
+                new Criteria().orOperator(
+                        Criteria.where("updatedAt").lt(now.minus(ShoppingCart.IDLE_LIFETIME)),
+                        Criteria.where("updatedAt").exists(false)));
+    }
+
+    /**
+     * Delete the batch under the expiry guard; returns the carts that were actually deleted
+     */
+    private List<ShoppingCart> delete(List<ShoppingCart> batch, LocalDateTime now) {
+        List<UUID> ids = batch.stream().map(ShoppingCart::getId).toList();
+        long deletedCount = mongoTemplate.remove(
+                Query.query(Criteria.where("_id").in(ids).andOperator(expired(now))), ShoppingCart.class)
+                .getDeletedCount();
+        if (deletedCount == ids.size()) {
+            return batch;
+        }
+
+        Query survivors = Query.query(Criteria.where("_id").in(ids));
+        survivors.fields().include("_id");
+        Set<UUID> kept = mongoTemplate.find(survivors, ShoppingCart.class).stream()
+                .map(ShoppingCart::getId)
+                .collect(Collectors.toSet());
+        return batch.stream().filter(cart -> !kept.contains(cart.getId())).toList();
+    }
+
+    private void publishAbandoned(ShoppingCart cart, LocalDateTime abandonedAt) {
+        try {
+            cartKafkaService.publishCartAbandoned(cart, abandonedAt);
+        } catch (Exception e) {
+            log.error("Failed to publish cart abandoned event for cart: {}", cart.getId(), e);
+        }
+    }
+
+    private void evict(UUID userId) {
+        Cache cache = cacheManager.getCache("shoppingCarts");
+        if (cache != null) {
+            cache.evict(userId.toString());
+        }
+        if (writeBehindStore.isEnabled()) {
+            writeBehindStore.remove(userId);
+        }
+    }
+}
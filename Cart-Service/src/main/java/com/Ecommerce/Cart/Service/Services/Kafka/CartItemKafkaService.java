@@ -7,21 +7,20 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 
 /**
- * Service for sending CartItem events to Kafka topics
+ * Service for sending CartItem events to Kafka topics, through the {@link CartOutbox}
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class CartItemKafkaService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CartOutbox outbox;
     private final ObjectMapper objectMapper;
 
     /**
@@ -29,8 +28,8 @@ public class CartItemKafkaService {
      */
     public void publishCartItemAdded(CartItem cartItem, UUID ProductId) {
         CartItemEvents.CartItemAddedEvent event = new CartItemEvents.CartItemAddedEvent(cartItem, ProductId);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_ITEM_ADDED, cartItem.getCartId().toString(), event);
-        log.info("Published cart item added event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_ITEM_ADDED, cartItem.getCartId().toString(), event);
+        log.info("Recorded cart item added event: {}", event);
     }
 
     /**
@@ -38,8 +37,8 @@ public class CartItemKafkaService {
      */
     public void publishCartItemUpdated(CartItem cartItem, int oldQuantity, BigDecimal oldPrice) {
         CartItemEvents.CartItemUpdatedEvent event = new CartItemEvents.CartItemUpdatedEvent(cartItem, oldQuantity, oldPrice);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_ITEM_UPDATED, cartItem.getCartId().toString(), event);
-        log.info("Published cart item updated event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_ITEM_UPDATED, cartItem.getCartId().toString(), event);
+        log.info("Recorded cart item updated event: {}", event);
     }
 
     /**
@@ -47,8 +46,8 @@ public class CartItemKafkaService {
      */
     public void publishCartItemRemoved(CartItem cartItem, String removalReason) {
         CartItemEvents.CartItemRemovedEvent event = new CartItemEvents.CartItemRemovedEvent(cartItem, removalReason);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_ITEM_REMOVED, cartItem.getCartId().toString(), event);
-        log.info("Published cart item removed event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_ITEM_REMOVED, cartItem.getCartId().toString(), event);
+        log.info("Recorded cart item removed event: {}", event);
     }
 
     /**
@@ -56,8 +55,8 @@ public class CartItemKafkaService {
      */
     public void publishCartItemQuantityChanged(CartItem cartItem, int oldQuantity) {
         CartItemEvents.CartItemQuantityChangedEvent event = new CartItemEvents.CartItemQuantityChangedEvent(cartItem, oldQuantity);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_ITEM_QUANTITY_CHANGED, cartItem.getCartId().toString(), event);
-        log.info("Published cart item quantity changed event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_ITEM_QUANTITY_CHANGED, cartItem.getCartId().toString(), event);
+        log.info("Recorded cart item quantity changed event: {}", event);
     }
 
     /**
@@ -65,8 +64,8 @@ public class CartItemKafkaService {
      */
     public void publishCartItemPriceChanged(CartItem cartItem, BigDecimal oldPrice, String reason) {
         CartItemEvents.CartItemPriceChangedEvent event = new CartItemEvents.CartItemPriceChangedEvent(cartItem, oldPrice, reason);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_ITEM_PRICE_CHANGED, cartItem.getCartId().toString(), event);
-        log.info("Published cart item price changed event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_ITEM_PRICE_CHANGED, cartItem.getCartId().toString(), event);
+        log.info("Recorded cart item price changed event: {}", event);
     }
 
     /**
@@ -74,8 +73,8 @@ public class CartItemKafkaService {
      */
     public void publishCartItemOutOfStock(CartItem cartItem, int availableQuantity) {
         CartItemEvents.CartItemOutOfStockEvent event = new CartItemEvents.CartItemOutOfStockEvent(cartItem, availableQuantity);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_ITEM_QUANTITY_CHANGED, cartItem.getCartId().toString(), event);
-        log.info("Published cart item out of stock event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_ITEM_QUANTITY_CHANGED, cartItem.getCartId().toString(), event);
+        log.info("Recorded cart item out of stock event: {}", event);
     }
 
 
@@ -0,0 +1,74 @@
+package com.Ecommerce.Cart.Service.Services.Kafka;
+
+import com.Ecommerce.Cart.Service.Models.OutboxEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * ✅ Records Kafka events in the {@code cart_outbox} collection instead of sending them.
+ *
+ * The insert is a local Mongo write issued by the same call that changed the cart - and part of
+ * its transaction when {@code cart.outbox.transactional} is on - so a request never waits on
+ * Kafka and an event is never published for a change that did not happen.
+ * {@link CartOutboxRelay} publishes the recorded events.
+ *
+ * Inside a transaction a failed insert is rethrown and rolls the change back with it. Without
+ * one the change is already stored, so the failure is logged and counted in
+ * {@code cart.outbox.append.errors} instead of failing a request whose change was applied.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class CartOutbox {
+
+    /** Same mapper the Kafka JsonSerializer uses, so the published JSON is unchanged */
+    static final ObjectMapper PAYLOAD_MAPPER = JacksonUtils.enhancedObjectMapper();
+
+    private final MongoTemplate mongoTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * ✅ Record an event for {@code topic}; returns its id, or null when it could not be recorded
+     * outside a transaction
+     */
+    public UUID append(String topic, String key, Object event) {
+        try {
+            OutboxEvent entry = OutboxEvent.builder()
+                    .id(UUID.randomUUID())
+                    .topic(topic)
+                    .messageKey(key)
+                    .payload(toJson(event))
+                    .createdAt(LocalDateTime.now())
+                    .build();
+            mongoTemplate.insert(entry);
+            log.debug("Recorded {} event {} in the outbox", topic, entry.getId());
+            return entry.getId();
+        } catch (RuntimeException e) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                throw e;
+            }
+            meterRegistry.counter("cart.outbox.append.errors", "topic", topic).increment();
+            log.error("Could not record {} event for key {} - the change is stored but the event is lost",
+                    topic, key, e);
+            return null;
+        }
+    }
+
+    private static String toJson(Object event) {
+        try {
+            return PAYLOAD_MAPPER.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize event " + event.getClass().getSimpleName(), e);
+        }
+    }
+}
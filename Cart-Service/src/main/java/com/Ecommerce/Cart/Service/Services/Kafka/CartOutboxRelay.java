@@ -0,0 +1,313 @@
+package com.Ecommerce.Cart.Service.Services.Kafka;
+
+import com.Ecommerce.Cart.Service.Models.OutboxEvent;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.cfg.JsonNodeFeature;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ✅ Outbox relay: publishes the events {@link CartOutbox} recorded, oldest first, in batches of
+ * {@code batch-size} every {@code relay-interval-ms}.
+ *
+ * Each batch is claimed for {@code lease-ms} before it is sent, so several instances can relay
+ * the same outbox without publishing an event twice; a claim left by a crashed instance simply
+ * expires. A batch is sent one event per message key at a time - different keys go out together -
+ * then the acknowledged events are deleted in one write and the failed ones released for the next
+ * run. Once an event fails, the later events of its key are held back for the rest of the run,
+ * so a key's events are never published out of order. Every record carries the outbox id in the
+ * {@value #EVENT_ID_HEADER} header - a relay crash between send and delete republishes with the
+ * same id. Metrics:
+ * <ul>
+ *   <li>{@code cart.outbox.pending} - events waiting in the outbox</li>
+ *   <li>{@code cart.outbox.publish.lag} - time from recording an event to its acknowledgement</li>
+ *   <li>{@code cart.outbox.published}, {@code cart.outbox.errors}</li>
+ * </ul>
+ */
+@Component
+@Slf4j
+public class CartOutboxRelay {
+
+    public static final String EVENT_ID_HEADER = "eventId";
+
+    /** Bounds one run when events are recorded faster than they are relayed */
+    private static final int MAX_BATCHES_PER_RUN = 20;
+
+    private final MongoTemplate mongoTemplate;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final MeterRegistry meterRegistry;
+    private final long intervalMs;
+    private final int batchSize;
+    private final long leaseMs;
+    private final long sendTimeoutMs;
+
+    /** Payloads are re-read as trees with decimals kept exactly, so amounts are sent as recorded */
+    private final ObjectMapper payloadReader = CartOutbox.PAYLOAD_MAPPER.copy()
+            .enable(DeserializationFeature.USE_BIG_DECIMAL_FOR_FLOATS)
+            .configure(JsonNodeFeature.STRIP_TRAILING_BIGDECIMAL_ZEROES, false);
+
+    private final AtomicBoolean relaying = new AtomicBoolean();
+    private final AtomicLong pending = new AtomicLong();
+    private final Timer publishLag;
+
+    private volatile ScheduledExecutorService executor;
+
+    public CartOutboxRelay(MongoTemplate mongoTemplate,
+                           KafkaTemplate<String, Object> kafkaTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${cart.outbox.relay-interval-ms:250}") long intervalMs,
+                           @Value("${cart.outbox.batch-size:200}") int batchSize,
+                           @Value("${cart.outbox.lease-ms:30000}") long leaseMs,
+                           @Value("${cart.outbox.send-timeout-ms:10000}") long sendTimeoutMs) {
+        this.mongoTemplate = mongoTemplate;
+        this.kafkaTemplate = kafkaTemplate;
+        this.meterRegistry = meterRegistry;
+        this.intervalMs = intervalMs;
+        this.batchSize = batchSize;
+        this.leaseMs = leaseMs;
+        this.sendTimeoutMs = sendTimeoutMs;
+
+        Gauge.builder("cart.outbox.pending", pending, AtomicLong::get)
+                .description("Cart events recorded and not yet published to Kafka")
+                .register(meterRegistry);
+        this.publishLag = Timer.builder("cart.outbox.publish.lag")
+                .description("Time from recording a cart event until Kafka acknowledged it")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            mongoTemplate.indexOps(OutboxEvent.class).ensureIndex(new Index()
+                    .on("createdAt", Sort.Direction.ASC)
+                    .named("createdAt"));
+        } catch (Exception e) {
+            log.warn("Could not create index on cart_outbox.createdAt: {}", e.getMessage());
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cart-outbox-relay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::relay, 0, intervalMs, TimeUnit.MILLISECONDS);
+        log.info("Cart outbox relay started: interval={}ms, batchSize={}", intervalMs, batchSize);
+    }
+
+    /**
+     * ✅ Publish what the outbox holds; returns the number of events published
+     */
+    public int relay() {
+        if (!relaying.compareAndSet(false, true)) {
+            return 0;
+        }
+        int published = 0;
+        Set<String> failedKeys = new HashSet<>();
+        try {
+            for (int round = 0; round < MAX_BATCHES_PER_RUN; round++) {
+                List<OutboxEvent> batch = claimBatch();
+                if (batch.isEmpty()) {
+                    break;
+                }
+                int sent = publish(batch, failedKeys);
+                published += sent;
+                // nothing got through - the rest waits for the next run
+                if (batch.size() < batchSize || sent == 0) {
+                    break;
+                }
+            }
+            pending.set(mongoTemplate.estimatedCount(OutboxEvent.class));
+        } catch (Exception e) {
+            meterRegistry.counter("cart.outbox.errors").increment();
+            log.error("Outbox relay run failed, events stay in the outbox for the next attempt", e);
+        } finally {
+            relaying.set(false);
+        }
+        return published;
+    }
+
+    /**
+     * Claim the oldest unclaimed events for this run; only the ones the claim actually won are returned
+     */
+    private List<OutboxEvent> claimBatch() {
+        LocalDateTime now = LocalDateTime.now();
+        Criteria unclaimed = new Criteria().orOperator(
+                Criteria.where("claimedUntil").exists(false),
+                Criteria.where("claimedUntil").lt(now));
+
+        Query candidates = Query.query(unclaimed)
+                .with(Sort.by(Sort.Direction.ASC, "createdAt"))
+                .limit(batchSize);
+        candidates.fields().include("_id");
+        List<UUID> ids = mongoTemplate.find(candidates, OutboxEvent.class).stream()
+                .map(OutboxEvent::getId)
+                .toList();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String claim = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(ids).andOperator(unclaimed)),
+                new Update().set("claimedBy", claim).set("claimedUntil", now.plus(leaseMs, ChronoUnit.MILLIS)),
+                OutboxEvent.class);
+        return mongoTemplate.find(Query.query(Criteria.where("_id").in(ids).and("claimedBy").is(claim))
+                .with(Sort.by(Sort.Direction.ASC, "createdAt")), OutboxEvent.class);
+    }
+
+    /**
+     * Send a batch in rounds of one event per key; a key that fails is added to {@code failedKeys}
+     * and its remaining events go back to the outbox unsent
+     */
+    private int publish(List<OutboxEvent> batch, Set<String> failedKeys) {
+        Map<String, Deque<OutboxEvent>> byKey = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byKey.computeIfAbsent(event.getMessageKey(), key -> new ArrayDeque<>()).add(event);
+        }
+
+        List<UUID> sent = new ArrayList<>();
+        List<UUID> held = new ArrayList<>();
+        while (!byKey.isEmpty()) {
+            List<OutboxEvent> round = new ArrayList<>(byKey.size());
+            Iterator<Map.Entry<String, Deque<OutboxEvent>>> keys = byKey.entrySet().iterator();
+            while (keys.hasNext()) {
+                Map.Entry<String, Deque<OutboxEvent>> key = keys.next();
+                if (failedKeys.contains(key.getKey())) {
+                    key.getValue().forEach(event -> held.add(event.getId()));
+                    keys.remove();
+                    continue;
+                }
+                round.add(key.getValue().poll());
+                if (key.getValue().isEmpty()) {
+                    keys.remove();
+                }
+            }
+            if (round.isEmpty()) {
+                break;
+            }
+            awaitRound(round, sent, failedKeys);
+        }
+
+        if (!held.isEmpty()) {
+            unclaim(held);
+        }
+        if (!sent.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("_id").in(sent)), OutboxEvent.class);
+            meterRegistry.counter("cart.outbox.published").increment(sent.size());
+        }
+        return sent.size();
+    }
+
+    private void awaitRound(List<OutboxEvent> round, List<UUID> sent, Set<String> failedKeys) {
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(round.size());
+        for (OutboxEvent event : round) {
+            sends.add(send(event));
+        }
+
+        for (int i = 0; i < round.size(); i++) {
+            OutboxEvent event = round.get(i);
+            try {
+                sends.get(i).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+                sent.add(event.getId());
+                publishLag.record(Duration.between(event.getCreatedAt(), LocalDateTime.now()));
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                release(event, "interrupted");
+            } catch (ExecutionException e) {
+                release(event, String.valueOf(e.getCause()));
+            } catch (TimeoutException e) {
+                release(event, "no acknowledgement within " + sendTimeoutMs + "ms");
+            }
+            failedKeys.add(event.getMessageKey());
+        }
+    }
+
+    private CompletableFuture<SendResult<String, Object>> send(OutboxEvent event) {
+        try {
+            ProducerRecord<String, Object> record = new ProducerRecord<>(
+                    event.getTopic(), event.getMessageKey(), payloadReader.readTree(event.getPayload()));
+            record.headers().add(EVENT_ID_HEADER, event.getId().toString().getBytes(StandardCharsets.UTF_8));
+            return kafkaTemplate.send(record);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Hand a failed event back to the outbox for the next run
+     */
+    private void release(OutboxEvent event, String error) {
+        meterRegistry.counter("cart.outbox.errors").increment();
+        log.warn("Publishing {} event {} failed (attempt {}): {}",
+                event.getTopic(), event.getId(), event.getAttempts() + 1, error);
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(event.getId())),
+                new Update().inc("attempts", 1).set("lastError", error)
+                        .unset("claimedBy").unset("claimedUntil"),
+                OutboxEvent.class);
+    }
+
+    /**
+     * Hand events held back behind a failed one to the outbox unchanged, for the next run
+     */
+    private void unclaim(List<UUID> ids) {
+        log.debug("Holding back {} outbox events behind a failed event of the same key", ids.size());
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(ids)),
+                new Update().unset("claimedBy").unset("claimedUntil"),
+                OutboxEvent.class);
+    }
+
+    @PreDestroy
+    public void stop() {
+        ScheduledExecutorService current = executor;
+        if (current == null) {
+            return;
+        }
+        current.shutdown();
+        try {
+            current.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
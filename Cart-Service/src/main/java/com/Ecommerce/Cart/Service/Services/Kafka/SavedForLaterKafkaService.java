@@ -5,20 +5,19 @@ import com.Ecommerce.Cart.Service.Events.SavedForLaterEvents;
 import com.Ecommerce.Cart.Service.Models.SavedForLater;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.UUID;
 
 /**
- * Service for sending SavedForLater events to Kafka topics
+ * Service for sending SavedForLater events to Kafka topics, through the {@link CartOutbox}
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class SavedForLaterKafkaService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CartOutbox outbox;
 
     /**
      * Publish an event when an item is saved for later
@@ -27,10 +26,10 @@ public class SavedForLaterKafkaService {
         SavedForLaterEvents.ItemSavedForLaterEvent event =
                 new SavedForLaterEvents.ItemSavedForLaterEvent(savedItem);
 
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_ITEM_SAVED_FOR_LATER,
+        outbox.append(KafkaProducerConfig.TOPIC_ITEM_SAVED_FOR_LATER,
                 savedItem.getUserId().toString(), event);
 
-        log.info("Published item saved for later event: {}", event);
+        log.info("Recorded item saved for later event: {}", event);
     }
 
 
@@ -42,9 +41,9 @@ public class SavedForLaterKafkaService {
         SavedForLaterEvents.SavedItemRemovedEvent event =
                 new SavedForLaterEvents.SavedItemRemovedEvent(savedItem, removalReason);
 
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_SAVED_ITEM_REMOVED,
+        outbox.append(KafkaProducerConfig.TOPIC_SAVED_ITEM_REMOVED,
                 savedItem.getUserId().toString(), event);
 
-        log.info("Published saved item removed event: {}", event);
+        log.info("Recorded saved item removed event: {}", event);
     }
 }
\ No newline at end of file
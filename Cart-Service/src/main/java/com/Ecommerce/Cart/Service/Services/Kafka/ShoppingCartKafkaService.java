@@ -5,7 +5,6 @@ import com.Ecommerce.Cart.Service.Events.ShoppingCartEvents;
 import com.Ecommerce.Cart.Service.Models.ShoppingCart;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
@@ -13,22 +12,22 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 /**
- * Service for sending ShoppingCart events to Kafka topics
+ * Service for sending ShoppingCart events to Kafka topics, through the {@link CartOutbox}
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ShoppingCartKafkaService {
 
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final CartOutbox outbox;
 
     /**
      * Publish an event when a shopping cart is created
      */
     public void publishCartCreated(ShoppingCart cart) {
         ShoppingCartEvents.CartCreatedEvent event = new ShoppingCartEvents.CartCreatedEvent(cart);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_CREATED, cart.getUserId().toString(), event);
-        log.info("Published cart created event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_CREATED, cart.getUserId().toString(), event);
+        log.info("Recorded cart created event: {}", event);
     }
 
     /**
@@ -36,8 +35,8 @@ public class ShoppingCartKafkaService {
      */
     public void publishCartUpdated(ShoppingCart cart) {
         ShoppingCartEvents.CartUpdatedEvent event = new ShoppingCartEvents.CartUpdatedEvent(cart);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_UPDATED, cart.getUserId().toString(), event);
-        log.info("Published cart updated event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_UPDATED, cart.getUserId().toString(), event);
+        log.info("Recorded cart updated event: {}", event);
     }
 
     /**
@@ -45,8 +44,8 @@ public class ShoppingCartKafkaService {
      */
     public void publishCartDeleted(ShoppingCart cart, String deletionReason) {
         ShoppingCartEvents.CartDeletedEvent event = new ShoppingCartEvents.CartDeletedEvent(cart, deletionReason);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_DELETED, cart.getUserId().toString(), event);
-        log.info("Published cart deleted event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_DELETED, cart.getUserId().toString(), event);
+        log.info("Recorded cart deleted event: {}", event);
     }
 
     /**
@@ -54,8 +53,8 @@ public class ShoppingCartKafkaService {
      */
     public void publishCartAbandoned(ShoppingCart cart, LocalDateTime abandonedAt) {
         ShoppingCartEvents.CartAbandonedEvent event = new ShoppingCartEvents.CartAbandonedEvent(cart, abandonedAt);
-        kafkaTemplate.send(KafkaProducerConfig.TOPIC_CART_ABANDONED, cart.getUserId().toString(), event);
-        log.info("Published cart abandoned event: {}", event);
+        outbox.append(KafkaProducerConfig.TOPIC_CART_ABANDONED, cart.getUserId().toString(), event);
+        log.info("Recorded cart abandoned event: {}", event);
     }
 
 
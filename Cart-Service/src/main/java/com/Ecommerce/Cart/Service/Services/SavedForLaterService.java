@@ -39,6 +39,7 @@ public class SavedForLaterService {
      * Save an item for later - EVICT cache to avoid casting issues
      * ✅ CRITICAL FIX: Use @CacheEvict instead of @CachePut to avoid casting error
      */
+    @Transactional
     @CacheEvict(value = "savedItems", key = "#userId.toString()")
     public SavedForLater saveForLater(UUID userId, UUID productId) {
         log.debug("Saving item for later: userId={}, productId={}", userId, productId);
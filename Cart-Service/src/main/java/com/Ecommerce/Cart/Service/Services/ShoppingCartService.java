@@ -7,32 +7,61 @@ import com.Ecommerce.Cart.Service.Payload.Request.AddItemRequest;
 import com.Ecommerce.Cart.Service.Payload.Request.BulkUpdateItem;
 import com.Ecommerce.Cart.Service.Payload.Request.BulkUpdateRequest;
 import com.Ecommerce.Cart.Service.Repositories.ShoppingCartRepository;
+import com.Ecommerce.Cart.Service.Services.Kafka.ShoppingCartKafkaService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-public class ShoppingCartService {
+public class ShoppingCartService implements SmartInitializingSingleton {
+    private static final int LINE_UPDATE_ATTEMPTS = 3;
+
     private final ShoppingCartRepository cartRepository;
+    private final MongoTemplate mongoTemplate;
+    private final ShoppingCartKafkaService cartKafkaService;
+    private final CartWriteBehindStore writeBehindStore;
+    private final CartWriteBehindFlusher writeBehindFlusher;
 
     /**
      * ✅ FIXED: Enhanced getOrCreateCart with better logging and cache handling
      */
-    @Cacheable(value = "shoppingCarts", key = "#userId.toString()")
+    @Cacheable(value = "shoppingCarts", key = "#userId.toString()", condition = "!@cartWriteBehindStore.enabled")
+    @Transactional
     public ShoppingCart getOrCreateCart(UUID userId) {
         log.debug("Getting or creating cart for userId: {}", userId);
+        if (writeBehindStore.isEnabled()) {
+            return writeBehindStore.getOrCreate(userId);
+        }
 
         Optional<ShoppingCart> existingCart = cartRepository.findByUserId(userId);
 
@@ -53,18 +82,7 @@ public class ShoppingCartService {
         } else {
             log.info("No existing cart found for userId: {}. Creating new cart.", userId);
 
-            // ✅ DEBUGGING: Check if cart exists with different UUID format
-            debugCartSearch(userId);
-
-            ShoppingCart newCart = ShoppingCart.builder()
-                    .id(UUID.randomUUID())
-                    .userId(userId)
-                    .createdAt(LocalDateTime.now())
-                    .updatedAt(LocalDateTime.now())
-                    .expiresAt(LocalDateTime.now().plusDays(7))
-                    .build();
-
-            ShoppingCart savedCart = cartRepository.save(newCart);
+            ShoppingCart savedCart = cartRepository.save(newCart(userId));
             log.info("Created new cart: ID={} for userId: {}", savedCart.getId(), userId);
 
             return savedCart;
@@ -76,54 +94,76 @@ public class ShoppingCartService {
      */
     public Optional<ShoppingCart> findCartByUserId(UUID userId) {
         log.debug("Finding cart for userId: {}", userId);
+        if (writeBehindStore.isEnabled()) {
+            return writeBehindStore.find(userId);
+        }
         return cartRepository.findByUserId(userId);
     }
 
     /**
-     * ✅ DEBUGGING METHOD: Search for cart with different UUID formats
+     * ✅ Carts of many users at once: one {@code $in} query on {@code userId}, the missing carts
+     * created with one bulk insert. Reads Mongo directly, like {@link #findCartByUserId}; in
+     * write-behind mode each cart goes through the Redis store instead.
      */
-    private void debugCartSearch(UUID userId) {
-        try {
-            log.debug("Debugging cart search for UUID: {}", userId);
-
-            // Check all carts to see what exists
-            List<ShoppingCart> allCarts = cartRepository.findAll();
-            log.debug("Total carts in database: {}", allCarts.size());
-
-            // Log first few carts for comparison
-            allCarts.stream().limit(5).forEach(cart -> {
-                log.debug("Existing cart: userId='{}', id='{}', items={}",
-                        cart.getUserId(), cart.getId(),
-                        cart.getItems() != null ? cart.getItems().size() : 0);
-
-                // Check for partial matches
-                String requestedStr = userId.toString().replace("-", "");
-                String existingStr = cart.getUserId().toString().replace("-", "");
-
-                if (requestedStr.length() >= 24 && existingStr.length() >= 24) {
-                    String requestedPrefix = requestedStr.substring(0, 24);
-                    String existingPrefix = existingStr.substring(0, 24);
-
-                    if (requestedPrefix.equals(existingPrefix)) {
-                        log.warn("FOUND POTENTIAL MATCH! Requested: '{}', Existing: '{}', CartId: '{}'",
-                                userId, cart.getUserId(), cart.getId());
-                    }
-                }
-            });
+    public Map<UUID, ShoppingCart> findOrCreateCarts(Collection<UUID> userIds) {
+        Map<UUID, ShoppingCart> carts = new HashMap<>();
+        if (userIds.isEmpty()) {
+            return carts;
+        }
+        if (writeBehindStore.isEnabled()) {
+            userIds.forEach(userId -> carts.put(userId, writeBehindStore.getOrCreate(userId)));
+            return carts;
+        }
 
-        } catch (Exception e) {
-            log.error("Error during cart debugging", e);
+        findByUserIds(userIds).forEach(cart -> carts.putIfAbsent(cart.getUserId(), cart));
+        List<ShoppingCart> missing = userIds.stream()
+                .distinct()
+                .filter(userId -> !carts.containsKey(userId))
+                .map(ShoppingCartService::newCart)
+                .toList();
+        if (missing.isEmpty()) {
+            return carts;
+        }
+
+        try {
+            mongoTemplate.insertAll(missing).forEach(cart -> carts.put(cart.getUserId(), cart));
+            log.info("Created {} carts in one bulk insert", missing.size());
+        } catch (DuplicateKeyException e) {
+            // another request created some of them first - read back what now exists
+            List<UUID> racing = missing.stream().map(ShoppingCart::getUserId).toList();
+            findByUserIds(racing).forEach(cart -> carts.putIfAbsent(cart.getUserId(), cart));
+            racing.stream()
+                    .filter(userId -> !carts.containsKey(userId))
+                    .forEach(userId -> carts.put(userId, cartRepository.save(newCart(userId))));
         }
+        return carts;
+    }
+
+    private List<ShoppingCart> findByUserIds(Collection<UUID> userIds) {
+        return mongoTemplate.find(Query.query(Criteria.where("userId").in(userIds)), ShoppingCart.class);
+    }
+
+    private static ShoppingCart newCart(UUID userId) {
+        LocalDateTime now = LocalDateTime.now();
+        ShoppingCart cart = ShoppingCart.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .createdAt(now)
+                .updatedAt(now)
+                .expiresAt(ShoppingCart.expiresAfter(now))
+                .build();
+        cart.recalculateTotals();
+        return cart;
     }
 
     /**
      * ✅ FIXED: Get cart with proper error handling
      */
-    @Cacheable(value = "shoppingCarts", key = "#userId.toString()")
+    @Cacheable(value = "shoppingCarts", key = "#userId.toString()", condition = "!@cartWriteBehindStore.enabled")
     public ShoppingCart getCart(UUID userId) {
         log.debug("Getting cart for userId: {}", userId);
 
-        Optional<ShoppingCart> cart = cartRepository.findByUserId(userId);
+        Optional<ShoppingCart> cart = findCartByUserId(userId);
         if (cart.isPresent()) {
             log.debug("Found cart: ID={}, Items={}",
                     cart.get().getId(),
@@ -131,31 +171,34 @@ public class ShoppingCartService {
             return cart.get();
         } else {
             log.warn("Cart not found for userId: {}", userId);
-            debugCartSearch(userId);
             throw new ResourceNotFoundException("Cart not found for user: " + userId);
         }
     }
 
     /**
-     * ✅ Enhanced cache eviction and logging
+     * ✅ Atomic add: {@code $inc} the quantity when the product is already in the cart, otherwise
+     * {@code $push} the item guarded by {@code $ne} - never rewrites the rest of the items list.
+     * The stored total, item count and quantity move by the same delta in the same update.
      */
-    @CachePut(value = "shoppingCarts", key = "#userId.toString()")
+    @CachePut(value = "shoppingCarts", key = "#userId.toString()", condition = "!@cartWriteBehindStore.enabled")
+    @Transactional
     public ShoppingCart addItemToCart(UUID userId, UUID productId, int quantity, BigDecimal price) {
         log.debug("Adding item to cart: userId={}, productId={}, quantity={}, price={}",
                 userId, productId, quantity, price);
+        if (writeBehindStore.isEnabled()) {
+            return writtenBehind(writeBehindStore.addItem(userId, productId, quantity, price));
+        }
 
-        ShoppingCart cart = getOrCreateCart(userId);
-
-        CartItem item = CartItem.builder()
-                .id(UUID.randomUUID())
-                .productId(productId)
-                .quantity(quantity)
-                .price(price)
-                .addedAt(LocalDateTime.now())
-                .build();
-
-        cart.addItem(item);
-        ShoppingCart updatedCart = cartRepository.save(cart);
+        ShoppingCart updatedCart = incrementOrPushItem(userId, productId, quantity, price);
+        if (updatedCart == null) {
+            // no cart yet, or another request pushed the same product between both updates
+            getOrCreateCart(userId);
+            updatedCart = incrementOrPushItem(userId, productId, quantity, price);
+        }
+        if (updatedCart == null) {
+            throw new OptimisticLockingFailureException("Cart for user " + userId + " changed concurrently, retry the request");
+        }
+        publishCartUpdated(updatedCart);
 
         log.info("Added item to cart: cartId={}, total items={}, new total={}",
                 updatedCart.getId(),
@@ -169,11 +212,23 @@ public class ShoppingCartService {
         return addItemToCart(userId, request.getProductId(), request.getQuantity(), request.getPrice());
     }
 
-    @CachePut(value = "shoppingCarts", key = "#userId.toString()")
+    /**
+     * ✅ Atomic remove: {@code $pull} the product and subtract its line from the stored aggregates
+     */
+    @CachePut(value = "shoppingCarts", key = "#userId.toString()", condition = "!@cartWriteBehindStore.enabled")
+    @Transactional
     public ShoppingCart removeItemFromCart(UUID userId, UUID productId) {
-        ShoppingCart cart = getOrCreateCart(userId);
-        cart.removeItem(productId);
-        ShoppingCart updatedCart = cartRepository.save(cart);
+        if (writeBehindStore.isEnabled()) {
+            return writtenBehind(writeBehindStore.removeItem(userId, productId));
+        }
+        ShoppingCart updatedCart = updateLine(userId, productId, line -> pullItem(productId)
+                .inc("total", line.getSubtotal().negate())
+                .inc("itemCount", -1)
+                .inc("totalQuantity", -line.getQuantity()));
+        if (updatedCart == null) {
+            return getOrCreateCart(userId);
+        }
+        publishCartUpdated(updatedCart);
 
         log.info("Removed item from cart: cartId={}, remaining items={}",
                 updatedCart.getId(), updatedCart.getItems().size());
@@ -181,11 +236,36 @@ public class ShoppingCartService {
         return updatedCart;
     }
 
-    @CachePut(value = "shoppingCarts", key = "#userId.toString()")
+    /**
+     * ✅ Atomic quantity change: positional {@code $set} on the matching item plus the aggregate delta
+     */
+    @CachePut(value = "shoppingCarts", key = "#userId.toString()", condition = "!@cartWriteBehindStore.enabled")
+    @Transactional
     public ShoppingCart updateItemQuantity(UUID userId, UUID productId, int newQuantity) {
-        ShoppingCart cart = getOrCreateCart(userId);
-        cart.updateQuantity(productId, newQuantity);
-        ShoppingCart updatedCart = cartRepository.save(cart);
+        if (writeBehindStore.isEnabled()) {
+            if (newQuantity < 1) {
+                // rejected only for a product in the cart, like the Mongo path below
+                ShoppingCart cart = writeBehindStore.getOrCreate(userId);
+                if (cart.getItems().stream().anyMatch(item -> productId.equals(item.getProductId()))) {
+                    requireValidQuantity(newQuantity);
+                }
+                return cart;
+            }
+            return writtenBehind(writeBehindStore.updateQuantity(userId, productId, newQuantity));
+        }
+
+        ShoppingCart updatedCart = updateLine(userId, productId, line -> {
+            requireValidQuantity(newQuantity);
+            int delta = newQuantity - line.getQuantity();
+            return new Update().set("items.$.quantity", newQuantity)
+                    .inc("total", line.getPrice().multiply(BigDecimal.valueOf(delta)))
+                    .inc("totalQuantity", delta);
+        });
+        if (updatedCart == null) {
+            // product not in the cart (or no cart yet) - nothing to change, same as before
+            return getOrCreateCart(userId);
+        }
+        publishCartUpdated(updatedCart);
 
         log.info("Updated item quantity in cart: cartId={}, productId={}, newQuantity={}",
                 updatedCart.getId(), productId, newQuantity);
@@ -194,14 +274,20 @@ public class ShoppingCartService {
     }
 
     /**
-     * ✅ FIXED: Calculate total with better cache handling
+     * ✅ Cart total from the stored aggregate - reads only that field, no separate totals cache
      */
-    @Cacheable(value = "cartTotals", key = "#userId.toString()")
     public BigDecimal calculateCartTotal(UUID userId) {
         log.debug("Calculating cart total for userId: {}", userId);
 
-        // ✅ Use findCartByUserId to avoid creating a new cart just for total calculation
-        Optional<ShoppingCart> cartOpt = findCartByUserId(userId);
+        // ✅ Don't create a new cart just for total calculation
+        Optional<ShoppingCart> cartOpt;
+        if (writeBehindStore.isEnabled()) {
+            cartOpt = writeBehindStore.find(userId);
+        } else {
+            Query totalOnly = cartOf(userId);
+            totalOnly.fields().include("total");
+            cartOpt = Optional.ofNullable(mongoTemplate.findOne(totalOnly, ShoppingCart.class));
+        }
         if (cartOpt.isPresent()) {
             BigDecimal total = cartOpt.get().calculateTotal();
             log.debug("Cart total for userId {}: {}", userId, total);
@@ -212,61 +298,325 @@ public class ShoppingCartService {
         }
     }
 
-    @CacheEvict(value = {"shoppingCarts", "cartTotals"}, key = "#userId.toString()")
+    @CacheEvict(value = "shoppingCarts", key = "#userId.toString()")
+    @Transactional
     public void checkout(UUID userId) {
         ShoppingCart cart = getOrCreateCart(userId);
         cart.checkout();
-        cartRepository.save(cart);
+        saveCart(cart);
 
         log.info("Checked out cart: cartId={}, userId={}", cart.getId(), userId);
     }
 
-    @CacheEvict(value = "shoppingCarts", allEntries = true)
-    public void cleanupExpiredCarts() {
-        List<ShoppingCart> expiredCarts = cartRepository.findByExpiresAtBefore(LocalDateTime.now());
-        cartRepository.deleteAll(expiredCarts);
+    /**
+     * ✅ Bulk update as one ordered bulk write of targeted updates - each ADD is an {@code $inc}
+     * followed by a guarded {@code $push}, so exactly one of them applies
+     */
+    @CachePut(value = "shoppingCarts", key = "#userId.toString()", condition = "!@cartWriteBehindStore.enabled")
+    @Transactional
+    public ShoppingCart bulkUpdateCart(UUID userId, BulkUpdateRequest request) {
+        if (writeBehindStore.isEnabled()) {
+            return writtenBehind(writeBehindStore.bulkUpdate(userId, request.getItems()));
+        }
+        UUID cartId = cartIdOf(userId);
+        if (cartId == null) {
+            cartId = getOrCreateCart(userId).getId();
+        }
+        bulkOperations(userId, cartId, request.getItems()).execute();
+
+        ShoppingCart updatedCart = reconcileTotals(userId);
+        publishCartUpdated(updatedCart);
+
+        log.info("Bulk updated cart: cartId={}, operations={}",
+                updatedCart.getId(), request.getItems().size());
+
+        return updatedCart;
+    }
+
+    /**
+     * ✅ Persist a cart edited as a whole (sync merge, checkout) - into Redis in write-behind mode
+     */
+    public ShoppingCart saveCart(ShoppingCart cart) {
+        // callers may have edited items directly, the whole document is written anyway
+        cart.recalculateTotals();
+        cart.touch();
+        if (writeBehindStore.isEnabled()) {
+            return writtenBehind(writeBehindStore.replace(cart));
+        }
+        if (cart.getVersion() == null && cart.getId() != null) {
+            adoptLegacyCart(cart);
+        }
+        return cartRepository.save(cart);
+    }
+
+    /**
+     * ✅ A stored cart read before the version backfill reached it has no version, and save() would
+     * insert it as new - give the document its starting version so the save updates it instead
+     */
+    private void adoptLegacyCart(ShoppingCart cart) {
+        boolean stored = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(cart.getId()).and("version").exists(false)),
+                new Update().set("version", 0L),
+                ShoppingCart.class).getMatchedCount() > 0;
+        if (stored) {
+            cart.setVersion(0L);
+        }
+    }
 
-        log.info("Cleaned up {} expired carts", expiredCarts.size());
+    private ShoppingCart writtenBehind(ShoppingCart cart) {
+        writeBehindFlusher.onWrite();
+        publishCartUpdated(cart);
+        return cart;
     }
 
-    @CachePut(value = "shoppingCarts", key = "#userId.toString()")
-    @Transactional
-    public ShoppingCart bulkUpdateCart(UUID userId, BulkUpdateRequest request) {
-        ShoppingCart cart = getOrCreateCart(userId);
+    private BulkOperations bulkOperations(UUID userId, UUID cartId, List<BulkUpdateItem> items) {
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, ShoppingCart.class);
 
-        for (BulkUpdateItem updateItem : request.getItems()) {
+        for (BulkUpdateItem updateItem : items) {
             switch (updateItem.getOperation()) {
                 case ADD:
-                    addItemToExistingCart(cart, updateItem);
+                    operations.updateOne(itemInCart(userId, updateItem.getProductId()),
+                            new Update().inc("items.$.quantity", updateItem.getQuantity()));
+                    operations.updateOne(itemNotInCart(cartId, updateItem.getProductId()),
+                            pushItem(cartId, updateItem.getProductId(), updateItem.getQuantity(), updateItem.getPrice()));
                     break;
                 case UPDATE:
-                    updateItemInCart(cart, updateItem);
+                    requireValidQuantity(updateItem.getQuantity());
+                    operations.updateOne(itemInCart(userId, updateItem.getProductId()),
+                            new Update().set("items.$.quantity", updateItem.getQuantity()));
                     break;
                 case REMOVE:
-                    cart.removeItem(updateItem.getProductId());
+                    operations.updateOne(cartOf(userId), pullItem(updateItem.getProductId()));
                     break;
             }
         }
 
-        ShoppingCart updatedCart = cartRepository.save(cart);
-        log.info("Bulk updated cart: cartId={}, operations={}",
-                updatedCart.getId(), request.getItems().size());
+        operations.updateOne(cartOf(userId), touch(new Update()));
+        return operations;
+    }
 
+    /**
+     * Increment an existing line, or push a new one when the product is not in the cart.
+     * Returns null when neither matched (no cart, or a concurrent push of the same product).
+     */
+    private ShoppingCart incrementOrPushItem(UUID userId, UUID productId, int quantity, BigDecimal price) {
+        // common case: the line was added at this price, so the total delta is known without reading it
+        ShoppingCart updatedCart = findAndModify(lineAt(userId, productId, null, price), incrementLine(quantity, price));
+        if (updatedCart == null) {
+            // the new line carries its cart's id
+            UUID cartId = cartIdOf(userId);
+            if (cartId == null) {
+                return null;
+            }
+            updatedCart = findAndModify(itemNotInCart(cartId, productId), pushItem(cartId, productId, quantity, price)
+                    .inc("total", price.multiply(BigDecimal.valueOf(quantity)))
+                    .inc("itemCount", 1)
+                    .inc("totalQuantity", quantity));
+        }
+        if (updatedCart == null) {
+            // the line exists at another price - the cart keeps the price it was added with
+            updatedCart = updateLine(userId, productId, line -> incrementLine(quantity, line.getPrice()));
+        }
         return updatedCart;
     }
 
-    private void addItemToExistingCart(ShoppingCart cart, BulkUpdateItem updateItem) {
+    private static Update incrementLine(int quantity, BigDecimal linePrice) {
+        return new Update().inc("items.$.quantity", quantity)
+                .inc("total", linePrice.multiply(BigDecimal.valueOf(quantity)))
+                .inc("totalQuantity", quantity);
+    }
+
+    /**
+     * Read one line (positional projection, independent of cart size), then update it only while
+     * it is still in that state so the aggregate delta is exact. Retried when another request
+     * changed the line in between; returns null when the product is not in the cart.
+     */
+    private ShoppingCart updateLine(UUID userId, UUID productId, Function<CartItem, Update> change) {
+        for (int attempt = 0; attempt < LINE_UPDATE_ATTEMPTS; attempt++) {
+            Query lineQuery = itemInCart(userId, productId);
+            lineQuery.fields().position("items", 1);
+            ShoppingCart current = mongoTemplate.findOne(lineQuery, ShoppingCart.class);
+            if (current == null || current.getItems() == null || current.getItems().isEmpty()) {
+                return null;
+            }
+            CartItem line = current.getItems().get(0);
+
+            ShoppingCart updatedCart = findAndModify(
+                    lineAt(userId, productId, line.getQuantity(), line.getPrice()), change.apply(line));
+            if (updatedCart != null) {
+                return updatedCart;
+            }
+        }
+        throw new OptimisticLockingFailureException("Cart line " + productId + " of user " + userId
+                + " changed concurrently, retry the request");
+    }
+
+    /**
+     * After a bulk write: recompute the aggregates once from the items and store them, guarded
+     * by the version so a concurrent increment is never overwritten with stale numbers
+     */
+    private ShoppingCart reconcileTotals(UUID userId) {
+        for (int attempt = 0; attempt < LINE_UPDATE_ATTEMPTS; attempt++) {
+            ShoppingCart cart = cartRepository.findByUserId(userId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user: " + userId));
+            cart.recalculateTotals();
+
+            ShoppingCart updatedCart = mongoTemplate.findAndModify(
+                    Query.query(Criteria.where("_id").is(cart.getId()).and("version").is(cart.getVersion())),
+                    new Update().set("total", cart.getTotal())
+                            .set("itemCount", cart.getItemCount())
+                            .set("totalQuantity", cart.getTotalQuantity())
+                            .inc("version", 1),
+                    FindAndModifyOptions.options().returnNew(true), ShoppingCart.class);
+            if (updatedCart != null) {
+                return updatedCart;
+            }
+        }
+        throw new OptimisticLockingFailureException("Cart for user " + userId + " changed concurrently, retry the request");
+    }
+
+    private ShoppingCart findAndModify(Query query, Update update) {
+        return mongoTemplate.findAndModify(query, touch(update),
+                FindAndModifyOptions.options().returnNew(true), ShoppingCart.class);
+    }
+
+    private static Update touch(Update update) {
+        LocalDateTime now = LocalDateTime.now();
+        return update.set("updatedAt", now).set("expiresAt", ShoppingCart.expiresAfter(now)).inc("version", 1);
+    }
+
+    private static Update pushItem(UUID cartId, UUID productId, Integer quantity, BigDecimal price) {
         CartItem item = CartItem.builder()
                 .id(UUID.randomUUID())
-                .productId(updateItem.getProductId())
-                .quantity(updateItem.getQuantity())
-                .price(updateItem.getPrice())
+                .cartId(cartId)
+                .productId(productId)
+                .quantity(quantity)
+                .price(price)
                 .addedAt(LocalDateTime.now())
                 .build();
-        cart.addItem(item);
+        return new Update().push("items", item);
+    }
+
+    private static Update pullItem(UUID productId) {
+        return new Update().pull("items", Query.query(Criteria.where("productId").is(productId)));
+    }
+
+    private static Query cartOf(UUID userId) {
+        return Query.query(Criteria.where("userId").is(userId));
     }
 
-    private void updateItemInCart(ShoppingCart cart, BulkUpdateItem updateItem) {
-        cart.updateQuantity(updateItem.getProductId(), updateItem.getQuantity());
+    private static Query itemInCart(UUID userId, UUID productId) {
+        return Query.query(Criteria.where("userId").is(userId).and("items.productId").is(productId));
+    }
+
+    /**
+     * The cart holding this product's line with the given quantity and/or price (null = any)
+     */
+    private static Query lineAt(UUID userId, UUID productId, Integer quantity, BigDecimal price) {
+        Criteria line = Criteria.where("productId").is(productId);
+        if (quantity != null) {
+            line = line.and("quantity").is(quantity);
+        }
+        if (price != null) {
+            line = line.and("price").is(price);
+        }
+        return Query.query(Criteria.where("userId").is(userId).and("items").elemMatch(line));
+    }
+
+    private static Query itemNotInCart(UUID cartId, UUID productId) {
+        return Query.query(Criteria.where("_id").is(cartId).and("items.productId").ne(productId));
+    }
+
+    /**
+     * Id of the user's cart (reads only {@code _id}), null when there is none yet
+     */
+    private UUID cartIdOf(UUID userId) {
+        Query idOnly = cartOf(userId);
+        idOnly.fields().include("_id");
+        ShoppingCart cart = mongoTemplate.findOne(idOnly, ShoppingCart.class);
+        return cart != null ? cart.getId() : null;
+    }
+
+    private static void requireValidQuantity(Integer quantity) {
+        if (quantity == null || quantity < 1) {
+            throw new IllegalArgumentException("Quantity must be at least 1");
+        }
+    }
+
+    private void publishCartUpdated(ShoppingCart cart) {
+        // targeted updates bypass the Mongo save lifecycle, so the listener never sees them;
+        // a failed outbox write fails the call rather than dropping the event
+        cartKafkaService.publishCartUpdated(cart);
+    }
+
+    /**
+     * ✅ Index the cart-by-user lookup every request starts with - unique, so concurrent creation
+     * cannot leave a user with two carts; plain if existing data already has duplicates
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureUserIndex() {
+        try {
+            mongoTemplate.indexOps(ShoppingCart.class).ensureIndex(new Index()
+                    .on("userId", Sort.Direction.ASC).unique().named("userId"));
+        } catch (Exception e) {
+            log.warn("Could not create unique index on shopping_carts.userId, creating a plain one: {}", e.getMessage());
+            try {
+                mongoTemplate.indexOps(ShoppingCart.class).ensureIndex(new Index()
+                        .on("userId", Sort.Direction.ASC).named("userId"));
+            } catch (Exception retry) {
+                log.warn("Could not create index on shopping_carts.userId: {}", retry.getMessage());
+            }
+        }
+    }
+
+    /**
+     * ✅ Backfill before the web server and the Kafka listeners start, not once traffic is already flowing
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        try {
+            backfillCartVersions();
+        } catch (Exception e) {
+            // saveCart() still adopts unversioned carts one by one
+            log.warn("Could not backfill cart versions at startup: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * ✅ Carts written before the version field existed would be treated as new by save() -
+     * give them a starting version once at startup
+     */
+    public void backfillCartVersions() {
+        long updated = mongoTemplate.updateMulti(
+                Query.query(Criteria.where("version").exists(false)),
+                new Update().set("version", 0L),
+                ShoppingCart.class).getModifiedCount();
+        if (updated > 0) {
+            log.info("Initialised version on {} existing carts", updated);
+        }
+        backfillCartTotals();
+    }
+
+    /**
+     * ✅ Carts written before the stored aggregates existed - compute them once, so the
+     * incremental updates start from the right numbers
+     */
+    private void backfillCartTotals() {
+        long[] updated = {0};
+        try (Stream<ShoppingCart> legacy = mongoTemplate.stream(
+                Query.query(Criteria.where("total").exists(false)), ShoppingCart.class)) {
+            legacy.forEach(cart -> {
+                cart.recalculateTotals();
+                updated[0] += mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("_id").is(cart.getId()).and("total").exists(false)),
+                        new Update().set("total", cart.getTotal())
+                                .set("itemCount", cart.getItemCount())
+                                .set("totalQuantity", cart.getTotalQuantity()),
+                        ShoppingCart.class).getModifiedCount();
+            });
+        }
+        if (updated[0] > 0) {
+            log.info("Initialised stored totals on {} existing carts", updated[0]);
+        }
     }
-}
\ No newline at end of file
+}
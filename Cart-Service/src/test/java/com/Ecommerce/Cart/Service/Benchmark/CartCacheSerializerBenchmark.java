@@ -0,0 +1,129 @@
+package com.Ecommerce.Cart.Service.Benchmark;
+
+import com.Ecommerce.Cart.Service.Config.CartCacheSerializer;
+import com.Ecommerce.Cart.Service.Config.RedisConfig;
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One cached {@link ShoppingCart} through the previous cache serializer - JSON with embedded
+ * class names - against {@link CartCacheSerializer}, with and without compression.
+ * Entry sizes are printed on setup.
+ *
+ * Run after mvn test-compile with the test classpath:
+ *   java -cp target/test-classes:target/classes:&lt;deps&gt; org.openjdk.jmh.Main CartCacheSerializerBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CartCacheSerializerBenchmark {
+
+    @Param({"1", "20", "100"})
+    public int itemCount;
+
+    private ShoppingCart cart;
+    private GenericJackson2JsonRedisSerializer json;
+    private CartCacheSerializer binary;
+    private CartCacheSerializer binaryCompressed;
+    private byte[] jsonEntry;
+    private byte[] binaryEntry;
+    private byte[] compressedEntry;
+
+    @Setup
+    public void setUp() {
+        cart = cart(itemCount);
+        json = RedisConfig.createRedisSerializer();
+        binary = new CartCacheSerializer(json, Integer.MAX_VALUE);
+        binaryCompressed = new CartCacheSerializer(json, 0);
+
+        jsonEntry = json.serialize(cart);
+        binaryEntry = binary.serialize(cart);
+        compressedEntry = binaryCompressed.serialize(cart);
+        System.out.printf("%ncart with %d items - json: %d bytes, binary: %d bytes, binary+deflate: %d bytes%n",
+                itemCount, jsonEntry.length, binaryEntry.length, compressedEntry.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return json.serialize(cart);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return binary.serialize(cart);
+    }
+
+    @Benchmark
+    public byte[] encodeBinaryCompressed() {
+        return binaryCompressed.serialize(cart);
+    }
+
+    @Benchmark
+    public Object decodeJson() {
+        return json.deserialize(jsonEntry);
+    }
+
+    @Benchmark
+    public Object decodeBinary() {
+        return binary.deserialize(binaryEntry);
+    }
+
+    @Benchmark
+    public Object decodeBinaryCompressed() {
+        return binaryCompressed.deserialize(compressedEntry);
+    }
+
+    /** Rollout: a JSON entry written before the codec, read through it */
+    @Benchmark
+    public Object decodeLegacyJsonViaBinary() {
+        return binary.deserialize(jsonEntry);
+    }
+
+    static ShoppingCart cart(int itemCount) {
+        LocalDateTime now = LocalDateTime.of(2025, 7, 11, 23, 37, 35, 974_000_000);
+        UUID cartId = UUID.randomUUID();
+        List<CartItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(CartItem.builder()
+                    .id(UUID.randomUUID())
+                    .cartId(cartId)
+                    .productId(UUID.randomUUID())
+                    .quantity(i % 3 + 1)
+                    .price(BigDecimal.valueOf(1999 + i * 100L, 2))
+                    .addedAt(now.minusHours(i))
+                    .build());
+        }
+        ShoppingCart cart = ShoppingCart.builder()
+                .id(cartId)
+                .userId(UUID.randomUUID())
+                .items(items)
+                .createdAt(now.minusDays(2))
+                .updatedAt(now)
+                .expiresAt(now.plusDays(7))
+                .version(3L)
+                .build();
+        cart.recalculateTotals();
+        return cart;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CartCacheSerializerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,140 @@
+package com.Ecommerce.Cart.Service.Config;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.SavedForLater;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Cart Cache Serializer Tests")
+class CartCacheSerializerTest {
+
+    private final GenericJackson2JsonRedisSerializer json = RedisConfig.createRedisSerializer();
+    private final CartCacheSerializer serializer = new CartCacheSerializer(json, 1024);
+
+    @Test
+    @DisplayName("Should round-trip a cart in the binary format, smaller than the JSON entry")
+    void shouldRoundTripCart() {
+        ShoppingCart cart = cart(3);
+
+        byte[] entry = serializer.serialize(cart);
+        ShoppingCart decoded = (ShoppingCart) serializer.deserialize(entry);
+
+        assertThat(entry[0]).isEqualTo(CartCacheSerializer.MAGIC);
+        assertThat(entry[3] & CartCacheSerializer.FLAG_DEFLATED).isZero();
+        assertThat(entry.length).isLessThan(json.serialize(cart).length);
+        assertThat(decoded.getId()).isEqualTo(cart.getId());
+        assertThat(decoded.getItems()).hasSize(3);
+        assertThat(decoded.getItems().get(1)).isEqualTo(cart.getItems().get(1));
+        assertThat(decoded.getTotal()).isEqualByComparingTo(cart.getTotal());
+        assertThat(decoded.getExpiresAt()).isEqualTo(cart.getExpiresAt());
+    }
+
+    @Test
+    @DisplayName("Should deflate entries above the threshold")
+    void shouldCompressLargeEntries() {
+        ShoppingCart cart = cart(50);
+
+        byte[] entry = serializer.serialize(cart);
+        ShoppingCart decoded = (ShoppingCart) serializer.deserialize(entry);
+
+        assertThat(entry[3] & CartCacheSerializer.FLAG_DEFLATED).isNotZero();
+        assertThat(entry.length).isLessThan(new CartCacheSerializer(json, Integer.MAX_VALUE).serialize(cart).length);
+        assertThat(decoded.getItems()).hasSize(50);
+        assertThat(decoded.getTotalQuantity()).isEqualTo(cart.getTotalQuantity());
+    }
+
+    @Test
+    @DisplayName("Should read JSON entries written before the binary format")
+    void shouldReadLegacyJsonEntries() {
+        ShoppingCart cart = cart(2);
+        List<SavedForLater> saved = new ArrayList<>(List.of(savedForLater()));
+
+        ShoppingCart decodedCart = (ShoppingCart) serializer.deserialize(json.serialize(cart));
+        Object decodedSaved = serializer.deserialize(json.serialize(saved));
+
+        assertThat(decodedCart.getItems()).isEqualTo(cart.getItems());
+        assertThat(decodedSaved).isEqualTo(saved);
+    }
+
+    @Test
+    @DisplayName("Should encode saved items lists and fall back to JSON for other values")
+    void shouldHandleSavedItemsAndOtherValues() {
+        List<SavedForLater> saved = List.of(savedForLater(), savedForLater());
+        Map<String, Object> other = new HashMap<>(Map.of("total", BigDecimal.TEN));
+
+        byte[] savedEntry = serializer.serialize(saved);
+        byte[] otherEntry = serializer.serialize(other);
+
+        assertThat(savedEntry[2]).isEqualTo(CartCacheSerializer.TYPE_SAVED_FOR_LATER_LIST);
+        assertThat(serializer.deserialize(savedEntry)).isEqualTo(saved);
+        assertThat(otherEntry[0]).isNotEqualTo(CartCacheSerializer.MAGIC);
+        assertThat(serializer.deserialize(otherEntry)).isEqualTo(other);
+    }
+
+    @Test
+    @DisplayName("Should leave empty lists to JSON instead of typing them as saved items")
+    void shouldNotTypeEmptyListsAsSavedItems() {
+        List<String> empty = new ArrayList<>();
+
+        byte[] entry = serializer.serialize(empty);
+
+        assertThat(entry[0]).isNotEqualTo(CartCacheSerializer.MAGIC);
+        assertThat(serializer.deserialize(entry)).isEqualTo(empty);
+    }
+
+    @Test
+    @DisplayName("Should treat entries from a newer format version as a cache miss")
+    void shouldSkipNewerFormatVersion() {
+        byte[] entry = serializer.serialize(cart(1));
+        entry[1] = CartCacheSerializer.VERSION + 1;
+
+        assertThat(serializer.deserialize(entry)).isNull();
+    }
+
+    private static ShoppingCart cart(int itemCount) {
+        UUID cartId = UUID.randomUUID();
+        List<CartItem> items = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            items.add(CartItem.builder()
+                    .id(UUID.randomUUID())
+                    .cartId(cartId)
+                    .productId(UUID.randomUUID())
+                    .quantity(i % 3 + 1)
+                    .price(BigDecimal.valueOf(1999 + i * 100L, 2))
+                    .addedAt(LocalDateTime.now().minusHours(i))
+                    .build());
+        }
+        ShoppingCart cart = ShoppingCart.builder()
+                .id(cartId)
+                .userId(UUID.randomUUID())
+                .items(items)
+                .createdAt(LocalDateTime.now().minusDays(1))
+                .updatedAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusDays(7))
+                .version(1L)
+                .build();
+        cart.recalculateTotals();
+        return cart;
+    }
+
+    private static SavedForLater savedForLater() {
+        return SavedForLater.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .productId(UUID.randomUUID())
+                .savedAt(LocalDateTime.now())
+                .build();
+    }
+}
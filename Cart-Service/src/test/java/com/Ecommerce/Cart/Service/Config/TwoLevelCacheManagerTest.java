@@ -0,0 +1,161 @@
+package com.Ecommerce.Cart.Service.Config;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Two-Level Cache Manager Tests")
+class TwoLevelCacheManagerTest {
+
+    private static final String CHANNEL = "cart:cache:invalidate";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    private ConcurrentMapCacheManager remote;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoLevelCacheManager cacheManager;
+
+    @BeforeEach
+    void setUp() {
+        remote = new ConcurrentMapCacheManager("shoppingCarts", "savedItems");
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager(remote, redisTemplate, meterRegistry,
+                Set.of("shoppingCarts"), Duration.ofMinutes(1), 100, CHANNEL);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from L1 without going back to Redis")
+    void shouldServeRepeatedReadsFromL1() {
+        remote.getCache("shoppingCarts").put("user-1", "cart-1");
+        Cache cache = cacheManager.getCache("shoppingCarts");
+
+        assertThat(cache.get("user-1").get()).isEqualTo("cart-1");
+        // changed behind L1's back - the fresh L1 entry still wins
+        remote.getCache("shoppingCarts").put("user-1", "cart-2");
+        assertThat(cache.get("user-1").get()).isEqualTo("cart-1");
+        assertThat(cache.get("user-2")).isNull();
+
+        assertThat(lookups("l1", "hit")).isEqualTo(1.0);
+        assertThat(lookups("l1", "miss")).isEqualTo(2.0);
+        assertThat(lookups("l2", "hit")).isEqualTo(1.0);
+        assertThat(lookups("l2", "miss")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should write through to Redis and publish an invalidation on put and evict")
+    void shouldPublishInvalidationOnWrite() {
+        Cache cache = cacheManager.getCache("shoppingCarts");
+
+        cache.put("user-1", "cart-1");
+        assertThat(remote.getCache("shoppingCarts").get("user-1").get()).isEqualTo("cart-1");
+        cache.evict("user-1");
+
+        assertThat(remote.getCache("shoppingCarts").get("user-1")).isNull();
+        assertThat(cache.get("user-1")).isNull();
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(2)).convertAndSend(eq(CHANNEL), messages.capture());
+        assertThat(messages.getAllValues()).allSatisfy(message -> assertThat(message).endsWith("|shoppingCarts|user-1"));
+    }
+
+    @Test
+    @DisplayName("Should drop the L1 entry on an invalidation from another instance")
+    void shouldDropL1EntryOnRemoteInvalidation() {
+        remote.getCache("shoppingCarts").put("user-1", "cart-1");
+        Cache cache = cacheManager.getCache("shoppingCarts");
+        cache.get("user-1");
+        remote.getCache("shoppingCarts").put("user-1", "cart-2");
+
+        cacheManager.onMessage(message("other-instance|" + System.currentTimeMillis() + "|shoppingCarts|user-1"), null);
+
+        assertThat(cache.get("user-1").get()).isEqualTo("cart-2");
+        assertThat(meterRegistry.get("cart.cache.invalidation.lag").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should ignore its own invalidations and keep Redis-only caches without L1")
+    void shouldIgnoreOwnInvalidationsAndSkipUnconfiguredCaches() {
+        Cache cache = cacheManager.getCache("shoppingCarts");
+        cache.put("user-1", "cart-1");
+        ArgumentCaptor<String> published = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate).convertAndSend(eq(CHANNEL), published.capture());
+
+        cacheManager.onMessage(message(published.getValue()), null);
+
+        assertThat(cache.get("user-1").get()).isEqualTo("cart-1");
+        assertThat(lookups("l1", "hit")).isEqualTo(1.0);
+        assertThat(cacheManager.getCache("savedItems")).isSameAs(remote.getCache("savedItems"));
+        assertThat(meterRegistry.find("cart.cache.invalidation.lag").timer().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep working when the invalidation cannot be published")
+    void shouldSurvivePublishFailure() {
+        doThrow(new IllegalStateException("redis down")).when(redisTemplate).convertAndSend(eq(CHANNEL), anyString());
+        Cache cache = cacheManager.getCache("shoppingCarts");
+
+        assertThatNoException().isThrownBy(() -> cache.evict("user-1"));
+        assertThat(meterRegistry.get("cart.cache.invalidation.errors").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should not let a caller change the cart held in L1")
+    void shouldHandOutCopiesOfCachedCarts() {
+        Cache cache = cacheManager.getCache("shoppingCarts");
+        ShoppingCart cart = ShoppingCart.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .items(new ArrayList<>(List.of(CartItem.builder()
+                        .productId(UUID.randomUUID())
+                        .quantity(1)
+                        .price(BigDecimal.TEN)
+                        .build())))
+                .build();
+        cache.put("user-1", cart);
+        cart.getItems().get(0).setQuantity(5);
+
+        ShoppingCart read = cache.get("user-1", ShoppingCart.class);
+        read.getItems().get(0).setQuantity(7);
+        read.getItems().clear();
+
+        ShoppingCart again = cache.get("user-1", ShoppingCart.class);
+        assertThat(again).isNotSameAs(read).isNotSameAs(cart);
+        assertThat(again.getItems()).singleElement().satisfies(item -> assertThat(item.getQuantity()).isEqualTo(1));
+        assertThat(lookups("l1", "hit")).isEqualTo(2.0);
+    }
+
+    private double lookups(String level, String result) {
+        return meterRegistry.get("cart.cache.lookups")
+                .tags("cache", "shoppingCarts", "level", level, "result", result)
+                .counter().count();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,4 +1,166 @@
 package com.Ecommerce.Cart.Service.Lisiteners.AsyncComm;
 
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.Ecommerce.Cart.Service.Payload.kafka.CartRequestDTO;
+import com.Ecommerce.Cart.Service.Payload.kafka.CartResponseDTO;
+import com.Ecommerce.Cart.Service.Services.ShoppingCartService;
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cart Kafka Event Handler Tests")
 public class CartKafkaEventHandlerTest {
+
+    @Mock
+    private ShoppingCartService cartService;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CartKafkaEventHandler handler;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        handler = new CartKafkaEventHandler(cartService, kafkaTemplate, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should drop a request whose gateway deadline has passed without querying")
+    void shouldSkipExpiredRequest() {
+        String expired = Long.toString(System.currentTimeMillis() - 1_000);
+
+        handler.handleCartRequest(request(), "c-1", "gw-1", expired);
+
+        verifyNoInteractions(cartService, kafkaTemplate);
+        assertThat(meterRegistry.get("bff.requests.expired").tag("topic", "cart.request").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should answer requests that are still within their deadline or carry none")
+    void shouldProcessLiveRequests() {
+        when(cartService.findOrCreateCarts(List.of(userId))).thenReturn(Map.of(userId, cart(userId)));
+
+        handler.handleCartRequest(request(), "c-1", "gw-1", Long.toString(System.currentTimeMillis() + 30_000));
+        handler.handleCartRequest(request(), "c-2", null, null);
+
+        verify(kafkaTemplate, times(1)).send(eq("cart.response.gw-1"), any(), any());
+        verify(kafkaTemplate, times(1)).send(eq("cart.response"), any(), any());
+        assertThat(meterRegistry.find("bff.requests.expired").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should answer a poll of requests with one cart lookup and one flush")
+    @SuppressWarnings("unchecked")
+    void shouldAnswerBatchWithOneLookup() {
+        UUID otherUser = UUID.randomUUID();
+        when(cartService.findOrCreateCarts(any())).thenReturn(Map.of(userId, cart(userId), otherUser, cart(otherUser)));
+        String expired = Long.toString(System.currentTimeMillis() - 1_000);
+
+        handler.handleCartRequests(List.of(
+                record(0, request(userId), "gw-1", null),
+                record(1, request(otherUser), null, null),
+                record(2, request(userId), "gw-2", expired),
+                record(3, null, "gw-1", null)));
+
+        ArgumentCaptor<Collection<UUID>> lookedUp = ArgumentCaptor.forClass(Collection.class);
+        verify(cartService, times(1)).findOrCreateCarts(lookedUp.capture());
+        assertThat(lookedUp.getValue()).containsExactly(userId, otherUser);
+        verify(kafkaTemplate).send(eq("cart.response.gw-1"), any(), any());
+        verify(kafkaTemplate).send(eq("cart.response"), any(), any());
+        verify(kafkaTemplate, never()).send(eq("cart.response.gw-2"), any(), any());
+        verify(kafkaTemplate).send(eq("cart.error.gw-1"), eq("key-3"), any());
+        verify(kafkaTemplate, times(1)).flush();
+        assertThat(meterRegistry.get("bff.requests.expired").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("bff.requests.batch.size").summary().totalAmount()).isEqualTo(4.0);
+        assertThat(meterRegistry.get("bff.requests.undecodable").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should answer an undecodable request with an error reply keyed by its correlation id")
+    void shouldReplyWithErrorToUndecodableRequest() {
+        handler.handleCartRequest(null, "c-9", "gw-1", null);
+
+        ArgumentCaptor<Object> reply = ArgumentCaptor.forClass(Object.class);
+        verify(kafkaTemplate).send(eq("cart.error.gw-1"), eq("c-9"), reply.capture());
+        assertThat(reply.getValue()).isInstanceOfSatisfying(CartResponseDTO.class, response -> {
+            assertThat(response.isSuccess()).isFalse();
+            assertThat(response.getCorrelationId()).isEqualTo("c-9");
+        });
+        verify(kafkaTemplate).flush();
+        verifyNoInteractions(cartService);
+    }
+
+    @Test
+    @DisplayName("Should send error replies for bad user ids and for a failed lookup")
+    void shouldReplyWithErrorsInBatch() {
+        CartRequestDTO invalid = CartRequestDTO.builder().userId("not-a-uuid").correlationId("c-1").build();
+        when(cartService.findOrCreateCarts(any())).thenThrow(new IllegalStateException("mongo down"));
+
+        handler.handleCartRequests(List.of(record(0, invalid, null, null), record(1, request(userId), null, null)));
+
+        verify(kafkaTemplate, times(2)).send(eq("cart.error"), any(), any());
+        verify(kafkaTemplate, never()).send(eq("cart.response"), any(), any());
+        verify(kafkaTemplate).flush();
+    }
+
+    private ConsumerRecord<String, Object> record(long offset, CartRequestDTO request, String replyInstance, String deadline) {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("cart.request", 0, offset, "key-" + offset, request);
+        if (replyInstance != null) {
+            record.headers().add(ReplyRouting.REPLY_INSTANCE_HEADER, replyInstance.getBytes(StandardCharsets.UTF_8));
+        }
+        if (deadline != null) {
+            record.headers().add(RequestDeadline.REQUEST_DEADLINE_HEADER, deadline.getBytes(StandardCharsets.UTF_8));
+        }
+        return record;
+    }
+
+    private static ShoppingCart cart(UUID owner) {
+        return ShoppingCart.builder()
+                .id(UUID.randomUUID())
+                .userId(owner)
+                .items(new ArrayList<>())
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private CartRequestDTO request() {
+        return request(userId);
+    }
+
+    private CartRequestDTO request(UUID requestUserId) {
+        return CartRequestDTO.builder()
+                .userId(requestUserId.toString())
+                .correlationId(UUID.randomUUID().toString())
+                .timestamp(System.currentTimeMillis())
+                .build();
+    }
 }
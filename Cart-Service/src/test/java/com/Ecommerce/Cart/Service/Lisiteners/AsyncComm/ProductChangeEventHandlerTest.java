@@ -0,0 +1,76 @@
+package com.Ecommerce.Cart.Service.Lisiteners.AsyncComm;
+
+import com.Ecommerce.Cart.Service.Config.KafkaProducerConfig;
+import com.Ecommerce.Cart.Service.Payload.kafka.ProductChangedEventDTO;
+import com.Ecommerce.Cart.Service.Services.CartProductSyncService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Product Change Event Handler Tests")
+class ProductChangeEventHandlerTest {
+
+    @Mock
+    private CartProductSyncService cartProductSyncService;
+
+    @InjectMocks
+    private ProductChangeEventHandler handler;
+
+    private final UUID productId = UUID.randomUUID();
+
+    @Test
+    @DisplayName("Should reprice carts on a price change")
+    void shouldRepriceOnPriceChange() {
+        handler.handleProductChanged(ProductChangedEventDTO.builder().productId(productId)
+                .previousPrice(new BigDecimal("10.00")).newPrice(new BigDecimal("8.00")).build(),
+                KafkaProducerConfig.TOPIC_PRODUCT_PRICE_CHANGED);
+
+        verify(cartProductSyncService).applyPriceChange(productId, new BigDecimal("8.00"));
+    }
+
+    @Test
+    @DisplayName("Should flag lines out of stock when stock reaches zero and clear them on restock")
+    void shouldFlagStockChanges() {
+        handler.handleProductChanged(ProductChangedEventDTO.builder().productId(productId)
+                .previousStock(3).newStock(0).build(), KafkaProducerConfig.TOPIC_PRODUCT_STOCK_CHANGED);
+        handler.handleProductChanged(ProductChangedEventDTO.builder().productId(productId)
+                .previousStock(0).newStock(20).build(), KafkaProducerConfig.TOPIC_PRODUCT_STOCK_CHANGED);
+
+        verify(cartProductSyncService).applyStockChange(productId, true);
+        verify(cartProductSyncService).applyStockChange(productId, false);
+    }
+
+    @Test
+    @DisplayName("Should map product statuses to the out-of-stock and unavailable flags")
+    void shouldMapStatusChanges() {
+        handler.handleProductChanged(ProductChangedEventDTO.builder().productId(productId)
+                .newStatus("DISCONTINUED").build(), KafkaProducerConfig.TOPIC_PRODUCT_STATUS_CHANGED);
+        handler.handleProductChanged(ProductChangedEventDTO.builder().productId(productId)
+                .newStatus("OUT_OF_STOCK").build(), KafkaProducerConfig.TOPIC_PRODUCT_STATUS_CHANGED);
+        handler.handleProductChanged(ProductChangedEventDTO.builder().productId(productId)
+                .newStatus("ACTIVE").build(), KafkaProducerConfig.TOPIC_PRODUCT_STATUS_CHANGED);
+
+        verify(cartProductSyncService).applyAvailabilityChange(productId, true);
+        verify(cartProductSyncService).applyStockChange(productId, true);
+        verify(cartProductSyncService).applyAvailabilityChange(productId, false);
+        // ACTIVE after OUT_OF_STOCK clears the stock flag too
+        verify(cartProductSyncService).applyStockChange(productId, false);
+    }
+
+    @Test
+    @DisplayName("Should ignore events without a product id")
+    void shouldIgnoreEventsWithoutProduct() {
+        handler.handleProductChanged(new ProductChangedEventDTO(), KafkaProducerConfig.TOPIC_PRODUCT_PRICE_CHANGED);
+
+        verifyNoInteractions(cartProductSyncService);
+    }
+}
@@ -0,0 +1,210 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.result.UpdateResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cart Product Sync Service Tests")
+class CartProductSyncServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    @Mock
+    private CartWriteBehindStore writeBehindStore;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private CartProductSyncService syncService;
+    private UUID productId;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager("shoppingCarts");
+        meterRegistry = new SimpleMeterRegistry();
+        syncService = new CartProductSyncService(mongoTemplate, cacheManager, meterRegistry, writeBehindStore, 2);
+        productId = UUID.randomUUID();
+    }
+
+    @Test
+    @DisplayName("Should reprice each line under a guard and move the total by quantity x difference")
+    void shouldRepriceLinesAndAdjustTotals() {
+        ShoppingCart cart = cartWithLine(3, "10.00");
+        Cache cache = cacheManager.getCache("shoppingCarts");
+        cache.put(cart.getUserId().toString(), cart);
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(List.of(cart));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+
+        int updated = syncService.applyPriceChange(productId, new BigDecimal("8.50"));
+
+        assertThat(updated).isEqualTo(1);
+        ArgumentCaptor<Query> guard = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations).updateOne(guard.capture(), update.capture());
+        assertThat(guard.getValue().getQueryObject().toString()).contains("quantity=3", "price=10.00");
+        assertThat(update.getValue().getUpdateObject().get("$set").toString()).contains("items.$.price=8.50");
+        assertThat(update.getValue().getUpdateObject().get("$inc").toString()).contains("total=-4.50", "version=1");
+        assertThat(cache.get(cart.getUserId().toString())).isNull();
+        assertThat(meterRegistry.get("cart.product-sync.updated").tag("change", "price").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should walk the affected carts in id-ordered batches")
+    void shouldProcessInBatches() {
+        ShoppingCart first = cartWithLine(1, "10.00");
+        ShoppingCart second = cartWithLine(1, "10.00");
+        ShoppingCart third = cartWithLine(1, "10.00");
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(2, 1);
+
+        int updated = syncService.applyPriceChange(productId, new BigDecimal("12.00"));
+
+        assertThat(updated).isEqualTo(3);
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(queries.capture(), eq(ShoppingCart.class));
+        assertThat(queries.getAllValues().get(0).getLimit()).isEqualTo(2);
+        assertThat(queries.getAllValues().get(1).getQueryObject().toString()).contains(second.getId().toString());
+        verify(bulkOperations, times(2)).execute();
+    }
+
+    @Test
+    @DisplayName("Should re-read and retry lines whose guard missed before moving the cursor on")
+    void shouldRetryMissedReprices() {
+        ShoppingCart first = cartWithLine(1, "10.00");
+        ShoppingCart second = cartWithLine(1, "10.00");
+        ShoppingCart secondChanged = ShoppingCart.builder().id(second.getId()).userId(second.getUserId())
+                .items(new ArrayList<>(List.of(CartItem.builder().productId(productId).quantity(4)
+                        .price(new BigDecimal("10.00")).build())))
+                .build();
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(secondChanged))
+                .thenReturn(List.of());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1, 1);
+
+        int updated = syncService.applyPriceChange(productId, new BigDecimal("12.00"));
+
+        assertThat(updated).isEqualTo(2);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).updateOne(any(Query.class), updates.capture());
+        assertThat(updates.getAllValues().get(2).getUpdateObject().get("$inc").toString()).contains("total=8.00");
+        assertThat(meterRegistry.get("cart.product-sync.conflicts").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should fail the event for redelivery when lines keep changing")
+    void shouldFailWhenRepriceKeepsMissing() {
+        ShoppingCart cart = cartWithLine(1, "10.00");
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(List.of(cart));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(0);
+
+        assertThatThrownBy(() -> syncService.applyPriceChange(productId, new BigDecimal("12.00")))
+                .isInstanceOf(OptimisticLockingFailureException.class);
+        verify(bulkOperations, times(3)).execute();
+    }
+
+    @Test
+    @DisplayName("Should flag the product's lines out of stock with one updateMany per batch")
+    void shouldFlagOutOfStockLines() {
+        ShoppingCart cart = cartWithLine(2, "10.00");
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(List.of(cart));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(ShoppingCart.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+
+        int updated = syncService.applyStockChange(productId, true);
+
+        assertThat(updated).isEqualTo(1);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(any(Query.class), update.capture(), eq(ShoppingCart.class));
+        assertThat(update.getValue().getUpdateObject().get("$set").toString()).contains("items.$[line].outOfStock=true");
+        assertThat(update.getValue().getArrayFilters()).hasSize(1);
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(ShoppingCart.class));
+    }
+
+    @Test
+    @DisplayName("Should apply the change to the Redis lines of write-behind carts")
+    @SuppressWarnings("unchecked")
+    void shouldUpdateWriteBehindLines() {
+        ShoppingCart cart = cartWithLine(2, "10.00");
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(List.of(cart));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getModifiedCount()).thenReturn(1);
+        when(writeBehindStore.isEnabled()).thenReturn(true);
+
+        syncService.applyPriceChange(productId, new BigDecimal("8.50"));
+
+        ArgumentCaptor<UnaryOperator<CartItem>> change = ArgumentCaptor.forClass(UnaryOperator.class);
+        verify(writeBehindStore).updateLine(eq(cart.getUserId()), eq(productId), change.capture());
+        CartItem line = change.getValue().apply(CartItem.builder().productId(productId).quantity(2)
+                .price(new BigDecimal("10.00")).build());
+        assertThat(line.getPrice()).isEqualByComparingTo("8.50");
+    }
+
+    @Test
+    @DisplayName("Should do nothing when no cart holds the product")
+    void shouldSkipWhenNoCartsAffected() {
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(List.of());
+
+        assertThat(syncService.applyAvailabilityChange(productId, true)).isZero();
+        verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(ShoppingCart.class));
+        assertThat(meterRegistry.find("cart.product-sync.updated").counter()).isNull();
+    }
+
+    private ShoppingCart cartWithLine(int quantity, String price) {
+        CartItem line = CartItem.builder()
+                .productId(productId)
+                .quantity(quantity)
+                .price(new BigDecimal(price))
+                .build();
+        return ShoppingCart.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .items(new ArrayList<>(List.of(line)))
+                .build();
+    }
+}
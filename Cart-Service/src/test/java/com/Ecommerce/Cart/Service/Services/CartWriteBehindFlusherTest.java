@@ -0,0 +1,166 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.mongodb.bulk.BulkWriteError;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cart Write-Behind Flusher Tests")
+class CartWriteBehindFlusherTest {
+
+    @Mock
+    private CartWriteBehindStore store;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CartWriteBehindFlusher flusher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        flusher = new CartWriteBehindFlusher(store, mongoTemplate, meterRegistry, 1000, 10, 500);
+    }
+
+    @Test
+    @DisplayName("Should upsert dirty carts in one bulk write and clear them from the journal")
+    void shouldFlushDirtyCartsInOneBulkWrite() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        long dirtySince = System.currentTimeMillis() - 2_000;
+        when(store.dirtyBatch(10)).thenReturn(journal(dirtySince, first, second));
+        when(store.snapshot(first)).thenReturn(Optional.of(new CartWriteBehindStore.Snapshot(cart(first), "3")));
+        when(store.snapshot(second)).thenReturn(Optional.of(new CartWriteBehindStore.Snapshot(cart(second), "7")));
+        when(store.markClean(any(), any())).thenReturn(true);
+        when(store.dirtyCount()).thenReturn(0L);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+
+        int flushed = flusher.flush();
+
+        assertThat(flushed).isEqualTo(2);
+        verify(bulkOperations, times(2)).upsert(any(Query.class), any(Update.class));
+        verify(bulkOperations).execute();
+        verify(store).markClean(first, "3");
+        verify(store).markClean(second, "7");
+        assertThat(meterRegistry.get("cart.writebehind.flush.lag").gauge().value()).isGreaterThanOrEqualTo(2_000);
+        assertThat(meterRegistry.get("cart.writebehind.persist.lag").timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("cart.writebehind.flushed").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should drop journal entries whose cart expired from Redis without writing Mongo")
+    void shouldSkipExpiredCarts() {
+        UUID userId = UUID.randomUUID();
+        when(store.dirtyBatch(10)).thenReturn(journal(System.currentTimeMillis(), userId));
+        when(store.snapshot(userId)).thenReturn(Optional.empty());
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+
+        assertThat(flusher.flush()).isZero();
+
+        verify(store).markClean(userId, "");
+        verify(bulkOperations, never()).execute();
+    }
+
+    @Test
+    @DisplayName("Should keep carts in the journal when the Mongo write fails")
+    void shouldKeepCartsDirtyWhenMongoFails() {
+        UUID userId = UUID.randomUUID();
+        when(store.dirtyBatch(10)).thenReturn(journal(System.currentTimeMillis(), userId));
+        when(store.snapshot(userId)).thenReturn(Optional.of(new CartWriteBehindStore.Snapshot(cart(userId), "1")));
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenThrow(new IllegalStateException("mongo down"));
+
+        assertThat(flusher.flush()).isZero();
+
+        verify(store, never()).markClean(any(), any());
+        assertThat(meterRegistry.get("cart.writebehind.flush.errors").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should only upsert over an older revision and treat a newer stored cart as flushed")
+    void shouldGuardUpsertsByRevision() {
+        UUID stale = UUID.randomUUID();
+        UUID broken = UUID.randomUUID();
+        UUID rewritten = UUID.randomUUID();
+        when(store.dirtyBatch(10)).thenReturn(journal(System.currentTimeMillis(), stale, broken, rewritten));
+        when(store.snapshot(stale)).thenReturn(Optional.of(new CartWriteBehindStore.Snapshot(cart(stale), "4")));
+        when(store.snapshot(broken)).thenReturn(Optional.of(new CartWriteBehindStore.Snapshot(cart(broken), "5")));
+        when(store.snapshot(rewritten)).thenReturn(Optional.of(new CartWriteBehindStore.Snapshot(cart(rewritten), "6")));
+        when(store.markClean(stale, "4")).thenReturn(true);
+        when(store.markClean(rewritten, "6")).thenReturn(false);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ShoppingCart.class)).thenReturn(bulkOperations);
+        BulkOperationException failure = mock(BulkOperationException.class);
+        when(failure.getErrors()).thenReturn(List.of(
+                new BulkWriteError(11000, "duplicate key", new BsonDocument(), 0),
+                new BulkWriteError(121, "validation failed", new BsonDocument(), 1)));
+        when(bulkOperations.execute()).thenThrow(failure);
+
+        assertThat(flusher.flush()).isEqualTo(1);
+
+        ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(3)).upsert(filter.capture(), any(Update.class));
+        assertThat(filter.getAllValues().get(0).getQueryObject().toString()).contains("rev", "$lt=4");
+        verify(store, never()).markClean(eq(broken), any());
+        assertThat(meterRegistry.get("cart.writebehind.stale").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cart.writebehind.flush.errors").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("cart.writebehind.flushed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should not flush on writes before the flusher was started")
+    void shouldIgnoreWritesWhenNotStarted() {
+        for (int i = 0; i < 1_000; i++) {
+            flusher.onWrite();
+        }
+        verifyNoInteractions(store, mongoTemplate);
+    }
+
+    private static Set<ZSetOperations.TypedTuple<String>> journal(long dirtySince, UUID... userIds) {
+        Set<ZSetOperations.TypedTuple<String>> journal = new LinkedHashSet<>();
+        for (UUID userId : userIds) {
+            journal.add(new DefaultTypedTuple<>(userId.toString(), (double) dirtySince));
+        }
+        return journal;
+    }
+
+    private static ShoppingCart cart(UUID userId) {
+        return ShoppingCart.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .expiresAt(LocalDateTime.now().plusDays(7))
+                .build();
+    }
+}
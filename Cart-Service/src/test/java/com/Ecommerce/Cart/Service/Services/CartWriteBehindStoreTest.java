@@ -0,0 +1,130 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.Ecommerce.Cart.Service.Repositories.ShoppingCartRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cart Write-Behind Store Tests")
+class CartWriteBehindStoreTest {
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private HashOperations<String, Object, Object> hashOperations;
+
+    @Mock
+    private ShoppingCartRepository cartRepository;
+
+    private CartWriteBehindStore store;
+    private UUID userId;
+    private ShoppingCart cart;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        store = new CartWriteBehindStore(redisTemplate, objectMapper, cartRepository, true, 168);
+
+        userId = UUID.randomUUID();
+        LocalDateTime now = LocalDateTime.now();
+        cart = ShoppingCart.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .items(new ArrayList<>(List.of(
+                        item(UUID.randomUUID(), 2, "10.00", now.minusMinutes(5)),
+                        item(UUID.randomUUID(), 1, "4.50", now.minusMinutes(1)))))
+                .createdAt(now.minusDays(1))
+                .updatedAt(now)
+                .expiresAt(now.plusDays(6))
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should round-trip a cart through per-item hash fields")
+    void shouldRoundTripCartThroughHashFields() {
+        Map<String, String> fields = store.toFields(cart);
+
+        assertThat(fields).containsKeys("meta", "updatedAt",
+                "item:" + cart.getItems().get(0).getProductId(),
+                "qty:" + cart.getItems().get(0).getProductId());
+        assertThat(fields.get("qty:" + cart.getItems().get(1).getProductId())).isEqualTo("1");
+
+        ShoppingCart restored = store.toCart(fields);
+
+        assertThat(restored.getId()).isEqualTo(cart.getId());
+        assertThat(restored.getUserId()).isEqualTo(userId);
+        assertThat(restored.getItems()).extracting(CartItem::getProductId)
+                .containsExactly(cart.getItems().get(0).getProductId(), cart.getItems().get(1).getProductId());
+        assertThat(restored.getItems()).allSatisfy(item -> assertThat(item.getCartId()).isEqualTo(cart.getId()));
+        assertThat(restored.calculateTotal()).isEqualByComparingTo(cart.calculateTotal());
+    }
+
+    @Test
+    @DisplayName("Should load the cart from Mongo and retry when it is not in Redis yet")
+    @SuppressWarnings("unchecked")
+    void shouldLoadFromMongoAndRetryOnMiss() {
+        List<String> hashAfterAdd = new ArrayList<>();
+        store.toFields(cart).forEach((field, value) -> {
+            hashAfterAdd.add(field);
+            hashAfterAdd.add(value);
+        });
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenReturn(null)       // mutate: cart not in Redis
+                .thenReturn(1L)         // load
+                .thenReturn(hashAfterAdd);
+        when(redisTemplate.opsForHash()).thenReturn(hashOperations);
+        when(hashOperations.entries("cart:active:" + userId)).thenReturn(Map.of());
+        when(cartRepository.findByUserId(userId)).thenReturn(Optional.of(cart));
+
+        ShoppingCart result = store.addItem(userId, cart.getItems().get(0).getProductId(), 1, new BigDecimal("10.00"));
+
+        assertThat(result.getItems()).hasSize(2);
+        verify(redisTemplate, times(3)).execute(any(RedisScript.class), anyList(), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Should reject quantities below one before calling Redis")
+    void shouldRejectInvalidQuantity() {
+        assertThatThrownBy(() -> store.updateQuantity(userId, UUID.randomUUID(), 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(redisTemplate);
+    }
+
+    private static CartItem item(UUID productId, int quantity, String price, LocalDateTime addedAt) {
+        return CartItem.builder()
+                .id(UUID.randomUUID())
+                .productId(productId)
+                .quantity(quantity)
+                .price(new BigDecimal(price))
+                .addedAt(addedAt)
+                .build();
+    }
+}
@@ -0,0 +1,183 @@
+package com.Ecommerce.Cart.Service.Services;
+
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import com.Ecommerce.Cart.Service.Services.Kafka.ShoppingCartKafkaService;
+import com.mongodb.client.result.DeleteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Expired Cart Sweeper Tests")
+class ExpiredCartSweeperTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private ShoppingCartKafkaService cartKafkaService;
+
+    @Mock
+    private CartWriteBehindStore writeBehindStore;
+
+    private CacheManager cacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private ExpiredCartSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager = new ConcurrentMapCacheManager("shoppingCarts");
+        meterRegistry = new SimpleMeterRegistry();
+        sweeper = new ExpiredCartSweeper(mongoTemplate, cartKafkaService, cacheManager, writeBehindStore,
+                meterRegistry, 2, 5, 72);
+        // by default every cart of the batch is still expired when deleted
+        lenient().when(mongoTemplate.remove(any(Query.class), eq(ShoppingCart.class)))
+                .thenAnswer(invocation -> DeleteResult.acknowledged(idsIn(invocation.getArgument(0))));
+    }
+
+    @Test
+    @DisplayName("Should delete expired carts in bounded batches by id")
+    void shouldDeleteInBoundedBatches() {
+        ShoppingCart first = cart(true);
+        ShoppingCart second = cart(false);
+        ShoppingCart third = cart(true);
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class)))
+                .thenReturn(List.of(first, second))
+                .thenReturn(List.of(third));
+
+        int removed = sweeper.sweep();
+
+        assertThat(removed).isEqualTo(3);
+        verify(mongoTemplate, times(2)).find(argThat(query -> query.getLimit() == 2), eq(ShoppingCart.class));
+        verify(mongoTemplate, times(2)).remove(any(Query.class), eq(ShoppingCart.class));
+        verify(mongoTemplate, never()).findAll(any());
+        assertThat(meterRegistry.get("cart.cleanup.removed").counter().count()).isEqualTo(3.0);
+    }
+
+    @Test
+    @DisplayName("Should publish abandoned events only for carts with items")
+    void shouldPublishAbandonedForNonEmptyCarts() {
+        ShoppingCart withItems = cart(true);
+        ShoppingCart empty = cart(false);
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class)))
+                .thenReturn(List.of(withItems, empty))
+                .thenReturn(List.of());
+
+        sweeper.sweep();
+
+        verify(cartKafkaService).publishCartAbandoned(eq(withItems), any(LocalDateTime.class));
+        verify(cartKafkaService, never()).publishCartAbandoned(eq(empty), any());
+        assertThat(meterRegistry.get("cart.cleanup.abandoned").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should evict only the swept users' cache entries")
+    void shouldEvictOnlyAffectedCacheKeys() {
+        ShoppingCart expired = cart(true);
+        UUID otherUser = UUID.randomUUID();
+        Cache carts = cacheManager.getCache("shoppingCarts");
+        carts.put(expired.getUserId().toString(), expired);
+        carts.put(otherUser.toString(), cart(true));
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(List.of(expired));
+
+        sweeper.sweep();
+
+        assertThat(carts.get(expired.getUserId().toString())).isNull();
+        assertThat(carts.get(otherUser.toString())).isNotNull();
+    }
+
+    @Test
+    @DisplayName("Should publish, evict and count only the carts the guarded delete removed")
+    void shouldIgnoreCartsChangedSinceTheRead() {
+        ShoppingCart expired = cart(true);
+        ShoppingCart touched = cart(true);
+        Cache carts = cacheManager.getCache("shoppingCarts");
+        carts.put(touched.getUserId().toString(), touched);
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class)))
+                .thenReturn(List.of(expired, touched))
+                .thenReturn(List.of(touched))
+                .thenReturn(List.of());
+        when(mongoTemplate.remove(any(Query.class), eq(ShoppingCart.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        int removed = sweeper.sweep();
+
+        assertThat(removed).isEqualTo(1);
+        verify(cartKafkaService).publishCartAbandoned(eq(expired), any(LocalDateTime.class));
+        verify(cartKafkaService, never()).publishCartAbandoned(eq(touched), any());
+        assertThat(carts.get(touched.getUserId().toString())).isNotNull();
+        assertThat(meterRegistry.get("cart.cleanup.removed").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should only select carts whose last change is older than the idle lifetime")
+    void shouldSweepOnLastChange() {
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class))).thenReturn(List.of());
+
+        sweeper.sweep();
+
+        verify(mongoTemplate).find(argThat(query -> query.getQueryObject().toString().contains("updatedAt")),
+                eq(ShoppingCart.class));
+    }
+
+    @Test
+    @DisplayName("Should stop after max batches even if more carts expired")
+    void shouldStopAfterMaxBatches() {
+        when(mongoTemplate.find(any(Query.class), eq(ShoppingCart.class)))
+                .thenAnswer(invocation -> List.of(cart(false), cart(false)));
+
+        int removed = sweeper.sweep();
+
+        assertThat(removed).isEqualTo(10);
+        verify(mongoTemplate, times(5)).find(any(Query.class), eq(ShoppingCart.class));
+    }
+
+    /** Number of ids in the delete's {@code _id $in} filter */
+    private static long idsIn(Query query) {
+        Document idFilter = (Document) query.getQueryObject().get("_id");
+        return ((Collection<?>) idFilter.get("$in")).size();
+    }
+
+    private static ShoppingCart cart(boolean withItems) {
+        List<CartItem> items = new ArrayList<>();
+        if (withItems) {
+            items.add(CartItem.builder()
+                    .id(UUID.randomUUID())
+                    .productId(UUID.randomUUID())
+                    .quantity(1)
+                    .price(new BigDecimal("9.99"))
+                    .addedAt(LocalDateTime.now().minusDays(8))
+                    .build());
+        }
+        return ShoppingCart.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.randomUUID())
+                .items(items)
+                .createdAt(LocalDateTime.now().minusDays(8))
+                .updatedAt(LocalDateTime.now().minusDays(8))
+                .expiresAt(LocalDateTime.now().minusDays(1))
+                .build();
+    }
+}
@@ -0,0 +1,242 @@
+package com.Ecommerce.Cart.Service.Services.Kafka;
+
+import com.Ecommerce.Cart.Service.Config.KafkaProducerConfig;
+import com.Ecommerce.Cart.Service.Events.ShoppingCartEvents;
+import com.Ecommerce.Cart.Service.Models.CartItem;
+import com.Ecommerce.Cart.Service.Models.OutboxEvent;
+import com.Ecommerce.Cart.Service.Models.ShoppingCart;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Cart Outbox Relay Tests")
+class CartOutboxRelayTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CartOutbox outbox;
+    private CartOutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        outbox = new CartOutbox(mongoTemplate, meterRegistry);
+        relay = new CartOutboxRelay(mongoTemplate, kafkaTemplate, meterRegistry, 250, 10, 30_000, 1_000);
+    }
+
+    @Test
+    @DisplayName("Should record the event as the JSON the Kafka serializer would have sent")
+    void shouldRecordEventInOutbox() {
+        ShoppingCart cart = cart();
+
+        UUID id = outbox.append(KafkaProducerConfig.TOPIC_CART_UPDATED, cart.getUserId().toString(),
+                new ShoppingCartEvents.CartUpdatedEvent(cart));
+
+        ArgumentCaptor<OutboxEvent> inserted = ArgumentCaptor.forClass(OutboxEvent.class);
+        verify(mongoTemplate).insert(inserted.capture());
+        assertThat(inserted.getValue().getId()).isEqualTo(id);
+        assertThat(inserted.getValue().getMessageKey()).isEqualTo(cart.getUserId().toString());
+        assertThat(inserted.getValue().getPayload()).contains("\"totalAmount\":59.90", "\"eventType\":\"CART_UPDATED\"");
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    @Test
+    @DisplayName("Should publish a claimed batch with event ids and delete it in one write")
+    @SuppressWarnings("unchecked")
+    void shouldPublishAndDeleteClaimedBatch() {
+        List<OutboxEvent> batch = List.of(recorded(), recorded());
+        claim(batch);
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)));
+
+        int published = relay.relay();
+
+        assertThat(published).isEqualTo(2);
+        ArgumentCaptor<ProducerRecord<String, Object>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(records.capture());
+        ProducerRecord<String, Object> first = records.getAllValues().get(0);
+        assertThat(first.topic()).isEqualTo(KafkaProducerConfig.TOPIC_CART_UPDATED);
+        assertThat(first.key()).isEqualTo(batch.get(0).getMessageKey());
+        assertThat(first.value().toString()).contains("\"totalAmount\":59.90");
+        assertThat(new String(first.headers().lastHeader(CartOutboxRelay.EVENT_ID_HEADER).value(), StandardCharsets.UTF_8))
+                .isEqualTo(batch.get(0).getId().toString());
+
+        ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(deleted.capture(), eq(OutboxEvent.class));
+        assertThat(deleted.getValue().getQueryObject().toString())
+                .contains(batch.get(0).getId().toString(), batch.get(1).getId().toString());
+        assertThat(meterRegistry.get("cart.outbox.published").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("cart.outbox.publish.lag").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should release events Kafka rejected and keep them in the outbox")
+    @SuppressWarnings("unchecked")
+    void shouldReleaseFailedEvents() {
+        OutboxEvent sent = recorded();
+        OutboxEvent failed = recorded();
+        claim(List.of(sent, failed));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.completedFuture(mock(SendResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        int published = relay.relay();
+
+        assertThat(published).isEqualTo(1);
+        ArgumentCaptor<Query> released = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(released.capture(), update.capture(), eq(OutboxEvent.class));
+        assertThat(released.getValue().getQueryObject().toString()).contains(failed.getId().toString());
+        assertThat(update.getValue().getUpdateObject().get("$inc").toString()).contains("attempts=1");
+        assertThat(update.getValue().getUpdateObject().get("$unset").toString()).contains("claimedUntil");
+
+        ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(deleted.capture(), eq(OutboxEvent.class));
+        assertThat(deleted.getValue().getQueryObject().toString())
+                .contains(sent.getId().toString())
+                .doesNotContain(failed.getId().toString());
+        assertThat(meterRegistry.get("cart.outbox.errors").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should hold back the later events of a key whose earlier event failed")
+    @SuppressWarnings("unchecked")
+    void shouldKeepKeyOrderAfterFailure() {
+        OutboxEvent first = recorded();
+        OutboxEvent second = recorded(first.getMessageKey());
+        OutboxEvent other = recorded();
+        claim(List.of(first, second, other));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, Object> record = invocation.getArgument(0);
+            return record.key().equals(first.getMessageKey())
+                    ? CompletableFuture.failedFuture(new IllegalStateException("broker down"))
+                    : CompletableFuture.completedFuture(mock(SendResult.class));
+        });
+
+        int published = relay.relay();
+
+        assertThat(published).isEqualTo(1);
+        ArgumentCaptor<ProducerRecord<String, Object>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(records.capture());
+        assertThat(records.getAllValues()).extracting(ProducerRecord::key)
+                .containsExactly(first.getMessageKey(), other.getMessageKey());
+
+        ArgumentCaptor<Query> held = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> unclaim = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).updateMulti(held.capture(), unclaim.capture(), eq(OutboxEvent.class));
+        assertThat(held.getValue().getQueryObject().toString()).contains(second.getId().toString());
+        assertThat(unclaim.getValue().getUpdateObject()).doesNotContainKey("$inc");
+
+        ArgumentCaptor<Query> deleted = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(deleted.capture(), eq(OutboxEvent.class));
+        assertThat(deleted.getValue().getQueryObject().toString())
+                .contains(other.getId().toString())
+                .doesNotContain(first.getId().toString(), second.getId().toString());
+    }
+
+    @Test
+    @DisplayName("Should not fail the caller when the event cannot be recorded outside a transaction")
+    void shouldCountAppendFailureWithoutTransaction() {
+        ShoppingCart cart = cart();
+        when(mongoTemplate.insert(any(OutboxEvent.class))).thenThrow(new IllegalStateException("mongo down"));
+
+        UUID id = outbox.append(KafkaProducerConfig.TOPIC_CART_UPDATED, cart.getUserId().toString(),
+                new ShoppingCartEvents.CartUpdatedEvent(cart));
+
+        assertThat(id).isNull();
+        assertThat(meterRegistry.get("cart.outbox.append.errors").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should send nothing when another instance claimed the events first")
+    void shouldSkipEventsClaimedElsewhere() {
+        OutboxEvent event = recorded();
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class)))
+                .thenReturn(List.of(event))
+                .thenReturn(List.of());
+
+        assertThat(relay.relay()).isZero();
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(OutboxEvent.class));
+        verifyNoInteractions(kafkaTemplate);
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(OutboxEvent.class));
+    }
+
+    /** First find lists the candidates, the second returns what the claim won */
+    private void claim(List<OutboxEvent> batch) {
+        when(mongoTemplate.find(any(Query.class), eq(OutboxEvent.class)))
+                .thenReturn(batch)
+                .thenReturn(batch);
+    }
+
+    private OutboxEvent recorded() {
+        return recorded(UUID.randomUUID().toString());
+    }
+
+    private OutboxEvent recorded(String key) {
+        ShoppingCart cart = cart();
+        return OutboxEvent.builder()
+                .id(UUID.randomUUID())
+                .topic(KafkaProducerConfig.TOPIC_CART_UPDATED)
+                .messageKey(key)
+                .payload(serialize(new ShoppingCartEvents.CartUpdatedEvent(cart)))
+                .createdAt(LocalDateTime.now().minusSeconds(1))
+                .build();
+    }
+
+    private static String serialize(Object event) {
+        try {
+            return CartOutbox.PAYLOAD_MAPPER.writeValueAsString(event);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ShoppingCart cart() {
+        UUID cartId = UUID.randomUUID();
+        ShoppingCart cart = ShoppingCart.builder()
+                .id(cartId)
+                .userId(UUID.randomUUID())
+                .items(new ArrayList<>(List.of(CartItem.builder()
+                        .id(UUID.randomUUID())
+                        .cartId(cartId)
+                        .productId(UUID.randomUUID())
+                        .quantity(2)
+                        .price(new BigDecimal("29.95"))
+                        .build())))
+                .updatedAt(LocalDateTime.now())
+                .version(1L)
+                .build();
+        cart.recalculateTotals();
+        return cart;
+    }
+}
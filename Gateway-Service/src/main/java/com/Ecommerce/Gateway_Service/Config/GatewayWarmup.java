@@ -0,0 +1,270 @@
+package com.Ecommerce.Gateway_Service.Config;
+
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
+import com.Ecommerce.Gateway_Service.Kafka.KafkaReplyRouting;
+import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Gateway_Service.Security.JwtUtil;
+import com.Ecommerce.Gateway_Service.Service.AsyncProductService;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * ✅ Startup warm-up and readiness gate.
+ *
+ * Right after a deploy the first BFF requests used to time out: they were published before the
+ * reply listeners had partitions assigned, and paid for the first Redis connection, the Kafka
+ * producer metadata fetch, JWT parser and codec initialisation and an empty product cache.
+ * Once the application is started this component
+ * <ol>
+ *   <li>waits until every reply-topic listener of this instance has partitions assigned,</li>
+ *   <li>opens the Redis connection and fetches producer metadata for the request topics,</li>
+ *   <li>initialises the JWT parser and the Kafka wire codec,</li>
+ *   <li>primes the product near-cache with the configured hot products,</li>
+ * </ol>
+ * and only then reports UP as the {@code warmup} health contributor, which is part of the
+ * readiness group. If warm-up exceeds {@code gateway.warmup.timeout-ms} the instance goes ready
+ * anyway rather than never taking traffic.
+ */
+@Component("warmup")
+@Slf4j
+public class GatewayWarmup implements HealthIndicator {
+
+    static final List<String> REQUEST_TOPICS = List.of(
+            KafkaTopics.CART_REQUEST,
+            KafkaTopics.PRODUCT_BATCH_REQUEST,
+            KafkaTopics.ORDER_REQUEST,
+            KafkaTopics.ORDER_IDS_REQUEST,
+            KafkaTopics.SAVED4LATER_REQUEST
+    );
+
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final KafkaReplyRouting kafkaReplyRouting;
+    private final KafkaTemplate<String, Object> gatewayKafkaTemplate;
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final JwtUtil jwtUtil;
+    private final AsyncProductService asyncProductService;
+    private final MeterRegistry meterRegistry;
+
+    private final boolean enabled;
+    private final Duration timeout;
+    private final Duration pollInterval;
+    private final List<UUID> hotProductIds;
+
+    private final Map<String, String> steps = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    private volatile long readyAfterMs = -1;
+
+    @Autowired
+    public GatewayWarmup(KafkaListenerEndpointRegistry listenerRegistry,
+                         KafkaReplyRouting kafkaReplyRouting,
+                         KafkaTemplate<String, Object> gatewayKafkaTemplate,
+                         ReactiveStringRedisTemplate redisTemplate,
+                         JwtUtil jwtUtil,
+                         AsyncProductService asyncProductService,
+                         MeterRegistry meterRegistry,
+                         @Value("${gateway.warmup.enabled:true}") boolean enabled,
+                         @Value("${gateway.warmup.timeout-ms:30000}") long timeoutMs,
+                         @Value("${gateway.warmup.poll-interval-ms:100}") long pollIntervalMs,
+                         @Value("${gateway.warmup.hot-product-ids:}") String hotProductIds) {
+        this.listenerRegistry = listenerRegistry;
+        this.kafkaReplyRouting = kafkaReplyRouting;
+        this.gatewayKafkaTemplate = gatewayKafkaTemplate;
+        this.redisTemplate = redisTemplate;
+        this.jwtUtil = jwtUtil;
+        this.asyncProductService = asyncProductService;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.pollInterval = Duration.ofMillis(pollIntervalMs);
+        this.hotProductIds = parseIds(hotProductIds);
+
+        Gauge.builder("gateway.startup.ready", this, warmup -> warmup.ready ? 1 : 0)
+                .description("1 once startup warm-up finished and the instance reports ready")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        warmUp().subscribe();
+    }
+
+    /**
+     * ✅ Run every warm-up step; completes once the instance is ready (or warm-up timed out)
+     */
+    Mono<Void> warmUp() {
+        if (!enabled) {
+            markReady(0);
+            return Mono.empty();
+        }
+
+        long start = System.nanoTime();
+        log.info("Gateway warm-up started - waiting for reply partitions, priming {} hot products", hotProductIds.size());
+
+        Mono<Void> connections = Mono.when(
+                step("reply-assignment", awaitReplyAssignment()),
+                step("redis", warmRedis()),
+                step("kafka-producer", warmProducer()),
+                step("codecs", Mono.fromRunnable(() -> primeInProcess(jwtUtil))));
+
+        // product priming needs the reply listeners, so it runs after the assignment wait
+        return connections
+                .then(step("products", Mono.defer(this::primeProducts)))
+                .timeout(timeout)
+                .onErrorResume(error -> {
+                    log.warn("Gateway warm-up did not finish within {}ms ({}), going ready anyway - steps: {}",
+                            timeout.toMillis(), error.getMessage(), steps);
+                    meterRegistry.counter("gateway.startup.warmup.timeouts").increment();
+                    return Mono.empty();
+                })
+                .doFinally(signal -> markReady(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)));
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = ready ? Health.up() : Health.outOfService();
+        builder.withDetails(Map.copyOf(steps));
+        if (ready) {
+            builder.withDetail("readyAfterMs", readyAfterMs);
+        }
+        return builder.build();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * ✅ In-process warm-up: JWT parser, signing key and the wire codec for reply DTOs.
+     * Shared with the cold-start benchmark.
+     */
+    public static void primeInProcess(JwtUtil jwtUtil) {
+        jwtUtil.verify("warm.up.token");
+
+        KafkaReplyDTO<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> reply = KafkaReplyDTO.<EnrichedShoppingCartResponse.EnrichedCartResponseDTO>builder()
+                .correlationId("warmup")
+                .success(true)
+                .data(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder().items(List.of()).build())
+                .timestamp(System.currentTimeMillis())
+                .build();
+        KafkaWireFormat.decode(KafkaWireFormat.encode(reply), KafkaWireFormat.SMILE_V1,
+                KafkaWireFormat.type(KafkaReplyDTO.class, EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class));
+    }
+
+    /**
+     * ✅ Poll until every reply listener of this instance owns partitions - a reply published
+     * before that would sit unread until the request times out
+     */
+    private Mono<Void> awaitReplyAssignment() {
+        return Flux.interval(Duration.ZERO, pollInterval)
+                .map(tick -> unassignedReplyListeners())
+                .filter(unassigned -> unassigned == 0)
+                .next()
+                .then();
+    }
+
+    long unassignedReplyListeners() {
+        String group = kafkaReplyRouting.getConsumerGroup();
+        return listenerRegistry.getListenerContainers().stream()
+                .filter(container -> group.equals(container.getGroupId()))
+                .filter(container -> !hasAssignment(container))
+                .count();
+    }
+
+    private static boolean hasAssignment(MessageListenerContainer container) {
+        Collection<TopicPartition> assigned = container.getAssignedPartitions();
+        return container.isRunning() && assigned != null && !assigned.isEmpty();
+    }
+
+    private Mono<Void> warmRedis() {
+        return redisTemplate.hasKey("gateway:warmup")
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Redis warm-up failed: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> warmProducer() {
+        // partitionsFor creates the producer and fetches topic metadata - both blocking
+        return Mono.fromRunnable(() -> REQUEST_TOPICS.forEach(gatewayKafkaTemplate::partitionsFor))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Kafka producer warm-up failed: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> primeProducts() {
+        if (hotProductIds.isEmpty()) {
+            return Mono.empty();
+        }
+        return asyncProductService.getProductsBatch(hotProductIds)
+                .doOnNext(products -> log.info("Primed {} hot products into the near-cache", products.size()))
+                .then()
+                .onErrorResume(error -> {
+                    log.warn("Hot product priming failed: {}", error.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> step(String name, Mono<?> work) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            steps.put(name, "running");
+            return work.then()
+                    .doOnSuccess(ignored -> steps.put(name, "done"))
+                    .doFinally(signal -> Timer.builder("gateway.startup.warmup.duration")
+                            .description("Time spent in each startup warm-up step")
+                            .tag("step", name)
+                            .register(meterRegistry)
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    private void markReady(long elapsedMs) {
+        readyAfterMs = elapsedMs;
+        ready = true;
+        log.info("Gateway warm-up finished in {}ms - reporting ready", elapsedMs);
+    }
+
+    private static List<UUID> parseIds(String ids) {
+        if (ids == null || ids.isBlank()) {
+            return List.of();
+        }
+        return Arrays.stream(ids.split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .map(UUID::fromString)
+                .collect(Collectors.toList());
+    }
+}
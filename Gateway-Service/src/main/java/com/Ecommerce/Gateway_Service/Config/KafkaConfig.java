@@ -1,22 +1,44 @@
 package com.Ecommerce.Gateway_Service.Config;
 
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse.EnrichedCartResponseDTO;
+import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
+import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.SavedItemsResponseDTO;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.ProductBatchResponseDTO;
+import com.Ecommerce.Gateway_Service.Kafka.KafkaReplyRouting;
+import com.Ecommerce.Gateway_Service.Kafka.ReplyInstanceProducerInterceptor;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireDeserializer;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.config.TopicConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.DefaultErrorHandler;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 @Configuration
 @EnableKafka
@@ -27,56 +49,107 @@ public class KafkaConfig {
     private String bootstrapServers;
 
     /**
-     * ✅ Producer with JsonSerializer for sending HashMap objects
+     * ✅ BFF request topics are written in the binary wire format, anything else stays JSON.
+     * Set gateway.kafka.wire-format.binary=false to keep sending JSON until every service reads Smile.
      */
     @Bean
-    public ProducerFactory<String, Object> producerFactory() {
+    public ProducerFactory<String, Object> producerFactory(
+            @Value("${gateway.kafka.wire-format.binary:true}") boolean binaryWireFormat) {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        configProps.put(ProducerConfig.ACKS_CONFIG, "1");
+        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
 
         // ✅ CRITICAL: Disable type headers to match Cart service expectations
-        configProps.put(JsonSerializer.ADD_TYPE_INFO_HEADERS, false);
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>().noTypeInfo();
+        Serializer<Object> valueSerializer = binaryWireFormat
+                ? new DelegatingByTopicSerializer(Map.of(KafkaWireFormat.BFF_TOPICS, new KafkaWireSerializer()), jsonSerializer)
+                : jsonSerializer;
 
-        configProps.put(ProducerConfig.ACKS_CONFIG, "1");
-        configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
-        return new DefaultKafkaProducerFactory<>(configProps);
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), valueSerializer);
     }
 
+    /**
+     * ✅ Every request is stamped with the reply-instance header so replies come back to this replica
+     */
+    @Bean
+    public KafkaTemplate<String, Object> gatewayKafkaTemplate(ProducerFactory<String, Object> producerFactory,
+                                                           KafkaReplyRouting kafkaReplyRouting) {
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(producerFactory);
+        template.setProducerInterceptor(new ReplyInstanceProducerInterceptor(kafkaReplyRouting));
+        return template;
+    }
+
+    /**
+     * ✅ Instance-scoped reply topics - short retention, replies are only useful while a future is pending
+     */
     @Bean
-    public KafkaTemplate<String, Object> gatewayKafkaTemplate() {
-        return new KafkaTemplate<>(producerFactory());
+    public KafkaAdmin.NewTopics gatewayReplyTopics(KafkaReplyRouting kafkaReplyRouting,
+                                                   @Value("${gateway.kafka.reply-topic.partitions:3}") int partitions,
+                                                   @Value("${gateway.kafka.reply-topic.replicas:1}") int replicas,
+                                                   @Value("${gateway.kafka.reply-topic.retention-ms:300000}") long retentionMs) {
+        NewTopic[] topics = kafkaReplyRouting.getReplyTopicNames().stream()
+                .map(name -> TopicBuilder.name(name)
+                        .partitions(partitions)
+                        .replicas(replicas)
+                        .config(TopicConfig.RETENTION_MS_CONFIG, String.valueOf(retentionMs))
+                        .build())
+                .toArray(NewTopic[]::new);
+        return new KafkaAdmin.NewTopics(topics);
     }
 
     /**
-     * ✅ FIXED: Simple consumer with direct JsonDeserializer (no ErrorHandlingDeserializer)
+     * ✅ Replies are decoded straight into their gateway DTOs (Smile or JSON, per the record's
+     * wire-format header); other topics still arrive as maps. An undecodable reply arrives as a null
+     * value, so the listener fails the pending request by record key instead of letting it time out.
+     * Reply consumers are per instance and start at latest - replies produced before this
+     * instance started can't match a pending future.
      */
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, Object> consumerFactory(KafkaReplyRouting kafkaReplyRouting) {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "gateway-bff-group");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-
-        // ✅ FIXED: Direct JsonDeserializer configuration (no nesting)
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*");
-        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false);
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "java.lang.Object");
-
-        return new DefaultKafkaConsumerFactory<>(props);
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, kafkaReplyRouting.getConsumerGroup());
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+
+        KafkaWireDeserializer valueDeserializer = new KafkaWireDeserializer()
+                .withType(replyTopics("cart.response"), KafkaWireFormat.type(KafkaReplyDTO.class, EnrichedCartResponseDTO.class))
+                .withType(replyTopics("order.response"), KafkaWireFormat.type(KafkaReplyDTO.class, EnrichedOrderResponse.class))
+                .withType(replyTopics("saved4later.response"), KafkaWireFormat.type(KafkaReplyDTO.class, SavedItemsResponseDTO.class))
+                .withType(replyTopics("product.batch.response"), KafkaWireFormat.type(ProductBatchResponseDTO.class))
+                .withType(replyTopics("cart.error"), KafkaWireFormat.type(KafkaReplyDTO.class, Object.class))
+                .withType(replyTopics("order.error"), KafkaWireFormat.type(KafkaReplyDTO.class, Object.class))
+                .withType(replyTopics("saved4later.error"), KafkaWireFormat.type(KafkaReplyDTO.class, Object.class))
+                .withType(replyTopics("product.error"), KafkaWireFormat.type(KafkaReplyDTO.class, Object.class))
+                .undecodableAsNull();
+
+        return new DefaultKafkaConsumerFactory<>(props, new StringDeserializer(), valueDeserializer);
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
+    public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory(
+            ConsumerFactory<String, Object> consumerFactory) {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
 
         // ✅ Simple error handler (no retries to avoid loops)
         factory.setCommonErrorHandler(new DefaultErrorHandler());
 
+        // ✅ Skip stale replies left over from a previous run of this instance
+        Set<TopicPartition> seenPartitions = ConcurrentHashMap.newKeySet();
+        factory.getContainerProperties().setConsumerRebalanceListener(new ConsumerAwareRebalanceListener() {
+            @Override
+            public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+                List<TopicPartition> firstAssignment = partitions.stream()
+                        .filter(seenPartitions::add)
+                        .toList();
+                if (!firstAssignment.isEmpty()) {
+                    consumer.seekToEnd(firstAssignment);
+                    log.info("Reply consumer assigned {} new partitions, seeking to end", firstAssignment.size());
+                }
+            }
+        });
+
         return factory;
     }
 
@@ -101,4 +174,11 @@ public class KafkaConfig {
         factory.setCommonErrorHandler(new DefaultErrorHandler());
         return factory;
     }
-}
\ No newline at end of file
+
+    /**
+     * Base reply topic plus its per-instance variants ({@code <base>.<instanceId>})
+     */
+    private static Pattern replyTopics(String baseTopic) {
+        return Pattern.compile("^" + Pattern.quote(baseTopic) + "(\\..+)?$");
+    }
+}
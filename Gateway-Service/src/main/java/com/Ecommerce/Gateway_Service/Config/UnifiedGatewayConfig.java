@@ -4,6 +4,7 @@ import ch.qos.logback.classic.Logger;
 import com.Ecommerce.Gateway_Service.Security.CustomRateLimitFilterFactory;
 import com.Ecommerce.Gateway_Service.Security.JwtAuthenticationFilterFactory;
 import com.Ecommerce.Gateway_Service.Security.TokenBucketRateLimitFilterFactory;
+import com.Ecommerce.Gateway_Service.Service.CartMutationETagFilter;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
@@ -18,14 +19,17 @@ public class UnifiedGatewayConfig {
     private final JwtAuthenticationFilterFactory jwtAuthenticationFilterFactory;
     private final CustomRateLimitFilterFactory customRateLimitFilterFactory;
     private final TokenBucketRateLimitFilterFactory tokenBucketRateLimitFilterFactory;
+    private final CartMutationETagFilter cartMutationETagFilter;
 
     public UnifiedGatewayConfig(
             JwtAuthenticationFilterFactory jwtAuthenticationFilterFactory,
             CustomRateLimitFilterFactory customRateLimitFilterFactory,
-            TokenBucketRateLimitFilterFactory tokenBucketRateLimitFilterFactory) {
+            TokenBucketRateLimitFilterFactory tokenBucketRateLimitFilterFactory,
+            CartMutationETagFilter cartMutationETagFilter) {
         this.jwtAuthenticationFilterFactory = jwtAuthenticationFilterFactory;
         this.customRateLimitFilterFactory = customRateLimitFilterFactory;
         this.tokenBucketRateLimitFilterFactory = tokenBucketRateLimitFilterFactory;
+        this.cartMutationETagFilter = cartMutationETagFilter;
     }
 
     @Bean
@@ -299,6 +303,7 @@ public class UnifiedGatewayConfig {
                         .filters(f -> f
                                 .filter(jwtAuthenticationFilterFactory.apply(new JwtAuthenticationFilterFactory.Config()))
                                 .filter(customRateLimitFilterFactory.apply(createConfig(50, 60, CustomRateLimitFilterFactory.KeyType.USER)))
+                                .filter(cartMutationETagFilter)
                                 .circuitBreaker(config -> config.setName("cart-cb")))
                         .uri("lb://cart-service"))
                     // saved for  later service
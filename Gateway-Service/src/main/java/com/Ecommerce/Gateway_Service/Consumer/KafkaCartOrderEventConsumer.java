@@ -0,0 +1,107 @@
+package com.Ecommerce.Gateway_Service.Consumer;
+
+import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Gateway_Service.Service.BffETagCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Drops remembered cart/order ETags as soon as Cart-Service or Order-Service publishes a change, so
+ * If-None-Match is only answered from memory while the resource is known to be unchanged. Listens to
+ * every topic that changes a cart - cart, cart item and saved-for-later events. Uses the
+ * instance-scoped group so every replica sees every event.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaCartOrderEventConsumer {
+
+    private final BffETagCache eTagCache;
+
+    @KafkaListener(
+            topics = {
+                    KafkaTopics.CART_CREATED,
+                    KafkaTopics.CART_UPDATED,
+                    KafkaTopics.CART_DELETED,
+                    KafkaTopics.CART_CHECKED_OUT,
+                    KafkaTopics.CART_ABANDONED,
+                    KafkaTopics.ITEM_SAVED_FOR_LATER,
+                    KafkaTopics.SAVED_ITEM_MOVED_TO_CART,
+                    KafkaTopics.SAVED_ITEM_REMOVED
+            },
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "${gateway.bff.conditional.enabled:true}"
+    )
+    public void handleCartChange(ConsumerRecord<String, Object> record) {
+        // Cart and saved-for-later events are keyed by userId
+        String userId = field(record, "userId");
+        if (userId == null) {
+            log.warn("Cart change event on {} without userId, ignoring", record.topic());
+            return;
+        }
+
+        log.debug("Invalidating cart ETag for user {} after {}", userId, record.topic());
+        eTagCache.invalidate(BffETagCache.cartKey(userId));
+    }
+
+    @KafkaListener(
+            topics = {
+                    KafkaTopics.CART_ITEM_ADDED,
+                    KafkaTopics.CART_ITEM_UPDATED,
+                    KafkaTopics.CART_ITEM_REMOVED,
+                    KafkaTopics.CART_ITEM_QUANTITY_CHANGED,
+                    KafkaTopics.CART_ITEM_PRICE_CHANGED
+            },
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "${gateway.bff.conditional.enabled:true}"
+    )
+    public void handleCartItemChange(ConsumerRecord<String, Object> record) {
+        // Cart item events are keyed by cartId
+        String cartId = field(record, "cartId");
+        if (cartId == null) {
+            log.warn("Cart item event on {} without cartId, ignoring", record.topic());
+            return;
+        }
+
+        log.debug("Invalidating cart ETag for cart {} after {}", cartId, record.topic());
+        eTagCache.invalidateCartById(cartId);
+    }
+
+    @KafkaListener(
+            topics = {
+                    KafkaTopics.ORDER_UPDATED,
+                    KafkaTopics.ORDER_STATUS_CHANGED,
+                    KafkaTopics.ORDER_CANCELED,
+                    KafkaTopics.ORDER_ITEM_ADDED,
+                    KafkaTopics.ORDER_ITEM_UPDATED
+            },
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "${gateway.bff.conditional.enabled:true}"
+    )
+    public void handleOrderChange(ConsumerRecord<String, Object> record) {
+        // Order events are keyed by userId, the order is only in the payload
+        String orderId = field(record, "orderId");
+        if (orderId == null) {
+            log.warn("Order change event on {} without orderId, ignoring", record.topic());
+            return;
+        }
+
+        log.debug("Invalidating order ETags for order {} after {}", orderId, record.topic());
+        eTagCache.invalidateOrder(orderId);
+    }
+
+    private String field(ConsumerRecord<String, Object> record, String name) {
+        if (record.value() instanceof Map<?, ?> event && event.get(name) != null) {
+            return event.get(name).toString();
+        }
+        return name.equals("userId") || name.equals("cartId") ? record.key() : null;
+    }
+}
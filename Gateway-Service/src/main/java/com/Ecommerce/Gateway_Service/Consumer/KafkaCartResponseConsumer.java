@@ -2,10 +2,12 @@ package com.Ecommerce.Gateway_Service.Consumer;
 
 import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
 import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
 import com.Ecommerce.Gateway_Service.Kafka.DTOs.ProductBatchResponseDTO;
 import com.Ecommerce.Gateway_Service.DTOs.Product.ProductBatchInfoDTO;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.Ecommerce.Gateway_Service.Service.BffStageTimers;
+import com.Ecommerce.Gateway_Service.Service.HotPathLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -13,571 +15,215 @@ import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
+/**
+ * Cart and product batch replies arrive already decoded into their DTOs (see KafkaConfig);
+ * this consumer only fills the gateway-side defaults and completes the pending request.
+ */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class KafkaCartResponseConsumer {
 
     private final AsyncResponseManager asyncResponseManager;
-    private final ObjectMapper objectMapper;
+    private final BffStageTimers stageTimers;
+    private final HotPathLog hotPathLog;
 
     /**
      * ✅ Listen for cart responses from cart service
      */
     @KafkaListener(
-            topics = "cart.response",
-            groupId = "gateway-bff-group",
+            topics = "#{@kafkaReplyRouting.replyTopic('cart.response')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handleCartResponse(ConsumerRecord<String, Object> record) {
-        Object responsePayload = record.value();
-        log.info("Received cart response: {}", responsePayload);
-
-        try {
-            Map<String, Object> responseMap = convertToMap(responsePayload);
-            String correlationId = (String) responseMap.get("correlationId");
-            Boolean success = (Boolean) responseMap.get("success");
-            String message = (String) responseMap.get("message");
-
-            log.info("Processing cart response - correlationId: {}, success: {}, message: {}",
-                    correlationId, success, message);
-
-            if (correlationId == null) {
-                log.error("No correlationId in response: {}", responsePayload);
-                return;
-            }
+    public void handleCartResponse(ConsumerRecord<String, KafkaReplyDTO<EnrichedShoppingCartResponse.EnrichedCartResponseDTO>> record) {
+        KafkaReplyDTO<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> response = record.value();
+        if (response == null) {
+            failUndecodable(record.key(), "cart");
+            return;
+        }
 
-            if (success != null && success) {
-                Map<String, Object> cartData = (Map<String, Object>) responseMap.get("data");
+        stageTimers.recordReply("cart", response.getRequestTimestamp(), response.getReceivedAt(), response.getTimestamp());
 
-                if (cartData != null) {
-                    EnrichedShoppingCartResponse.EnrichedCartResponseDTO enrichedResponse =
-                            convertToEnrichedResponse(cartData);
+        String correlationId = response.getCorrelationId() != null ? response.getCorrelationId() : record.key();
+        hotPathLog.verbose(log, "reply", correlationId,
+                "Processing cart response - correlationId: {}, success: {}, message: {}",
+                () -> correlationId, () -> response.isSuccess(), () -> response.getMessage());
 
-                    log.info("Completing cart request for correlationId: {} with {} items",
-                            correlationId, enrichedResponse.getItemCount());
+        if (correlationId == null) {
+            log.error("No correlationId in cart response: {}", response);
+            return;
+        }
 
-                    asyncResponseManager.completeRequest(correlationId, enrichedResponse);
-                } else {
-                    log.error("No cart data in successful response: {}", responsePayload);
-                    asyncResponseManager.completeRequestExceptionally(correlationId,
-                            new RuntimeException("No cart data in response"));
-                }
-            } else {
-                log.error("Cart response indicates failure: {}", message);
-                asyncResponseManager.completeRequestExceptionally(correlationId,
-                        new RuntimeException("Cart service error: " + message));
-            }
+        if (!response.isSuccess()) {
+            log.error("Cart response indicates failure: {}", response.getMessage());
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException("Cart service error: " + response.getMessage()));
+            return;
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing cart response: {}", responsePayload, e);
-            handleResponseError(responsePayload, e);
+        if (response.getData() == null) {
+            log.error("No cart data in successful response for correlationId: {}", correlationId);
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException("No cart data in response"));
+            return;
         }
+
+        EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart = applyCartDefaults(response.getData());
+        hotPathLog.summary(log, "reply", "Completing cart request for correlationId: {} with {} items",
+                () -> correlationId, () -> cart.getItemCount());
+        asyncResponseManager.completeRequest(correlationId, cart);
     }
 
     /**
      * ✅ Listen for product batch responses from product service
      */
     @KafkaListener(
-            topics = "product.batch.response",
-            groupId = "gateway-bff-group",
+            topics = "#{@kafkaReplyRouting.replyTopic('product.batch.response')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handleProductBatchResponse(ConsumerRecord<String, Object> record) {
-        Object responsePayload = record.value();
-        log.info("Received product batch response: {}", responsePayload);
-
-        try {
-            Map<String, Object> responseMap = convertToMap(responsePayload);
-            String correlationId = (String) responseMap.get("correlationId");
-            Boolean success = (Boolean) responseMap.get("success");
-            String message = (String) responseMap.get("message");
+    public void handleProductBatchResponse(ConsumerRecord<String, ProductBatchResponseDTO> record) {
+        ProductBatchResponseDTO response = record.value();
+        if (response == null) {
+            failUndecodable(record.key(), "product batch");
+            return;
+        }
 
-            log.info("Processing product batch response - correlationId: {}, success: {}, message: {}",
-                    correlationId, success, message);
+        stageTimers.recordReply("product-batch", 0, 0, response.getTimestamp());
 
-            if (correlationId == null) {
-                log.error("No correlationId in product response: {}", responsePayload);
-                return;
-            }
+        String correlationId = response.getCorrelationId() != null ? response.getCorrelationId() : record.key();
+        hotPathLog.verbose(log, "reply", correlationId,
+                "Processing product batch response - correlationId: {}, success: {}, message: {}",
+                () -> correlationId, () -> response.isSuccess(), () -> response.getMessage());
 
-            if (success != null && success) {
-                // Convert to ProductBatchResponseDTO and complete the request
-                ProductBatchResponseDTO productResponse = convertToProductBatchResponse(responseMap);
+        if (correlationId == null) {
+            log.error("No correlationId in product response: {}", response);
+            return;
+        }
 
-                log.info("Completing product request for correlationId: {} with {} products",
-                        correlationId, productResponse.getProducts().size());
+        if (!response.isSuccess()) {
+            log.error("Product response indicates failure: {}", response.getMessage());
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException("Product service error: " + response.getMessage()));
+            return;
+        }
 
-                asyncResponseManager.completeRequest(correlationId, productResponse);
-            } else {
-                log.error("Product response indicates failure: {}", message);
-                asyncResponseManager.completeRequestExceptionally(correlationId,
-                        new RuntimeException("Product service error: " + message));
-            }
+        response.setCorrelationId(correlationId);
+        response.setProducts(applyProductDefaults(response.getProducts()));
 
-        } catch (Exception e) {
-            log.error("Error processing product batch response: {}", responsePayload, e);
-            handleResponseError(responsePayload, e);
-        }
+        hotPathLog.summary(log, "reply", "Completing product request for correlationId: {} with {} products",
+                () -> correlationId, () -> response.getProducts().size());
+        asyncResponseManager.completeRequest(correlationId, response);
     }
 
     /**
      * ✅ Listen for cart error responses
      */
     @KafkaListener(
-            topics = "cart.error",
-            groupId = "gateway-bff-group",
+            topics = "#{@kafkaReplyRouting.replyTopic('cart.error')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handleCartError(ConsumerRecord<String, Object> record) {
-        Object errorPayload = record.value();
-        log.error("Received cart error response: {}", errorPayload);
-        handleErrorResponse(errorPayload, "Cart service error");
+    public void handleCartError(ConsumerRecord<String, KafkaReplyDTO<?>> record) {
+        log.error("Received cart error response: {}", record.value());
+        handleErrorResponse(record, "Cart service error");
     }
 
     /**
      * ✅ Listen for product error responses
      */
     @KafkaListener(
-            topics = "product.error",
-            groupId = "gateway-bff-group",
+            topics = "#{@kafkaReplyRouting.replyTopic('product.error')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handleProductError(ConsumerRecord<String, Object> record) {
-        Object errorPayload = record.value();
-        log.error("Received product error response: {}", errorPayload);
-        handleErrorResponse(errorPayload, "Product service error");
-    }
-
-    /**
-     * ✅ Convert various payload types to Map
-     */
-    private Map<String, Object> convertToMap(Object payload) throws Exception {
-        if (payload instanceof Map) {
-            return (Map<String, Object>) payload;
-        } else if (payload instanceof String) {
-            return objectMapper.readValue((String) payload, Map.class);
-        } else {
-            String jsonString = objectMapper.writeValueAsString(payload);
-            return objectMapper.readValue(jsonString, Map.class);
-        }
+    public void handleProductError(ConsumerRecord<String, KafkaReplyDTO<?>> record) {
+        log.error("Received product error response: {}", record.value());
+        handleErrorResponse(record, "Product service error");
     }
 
     /**
-     * ✅ Convert cart service response to enriched response format - FIXED with better error handling
+     * ✅ Fill the fields the gateway derives itself - counts, missing subtotals and the product placeholders
      */
-    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO convertToEnrichedResponse(Map<String, Object> cartData) {
-        try {
-            log.info("Converting cart data: {}", cartData);
-
-            // Extract basic cart info with proper null checks and detailed logging
-            String cartIdStr = extractStringValue(cartData, "id");
-            String userIdStr = extractStringValue(cartData, "userId");
-            Number totalNum = (Number) cartData.get("total");
-
-            log.info("Extracted cart fields - cartId: '{}', userId: '{}', total: {}",
-                    cartIdStr, userIdStr, totalNum);
-
-            // Parse UUIDs with better error handling
-            UUID cartId = parseUUID(cartIdStr, "cartId");
-            UUID userId = parseUUID(userIdStr, "userId");
-
-            // Convert total with validation
-            BigDecimal total = convertToBigDecimal(totalNum, "total");
-
-            log.info("Parsed UUIDs - cartId: {}, userId: {}, total: {}", cartId, userId, total);
-
-            // Extract and convert items
-            List<EnrichedCartItemDTO> enrichedItems = new ArrayList<>();
-            Object itemsObj = cartData.get("items");
-            int itemCount = 0;
-            int totalQuantity = 0;
-
-            if (itemsObj instanceof List) {
-                List<Map<String, Object>> items = (List<Map<String, Object>>) itemsObj;
-                itemCount = items.size();
-
-                log.info("Cart contains {} items", itemCount);
-
-                if (!items.isEmpty()) {
-                    for (Map<String, Object> item : items) {
-                        try {
-                            EnrichedCartItemDTO enrichedItem = convertCartItemToEnrichedItem(item);
-                            if (enrichedItem != null) {
-                                enrichedItems.add(enrichedItem);
-                                totalQuantity += (enrichedItem.getQuantity() != null ? enrichedItem.getQuantity() : 0);
-                            }
-                        } catch (Exception e) {
-                            log.error("Error converting cart item: {}", item, e);
-                            // Continue processing other items
-                        }
-                    }
+    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO applyCartDefaults(
+            EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart) {
+        List<EnrichedCartItemDTO> items = cart.getItems() == null ? new ArrayList<>() :
+                cart.getItems().stream()
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
 
-                    log.info("Successfully processed {} cart items with total quantity: {}",
-                            enrichedItems.size(), totalQuantity);
-                } else {
-                    log.info("Cart is empty - no items to process");
-                }
-            } else {
-                log.warn("Items object is not a List, type: {}, value: {}",
-                        itemsObj != null ? itemsObj.getClass().getSimpleName() : "null", itemsObj);
+        int totalQuantity = 0;
+        for (EnrichedCartItemDTO item : items) {
+            if (item.getQuantity() == null) {
+                item.setQuantity(0);
             }
-
-            // Parse datetime fields with detailed logging
-            LocalDateTime createdAt = parseDateTime(cartData.get("createdAt"));
-            LocalDateTime updatedAt = parseDateTime(cartData.get("updatedAt"));
-            LocalDateTime expiresAt = parseDateTime(cartData.get("expiresAt"));
-
-            log.info("Parsed timestamps - createdAt: {}, updatedAt: {}, expiresAt: {}",
-                    createdAt, updatedAt, expiresAt);
-
-            // Build the response
-            EnrichedShoppingCartResponse.EnrichedCartResponseDTO result =
-                    EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder()
-                            .id(cartId)
-                            .userId(userId)
-                            .items(enrichedItems)
-                            .total(total)
-                            .itemCount(itemCount)
-                            .totalQuantity(totalQuantity)
-                            .createdAt(createdAt)
-                            .updatedAt(updatedAt)
-                            .expiresAt(expiresAt)
-                            .build();
-
-            log.info("✅ FINAL CART RESPONSE: id={}, userId={}, itemCount={}, totalQuantity={}, total={}, createdAt={}, updatedAt={}, expiresAt={}",
-                    result.getId(), result.getUserId(), result.getItemCount(),
-                    result.getTotalQuantity(), result.getTotal(), result.getCreatedAt(),
-                    result.getUpdatedAt(), result.getExpiresAt());
-
-            return result;
-
-        } catch (Exception e) {
-            log.error("Error converting cart data to enriched response: {}", cartData, e);
-            return createFallbackResponse(cartData);
-        }
-    }
-
-    /**
-     * ✅ Convert cart item to EnrichedCartItemDTO - FIXED with better error handling
-     */
-    private EnrichedCartItemDTO convertCartItemToEnrichedItem(Map<String, Object> item) {
-        try {
-            log.debug("Converting cart item: {}", item);
-
-            // Extract item fields with detailed logging
-            String itemIdStr = extractStringValue(item, "id");
-            String productIdStr = extractStringValue(item, "productId");
-            Number quantityNum = (Number) item.get("quantity");
-            Number priceNum = (Number) item.get("price");
-            Number subtotalNum = (Number) item.get("subtotal");
-
-            log.debug("Item field extraction - id: '{}', productId: '{}', quantity: {}, price: {}, subtotal: {}",
-                    itemIdStr, productIdStr, quantityNum, priceNum, subtotalNum);
-
-            // Parse UUIDs
-            UUID itemId = parseUUID(itemIdStr, "itemId");
-            UUID productId = parseUUID(productIdStr, "productId");
-
-            // Convert numeric fields
-            Integer quantity = convertToInteger(quantityNum, "quantity");
-            BigDecimal price = convertToBigDecimal(priceNum, "price");
-            BigDecimal subtotal = convertToBigDecimal(subtotalNum, "subtotal");
-
-            // Calculate subtotal if not provided
-            if ((subtotal == null || subtotal.equals(BigDecimal.ZERO)) && price != null && quantity != null) {
-                subtotal = price.multiply(BigDecimal.valueOf(quantity));
-                log.debug("Calculated subtotal: {} (price: {} * quantity: {})", subtotal, price, quantity);
+            if (item.getPrice() == null) {
+                item.setPrice(BigDecimal.ZERO);
             }
-
-            // Parse datetime
-            LocalDateTime addedAt = parseDateTime(item.get("addedAt"));
-
-            EnrichedCartItemDTO enrichedItem = EnrichedCartItemDTO.builder()
-                    .id(itemId)
-                    .productId(productId)
-                    .quantity(quantity)
-                    .price(price)
-                    .subtotal(subtotal)
-                    .addedAt(addedAt)
-                    .productName("Loading...") // Will be enriched by product service
-                    .productImage(null)
-                    .productStatus(null)
-                    .availableQuantity(0)
-                    .inStock(null)
-                    .build();
-
-            log.debug("✅ Converted cart item: id={}, productId={}, quantity={}, price={}, subtotal={}, addedAt={}",
-                    enrichedItem.getId(), enrichedItem.getProductId(), enrichedItem.getQuantity(),
-                    enrichedItem.getPrice(), enrichedItem.getSubtotal(), enrichedItem.getAddedAt());
-
-            return enrichedItem;
-
-        } catch (Exception e) {
-            log.error("Error converting cart item: {}", item, e);
-            return createFallbackErrorItem();
-        }
-    }
-
-    /**
-     * ✅ Enhanced helper methods for type conversion with better error handling
-     */
-    private String extractStringValue(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) {
-            log.warn("Missing field '{}' in map", key);
-            return null;
-        }
-        String stringValue = value.toString().trim();
-        if (stringValue.isEmpty()) {
-            log.warn("Empty field '{}' in map", key);
-            return null;
-        }
-        return stringValue;
-    }
-
-    private UUID parseUUID(String uuidStr, String fieldName) {
-        if (uuidStr == null || uuidStr.trim().isEmpty()) {
-            log.warn("Cannot parse UUID for field '{}': value is null or empty", fieldName);
-            return null;
-        }
-
-        try {
-            UUID result = UUID.fromString(uuidStr.trim());
-            log.debug("Successfully parsed UUID for field '{}': {}", fieldName, result);
-            return result;
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid UUID format for field '{}': '{}' - {}", fieldName, uuidStr, e.getMessage());
-            return null;
-        }
-    }
-
-    private BigDecimal convertToBigDecimal(Number value, String fieldName) {
-        if (value == null) {
-            log.warn("BigDecimal field '{}' is null, defaulting to ZERO", fieldName);
-            return BigDecimal.ZERO;
-        }
-
-        try {
-            BigDecimal result = BigDecimal.valueOf(value.doubleValue());
-            log.debug("Converted {} for field '{}': {}", value.getClass().getSimpleName(), fieldName, result);
-            return result;
-        } catch (Exception e) {
-            log.error("Error converting {} to BigDecimal for field '{}': {} - {}",
-                    value.getClass().getSimpleName(), fieldName, value, e.getMessage());
-            return BigDecimal.ZERO;
-        }
-    }
-
-    private Integer convertToInteger(Number value, String fieldName) {
-        if (value == null) {
-            log.warn("Integer field '{}' is null, defaulting to 0", fieldName);
-            return 0;
-        }
-
-        try {
-            Integer result = value.intValue();
-            log.debug("Converted {} for field '{}': {}", value.getClass().getSimpleName(), fieldName, result);
-            return result;
-        } catch (Exception e) {
-            log.error("Error converting {} to Integer for field '{}': {} - {}",
-                    value.getClass().getSimpleName(), fieldName, value, e.getMessage());
-            return 0;
-        }
-    }
-
-    /**
-     * ✅ Enhanced datetime parsing with better error handling
-     */
-    private LocalDateTime parseDateTime(Object dateTimeObj) {
-        if (dateTimeObj == null) {
-            log.debug("DateTime object is null");
-            return null;
-        }
-
-        try {
-            if (dateTimeObj instanceof List) {
-                // Handle array format like [2025, 7, 11, 23, 37, 35, 974000000]
-                List<Number> dateArray = (List<Number>) dateTimeObj;
-                if (dateArray.size() >= 6) {
-                    LocalDateTime result = LocalDateTime.of(
-                            dateArray.get(0).intValue(), // year
-                            dateArray.get(1).intValue(), // month
-                            dateArray.get(2).intValue(), // day
-                            dateArray.get(3).intValue(), // hour
-                            dateArray.get(4).intValue(), // minute
-                            dateArray.get(5).intValue(), // second
-                            dateArray.size() > 6 ? dateArray.get(6).intValue() : 0 // nano
-                    );
-                    log.debug("Parsed datetime from array: {} -> {}", dateArray, result);
-                    return result;
-                } else {
-                    log.warn("DateTime array has insufficient elements: {}", dateArray);
-                }
-            } else if (dateTimeObj instanceof String) {
-                LocalDateTime result = LocalDateTime.parse((String) dateTimeObj);
-                log.debug("Parsed datetime from string: {} -> {}", dateTimeObj, result);
-                return result;
-            } else {
-                log.warn("Unexpected datetime format: {} ({})", dateTimeObj, dateTimeObj.getClass().getSimpleName());
+            // Calculate subtotal if not provided
+            if (item.getSubtotal() == null || item.getSubtotal().signum() == 0) {
+                item.setSubtotal(item.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
             }
-
-        } catch (Exception e) {
-            log.error("Error parsing datetime: {} - {}", dateTimeObj, e.getMessage());
+            item.setProductName("Loading..."); // Will be enriched by product service
+            item.setAvailableQuantity(0);
+            totalQuantity += item.getQuantity();
         }
 
-        return null; // Return null instead of current time for debugging
-    }
-
-    private EnrichedCartItemDTO createFallbackErrorItem() {
-        return EnrichedCartItemDTO.builder()
-                .id(null)
-                .productId(null)
-                .quantity(0)
-                .price(BigDecimal.ZERO)
-                .subtotal(BigDecimal.ZERO)
-                .addedAt(null)
-                .productName("Error loading item")
-                .productImage(null)
-                .productStatus(null)
-                .availableQuantity(0)
-                .inStock(false)
-                .build();
-    }
-
-    /**
-     * ✅ Convert product service response to ProductBatchResponseDTO
-     */
-    private ProductBatchResponseDTO convertToProductBatchResponse(Map<String, Object> responseMap) {
-        try {
-            List<ProductBatchInfoDTO> products = Collections.emptyList();
-
-            // Extract products list if present
-            Object productsObj = responseMap.get("products");
-            if (productsObj instanceof List) {
-                List<Map<String, Object>> productMaps = (List<Map<String, Object>>) productsObj;
-                products = productMaps.stream()
-                        .map(this::convertToProductBatchInfoDTO)
-                        .filter(Objects::nonNull)
-                        .collect(Collectors.toList());
-            }
-
-            return ProductBatchResponseDTO.builder()
-                    .correlationId((String) responseMap.get("correlationId"))
-                    .success((Boolean) responseMap.get("success"))
-                    .message((String) responseMap.get("message"))
-                    .products(products)
-                    .timestamp(getLongValue(responseMap.get("timestamp")))
-                    .build();
-        } catch (Exception e) {
-            log.error("Error converting product batch response: {}", responseMap, e);
-            return ProductBatchResponseDTO.builder()
-                    .correlationId((String) responseMap.get("correlationId"))
-                    .success(false)
-                    .message("Error parsing response: " + e.getMessage())
-                    .products(Collections.emptyList())
-                    .timestamp(System.currentTimeMillis())
-                    .build();
+        cart.setItems(items);
+        cart.setItemCount(items.size());
+        cart.setTotalQuantity(totalQuantity);
+        if (cart.getTotal() == null) {
+            cart.setTotal(BigDecimal.ZERO);
         }
+        return cart;
     }
 
-    /**
-     * ✅ Convert map to ProductBatchInfoDTO
-     */
-    private ProductBatchInfoDTO convertToProductBatchInfoDTO(Map<String, Object> productMap) {
-        try {
-            String productIdStr = extractStringValue(productMap, "id");
-            UUID productId = parseUUID(productIdStr, "productId");
-
-            return ProductBatchInfoDTO.builder()
-                    .id(productId)
-                    .name((String) productMap.get("name"))
-                    .imagePath((String) productMap.get("imagePath"))
-                    .inStock((Boolean) productMap.get("inStock"))
-                    .availableQuantity(convertToInteger((Number) productMap.get("availableQuantity"), "availableQuantity"))
-                    .status((String) productMap.get("status"))
-                    .price(convertToBigDecimal((Number) productMap.get("price"), "price"))
-                    .discountType((String) productMap.get("discountType"))
-                    .discountValue((Number) productMap.get("discountValue") != null ?
-                            convertToBigDecimal((Number) productMap.get("discountValue"), "discountValue") : BigDecimal.ZERO)
-                    .build();
-        } catch (Exception e) {
-            log.error("Error converting product info: {}", productMap, e);
-            return null;
+    private List<ProductBatchInfoDTO> applyProductDefaults(List<ProductBatchInfoDTO> products) {
+        if (products == null) {
+            return Collections.emptyList();
         }
-    }
-
-    /**
-     * ✅ Helper methods for type conversion
-     */
-    private Long getLongValue(Object value) {
-        if (value instanceof Long) return (Long) value;
-        if (value instanceof Integer) return ((Integer) value).longValue();
-        if (value instanceof Number) return ((Number) value).longValue();
-        return System.currentTimeMillis();
+        return products.stream()
+                .filter(Objects::nonNull)
+                .peek(product -> {
+                    if (product.getPrice() == null) {
+                        product.setPrice(BigDecimal.ZERO);
+                    }
+                    if (product.getAvailableQuantity() == null) {
+                        product.setAvailableQuantity(0);
+                    }
+                    if (product.getDiscountValue() == null) {
+                        product.setDiscountValue(BigDecimal.ZERO);
+                    }
+                })
+                .collect(Collectors.toList());
     }
 
     /**
      * ✅ Handle error responses
      */
-    private void handleErrorResponse(Object errorPayload, String errorType) {
-        try {
-            Map<String, Object> errorMap = convertToMap(errorPayload);
-            String correlationId = (String) errorMap.get("correlationId");
-            String message = (String) errorMap.get("message");
+    private void handleErrorResponse(ConsumerRecord<String, KafkaReplyDTO<?>> record, String errorType) {
+        KafkaReplyDTO<?> error = record.value();
+        String correlationId = error != null && error.getCorrelationId() != null ? error.getCorrelationId() : record.key();
+        String message = error != null ? error.getMessage() : "undecodable error reply";
 
-            if (correlationId != null) {
-                asyncResponseManager.completeRequestExceptionally(correlationId,
-                        new RuntimeException(errorType + ": " + message));
-            }
-        } catch (Exception e) {
-            log.error("Error processing error response: {}", errorPayload, e);
+        if (correlationId != null) {
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException(errorType + ": " + message));
         }
     }
 
     /**
-     * ✅ Handle response processing errors
+     * ✅ Replies are keyed by correlationId, so a payload that failed to decode still fails its request fast
      */
-    private void handleResponseError(Object payload, Exception error) {
-        try {
-            String correlationId = extractCorrelationId(payload);
-            if (correlationId != null) {
-                asyncResponseManager.completeRequestExceptionally(correlationId, error);
-            }
-        } catch (Exception extractError) {
-            log.error("Failed to extract correlationId from error response", extractError);
+    private void failUndecodable(String correlationId, String replyType) {
+        log.error("Undecodable {} reply for correlationId: {}", replyType, correlationId);
+        if (correlationId != null) {
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException("Could not decode " + replyType + " response"));
         }
     }
-
-    /**
-     * ✅ Extract correlationId from payload
-     */
-    private String extractCorrelationId(Object payload) throws Exception {
-        Map<String, Object> map = convertToMap(payload);
-        return (String) map.get("correlationId");
-    }
-
-    /**
-     * ✅ Create fallback response with more realistic defaults
-     */
-    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO createFallbackResponse(Map<String, Object> cartData) {
-        String userIdStr = extractStringValue(cartData, "userId");
-        UUID userId = parseUUID(userIdStr, "fallback_userId");
-
-        return EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder()
-                .id(null)
-                .userId(userId)
-                .items(List.of())
-                .total(BigDecimal.ZERO)
-                .itemCount(0)
-                .totalQuantity(0)
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .expiresAt(null)
-                .build();
-    }
-}
\ No newline at end of file
+}
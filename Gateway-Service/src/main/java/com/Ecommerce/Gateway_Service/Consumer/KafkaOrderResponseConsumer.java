@@ -4,16 +4,16 @@ package com.Ecommerce.Gateway_Service.Consumer;
 import com.Ecommerce.Gateway_Service.DTOs.EnrichedOrderItemDTO;
 import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
+import com.Ecommerce.Gateway_Service.Service.HotPathLog;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
-import reactor.core.publisher.MonoSink;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -24,212 +24,110 @@ public class KafkaOrderResponseConsumer {
 
     private final AsyncResponseManager asyncResponseManager;
     private final ObjectMapper objectMapper;
+    private final HotPathLog hotPathLog;
 
     /**
-     * ✅ Listen for order responses from order service
+     * ✅ Listen for order responses from order service - the reply is already decoded into EnrichedOrderResponse
      */
     @KafkaListener(
-            topics = "order.response",
-            groupId = "gateway-bff-group",
+            topics = "#{@kafkaReplyRouting.replyTopic('order.response')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handleOrderResponse(ConsumerRecord<String, Object> record) {
-        Object responsePayload = record.value();
-        log.info("Received order response: {}", responsePayload);
-
-        try {
-            Map<String, Object> responseMap = convertToMap(responsePayload);
-            String correlationId = (String) responseMap.get("correlationId");
-            Boolean success = (Boolean) responseMap.get("success");
-            String message = (String) responseMap.get("message");
-
-            log.info("Processing order response - correlationId: {}, success: {}, message: {}",
-                    correlationId, success, message);
-
-            if (correlationId == null) {
-                log.error("No correlationId in order response: {}", responsePayload);
-                return;
+    public void handleOrderResponse(ConsumerRecord<String, KafkaReplyDTO<EnrichedOrderResponse>> record) {
+        KafkaReplyDTO<EnrichedOrderResponse> response = record.value();
+        if (response == null) {
+            log.error("Undecodable order reply for correlationId: {}", record.key());
+            if (record.key() != null) {
+                asyncResponseManager.completeRequestExceptionally(record.key(),
+                        new RuntimeException("Could not decode order response"));
             }
+            return;
+        }
 
-            if (success != null && success) {
-                Map<String, Object> orderData = (Map<String, Object>) responseMap.get("data");
-
-                if (orderData != null) {
-                    EnrichedOrderResponse enrichedResponse = convertToEnrichedOrderResponse(orderData);
+        String correlationId = response.getCorrelationId() != null ? response.getCorrelationId() : record.key();
+        hotPathLog.verbose(log, "reply", correlationId,
+                "Processing order response - correlationId: {}, success: {}, message: {}",
+                () -> correlationId, () -> response.isSuccess(), () -> response.getMessage());
 
-                    log.info("Completing order request for correlationId: {} with {} items",
-                            correlationId, enrichedResponse.getItemCount());
+        if (correlationId == null) {
+            log.error("No correlationId in order response: {}", response);
+            return;
+        }
 
-                    asyncResponseManager.completeRequest(correlationId, enrichedResponse);
-                } else {
-                    log.error("No order data in successful response: {}", responsePayload);
-                    asyncResponseManager.completeRequestExceptionally(correlationId,
-                            new RuntimeException("No order data in response"));
-                }
-            } else {
-                log.error("Order response indicates failure: {}", message);
-                asyncResponseManager.completeRequestExceptionally(correlationId,
-                        new RuntimeException("Order service error: " + message));
-            }
+        if (!response.isSuccess()) {
+            log.error("Order response indicates failure: {}", response.getMessage());
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException("Order service error: " + response.getMessage()));
+            return;
+        }
 
-        } catch (Exception e) {
-            log.error("Error processing order response: {}", responsePayload, e);
-            handleResponseError(responsePayload, e);
+        if (response.getData() == null) {
+            log.error("No order data in successful response for correlationId: {}", correlationId);
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException("No order data in response"));
+            return;
         }
+
+        EnrichedOrderResponse order = applyOrderDefaults(response.getData());
+        hotPathLog.summary(log, "reply", "Completing order request for correlationId: {} with {} items",
+                () -> correlationId, () -> order.getItemCount());
+        asyncResponseManager.completeRequest(correlationId, order);
     }
 
     /**
      * ✅ Listen for order error responses
      */
     @KafkaListener(
-            topics = "order.error",
-            groupId = "gateway-bff-group",
+            topics = "#{@kafkaReplyRouting.replyTopic('order.error')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
             containerFactory = "kafkaListenerContainerFactory"
     )
-    public void handleOrderError(ConsumerRecord<String, Object> record) {
-        Object errorPayload = record.value();
-        log.error("Received order error response: {}", errorPayload);
-        handleErrorResponse(errorPayload, "Order service error");
+    public void handleOrderError(ConsumerRecord<String, KafkaReplyDTO<?>> record) {
+        KafkaReplyDTO<?> error = record.value();
+        log.error("Received order error response: {}", error);
+
+        String correlationId = error != null && error.getCorrelationId() != null ? error.getCorrelationId() : record.key();
+        if (correlationId != null) {
+            asyncResponseManager.completeRequestExceptionally(correlationId,
+                    new RuntimeException("Order service error: " + (error != null ? error.getMessage() : "undecodable error reply")));
+        }
     }
 
     /**
-     * ✅ Convert order service response to enriched order response format
+     * ✅ Zero missing amounts and mark items for product enrichment
      */
-    private EnrichedOrderResponse convertToEnrichedOrderResponse(Map<String, Object> orderData) {
-        try {
-            log.info("Converting order data: {}", orderData);
-
-            // Extract basic order info
-            String orderIdStr = extractStringValue(orderData, "id");
-            String userIdStr = extractStringValue(orderData, "userId");
-            String cartIdStr = extractStringValue(orderData, "cartId");
-            String billingAddressIdStr = extractStringValue(orderData, "billingAddressId");
-            String shippingAddressIdStr = extractStringValue(orderData, "shippingAddressId");
-
-            // Parse UUIDs
-            UUID orderId = parseUUID(orderIdStr, "orderId");
-            UUID userId = parseUUID(userIdStr, "userId");
-            UUID cartId = parseUUID(cartIdStr, "cartId");
-            UUID billingAddressId = parseUUID(billingAddressIdStr, "billingAddressId");
-            UUID shippingAddressId = parseUUID(shippingAddressIdStr, "shippingAddressId");
-
-            // Convert numeric fields
-            BigDecimal totalAmount = convertToBigDecimal((Number) orderData.get("totalAmount"), "totalAmount");
-            BigDecimal tax = convertToBigDecimal((Number) orderData.get("tax"), "tax");
-            BigDecimal shippingCost = convertToBigDecimal((Number) orderData.get("shippingCost"), "shippingCost");
-            BigDecimal discount = convertToBigDecimal((Number) orderData.get("discount"), "discount");
-
-            // Extract status
-            String status = (String) orderData.get("status");
-
-            // Extract and convert items
-            List<EnrichedOrderItemDTO> enrichedItems = new ArrayList<>();
-            Object itemsObj = orderData.get("items");
-
-            if (itemsObj instanceof List) {
-                List<Map<String, Object>> items = (List<Map<String, Object>>) itemsObj;
-                log.info("Order contains {} items", items.size());
-
-                for (Map<String, Object> item : items) {
-                    try {
-                        EnrichedOrderItemDTO enrichedItem = convertOrderItemToEnrichedItem(item);
-                        if (enrichedItem != null) {
-                            enrichedItems.add(enrichedItem);
-                        }
-                    } catch (Exception e) {
-                        log.error("Error converting order item: {}", item, e);
-                    }
-                }
+    private EnrichedOrderResponse applyOrderDefaults(EnrichedOrderResponse order) {
+        List<EnrichedOrderItemDTO> items = order.getItems() == null ? new ArrayList<>() :
+                order.getItems().stream()
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toList());
 
-                log.info("Successfully processed {} order items", enrichedItems.size());
+        for (EnrichedOrderItemDTO item : items) {
+            if (item.getQuantity() == null) {
+                item.setQuantity(0);
             }
-
-            // Parse datetime fields
-            LocalDateTime createdAt = parseDateTime(orderData.get("createdAt"));
-            LocalDateTime updatedAt = parseDateTime(orderData.get("updatedAt"));
-
-            // Build the response
-            EnrichedOrderResponse result = EnrichedOrderResponse.builder()
-                    .id(orderId)
-                    .userId(userId)
-                    .cartId(cartId)
-                    .status(status)
-                    .items(enrichedItems)
-                    .totalAmount(totalAmount)
-                    .tax(tax)
-                    .shippingCost(shippingCost)
-                    .discount(discount)
-                    .billingAddressId(billingAddressId)
-                    .shippingAddressId(shippingAddressId)
-                    .createdAt(createdAt)
-                    .updatedAt(updatedAt)
-                    .build();
-
-            log.info("✅ FINAL ORDER RESPONSE: id={}, userId={}, status={}, itemCount={}, totalAmount={}",
-                    result.getId(), result.getUserId(), result.getStatus(),
-                    result.getItemCount(), result.getTotalAmount());
-
-            return result;
-
-        } catch (Exception e) {
-            log.error("Error converting order data to enriched response: {}", orderData, e);
-            return createFallbackOrderResponse(orderData);
+            item.setPriceAtPurchase(orZero(item.getPriceAtPurchase()));
+            item.setDiscount(orZero(item.getDiscount()));
+            item.setTotal(orZero(item.getTotal()));
+            item.setProductName("Loading..."); // Will be enriched by product service
+            item.setAvailableQuantity(0);
         }
-    }
 
-    /**
-     * ✅ Convert order item to EnrichedOrderItemDTO
-     */
-    private EnrichedOrderItemDTO convertOrderItemToEnrichedItem(Map<String, Object> item) {
-        try {
-            log.debug("Converting order item: {}", item);
-
-            // Extract item fields
-            String itemIdStr = extractStringValue(item, "id");
-            String productIdStr = extractStringValue(item, "productId");
-            Number quantityNum = (Number) item.get("quantity");
-            Number priceNum = (Number) item.get("priceAtPurchase");
-            Number discountNum = (Number) item.get("discount");
-            Number totalNum = (Number) item.get("total");
-
-            // Parse UUIDs
-            UUID itemId = parseUUID(itemIdStr, "itemId");
-            UUID productId = parseUUID(productIdStr, "productId");
-
-            // Convert numeric fields
-            Integer quantity = convertToInteger(quantityNum, "quantity");
-            BigDecimal priceAtPurchase = convertToBigDecimal(priceNum, "priceAtPurchase");
-            BigDecimal discount = convertToBigDecimal(discountNum, "discount");
-            BigDecimal total = convertToBigDecimal(totalNum, "total");
-
-            EnrichedOrderItemDTO enrichedItem = EnrichedOrderItemDTO.builder()
-                    .id(itemId)
-                    .productId(productId)
-                    .quantity(quantity)
-                    .priceAtPurchase(priceAtPurchase)
-                    .discount(discount)
-                    .total(total)
-                    .productName("Loading...") // Will be enriched by product service
-                    .productImage(null)
-                    .productStatus(null)
-                    .availableQuantity(0)
-                    .inStock(null)
-                    .build();
-
-            log.debug("✅ Converted order item: id={}, productId={}, quantity={}, priceAtPurchase={}, total={}",
-                    enrichedItem.getId(), enrichedItem.getProductId(), enrichedItem.getQuantity(),
-                    enrichedItem.getPriceAtPurchase(), enrichedItem.getTotal());
-
-            return enrichedItem;
+        order.setItems(items);
+        order.setTotalAmount(orZero(order.getTotalAmount()));
+        order.setTax(orZero(order.getTax()));
+        order.setShippingCost(orZero(order.getShippingCost()));
+        order.setDiscount(orZero(order.getDiscount()));
+        return order;
+    }
 
-        } catch (Exception e) {
-            log.error("Error converting order item: {}", item, e);
-            return createFallbackOrderItem();
-        }
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
     }
 
     /**
-     * ✅ Helper methods - reusing from the existing KafkaResponseConsumer
+     * ✅ Helper methods for the map-based order ID replies
      */
     private Map<String, Object> convertToMap(Object payload) throws Exception {
         if (payload instanceof Map) {
@@ -242,120 +140,6 @@ public class KafkaOrderResponseConsumer {
         }
     }
 
-    private String extractStringValue(Map<String, Object> map, String key) {
-        Object value = map.get(key);
-        if (value == null) {
-            log.warn("Missing field '{}' in map", key);
-            return null;
-        }
-        String stringValue = value.toString().trim();
-        if (stringValue.isEmpty()) {
-            log.warn("Empty field '{}' in map", key);
-            return null;
-        }
-        return stringValue;
-    }
-
-    private UUID parseUUID(String uuidStr, String fieldName) {
-        if (uuidStr == null || uuidStr.trim().isEmpty()) {
-            log.warn("Cannot parse UUID for field '{}': value is null or empty", fieldName);
-            return null;
-        }
-
-        try {
-            UUID result = UUID.fromString(uuidStr.trim());
-            log.debug("Successfully parsed UUID for field '{}': {}", fieldName, result);
-            return result;
-        } catch (IllegalArgumentException e) {
-            log.error("Invalid UUID format for field '{}': '{}' - {}", fieldName, uuidStr, e.getMessage());
-            return null;
-        }
-    }
-
-    private BigDecimal convertToBigDecimal(Number value, String fieldName) {
-        if (value == null) {
-            log.warn("BigDecimal field '{}' is null, defaulting to ZERO", fieldName);
-            return BigDecimal.ZERO;
-        }
-
-        try {
-            BigDecimal result = BigDecimal.valueOf(value.doubleValue());
-            log.debug("Converted {} for field '{}': {}", value.getClass().getSimpleName(), fieldName, result);
-            return result;
-        } catch (Exception e) {
-            log.error("Error converting {} to BigDecimal for field '{}': {} - {}",
-                    value.getClass().getSimpleName(), fieldName, value, e.getMessage());
-            return BigDecimal.ZERO;
-        }
-    }
-
-    private Integer convertToInteger(Number value, String fieldName) {
-        if (value == null) {
-            log.warn("Integer field '{}' is null, defaulting to 0", fieldName);
-            return 0;
-        }
-
-        try {
-            Integer result = value.intValue();
-            log.debug("Converted {} for field '{}': {}", value.getClass().getSimpleName(), fieldName, result);
-            return result;
-        } catch (Exception e) {
-            log.error("Error converting {} to Integer for field '{}': {} - {}",
-                    value.getClass().getSimpleName(), fieldName, value, e.getMessage());
-            return 0;
-        }
-    }
-
-    private LocalDateTime parseDateTime(Object dateTimeObj) {
-        if (dateTimeObj == null) {
-            log.debug("DateTime object is null");
-            return null;
-        }
-
-        try {
-            if (dateTimeObj instanceof List) {
-                List<Number> dateArray = (List<Number>) dateTimeObj;
-                if (dateArray.size() >= 6) {
-                    LocalDateTime result = LocalDateTime.of(
-                            dateArray.get(0).intValue(), // year
-                            dateArray.get(1).intValue(), // month
-                            dateArray.get(2).intValue(), // day
-                            dateArray.get(3).intValue(), // hour
-                            dateArray.get(4).intValue(), // minute
-                            dateArray.get(5).intValue(), // second
-                            dateArray.size() > 6 ? dateArray.get(6).intValue() : 0 // nano
-                    );
-                    log.debug("Parsed datetime from array: {} -> {}", dateArray, result);
-                    return result;
-                }
-            } else if (dateTimeObj instanceof String) {
-                LocalDateTime result = LocalDateTime.parse((String) dateTimeObj);
-                log.debug("Parsed datetime from string: {} -> {}", dateTimeObj, result);
-                return result;
-            }
-        } catch (Exception e) {
-            log.error("Error parsing datetime: {} - {}", dateTimeObj, e.getMessage());
-        }
-
-        return null;
-    }
-
-    private EnrichedOrderItemDTO createFallbackOrderItem() {
-        return EnrichedOrderItemDTO.builder()
-                .id(null)
-                .productId(null)
-                .quantity(0)
-                .priceAtPurchase(BigDecimal.ZERO)
-                .discount(BigDecimal.ZERO)
-                .total(BigDecimal.ZERO)
-                .productName("Error loading item")
-                .productImage(null)
-                .productStatus(null)
-                .availableQuantity(0)
-                .inStock(false)
-                .build();
-    }
-
     private void handleErrorResponse(Object errorPayload, String errorType) {
         try {
             Map<String, Object> errorMap = convertToMap(errorPayload);
@@ -387,24 +171,6 @@ public class KafkaOrderResponseConsumer {
         return (String) map.get("correlationId");
     }
 
-    private EnrichedOrderResponse createFallbackOrderResponse(Map<String, Object> orderData) {
-        String userIdStr = extractStringValue(orderData, "userId");
-        UUID userId = parseUUID(userIdStr, "fallback_userId");
-
-        return EnrichedOrderResponse.builder()
-                .id(null)
-                .userId(userId)
-                .items(List.of())
-                .totalAmount(BigDecimal.ZERO)
-                .tax(BigDecimal.ZERO)
-                .shippingCost(BigDecimal.ZERO)
-                .discount(BigDecimal.ZERO)
-                .status("UNKNOWN")
-                .createdAt(LocalDateTime.now())
-                .updatedAt(LocalDateTime.now())
-                .build();
-    }
-
     /**
      * ✅ Listen for user orders responses from order service
      */
@@ -415,7 +181,7 @@ public class KafkaOrderResponseConsumer {
     )
     public void handleUserOrdersResponse(ConsumerRecord<String, Object> record) {
         Object responsePayload = record.value();
-        log.info("Received user orders response: {}", responsePayload);
+        hotPathLog.verbose(log, "reply.payload", record.key(), "Received user orders response: {}", () -> responsePayload);
 
         try {
             Map<String, Object> responseMap = convertToMap(responsePayload);
@@ -423,8 +189,9 @@ public class KafkaOrderResponseConsumer {
             Boolean success = (Boolean) responseMap.get("success");
             String message = (String) responseMap.get("message");
 
-            log.info("Processing user orders response - correlationId: {}, success: {}, message: {}",
-                    correlationId, success, message);
+            hotPathLog.verbose(log, "reply", correlationId,
+                    "Processing user orders response - correlationId: {}, success: {}, message: {}",
+                    () -> correlationId, () -> success, () -> message);
 
             if (correlationId == null) {
                 log.error("No correlationId in user orders response: {}", responsePayload);
@@ -437,8 +204,8 @@ public class KafkaOrderResponseConsumer {
                 if (orderIdsData != null) {
                     List<String> orderIds = convertToOrderIdsList(orderIdsData);
 
-                    log.info("Completing user orders request for correlationId: {} with {} order IDs",
-                            correlationId, orderIds.size());
+                    hotPathLog.summary(log, "reply", "Completing user orders request for correlationId: {} with {} order IDs",
+                            () -> correlationId, () -> orderIds.size());
 
                     asyncResponseManager.completeRequest(correlationId, orderIds);
                 } else {
@@ -502,10 +269,14 @@ public class KafkaOrderResponseConsumer {
     }
 
 
-    @KafkaListener(topics = "order.ids.response", groupId = "gateway-bff-group")
+    @KafkaListener(
+            topics = "#{@kafkaReplyRouting.replyTopic('order.ids.response')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
     public void handleOrderIdsResponse(ConsumerRecord<String, Object> record) {
         Object responsePayload = record.value();
-        log.info("📨 GATEWAY: Received order IDs response: {}", responsePayload);
+        hotPathLog.verbose(log, "reply.payload", record.key(), "📨 GATEWAY: Received order IDs response: {}", () -> responsePayload);
 
         try {
             Map<String, Object> responseMap = convertToMap(responsePayload);
@@ -513,8 +284,9 @@ public class KafkaOrderResponseConsumer {
             Boolean success = (Boolean) responseMap.get("success");
             String message = (String) responseMap.get("message");
 
-            log.info("Processing order IDs response - correlationId: {}, success: {}, message: {}",
-                    correlationId, success, message);
+            hotPathLog.verbose(log, "reply", correlationId,
+                    "Processing order IDs response - correlationId: {}, success: {}, message: {}",
+                    () -> correlationId, () -> success, () -> message);
 
             if (correlationId == null) {
                 log.error("No correlationId in order IDs response: {}", responsePayload);
@@ -527,8 +299,8 @@ public class KafkaOrderResponseConsumer {
                 if (orderIdsData != null) {
                     List<String> orderIds = convertToOrderIdsList(orderIdsData);
 
-                    log.info("Completing order IDs request for correlationId: {} with {} order IDs",
-                            correlationId, orderIds.size());
+                    hotPathLog.summary(log, "reply", "Completing order IDs request for correlationId: {} with {} order IDs",
+                            () -> correlationId, () -> orderIds.size());
 
                     asyncResponseManager.completeRequest(correlationId, orderIds);
                 } else {
@@ -547,7 +319,11 @@ public class KafkaOrderResponseConsumer {
         }
     }
 
-    @KafkaListener(topics = "order.ids.error", groupId = "gateway-bff-group")
+    @KafkaListener(
+            topics = "#{@kafkaReplyRouting.replyTopic('order.ids.error')}",
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
+            containerFactory = "kafkaListenerContainerFactory"
+    )
     public void handleOrderIdsError(ConsumerRecord<String, Object> record) {
         Object errorPayload = record.value();
         log.error("📨 GATEWAY: Received order IDs error response: {}", errorPayload);
@@ -0,0 +1,76 @@
+package com.Ecommerce.Gateway_Service.Consumer;
+
+import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Gateway_Service.Service.ProductNearCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps the product near-cache honest: every product, inventory or discount change published by
+ * Product-Service evicts the affected product. Uses the instance-scoped group so every replica
+ * sees every event.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class KafkaProductEventConsumer {
+
+    private final ProductNearCache productNearCache;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(
+            topics = {
+                    KafkaTopics.PRODUCT_UPDATED,
+                    KafkaTopics.PRODUCT_DELETED,
+                    KafkaTopics.PRODUCT_PRICE_CHANGED,
+                    KafkaTopics.PRODUCT_STOCK_CHANGED,
+                    KafkaTopics.PRODUCT_STATUS_CHANGED,
+                    KafkaTopics.INVENTORY_UPDATED,
+                    KafkaTopics.INVENTORY_STOCK_CHANGED,
+                    KafkaTopics.DISCOUNT_CREATED,
+                    KafkaTopics.DISCOUNT_UPDATED,
+                    KafkaTopics.DISCOUNT_DELETED,
+                    KafkaTopics.DISCOUNT_ACTIVATED,
+                    KafkaTopics.DISCOUNT_DEACTIVATED,
+                    KafkaTopics.DISCOUNT_VALUE_CHANGED,
+                    KafkaTopics.DISCOUNT_PERIOD_CHANGED
+            },
+            groupId = "#{@kafkaReplyRouting.consumerGroup}",
+            containerFactory = "kafkaListenerContainerFactory",
+            autoStartup = "${gateway.bff.product-cache.enabled:true}"
+    )
+    public void handleProductChange(ConsumerRecord<String, Object> record) {
+        UUID productId = extractProductId(record);
+        if (productId == null) {
+            log.warn("Product change event on {} without productId, ignoring: {}", record.topic(), record.value());
+            return;
+        }
+
+        log.debug("Invalidating cached product {} after {}", productId, record.topic());
+        productNearCache.invalidate(productId);
+    }
+
+    private UUID extractProductId(ConsumerRecord<String, Object> record) {
+        try {
+            Object payload = record.value();
+            Map<?, ?> event = payload instanceof Map<?, ?> map
+                    ? map
+                    : objectMapper.readValue(payload.toString(), Map.class);
+
+            Object productId = event.get("productId");
+            if (productId != null) {
+                return UUID.fromString(productId.toString());
+            }
+        } catch (Exception e) {
+            log.warn("Could not read productId from {} event: {}", record.topic(), e.getMessage());
+        }
+        return null;
+    }
+}
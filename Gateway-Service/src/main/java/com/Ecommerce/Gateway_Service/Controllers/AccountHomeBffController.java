@@ -0,0 +1,62 @@
+package com.Ecommerce.Gateway_Service.Controllers;
+
+import com.Ecommerce.Gateway_Service.DTOs.AccountHome.AccountHomeResponseDTO;
+import com.Ecommerce.Gateway_Service.Service.AccountHomeBffService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/account")
+@Tag(name = "BFF Account Home", description = "Cart, saved items and recent orders in one call with a shared product lookup")
+@RequiredArgsConstructor
+@Slf4j
+public class AccountHomeBffController {
+
+    private final AccountHomeBffService accountHomeBffService;
+
+    @Value("${gateway.bff.account-home.max-recent-orders:20}")
+    private int maxRecentOrders;
+
+    @Operation(
+            summary = "Get the account home page data (Async)",
+            description = "Returns the enriched cart, saved items and most recent orders, loaded in parallel and enriched from a single product batch"
+    )
+    @GetMapping("/{userId}/home")
+    public Mono<ResponseEntity<AccountHomeResponseDTO>> getAccountHome(
+            @Parameter(description = "User ID", required = true)
+            @PathVariable String userId,
+            @Parameter(description = "Number of recent orders to include")
+            @RequestParam(defaultValue = "5") int recentOrders) {
+
+        UUID parsedUserId;
+        try {
+            parsedUserId = UUID.fromString(userId.trim());
+        } catch (IllegalArgumentException e) {
+            log.error("Invalid userId for account home: {}", userId);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        int limit = Math.max(0, Math.min(recentOrders, maxRecentOrders));
+        log.info("Fetching account home for user: {} with {} recent orders", parsedUserId, limit);
+
+        return accountHomeBffService.getAccountHome(parsedUserId, limit)
+                .map(home -> {
+                    log.info("Account home for user {} ready in {}ms - {} distinct products in one batch, enriched: {}",
+                            parsedUserId, home.getProcessingTimeMs(), home.getProductCount(), home.isProductsEnriched());
+                    return ResponseEntity.ok(home);
+                })
+                .onErrorResume(error -> {
+                    log.error("Error fetching account home for user {}: {}", parsedUserId, error.getMessage());
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
+    }
+}
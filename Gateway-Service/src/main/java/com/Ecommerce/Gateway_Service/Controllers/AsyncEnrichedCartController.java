@@ -2,18 +2,23 @@ package com.Ecommerce.Gateway_Service.Controllers;
 
 import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
 import com.Ecommerce.Gateway_Service.Service.AsyncCartBffService;
+import com.Ecommerce.Gateway_Service.Service.BffETagCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import reactor.core.publisher.Mono;
 
+import java.util.Optional;
+
 @RestController
 @RequestMapping("/api/cart")
 @Tag(name = "BFF Cart", description = "Backend for Frontend Cart operations with enriched product data")
@@ -22,6 +27,7 @@ import reactor.core.publisher.Mono;
 public class AsyncEnrichedCartController {
 
     private final AsyncCartBffService asyncCartBffService;
+    private final BffETagCache eTagCache;
 
     @Operation(
             summary = "Get enriched cart data with product details (Async)",
@@ -30,10 +36,20 @@ public class AsyncEnrichedCartController {
     @GetMapping("/{userId}/enriched")
     public Mono<ResponseEntity<EnrichedShoppingCartResponse.EnrichedCartResponseDTO>> getEnrichedCart(
             @Parameter(description = "User ID", required = true)
-            @PathVariable String userId) {
+            @PathVariable String userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // ✅ Nothing changed since the client's copy - answer 304 without the Kafka fan-out
+        String key = BffETagCache.cartKey(userId);
+        Optional<String> unchanged = eTagCache.notModified(key, ifNoneMatch);
+        if (unchanged.isPresent()) {
+            log.debug("Enriched cart for user {} not modified, ETag {}", userId, unchanged.get());
+            return Mono.just(eTagCache.notModifiedResponse(unchanged.get()));
+        }
 
         log.info("Fetching enriched cart with products for user: {} (async)", userId);
 
+        BffETagCache.Validation validation = eTagCache.begin(key, true);
         return asyncCartBffService.getEnrichedCartWithProducts(userId) // ✅ Now uses product enrichment
                 .map(enrichedCart -> {
                     log.info("Successfully fetched enriched cart for user: {} with {} items and {} products enriched",
@@ -42,7 +58,14 @@ public class AsyncEnrichedCartController {
                                     .mapToInt(item -> item.getProductName() != null &&
                                             !item.getProductName().equals("Loading...") ? 1 : 0)
                                     .sum());
-                    return ResponseEntity.ok(enrichedCart);
+
+                    // ✅ Fallback content carries no ETag, so the next request fetches the cart again
+                    if (enrichedCart.isDegraded() || enrichedCart.getId() == null) {
+                        return eTagCache.degradedResponse(enrichedCart);
+                    }
+                    String eTag = eTagCache.cartETag(enrichedCart, validation);
+                    eTagCache.remember(validation, eTag);
+                    return eTagCache.okWithETag(enrichedCart, eTag, ifNoneMatch);
                 })
                 .onErrorResume(error -> {
                     log.error("Error fetching enriched cart for user {}: {}", userId, error.getMessage());
@@ -72,4 +95,4 @@ public class AsyncEnrichedCartController {
                     return Mono.just(ResponseEntity.internalServerError().build());
                 });
     }
-}
\ No newline at end of file
+}
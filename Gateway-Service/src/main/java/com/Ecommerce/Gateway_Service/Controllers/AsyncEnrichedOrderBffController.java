@@ -4,10 +4,15 @@ import com.Ecommerce.Gateway_Service.DTOs.Order.BatchOrderRequestDTO;
 import com.Ecommerce.Gateway_Service.DTOs.Order.BatchOrderResponseDTO;
 import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
 import com.Ecommerce.Gateway_Service.Service.AsyncOrderBffService;
+import com.Ecommerce.Gateway_Service.Service.BffETagCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.nio.charset.StandardCharsets;
@@ -15,6 +20,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
 
 @RestController
@@ -25,6 +31,10 @@ import java.util.UUID;
 public class AsyncEnrichedOrderBffController {
 
     private final AsyncOrderBffService asyncOrderBffService;
+    private final BffETagCache eTagCache;
+
+    @Value("${gateway.bff.order-stream.max-orders:500}")
+    private int maxStreamedOrders;
 
     /**
      * ✅ Get enriched order with product details
@@ -32,32 +42,42 @@ public class AsyncEnrichedOrderBffController {
     @GetMapping("/{orderId}/enriched")
     public Mono<ResponseEntity<EnrichedOrderResponse>> getEnrichedOrder(
             @PathVariable String orderId,
-            @RequestParam(defaultValue = "true") boolean includeProducts) {
+            @RequestParam(defaultValue = "true") boolean includeProducts,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+
+        // ✅ Nothing changed since the client's copy - answer 304 without the Kafka fan-out
+        String key = BffETagCache.orderKey(orderId, includeProducts);
+        Optional<String> unchanged = eTagCache.notModified(key, ifNoneMatch);
+        if (unchanged.isPresent()) {
+            log.debug("🎯 CONTROLLER: Order {} not modified, ETag {}", orderId, unchanged.get());
+            return Mono.just(eTagCache.notModifiedResponse(unchanged.get()));
+        }
 
         log.info("🎯 CONTROLLER: Received request to get enriched order: {} with includeProducts: {}",
                 orderId, includeProducts);
 
-        if (includeProducts) {
-            return asyncOrderBffService.getEnrichedOrderWithProducts(orderId)
-                    .map(ResponseEntity::ok)
-                    .doOnSuccess(response -> {
-                        log.info("🎯 CONTROLLER: Successfully returned enriched order with products");
-                    })
-                    .onErrorResume(error -> {
-                        log.error("🎯 CONTROLLER: Error getting enriched order", error);
-                        return Mono.just(ResponseEntity.internalServerError().build());
-                    });
-        } else {
-            return asyncOrderBffService.getBasicOrder(orderId)
-                    .map(ResponseEntity::ok)
-                    .doOnSuccess(response -> {
-                        log.info("🎯 CONTROLLER: Successfully returned basic order without products");
-                    })
-                    .onErrorResume(error -> {
-                        log.error("🎯 CONTROLLER: Error getting basic order", error);
-                        return Mono.just(ResponseEntity.internalServerError().build());
-                    });
-        }
+        BffETagCache.Validation validation = eTagCache.begin(key, includeProducts);
+        Mono<EnrichedOrderResponse> order = includeProducts
+                ? asyncOrderBffService.getEnrichedOrderWithProducts(orderId)
+                : asyncOrderBffService.getBasicOrder(orderId);
+
+        return order
+                .map(response -> {
+                    // ✅ A fallback or unenriched order is never remembered or answered with a 304
+                    if (response.isDegraded() || response.getId() == null) {
+                        return eTagCache.degradedResponse(response);
+                    }
+                    String eTag = eTagCache.orderETag(response, validation);
+                    eTagCache.remember(validation, eTag);
+                    return eTagCache.okWithETag(response, eTag, ifNoneMatch);
+                })
+                .doOnSuccess(response -> {
+                    log.info("🎯 CONTROLLER: Successfully returned {} order", includeProducts ? "enriched" : "basic");
+                })
+                .onErrorResume(error -> {
+                    log.error("🎯 CONTROLLER: Error getting {} order", includeProducts ? "enriched" : "basic", error);
+                    return Mono.just(ResponseEntity.internalServerError().build());
+                });
     }
 
     /**
@@ -288,6 +308,58 @@ public class AsyncEnrichedOrderBffController {
     }
 
 
+    /**
+     * ✅ STREAMING: Batch orders as NDJSON or SSE - each order is written as soon as it is enriched
+     */
+    @RequestMapping(value = "/batch/stream",
+            method = {RequestMethod.GET, RequestMethod.POST},
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<EnrichedOrderResponse>>> streamEnrichedOrdersBatch(
+            @RequestBody BatchOrderRequestDTO request) {
+
+        log.info("🎯 CONTROLLER: Streaming batch request for {} orders",
+                request.getOrderIds() != null ? request.getOrderIds().size() : 0);
+
+        if (request.getOrderIds() == null || request.getOrderIds().isEmpty()
+                || request.getOrderIds().size() > maxStreamedOrders) {
+            log.warn("🎯 CONTROLLER: Invalid streaming batch size");
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        return Mono.just(ResponseEntity.ok(
+                asyncOrderBffService.streamEnrichedOrders(request.getOrderIds(), request.isIncludeProducts())));
+    }
+
+    /**
+     * ✅ STREAMING: All orders of a user as NDJSON or SSE - large histories render progressively
+     */
+    @GetMapping(value = "/user/{userId}/all/stream",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Mono<ResponseEntity<Flux<EnrichedOrderResponse>>> streamUserOrders(
+            @PathVariable String userId,
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "true") boolean includeProducts,
+            @RequestParam(defaultValue = "20") int limit) {
+
+        log.info("🎯 CONTROLLER: Streaming orders for user: {} with status: {}, limit: {}", userId, status, limit);
+
+        UUID parsedUserId;
+        try {
+            parsedUserId = parseToUUID(userId);
+        } catch (IllegalArgumentException e) {
+            log.error("🎯 CONTROLLER: Invalid userId format: {}", userId);
+            return Mono.just(ResponseEntity.badRequest().build());
+        }
+
+        int boundedLimit = Math.max(1, Math.min(limit, maxStreamedOrders));
+        Flux<EnrichedOrderResponse> orders = asyncOrderBffService.getUserOrderIds(parsedUserId, status, boundedLimit)
+                .flatMapMany(orderIds -> asyncOrderBffService.streamEnrichedOrders(orderIds, includeProducts))
+                // the error ends the response, so clients see a failed stream rather than a short one
+                .doOnError(error -> log.error("🎯 CONTROLLER: Error streaming orders for user: {}", parsedUserId, error));
+
+        return Mono.just(ResponseEntity.ok(orders));
+    }
+
     /**
      * Converts MongoDB ObjectId to UUID using deterministic MD5 hashing
      */
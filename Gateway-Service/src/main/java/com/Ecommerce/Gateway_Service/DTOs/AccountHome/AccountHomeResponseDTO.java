@@ -0,0 +1,26 @@
+package com.Ecommerce.Gateway_Service.DTOs.AccountHome;
+
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
+import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.EnrichedSavedItemsResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountHomeResponseDTO {
+    private UUID userId;
+    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart;
+    private EnrichedSavedItemsResponse savedItems;
+    private List<EnrichedOrderResponse> recentOrders;
+    private boolean productsEnriched;
+    private int productCount; // distinct products fetched in the shared batch
+    private long processingTimeMs;
+}
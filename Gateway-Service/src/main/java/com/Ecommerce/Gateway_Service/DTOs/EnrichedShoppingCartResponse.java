@@ -1,6 +1,7 @@
 package com.Ecommerce.Gateway_Service.DTOs;
 
 import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -14,7 +15,7 @@ import java.util.UUID;
 public class EnrichedShoppingCartResponse {
 
     @Data
-    @Builder
+    @Builder(toBuilder = true)
     @NoArgsConstructor
     @AllArgsConstructor
     public static class EnrichedCartResponseDTO {
@@ -27,5 +28,12 @@ public class EnrichedShoppingCartResponse {
         private LocalDateTime createdAt;
         private LocalDateTime updatedAt;
         private LocalDateTime expiresAt;
+
+        /**
+         * Fallback or only partly enriched content. Never serialized - it keeps degraded responses
+         * out of ETag validation so the client fetches again once downstream services recover.
+         */
+        @JsonIgnore
+        private boolean degraded;
     }
 }
\ No newline at end of file
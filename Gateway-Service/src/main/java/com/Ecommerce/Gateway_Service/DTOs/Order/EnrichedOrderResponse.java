@@ -1,6 +1,7 @@
 package com.Ecommerce.Gateway_Service.DTOs.Order;
 
 import com.Ecommerce.Gateway_Service.DTOs.EnrichedOrderItemDTO;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 import lombok.extern.slf4j.Slf4j;
 
@@ -10,7 +11,7 @@ import java.util.List;
 import java.util.UUID;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Slf4j
@@ -30,6 +31,13 @@ public class EnrichedOrderResponse {
     private UUID shippingAddressId;
     private List<EnrichedOrderItemDTO> items;
 
+    /**
+     * Fallback or only partly enriched content. Never serialized - it keeps degraded responses
+     * out of ETag validation so the client fetches again once downstream services recover.
+     */
+    @JsonIgnore
+    private boolean degraded;
+
     // Calculated fields
     public int getItemCount() {
         return items != null ? items.size() : 0;
@@ -1,12 +1,16 @@
 package com.Ecommerce.Gateway_Service.DTOs.Product;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
 import java.util.UUID;
 @Builder
 @Data
+@NoArgsConstructor
+@AllArgsConstructor
 public class ProductBatchInfoDTO {
     private UUID id;
     private String name;
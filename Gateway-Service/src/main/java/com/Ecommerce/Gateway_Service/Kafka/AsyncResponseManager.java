@@ -7,31 +7,35 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.Map;
-import java.util.concurrent.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Slf4j
 public class AsyncResponseManager {
 
     private final Map<String, CompletableFuture<Object>> pendingRequests = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
 
-    public <T> Mono<T> waitForResponse(String correlationId, Duration timeout, Class<T> responseType) {
+    /**
+     * Registers the pending reply right away - call it before sending the request, so a reply
+     * that arrives before anyone subscribes still finds its future. The returned Mono must be
+     * subscribed; it removes the entry when the wait ends (reply, timeout or cancellation), so
+     * entries never outlive their caller and no timer task is kept per request.
+     */
+    public <T> Mono<T> register(String correlationId, Duration timeout, Class<T> responseType) {
         CompletableFuture<Object> future = new CompletableFuture<>();
         pendingRequests.put(correlationId, future);
-
-        // Set timeout
-        scheduler.schedule(() -> {
-            CompletableFuture<Object> removed = pendingRequests.remove(correlationId);
-            if (removed != null && !removed.isDone()) {
-                removed.completeExceptionally(new RuntimeException("Request timeout for correlationId: " + correlationId));
-            }
-        }, timeout.toMillis(), TimeUnit.MILLISECONDS);
-
         return Mono.fromFuture(future)
+                .doFinally(signal -> pendingRequests.remove(correlationId, future))
                 .cast(responseType)
-                .timeout(timeout)
-                .doFinally(signal -> pendingRequests.remove(correlationId));
+                .timeout(timeout);
+    }
+
+    /**
+     * Number of requests still waiting for a reply - an admission control signal
+     */
+    public int pendingCount() {
+        return pendingRequests.size();
     }
 
     public void completeRequest(String correlationId, Object response) {
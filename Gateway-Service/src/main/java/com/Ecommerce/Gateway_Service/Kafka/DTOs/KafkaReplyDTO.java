@@ -0,0 +1,26 @@
+package com.Ecommerce.Gateway_Service.Kafka.DTOs;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Reply envelope shared by the cart, order and saved4later services - {@code data} is decoded
+ * straight into the gateway DTO registered for the reply topic.
+ * {@code timestamp} is when the reply was produced; services that echo {@code requestTimestamp}
+ * and {@code receivedAt} let the gateway split the round trip into queue and processing time.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KafkaReplyDTO<T> {
+    private String correlationId;
+    private boolean success;
+    private String message;
+    private T data;
+    private long timestamp;
+    private long requestTimestamp;
+    private long receivedAt;
+}
@@ -0,0 +1,88 @@
+package com.Ecommerce.Gateway_Service.Kafka;
+
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Instance-scoped reply routing for the Kafka request/reply BFF.
+ *
+ * Every request the gateway publishes carries a {@link ReplyRouting#REPLY_INSTANCE_HEADER}
+ * header with this instance's id. Downstream services reply to {@code <baseTopic>.<instanceId>},
+ * so the reply always lands on the gateway replica that holds the pending future.
+ *
+ * Set {@code gateway.kafka.instance-id} to a stable per-replica name (e.g. a StatefulSet pod name)
+ * so a redeployed replica reuses its reply topics and consumer group. Without one the id falls back
+ * to the hostname, which changes on every redeploy - such an ephemeral instance removes its reply
+ * topics and group on shutdown ({@link KafkaReplyTopicCleanup}) instead of leaving them orphaned.
+ */
+@Component
+@Slf4j
+@Getter
+public class KafkaReplyRouting {
+
+    /**
+     * Reply topics the gateway consumes; each one is suffixed with the instance id.
+     */
+    public static final List<String> REPLY_TOPICS = List.of(
+            KafkaTopics.CART_RESPONSE,
+            KafkaTopics.CART_ERROR,
+            KafkaTopics.PRODUCT_BATCH_RESPONSE,
+            KafkaTopics.PRODUCT_ERROR,
+            KafkaTopics.ORDER_RESPONSE,
+            KafkaTopics.ORDER_ERROR,
+            KafkaTopics.ORDER_IDS_RESPONSE,
+            KafkaTopics.ORDER_IDS_ERROR,
+            KafkaTopics.SAVED4LATER_RESPONSE,
+            KafkaTopics.SAVED4LATER_ERROR
+    );
+
+    private final String instanceId;
+    private final String consumerGroup;
+    private final boolean ephemeral;
+
+    @Autowired
+    public KafkaReplyRouting(@Value("${gateway.kafka.instance-id:}") String configuredInstanceId,
+                             @Value("${HOSTNAME:}") String hostname) {
+        boolean configured = configuredInstanceId != null && !configuredInstanceId.isBlank();
+        this.instanceId = sanitize(configured ? configuredInstanceId : hostname);
+        this.consumerGroup = "gateway-bff-group." + instanceId;
+        this.ephemeral = !configured;
+        log.info("Gateway reply routing initialised - instanceId: {} ({}), consumerGroup: {}",
+                instanceId, ephemeral ? "ephemeral" : "stable", consumerGroup);
+    }
+
+    /**
+     * Stable, configured instance id
+     */
+    public KafkaReplyRouting(String instanceId) {
+        this(instanceId, null);
+    }
+
+    /**
+     * ✅ Resolve the instance-scoped reply topic for a base reply topic
+     */
+    public String replyTopic(String baseTopic) {
+        return baseTopic + "." + instanceId;
+    }
+
+    public List<String> getReplyTopicNames() {
+        return REPLY_TOPICS.stream().map(this::replyTopic).toList();
+    }
+
+    /**
+     * Kafka topic names only allow [a-zA-Z0-9._-]; fall back to a random id when nothing is configured.
+     */
+    private static String sanitize(String candidate) {
+        if (candidate == null || candidate.isBlank()) {
+            return UUID.randomUUID().toString().substring(0, 8);
+        }
+        return candidate.trim().replaceAll("[^a-zA-Z0-9._-]", "-");
+    }
+}
@@ -0,0 +1,67 @@
+package com.Ecommerce.Gateway_Service.Kafka;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Removes the reply topics and consumer group of an ephemeral gateway instance (no configured
+ * {@code gateway.kafka.instance-id}) when it shuts down. Its id is the hostname, so the next
+ * deployment never uses them again and they would otherwise pile up on the brokers.
+ *
+ * Runs on bean destruction, after the listener containers have stopped and left the group.
+ */
+@Component
+@Slf4j
+public class KafkaReplyTopicCleanup {
+
+    private static final long TIMEOUT_SECONDS = 10;
+
+    private final KafkaReplyRouting replyRouting;
+    private final KafkaAdmin kafkaAdmin;
+    private final boolean enabled;
+
+    public KafkaReplyTopicCleanup(KafkaReplyRouting replyRouting,
+                                  KafkaAdmin kafkaAdmin,
+                                  @Value("${gateway.kafka.reply-topic.delete-on-shutdown:true}") boolean enabled) {
+        this.replyRouting = replyRouting;
+        this.kafkaAdmin = kafkaAdmin;
+        this.enabled = enabled;
+    }
+
+    @PreDestroy
+    void deleteReplyTopics() {
+        if (!enabled || !replyRouting.isEphemeral()) {
+            return;
+        }
+        try (Admin admin = Admin.create(kafkaAdmin.getConfigurationProperties())) {
+            deleteReplyTopics(admin);
+        } catch (Exception e) {
+            log.warn("Could not connect to Kafka to remove the reply topics of instance {}: {}",
+                    replyRouting.getInstanceId(), e.getMessage());
+        }
+    }
+
+    void deleteReplyTopics(Admin admin) {
+        // each step on its own - a group that is still draining must not keep the topics around
+        try {
+            admin.deleteConsumerGroups(List.of(replyRouting.getConsumerGroup())).all()
+                    .get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("Could not delete reply consumer group {}: {}", replyRouting.getConsumerGroup(), e.getMessage());
+        }
+        try {
+            admin.deleteTopics(replyRouting.getReplyTopicNames()).all().get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            log.info("Deleted {} reply topics of ephemeral instance {}",
+                    replyRouting.getReplyTopicNames().size(), replyRouting.getInstanceId());
+        } catch (Exception e) {
+            log.warn("Could not delete reply topics of instance {}: {}", replyRouting.getInstanceId(), e.getMessage());
+        }
+    }
+}
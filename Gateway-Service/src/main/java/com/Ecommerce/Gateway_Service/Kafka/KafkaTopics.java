@@ -32,4 +32,45 @@ public class KafkaTopics {
     public static final String SAVED4LATER_REQUEST = "saved4later.request";
     public static final String SAVED4LATER_RESPONSE = "saved4later.response";
     public static final String SAVED4LATER_ERROR = "saved4later.error";
+
+    // Order IDs topics
+    public static final String ORDER_IDS_REQUEST = "order.ids.request";
+    public static final String ORDER_IDS_RESPONSE = "order.ids.response";
+    public static final String ORDER_IDS_ERROR = "order.ids.error";
+
+    // Product-Service change events (product near-cache invalidation)
+    public static final String PRODUCT_UPDATED = "product-updated";
+    public static final String PRODUCT_DELETED = "product-deleted";
+    public static final String PRODUCT_PRICE_CHANGED = "product-price-changed";
+    public static final String PRODUCT_STOCK_CHANGED = "product-stock-changed";
+    public static final String PRODUCT_STATUS_CHANGED = "product-status-changed";
+    public static final String INVENTORY_UPDATED = "inventory-updated";
+    public static final String INVENTORY_STOCK_CHANGED = "inventory-stock-changed";
+    public static final String DISCOUNT_CREATED = "discount-created";
+    public static final String DISCOUNT_UPDATED = "discount-updated";
+    public static final String DISCOUNT_DELETED = "discount-deleted";
+    public static final String DISCOUNT_ACTIVATED = "discount-activated";
+    public static final String DISCOUNT_DEACTIVATED = "discount-deactivated";
+    public static final String DISCOUNT_VALUE_CHANGED = "discount-value-changed";
+    public static final String DISCOUNT_PERIOD_CHANGED = "discount-period-changed";
+
+    // Cart/Order change events (conditional response invalidation)
+    public static final String CART_CREATED = "cart-created";
+    public static final String CART_UPDATED = "cart-updated";
+    public static final String CART_DELETED = "cart-deleted";
+    public static final String CART_CHECKED_OUT = "cart-checked-out";
+    public static final String CART_ABANDONED = "cart-abandoned";
+    public static final String CART_ITEM_ADDED = "cart-item-added";
+    public static final String CART_ITEM_UPDATED = "cart-item-updated";
+    public static final String CART_ITEM_REMOVED = "cart-item-removed";
+    public static final String CART_ITEM_QUANTITY_CHANGED = "cart-item-quantity-changed";
+    public static final String CART_ITEM_PRICE_CHANGED = "cart-item-price-changed";
+    public static final String ITEM_SAVED_FOR_LATER = "item-saved-for-later";
+    public static final String SAVED_ITEM_MOVED_TO_CART = "saved-item-moved-to-cart";
+    public static final String SAVED_ITEM_REMOVED = "saved-item-removed";
+    public static final String ORDER_UPDATED = "order-updated";
+    public static final String ORDER_STATUS_CHANGED = "order-status-changed";
+    public static final String ORDER_CANCELED = "order-canceled";
+    public static final String ORDER_ITEM_ADDED = "order-item-added";
+    public static final String ORDER_ITEM_UPDATED = "order-item-updated";
 }
\ No newline at end of file
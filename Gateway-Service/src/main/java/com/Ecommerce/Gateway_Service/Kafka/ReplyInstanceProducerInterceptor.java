@@ -0,0 +1,42 @@
+package com.Ecommerce.Gateway_Service.Kafka;
+
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import org.apache.kafka.clients.producer.ProducerInterceptor;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Stamps every outgoing request record with the gateway instance id so downstream
+ * services can route the reply back to this replica.
+ */
+public class ReplyInstanceProducerInterceptor implements ProducerInterceptor<String, Object> {
+
+    private final byte[] instanceId;
+
+    public ReplyInstanceProducerInterceptor(KafkaReplyRouting replyRouting) {
+        this.instanceId = replyRouting.getInstanceId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public ProducerRecord<String, Object> onSend(ProducerRecord<String, Object> record) {
+        if (record.headers().lastHeader(ReplyRouting.REPLY_INSTANCE_HEADER) == null) {
+            record.headers().add(ReplyRouting.REPLY_INSTANCE_HEADER, instanceId);
+        }
+        return record;
+    }
+
+    @Override
+    public void onAcknowledgement(RecordMetadata metadata, Exception exception) {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+    }
+}
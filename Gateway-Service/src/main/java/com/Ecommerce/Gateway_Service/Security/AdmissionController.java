@@ -0,0 +1,290 @@
+package com.Ecommerce.Gateway_Service.Security;
+
+import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.EventExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.netty.http.HttpResources;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+
+/**
+ * Admission control for the gateway. Tracks in-flight requests per downstream, the number of
+ * Kafka replies still pending and the Netty event-loop lag, and sheds requests once any of them
+ * passes its limit. Low-priority routes (BFF and catalogue reads) are shed first, at a fraction of
+ * each limit; critical routes (auth, payment, checkout) are always admitted.
+ */
+@Component
+@Slf4j
+public class AdmissionController {
+
+    public enum Priority { CRITICAL, NORMAL, LOW }
+
+    /** Result of an admission check; admitted decisions must be released when the request ends */
+    public record Decision(boolean admitted, Priority priority, String downstream, String reason) {
+    }
+
+    private static final Map<String, String> DOWNSTREAMS = Map.ofEntries(
+            Map.entry("cart", "cart"), Map.entry("carts", "cart"), Map.entry("saved4later", "cart"),
+            Map.entry("order", "order"), Map.entry("orders", "order"),
+            Map.entry("products", "product"), Map.entry("categories", "product"), Map.entry("images", "product"),
+            Map.entry("reviews", "product"), Map.entry("suppliers", "product"), Map.entry("discounts", "product"),
+            Map.entry("inventory", "product"),
+            Map.entry("account", "bff"),
+            Map.entry("users", "user"),
+            Map.entry("payments", "payment"),
+            Map.entry("loyalty", "loyalty"),
+            Map.entry("notifications", "notification"),
+            Map.entry("shipping", "shipping"));
+
+    private final boolean enabled;
+    private final int maxInFlightPerDownstream;
+    private final int maxPendingReplies;
+    private final long maxEventLoopLagMs;
+    private final double lowPriorityFraction;
+    private final long probeIntervalMs;
+    private final List<RoutePattern> criticalRoutes;
+    private final List<RoutePattern> lowPriorityRoutes;
+    private final IntSupplier pendingReplies;
+    private final MeterRegistry meterRegistry;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejections = new ConcurrentHashMap<>();
+    private final AtomicLong eventLoopLagMs = new AtomicLong();
+    private final List<LoopProbe> loopProbes = new ArrayList<>();
+    private Disposable probeTask;
+
+    @Autowired
+    public AdmissionController(@Value("${gateway.admission.enabled:true}") boolean enabled,
+                               @Value("${gateway.admission.max-in-flight-per-downstream:512}") int maxInFlightPerDownstream,
+                               @Value("${gateway.admission.max-pending-replies:10000}") int maxPendingReplies,
+                               @Value("${gateway.admission.max-event-loop-lag-ms:250}") long maxEventLoopLagMs,
+                               @Value("${gateway.admission.low-priority-fraction:0.8}") double lowPriorityFraction,
+                               @Value("${gateway.admission.probe-interval-ms:100}") long probeIntervalMs,
+                               @Value("${gateway.admission.critical-paths:/api/users/auth/**,/api/users/oauth2/**,/api/payments/**,/api/carts/*/checkout,POST /api/orders/**,/actuator/**}") String criticalPaths,
+                               @Value("${gateway.admission.low-priority-paths:/api/cart/**,/api/order/**,/api/saved4later/**,/api/account/**,GET /api/products/**,GET /api/categories/**,GET /api/reviews/**,GET /api/images/**}") String lowPriorityPaths,
+                               AsyncResponseManager asyncResponseManager,
+                               MeterRegistry meterRegistry) {
+        this(enabled, maxInFlightPerDownstream, maxPendingReplies, maxEventLoopLagMs, lowPriorityFraction,
+                probeIntervalMs, criticalPaths, lowPriorityPaths, asyncResponseManager::pendingCount, meterRegistry);
+    }
+
+    AdmissionController(boolean enabled, int maxInFlightPerDownstream, int maxPendingReplies, long maxEventLoopLagMs,
+                        double lowPriorityFraction, long probeIntervalMs, String criticalPaths, String lowPriorityPaths,
+                        IntSupplier pendingReplies, MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.maxInFlightPerDownstream = maxInFlightPerDownstream;
+        this.maxPendingReplies = maxPendingReplies;
+        this.maxEventLoopLagMs = maxEventLoopLagMs;
+        this.lowPriorityFraction = lowPriorityFraction;
+        this.probeIntervalMs = probeIntervalMs;
+        this.criticalRoutes = RoutePattern.parseAll(criticalPaths);
+        this.lowPriorityRoutes = RoutePattern.parseAll(lowPriorityPaths);
+        this.pendingReplies = pendingReplies;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("gateway.admission.pending.replies", pendingReplies, IntSupplier::getAsInt)
+                .description("Kafka replies the gateway is still waiting for")
+                .register(meterRegistry);
+        Gauge.builder("gateway.admission.event.loop.lag.ms", eventLoopLagMs, AtomicLong::get)
+                .description("Worst observed delay before a task runs on a Netty event loop")
+                .register(meterRegistry);
+        Gauge.builder("gateway.admission.overloaded", this, controller -> controller.overloadReason(Priority.NORMAL) != null ? 1 : 0)
+                .description("1 while normal-priority requests are being shed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void startEventLoopProbe() {
+        if (!enabled || probeIntervalMs <= 0) {
+            return;
+        }
+        try {
+            HttpResources.get().onServer(LoopResources.hasNativeSupport())
+                    .forEach(executor -> loopProbes.add(new LoopProbe(executor)));
+        } catch (Exception e) {
+            log.warn("Event-loop lag probe unavailable, admission control will ignore event-loop lag: {}", e.getMessage());
+            return;
+        }
+        probeTask = Flux.interval(Duration.ofMillis(probeIntervalMs))
+                .subscribe(tick -> probeEventLoops(), error -> log.error("Event-loop lag probe stopped", error));
+        log.info("Admission control enabled - {} in-flight per downstream, {} pending replies, {}ms event-loop lag, probing {} event loops",
+                maxInFlightPerDownstream, maxPendingReplies, maxEventLoopLagMs, loopProbes.size());
+    }
+
+    @PreDestroy
+    void stopEventLoopProbe() {
+        if (probeTask != null) {
+            probeTask.dispose();
+        }
+    }
+
+    /**
+     * ✅ Admit or shed one request. Admitted requests count as in flight until {@link #release}.
+     */
+    public Decision admit(String method, String path) {
+        String downstream = downstreamOf(path);
+        Priority priority = priorityOf(method, path);
+        AtomicInteger counter = inFlight(downstream);
+
+        if (!enabled || priority == Priority.CRITICAL) {
+            counter.incrementAndGet();
+            return new Decision(true, priority, downstream, null);
+        }
+
+        int current = counter.incrementAndGet();
+        String reason = current > limit(maxInFlightPerDownstream, priority) ? "in-flight" : overloadReason(priority);
+        if (reason != null) {
+            counter.decrementAndGet();
+            rejectionCounter(priority, reason).increment();
+            log.warn("Shedding {} {} ({} priority, downstream {}): {}", method, path, priority, downstream, reason);
+            return new Decision(false, priority, downstream, reason);
+        }
+        return new Decision(true, priority, downstream, null);
+    }
+
+    public void release(Decision decision) {
+        if (decision.admitted()) {
+            inFlight(decision.downstream()).decrementAndGet();
+        }
+    }
+
+    /**
+     * Global overload signals - the in-flight check for the request's own downstream is done in {@link #admit}
+     */
+    private String overloadReason(Priority priority) {
+        if (!enabled || priority == Priority.CRITICAL) {
+            return null;
+        }
+        if (pendingReplies.getAsInt() >= limit(maxPendingReplies, priority)) {
+            return "pending-replies";
+        }
+        if (eventLoopLagMs.get() >= limit(maxEventLoopLagMs, priority)) {
+            return "event-loop-lag";
+        }
+        return null;
+    }
+
+    private long limit(long max, Priority priority) {
+        return priority == Priority.LOW ? Math.max(1, (long) (max * lowPriorityFraction)) : max;
+    }
+
+    Priority priorityOf(String method, String path) {
+        if (criticalRoutes.stream().anyMatch(route -> route.matches(method, path, pathMatcher))) {
+            return Priority.CRITICAL;
+        }
+        if (lowPriorityRoutes.stream().anyMatch(route -> route.matches(method, path, pathMatcher))) {
+            return Priority.LOW;
+        }
+        return Priority.NORMAL;
+    }
+
+    static String downstreamOf(String path) {
+        String[] segments = path.split("/");
+        // "/api/<resource>/..." -> ["", "api", "<resource>", ...]
+        if (segments.length > 2 && "api".equals(segments[1])) {
+            return DOWNSTREAMS.getOrDefault(segments[2], "other");
+        }
+        return "other";
+    }
+
+    /** Set the measured event-loop lag directly - the probe does this in production */
+    void recordEventLoopLag(long lagMs) {
+        eventLoopLagMs.set(lagMs);
+    }
+
+    private AtomicInteger inFlight(String downstream) {
+        return inFlight.computeIfAbsent(downstream, name -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("gateway.admission.inflight", counter, AtomicInteger::get)
+                    .tag("downstream", name)
+                    .description("Requests currently in flight through the gateway per downstream")
+                    .register(meterRegistry);
+            return counter;
+        });
+    }
+
+    private Counter rejectionCounter(Priority priority, String reason) {
+        return rejections.computeIfAbsent(priority + ":" + reason, key -> Counter.builder("gateway.admission.rejected")
+                .tag("priority", priority.name().toLowerCase())
+                .tag("reason", reason)
+                .description("Requests shed with 503 by admission control")
+                .register(meterRegistry));
+    }
+
+    /**
+     * Each tick submits a no-op to every event loop and measures how long it waits to run. A loop
+     * that hasn't run the previous probe yet is reported with the time it has been stuck so far.
+     */
+    private void probeEventLoops() {
+        long now = System.nanoTime();
+        long worst = 0;
+        for (LoopProbe probe : loopProbes) {
+            long since = probe.pendingSince.get();
+            if (since != 0) {
+                probe.lastLagMs = (now - since) / 1_000_000;
+            } else if (probe.pendingSince.compareAndSet(0, now)) {
+                probe.executor.execute(() -> {
+                    probe.lastLagMs = (System.nanoTime() - now) / 1_000_000;
+                    probe.pendingSince.set(0);
+                });
+            }
+            worst = Math.max(worst, probe.lastLagMs);
+        }
+        eventLoopLagMs.set(worst);
+    }
+
+    private static final class LoopProbe {
+        private final EventExecutor executor;
+        private final AtomicLong pendingSince = new AtomicLong();
+        private volatile long lastLagMs;
+
+        private LoopProbe(EventExecutor executor) {
+            this.executor = executor;
+        }
+    }
+
+    /** Ant path pattern with an optional HTTP method prefix, e.g. {@code POST /api/orders/**} */
+    private record RoutePattern(String method, String pattern) {
+
+        static List<RoutePattern> parseAll(String patterns) {
+            if (patterns == null || patterns.isBlank()) {
+                return List.of();
+            }
+            return Arrays.stream(patterns.split(","))
+                    .map(String::trim)
+                    .filter(entry -> !entry.isEmpty())
+                    .map(entry -> {
+                        int space = entry.indexOf(' ');
+                        return space > 0
+                                ? new RoutePattern(entry.substring(0, space).toUpperCase(), entry.substring(space + 1).trim())
+                                : new RoutePattern(null, entry);
+                    })
+                    .toList();
+        }
+
+        boolean matches(String requestMethod, String path, AntPathMatcher matcher) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && matcher.match(pattern, path);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.Ecommerce.Gateway_Service.Security;
 
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpHeaders;
@@ -43,13 +44,16 @@ public class BffAuthenticationWebFilter implements WebFilter {
             return handleUnauthorized(exchange, "Missing authentication token");
         }
 
-        if (!jwtUtil.validateToken(token)) {
+        // Verify once - the claims travel with the exchange so later filters don't re-verify
+        Claims claims = jwtUtil.verify(token).orElse(null);
+        if (claims == null) {
             return handleUnauthorized(exchange, "Invalid or expired token");
         }
+        exchange.getAttributes().put(JwtUtil.VERIFIED_CLAIMS_ATTRIBUTE, claims);
 
         // Extract user information and add to headers
-        String username = jwtUtil.extractUsername(token);
-        List<String> roles = jwtUtil.extractRoles(token);
+        String username = claims.getSubject();
+        List<String> roles = jwtUtil.extractRoles(claims);
 
         ServerHttpRequest modifiedRequest = exchange.getRequest().mutate()
                 .header("X-User-Id", username)
@@ -65,11 +69,15 @@ public class BffAuthenticationWebFilter implements WebFilter {
                 path.matches("/api/order/[^/]+/enriched") ||
                 path.matches("/api/order/user/[^/]+") ||
                 path.matches("/api/order/batch") ||
-                path.matches("/api/order/user/[^/]+/all")
+                path.matches("/api/order/batch/stream") ||
+                path.matches("/api/order/user/[^/]+/all") ||
+                path.matches("/api/order/user/[^/]+/all/stream")
                 ||
                 path.matches("/api/saved4later/[^/]+/enriched") ||
                 path.matches("/api/saved4later/[^/]+/basic") ||
                 path.matches("/api/saved4later/[^/]+/availability-summary")
+                ||
+                path.matches("/api/account/[^/]+/home")
                 ;
     }
     private String extractToken(ServerHttpRequest request) {
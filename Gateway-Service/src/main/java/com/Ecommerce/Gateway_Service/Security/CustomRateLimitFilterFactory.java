@@ -1,5 +1,7 @@
 package com.Ecommerce.Gateway_Service.Security;
 
+import com.Ecommerce.Gateway_Service.Service.BffStageTimers;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
@@ -14,27 +16,58 @@ import reactor.core.publisher.Mono;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 @Component
+@Slf4j
 public class CustomRateLimitFilterFactory extends AbstractGatewayFilterFactory<CustomRateLimitFilterFactory.Config> {
 
     private final ReactiveStringRedisTemplate redisTemplate;
-
-    // Constructor injection is preferred over @Autowired
-    public CustomRateLimitFilterFactory(ReactiveStringRedisTemplate redisTemplate) {
+    private final HybridRateLimiter hybridRateLimiter;
+    private final BffStageTimers stageTimers;
+
+    /**
+     * The hybrid limiter and the stage timers are optional - without the limiter every decision
+     * goes to Redis, without the timers decisions are simply not timed
+     */
+    @Autowired
+    public CustomRateLimitFilterFactory(ReactiveStringRedisTemplate redisTemplate,
+                                        Optional<HybridRateLimiter> hybridRateLimiter,
+                                        Optional<BffStageTimers> stageTimers) {
         super(Config.class);
         this.redisTemplate = redisTemplate;
+        this.hybridRateLimiter = hybridRateLimiter.orElse(null);
+        this.stageTimers = stageTimers.orElse(null);
     }
 
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
+            long start = System.nanoTime();
             ServerHttpRequest request = exchange.getRequest();
 
             // Create unique key for rate limiting
             String key = createRateLimitKey(request, config);
 
+            if (hybridRateLimiter != null && hybridRateLimiter.isEnabled()) {
+                // ✅ Local-first: no Redis round trip unless the local lease needs topping up
+                return hybridRateLimiter.tryAcquireWindow(key, config.getLimit(), config.getWindowSizeInSeconds())
+                        .onErrorReturn(new HybridRateLimiter.Decision(false, 0)) // If Redis fails, deny the request
+                        .doOnNext(decision -> recordDecision(start))
+                        .flatMap(decision -> {
+                            if (decision.allowed()) {
+                                addRateLimitHeaders(exchange, config);
+                                exchange.getResponse().getHeaders().add("X-RateLimit-Remaining",
+                                        String.valueOf(Math.min(config.getLimit(), decision.remaining())));
+                                return chain.filter(exchange);
+                            } else {
+                                return handleRateLimitExceeded(exchange, config);
+                            }
+                        });
+            }
+
             return checkRateLimit(key, config)
+                    .doOnNext(allowed -> recordDecision(start))
                     .flatMap(allowed -> {
                         if (allowed) {
                             // Add rate limit headers
@@ -46,12 +79,21 @@ public class CustomRateLimitFilterFactory extends AbstractGatewayFilterFactory<C
                     })
                     .onErrorResume(throwable -> {
                         // If Redis fails, log error and allow request (fail-open)
-                        System.err.println("Redis error in rate limiting: " + throwable.getMessage());
+                        log.warn("Redis error in rate limiting, allowing request: {}", throwable.getMessage());
                         return chain.filter(exchange);
                     });
         };
     }
 
+    /**
+     * ✅ Time to the rate limit decision - the Redis round trip when the local lease is empty
+     */
+    private void recordDecision(long start) {
+        if (stageTimers != null) {
+            stageTimers.recordFilter("rate-limit", start);
+        }
+    }
+
     private String createRateLimitKey(ServerHttpRequest request, Config config) {
         String identifier;
 
@@ -80,8 +122,7 @@ public class CustomRateLimitFilterFactory extends AbstractGatewayFilterFactory<C
 
     private String sanitizeEndpoint(String path) {
         // Remove dynamic path parameters for consistent rate limiting
-        return path.replaceAll("/[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}", "/{id}")
-                .replaceAll("/\\d+", "/{id}");
+        return PathNormalizer.normalize(path);
     }
 
     private String getClientIP(ServerHttpRequest request) {
@@ -125,13 +166,18 @@ public class CustomRateLimitFilterFactory extends AbstractGatewayFilterFactory<C
                 .onErrorReturn(false); // If Redis fails, deny the request
     }
 
-    private void addRateLimitHeaders(ServerWebExchange exchange, Config config, String key) {
+    private void addRateLimitHeaders(ServerWebExchange exchange, Config config) {
         ServerHttpResponse response = exchange.getResponse();
 
         // Add standard rate limit headers
         response.getHeaders().add("X-RateLimit-Limit", String.valueOf(config.getLimit()));
         response.getHeaders().add("X-RateLimit-Window", String.valueOf(config.getWindowSizeInSeconds()));
         response.getHeaders().add("X-RateLimit-Policy", config.getKeyType().name());
+    }
+
+    private void addRateLimitHeaders(ServerWebExchange exchange, Config config, String key) {
+        ServerHttpResponse response = exchange.getResponse();
+        addRateLimitHeaders(exchange, config);
 
         // Optionally add current usage (requires additional Redis call)
         redisTemplate.opsForValue().get(key)
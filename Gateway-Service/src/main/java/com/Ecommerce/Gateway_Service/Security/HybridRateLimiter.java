@@ -0,0 +1,381 @@
+package com.Ecommerce.Gateway_Service.Security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Local-first rate limiting shared by the rate limit filters. Each gateway instance spends tokens
+ * from a lock-free local bucket per key and leases blocks of tokens from the global Redis state in
+ * the background, so the hot path normally never waits on Redis. Limits stay approximately global:
+ * at most one unspent lease per instance and key is outstanding at any time.
+ */
+@Component
+@Slf4j
+public class HybridRateLimiter {
+
+    // Fixed window: reserve up to ARGV[3] requests of the window in one INCRBY
+    private static final RedisScript<List> WINDOW_LEASE_SCRIPT = RedisScript.of("""
+            local key = KEYS[1]
+            local limit = tonumber(ARGV[1])
+            local window_ms = tonumber(ARGV[2])
+            local want = tonumber(ARGV[3])
+
+            local count = tonumber(redis.call('GET', key) or '0')
+            local grant = math.max(0, math.min(want, limit - count))
+            if grant > 0 then
+                count = redis.call('INCRBY', key, grant)
+            end
+
+            local ttl = redis.call('PTTL', key)
+            if ttl < 0 then
+                redis.call('PEXPIRE', key, window_ms)
+                ttl = window_ms
+            end
+            return {grant, math.max(0, limit - count), ttl}
+            """, List.class);
+
+    // Token bucket: refill by elapsed time (ms precision, keeping the remainder) and take up to ARGV[4] tokens
+    private static final RedisScript<List> BUCKET_LEASE_SCRIPT = RedisScript.of("""
+            local key = KEYS[1]
+            local capacity = tonumber(ARGV[1])
+            local tokens = tonumber(ARGV[2])
+            local interval_ms = tonumber(ARGV[3])
+            local want = tonumber(ARGV[4])
+            local now = tonumber(ARGV[5])
+
+            local bucket = redis.call('HMGET', key, 'tokens', 'last_refill')
+            local current_tokens = tonumber(bucket[1]) or capacity
+            local last_refill = tonumber(bucket[2]) or now
+
+            local refills = math.floor((now - last_refill) / interval_ms)
+            if refills > 0 then
+                current_tokens = math.min(capacity, current_tokens + refills * tokens)
+                last_refill = last_refill + refills * interval_ms
+            end
+
+            local grant = math.max(0, math.min(want, current_tokens))
+            current_tokens = current_tokens - grant
+            redis.call('HMSET', key, 'tokens', current_tokens, 'last_refill', last_refill)
+            redis.call('PEXPIRE', key, interval_ms * 2 + math.ceil(capacity / tokens) * interval_ms)
+            return {grant, current_tokens, interval_ms}
+            """, List.class);
+
+    // Give unspent leased tokens back to the global bucket once a lease has expired
+    private static final RedisScript<Long> BUCKET_RETURN_SCRIPT = RedisScript.of("""
+            local key = KEYS[1]
+            local capacity = tonumber(ARGV[1])
+            local unused = tonumber(ARGV[2])
+            local current = tonumber(redis.call('HGET', KEYS[1], 'tokens'))
+            if current then
+                redis.call('HSET', key, 'tokens', math.min(capacity, current + unused))
+            end
+            return 1
+            """, Long.class);
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final double leaseFraction;
+    private final int maxLeaseSize;
+    private final int maxBuckets;
+    private final Duration reconcileInterval;
+    private final long idleEvictMillis;
+    private final LongSupplier clock;
+
+    private final Map<String, LocalBucket> buckets = new ConcurrentHashMap<>();
+    private Disposable reconciler;
+
+    private final Counter localAllowed;
+    private final Counter localDenied;
+    private final Counter redisDecisions;
+    private final Counter leases;
+    private final DistributionSummary leasedTokens;
+
+    @Autowired
+    public HybridRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${gateway.rate-limit.hybrid.enabled:true}") boolean enabled,
+                             @Value("${gateway.rate-limit.hybrid.lease-fraction:0.1}") double leaseFraction,
+                             @Value("${gateway.rate-limit.hybrid.max-lease-size:50}") int maxLeaseSize,
+                             @Value("${gateway.rate-limit.hybrid.max-buckets:100000}") int maxBuckets,
+                             @Value("${gateway.rate-limit.hybrid.reconcile-interval-ms:1000}") long reconcileIntervalMs,
+                             @Value("${gateway.rate-limit.hybrid.idle-evict-ms:120000}") long idleEvictMs) {
+        this(redisTemplate, meterRegistry, enabled, leaseFraction, maxLeaseSize, maxBuckets,
+                Duration.ofMillis(reconcileIntervalMs), idleEvictMs, System::currentTimeMillis);
+    }
+
+    HybridRateLimiter(ReactiveStringRedisTemplate redisTemplate,
+                      MeterRegistry meterRegistry,
+                      boolean enabled,
+                      double leaseFraction,
+                      int maxLeaseSize,
+                      int maxBuckets,
+                      Duration reconcileInterval,
+                      long idleEvictMillis,
+                      LongSupplier clock) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.leaseFraction = leaseFraction;
+        this.maxLeaseSize = maxLeaseSize;
+        this.maxBuckets = maxBuckets;
+        this.reconcileInterval = reconcileInterval;
+        this.idleEvictMillis = idleEvictMillis;
+        this.clock = clock;
+
+        this.localAllowed = Counter.builder("gateway.ratelimit.decisions")
+                .tag("source", "local").tag("result", "allowed")
+                .description("Rate limit decisions taken without waiting on Redis")
+                .register(meterRegistry);
+        this.localDenied = Counter.builder("gateway.ratelimit.decisions")
+                .tag("source", "local").tag("result", "denied")
+                .description("Rate limit decisions taken without waiting on Redis")
+                .register(meterRegistry);
+        this.redisDecisions = Counter.builder("gateway.ratelimit.decisions")
+                .tag("source", "redis").tag("result", "any")
+                .description("Rate limit decisions that had to wait for a Redis lease")
+                .register(meterRegistry);
+        this.leases = Counter.builder("gateway.ratelimit.leases")
+                .description("Token leases requested from Redis")
+                .register(meterRegistry);
+        this.leasedTokens = DistributionSummary.builder("gateway.ratelimit.leased.tokens")
+                .description("Tokens granted per Redis lease")
+                .register(meterRegistry);
+        Gauge.builder("gateway.ratelimit.local.buckets", buckets, Map::size)
+                .description("Rate limit keys with a local bucket on this instance")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void startReconciler() {
+        if (enabled) {
+            reconciler = Flux.interval(reconcileInterval)
+                    .subscribe(tick -> reconcile());
+            log.info("Hybrid rate limiter enabled - lease fraction: {}, max lease: {}, reconcile every {}ms",
+                    leaseFraction, maxLeaseSize, reconcileInterval.toMillis());
+        }
+    }
+
+    @PreDestroy
+    void stopReconciler() {
+        if (reconciler != null) {
+            reconciler.dispose();
+        }
+    }
+
+    /**
+     * ✅ Fixed-window limit (limit requests per window) - same Redis key layout as the per-request counter
+     */
+    public Mono<Decision> tryAcquireWindow(String key, int limit, int windowSeconds) {
+        int leaseSize = leaseSize(limit, 1);
+        return acquire(key, 1, leaseSize, want -> redisTemplate.execute(WINDOW_LEASE_SCRIPT,
+                        List.of(key),
+                        String.valueOf(limit),
+                        String.valueOf(windowSeconds * 1000L),
+                        String.valueOf(want))
+                .next()
+                .map(HybridRateLimiter::toLease), null);
+    }
+
+    /**
+     * ✅ Token bucket limit - leased tokens not spent before the lease expires go back to Redis
+     */
+    public Mono<Decision> tryAcquireTokenBucket(String key, int capacity, int refillTokens,
+                                                int refillIntervalSeconds, int requestedTokens) {
+        int leaseSize = leaseSize(capacity, requestedTokens);
+        long intervalMillis = refillIntervalSeconds * 1000L;
+        return acquire(key, requestedTokens, leaseSize, want -> redisTemplate.execute(BUCKET_LEASE_SCRIPT,
+                        List.of(key),
+                        String.valueOf(capacity),
+                        String.valueOf(refillTokens),
+                        String.valueOf(intervalMillis),
+                        String.valueOf(want),
+                        String.valueOf(clock.getAsLong()))
+                .next()
+                .map(HybridRateLimiter::toLease),
+                unused -> redisTemplate.execute(BUCKET_RETURN_SCRIPT,
+                                List.of(key), String.valueOf(capacity), String.valueOf(unused))
+                        .then());
+    }
+
+    private Mono<Decision> acquire(String key, int permits, int leaseSize,
+                                   LeaseSource leaseSource, TokenReturn tokenReturn) {
+        long now = clock.getAsLong();
+        LocalBucket bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets) {
+                // Too many distinct keys on this instance - decide per request against Redis
+                redisDecisions.increment();
+                return leaseSource.lease(permits)
+                        .map(lease -> new Decision(lease.granted() >= permits, lease.globalRemaining()));
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new LocalBucket(leaseSource, tokenReturn));
+        }
+        bucket.lastUsedMillis = now;
+
+        if (now >= bucket.expiresAtMillis) {
+            bucket.expire();
+        }
+
+        if (bucket.tryTake(permits)) {
+            localAllowed.increment();
+            if (bucket.tokens.get() < Math.max(permits, leaseSize / 4)) {
+                prefetch(bucket, leaseSize);
+            }
+            return Mono.just(new Decision(true, bucket.remaining()));
+        }
+
+        if (now < bucket.deniedUntilMillis) {
+            localDenied.increment();
+            return Mono.just(new Decision(false, 0));
+        }
+
+        redisDecisions.increment();
+        LocalBucket leased = bucket;
+        return lease(leased, leaseSize)
+                .map(lease -> new Decision(leased.tryTake(permits), leased.remaining()));
+    }
+
+    private void prefetch(LocalBucket bucket, int leaseSize) {
+        if (bucket.pendingLease.get() == null) {
+            lease(bucket, leaseSize).subscribe(lease -> { }, error ->
+                    log.warn("Background rate limit lease failed: {}", error.getMessage()));
+        }
+    }
+
+    private Mono<Lease> lease(LocalBucket bucket, int leaseSize) {
+        Mono<Lease> pending = bucket.pendingLease.get();
+        if (pending != null) {
+            return pending;
+        }
+
+        Mono<Lease> lease = bucket.leaseSource.lease(leaseSize)
+                .doOnNext(granted -> {
+                    long now = clock.getAsLong();
+                    leases.increment();
+                    leasedTokens.record(granted.granted());
+                    bucket.tokens.addAndGet(granted.granted());
+                    bucket.globalRemaining = granted.globalRemaining();
+                    bucket.expiresAtMillis = now + granted.validForMillis();
+                    bucket.deniedUntilMillis = granted.granted() == 0 ? now + granted.validForMillis() : 0;
+                })
+                .doFinally(signal -> bucket.pendingLease.set(null))
+                .cache();
+
+        if (bucket.pendingLease.compareAndSet(null, lease)) {
+            return lease;
+        }
+        Mono<Lease> raced = bucket.pendingLease.get();
+        return raced != null ? raced : lease;
+    }
+
+    /**
+     * ✅ Hand expired, unspent token-bucket leases back to Redis and drop idle keys
+     */
+    void reconcile() {
+        long now = clock.getAsLong();
+        buckets.forEach((key, bucket) -> {
+            if (now >= bucket.expiresAtMillis) {
+                bucket.expire();
+            }
+            if (now - bucket.lastUsedMillis > idleEvictMillis && bucket.pendingLease.get() == null) {
+                buckets.remove(key, bucket);
+                bucket.expire();
+            }
+        });
+    }
+
+    int bucketCount() {
+        return buckets.size();
+    }
+
+    private int leaseSize(int limit, int permits) {
+        int fraction = (int) Math.ceil(limit * leaseFraction);
+        return Math.max(permits, Math.min(maxLeaseSize, fraction));
+    }
+
+    private static Lease toLease(List<?> result) {
+        return new Lease(
+                ((Number) result.get(0)).longValue(),
+                ((Number) result.get(1)).longValue(),
+                Math.max(1, ((Number) result.get(2)).longValue()));
+    }
+
+    public record Decision(boolean allowed, long remaining) {
+    }
+
+    record Lease(long granted, long globalRemaining, long validForMillis) {
+    }
+
+    @FunctionalInterface
+    interface LeaseSource {
+        Mono<Lease> lease(int tokens);
+    }
+
+    @FunctionalInterface
+    interface TokenReturn {
+        Mono<Void> giveBack(long unused);
+    }
+
+    private static final class LocalBucket {
+        private final AtomicLong tokens = new AtomicLong();
+        private final AtomicReference<Mono<Lease>> pendingLease = new AtomicReference<>();
+        private final LeaseSource leaseSource;
+        private final TokenReturn tokenReturn;
+        private volatile long expiresAtMillis;
+        private volatile long deniedUntilMillis;
+        private volatile long globalRemaining;
+        private volatile long lastUsedMillis;
+
+        private LocalBucket(LeaseSource leaseSource, TokenReturn tokenReturn) {
+            this.leaseSource = leaseSource;
+            this.tokenReturn = tokenReturn;
+        }
+
+        private boolean tryTake(int permits) {
+            long current;
+            do {
+                current = tokens.get();
+                if (current < permits) {
+                    return false;
+                }
+            } while (!tokens.compareAndSet(current, current - permits));
+            return true;
+        }
+
+        private long remaining() {
+            return tokens.get() + globalRemaining;
+        }
+
+        private void expire() {
+            long unused = tokens.getAndSet(0);
+            if (unused > 0 && tokenReturn != null) {
+                tokenReturn.giveBack(unused).subscribe(ok -> { }, error ->
+                        log.warn("Failed to return {} unused rate limit tokens: {}", unused, error.getMessage()));
+            }
+        }
+    }
+}
@@ -1,41 +1,104 @@
 package com.Ecommerce.Gateway_Service.Security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class JwtUtil {
 
+    /** Exchange attribute holding the claims verified earlier in the same request */
+    public static final String VERIFIED_CLAIMS_ATTRIBUTE = JwtUtil.class.getName() + ".verifiedClaims";
+
     @Value("${gateway1.jwt.secret}")
     private String jwtSecret;
 
+    @Value("${gateway1.jwt.claims-cache.max-entries:10000}")
+    private int claimsCacheMaxEntries = 10000;
+
+    // Verified claims keyed by SHA-256 of the token - repeat requests with the same token skip HMAC + JSON parsing.
+    // Access-ordered and bounded: once full, the least recently used token makes room in O(1)
+    private final Map<String, CachedClaims> verifiedClaims = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedClaims> eldest) {
+            return size() > claimsCacheMaxEntries;
+        }
+    };
+
+    private volatile JwtParser parser;
+
     private Key getSigningKey() {
         return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
     }
 
+    private JwtParser parser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build();
+            parser = current;
+        }
+        return current;
+    }
+
     public Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
+        String digest = digest(token);
+        synchronized (verifiedClaims) {
+            CachedClaims cached = verifiedClaims.get(digest);
+            if (cached != null) {
+                if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                    return cached.claims();
+                }
+                verifiedClaims.remove(digest);
+            }
+        }
+
+        Claims claims = parser()
                 .parseClaimsJws(token)
                 .getBody();
+        cache(digest, claims);
+        return claims;
+    }
+
+    /**
+     * ✅ Verify the token once and return its claims, or empty when it is invalid or expired
+     */
+    public Optional<Claims> verify(String token) {
+        try {
+            Claims claims = extractAllClaims(token);
+            return isExpired(claims) ? Optional.empty() : Optional.of(claims);
+        } catch (Exception e) {
+            return Optional.empty();
+        }
     }
 
     public String extractUsername(String token) {
         return extractAllClaims(token).getSubject();
     }
 
-    @SuppressWarnings("unchecked")
     public List<String> extractRoles(String token) {
-        return extractAllClaims(token).get("roles", List.class);
+        return extractRoles(extractAllClaims(token));
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<String> extractRoles(Claims claims) {
+        return claims.get("roles", List.class);
     }
 
     public Date extractExpiration(String token) {
@@ -47,10 +110,38 @@ public class JwtUtil {
     }
 
     public Boolean validateToken(String token) {
+        return verify(token).isPresent();
+    }
+
+    int cachedTokenCount() {
+        synchronized (verifiedClaims) {
+            return verifiedClaims.size();
+        }
+    }
+
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
+    }
+
+    private void cache(String digest, Claims claims) {
+        if (claims.getExpiration() == null) {
+            return; // never cache tokens without expiry - nothing would evict them
+        }
+
+        synchronized (verifiedClaims) {
+            verifiedClaims.put(digest, new CachedClaims(claims, claims.getExpiration().getTime()));
+        }
+    }
+
+    private static String digest(String token) {
         try {
-            return !isTokenExpired(token);
-        } catch (Exception e) {
-            return false;
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
-}
\ No newline at end of file
+
+    private record CachedClaims(Claims claims, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,56 @@
+package com.Ecommerce.Gateway_Service.Security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Runs every request through the {@link AdmissionController} before authentication, so shedding
+ * an overloaded gateway costs as little as possible. Shed requests get 503 with Retry-After.
+ */
+@Component
+@Order(-200)
+@RequiredArgsConstructor
+public class LoadSheddingWebFilter implements WebFilter {
+
+    private final AdmissionController admissionController;
+
+    @Value("${gateway.admission.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        AdmissionController.Decision decision =
+                admissionController.admit(request.getMethod().name(), request.getPath().value());
+
+        if (!decision.admitted()) {
+            return handleOverloaded(exchange, decision);
+        }
+
+        return chain.filter(exchange)
+                .doFinally(signal -> admissionController.release(decision));
+    }
+
+    private Mono<Void> handleOverloaded(ServerWebExchange exchange, AdmissionController.Decision decision) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        String body = String.format("{\"error\":\"Service Unavailable\",\"message\":\"Gateway overloaded (%s), retry later\"}",
+                decision.reason());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes(StandardCharsets.UTF_8))));
+    }
+}
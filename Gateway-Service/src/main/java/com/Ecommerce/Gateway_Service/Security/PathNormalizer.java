@@ -0,0 +1,22 @@
+package com.Ecommerce.Gateway_Service.Security;
+
+import java.util.regex.Pattern;
+
+/**
+ * Collapses dynamic path segments (UUIDs, numeric IDs) to {id} so rate limit keys are per endpoint.
+ * Patterns are compiled once - this runs for every rate limited request.
+ */
+final class PathNormalizer {
+
+    private static final Pattern UUID_SEGMENT =
+            Pattern.compile("/[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}");
+    private static final Pattern NUMERIC_SEGMENT = Pattern.compile("/\\d+");
+
+    private PathNormalizer() {
+    }
+
+    static String normalize(String path) {
+        String withoutUuids = UUID_SEGMENT.matcher(path).replaceAll("/{id}");
+        return NUMERIC_SEGMENT.matcher(withoutUuids).replaceAll("/{id}");
+    }
+}
@@ -1,5 +1,8 @@
 package com.Ecommerce.Gateway_Service.Security;
 
+import com.Ecommerce.Gateway_Service.Service.BffStageTimers;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
 import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
@@ -11,16 +14,29 @@ import reactor.core.publisher.Mono;
 
 import java.time.Instant;
 import java.util.Arrays;
+import java.util.Optional;
 
 @Component
+@Slf4j
 public class TokenBucketRateLimitFilterFactory extends AbstractGatewayFilterFactory<TokenBucketRateLimitFilterFactory.Config> {
 
     private final ReactiveStringRedisTemplate redisTemplate;
     private final RedisScript<Long> tokenBucketScript;
-
-    public TokenBucketRateLimitFilterFactory(ReactiveStringRedisTemplate redisTemplate) {
+    private final HybridRateLimiter hybridRateLimiter;
+    private final BffStageTimers stageTimers;
+
+    /**
+     * The hybrid limiter and the stage timers are optional - without the limiter every decision
+     * goes to Redis, without the timers decisions are simply not timed
+     */
+    @Autowired
+    public TokenBucketRateLimitFilterFactory(ReactiveStringRedisTemplate redisTemplate,
+                                             Optional<HybridRateLimiter> hybridRateLimiter,
+                                             Optional<BffStageTimers> stageTimers) {
         super(Config.class);
         this.redisTemplate = redisTemplate;
+        this.hybridRateLimiter = hybridRateLimiter.orElse(null);
+        this.stageTimers = stageTimers.orElse(null);
 
         // Lua script for atomic token bucket operations
         String script = """
@@ -58,8 +74,24 @@ public class TokenBucketRateLimitFilterFactory extends AbstractGatewayFilterFact
     @Override
     public GatewayFilter apply(Config config) {
         return (exchange, chain) -> {
+            long start = System.nanoTime();
             String key = "token_bucket:" + getClientIP(exchange.getRequest()) + ":" +
                     sanitizePath(exchange.getRequest().getPath().value());
+
+            if (hybridRateLimiter != null && hybridRateLimiter.isEnabled()) {
+                // ✅ Local-first: spend leased tokens, Redis is only contacted to refill the lease
+                return hybridRateLimiter.tryAcquireTokenBucket(key,
+                                config.getBucketCapacity(),
+                                config.getRefillTokens(),
+                                config.getRefillIntervalSeconds(),
+                                config.getRequestedTokens())
+                        .doOnNext(decision -> recordDecision(start))
+                        .flatMap(decision -> decision.allowed()
+                                ? allow(exchange, chain, config)
+                                : handleTokenBucketExceeded(exchange, config))
+                        .onErrorResume(throwable -> failOpen(exchange, chain, throwable));
+            }
+
             long now = Instant.now().getEpochSecond();
 
             // Fix: Use .next() to convert Flux<Long> to Mono<Long>
@@ -72,26 +104,48 @@ public class TokenBucketRateLimitFilterFactory extends AbstractGatewayFilterFact
                             String.valueOf(now))
                     .cast(Long.class)
                     .next() // Convert Flux<Long> to Mono<Long>
+                    .doOnNext(allowed -> recordDecision(start))
                     .flatMap(allowed -> {
                         if (allowed == 1) {
-                            // Add headers showing bucket status
-                            exchange.getResponse().getHeaders().add("X-RateLimit-Type", "TokenBucket");
-                            exchange.getResponse().getHeaders().add("X-RateLimit-Capacity", String.valueOf(config.getBucketCapacity()));
-                            exchange.getResponse().getHeaders().add("X-RateLimit-Refill-Rate",
-                                    config.getRefillTokens() + "/" + config.getRefillIntervalSeconds() + "s");
-                            return chain.filter(exchange);
+                            return allow(exchange, chain, config);
                         } else {
                             return handleTokenBucketExceeded(exchange, config);
                         }
                     })
-                    .onErrorResume(throwable -> {
-                        // If Redis fails, allow the request (fail-open policy)
-                        System.err.println("Token bucket Redis error: " + throwable.getMessage());
-                        return chain.filter(exchange);
-                    });
+                    .onErrorResume(throwable -> failOpen(exchange, chain, throwable));
         };
     }
 
+    /**
+     * If Redis fails, allow the request (fail-open policy)
+     */
+    private Mono<Void> failOpen(org.springframework.web.server.ServerWebExchange exchange,
+                                org.springframework.cloud.gateway.filter.GatewayFilterChain chain,
+                                Throwable error) {
+        log.warn("Token bucket Redis error, allowing request: {}", error.getMessage());
+        return chain.filter(exchange);
+    }
+
+    /**
+     * ✅ Time to the token bucket decision - the Redis round trip when the local lease is empty
+     */
+    private void recordDecision(long start) {
+        if (stageTimers != null) {
+            stageTimers.recordFilter("token-bucket", start);
+        }
+    }
+
+    private Mono<Void> allow(org.springframework.web.server.ServerWebExchange exchange,
+                             org.springframework.cloud.gateway.filter.GatewayFilterChain chain,
+                             Config config) {
+        // Add headers showing bucket status
+        exchange.getResponse().getHeaders().add("X-RateLimit-Type", "TokenBucket");
+        exchange.getResponse().getHeaders().add("X-RateLimit-Capacity", String.valueOf(config.getBucketCapacity()));
+        exchange.getResponse().getHeaders().add("X-RateLimit-Refill-Rate",
+                config.getRefillTokens() + "/" + config.getRefillIntervalSeconds() + "s");
+        return chain.filter(exchange);
+    }
+
     private Mono<Void> handleTokenBucketExceeded(org.springframework.web.server.ServerWebExchange exchange, Config config) {
         exchange.getResponse().setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
         exchange.getResponse().getHeaders().add("Content-Type", "application/json");
@@ -129,8 +183,7 @@ public class TokenBucketRateLimitFilterFactory extends AbstractGatewayFilterFact
 
     private String sanitizePath(String path) {
         // Remove dynamic path parameters for consistent rate limiting
-        return path.replaceAll("/[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}", "/{id}")
-                .replaceAll("/\\d+", "/{id}");
+        return PathNormalizer.normalize(path);
     }
 
     public static class Config {
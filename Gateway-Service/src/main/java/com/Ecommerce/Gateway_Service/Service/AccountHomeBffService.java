@@ -0,0 +1,155 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.AccountHome.AccountHomeResponseDTO;
+import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedOrderItemDTO;
+import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
+import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.SavedItemDTO;
+import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.SavedItemsResponseDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Composite "account home" read: cart, saved-for-later and recent orders are loaded in parallel,
+ * then enriched from ONE product batch covering the union of their product IDs instead of one
+ * product round trip per section.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class AccountHomeBffService {
+
+    private final AsyncCartBffService asyncCartBffService;
+    private final AsyncSaved4LaterBffService asyncSaved4LaterBffService;
+    private final AsyncOrderBffService asyncOrderBffService;
+    private final AsyncProductService asyncProductService;
+    private final BffStageTimers stageTimers;
+
+    /**
+     * ✅ Load the three sections in parallel and enrich them with a single product batch
+     */
+    public Mono<AccountHomeResponseDTO> getAccountHome(UUID userId, int recentOrderLimit) {
+        long startTime = System.currentTimeMillis();
+        String user = userId.toString();
+
+        Mono<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> cart = asyncCartBffService.getBasicCart(user);
+        Mono<SavedItemsResponseDTO> savedItems = asyncSaved4LaterBffService.getBasicSavedItems(user);
+        Mono<List<EnrichedOrderResponse>> recentOrders = getRecentOrders(userId, recentOrderLimit);
+
+        return Mono.zip(cart, savedItems, recentOrders)
+                .flatMap(sections -> {
+                    Set<UUID> productIds = collectProductIds(sections.getT1(), sections.getT2(), sections.getT3());
+                    log.info("🔍 SERVICE: Account home for user {} - cart: {} items, saved: {} items, orders: {}, distinct products: {}",
+                            userId, sizeOf(sections.getT1().getItems()), sizeOf(sections.getT2().getItems()),
+                            sections.getT3().size(), productIds.size());
+
+                    if (productIds.isEmpty()) {
+                        return Mono.just(merge(userId, sections.getT1(), sections.getT2(), sections.getT3(),
+                                Map.of(), false, startTime));
+                    }
+
+                    // ✅ One product batch for all three sections
+                    return stageTimers.time("account-home", BffStageTimers.PRODUCT_BATCH,
+                                    asyncProductService.getProductsBatch(new ArrayList<>(productIds)))
+                            .map(products -> {
+                                Map<UUID, EnrichedCartItemDTO> productMap = products.stream()
+                                        .filter(product -> product.getProductId() != null)
+                                        .collect(Collectors.toMap(
+                                                EnrichedCartItemDTO::getProductId,
+                                                product -> product,
+                                                (existing, replacement) -> existing
+                                        ));
+                                return stageTimers.time("account-home", BffStageTimers.MERGE,
+                                        () -> merge(userId, sections.getT1(), sections.getT2(), sections.getT3(),
+                                                productMap, true, startTime));
+                            })
+                            .onErrorResume(error -> {
+                                log.error("🔍 SERVICE: Error fetching products for account home, returning sections without enrichment", error);
+                                return Mono.just(merge(userId, sections.getT1(), sections.getT2(), sections.getT3(),
+                                        Map.of(), false, startTime));
+                            });
+                });
+    }
+
+    /**
+     * ✅ Most recent order IDs, then the basic orders in parallel (order kept, missing orders dropped)
+     */
+    private Mono<List<EnrichedOrderResponse>> getRecentOrders(UUID userId, int limit) {
+        if (limit <= 0) {
+            return Mono.just(List.of());
+        }
+
+        return asyncOrderBffService.getUserOrderIds(userId, null, limit)
+                .flatMapMany(orderIds -> Flux.fromIterable(orderIds.stream().limit(limit).toList()))
+                .flatMapSequential(orderId -> asyncOrderBffService.getBasicOrder(orderId)
+                        .filter(order -> order.getId() != null) // empty fallback = order not loaded
+                        .onErrorResume(error -> {
+                            log.warn("Skipping order {} on account home: {}", orderId, error.getMessage());
+                            return Mono.empty();
+                        }))
+                .collectList();
+    }
+
+    private Set<UUID> collectProductIds(EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart,
+                                        SavedItemsResponseDTO savedItems,
+                                        List<EnrichedOrderResponse> orders) {
+        Set<UUID> productIds = new LinkedHashSet<>();
+        if (cart.getItems() != null) {
+            cart.getItems().stream().map(EnrichedCartItemDTO::getProductId).filter(Objects::nonNull).forEach(productIds::add);
+        }
+        if (savedItems.getItems() != null) {
+            savedItems.getItems().stream().map(SavedItemDTO::getProductId).filter(Objects::nonNull).forEach(productIds::add);
+        }
+        orders.stream()
+                .filter(order -> order.getItems() != null)
+                .flatMap(order -> order.getItems().stream())
+                .map(EnrichedOrderItemDTO::getProductId)
+                .filter(Objects::nonNull)
+                .forEach(productIds::add);
+        return productIds;
+    }
+
+    /**
+     * ✅ Reuse each section's own merge so the composite looks exactly like the individual endpoints
+     */
+    private AccountHomeResponseDTO merge(UUID userId,
+                                         EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart,
+                                         SavedItemsResponseDTO savedItems,
+                                         List<EnrichedOrderResponse> orders,
+                                         Map<UUID, EnrichedCartItemDTO> productMap,
+                                         boolean productsEnriched,
+                                         long startTime) {
+        List<EnrichedCartItemDTO> products = new ArrayList<>(productMap.values());
+        boolean enrich = productsEnriched && !products.isEmpty();
+
+        return AccountHomeResponseDTO.builder()
+                .userId(userId)
+                .cart(enrich && cart.getItems() != null && !cart.getItems().isEmpty()
+                        ? asyncCartBffService.mergeCartWithProductItems(cart, products)
+                        : cart)
+                .savedItems(enrich && savedItems.getItems() != null && !savedItems.getItems().isEmpty()
+                        ? asyncSaved4LaterBffService.mergeSavedItemsWithProductItems(savedItems, products)
+                        : asyncSaved4LaterBffService.createEnrichedResponseFromBasic(savedItems))
+                .recentOrders(enrich
+                        ? orders.stream()
+                                .map(order -> order.getItems() == null ? order
+                                        : asyncOrderBffService.enrichOrderWithProducts(order, productMap))
+                                .collect(Collectors.toList())
+                        : orders)
+                .productsEnriched(productsEnriched)
+                .productCount(productMap.size())
+                .processingTimeMs(System.currentTimeMillis() - startTime)
+                .build();
+    }
+
+    private static int sizeOf(List<?> items) {
+        return items == null ? 0 : items.size();
+    }
+}
@@ -0,0 +1,271 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Per-operation deadlines for BFF downstream calls, derived from the reply latencies actually
+ * observed instead of a fixed 30s wait. Optionally hedges: once a call has been outstanding for
+ * longer than the operation's p95, the same read is issued over an alternate transport and the
+ * first answer wins, the loser being cancelled - a primary cancelled that way still counts, as a
+ * sample of at least its elapsed time. Hedges are capped to a fraction of the calls so a
+ * slow downstream doesn't get twice the load.
+ */
+@Component
+@Slf4j
+public class AdaptiveDeadlines {
+
+    private final boolean enabled;
+    private final long minDeadlineMs;
+    private final long maxDeadlineMs;
+    private final double multiplier;
+    private final int minSamples;
+    private final int windowSize;
+    private final boolean hedgeEnabled;
+    private final long hedgeInitialDelayMs;
+    private final long hedgeMinDelayMs;
+    private final double hedgeMaxRatio;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AdaptiveDeadlines(@Value("${gateway.bff.deadlines.enabled:true}") boolean enabled,
+                             @Value("${gateway.bff.deadlines.min-ms:500}") long minDeadlineMs,
+                             @Value("${gateway.bff.deadlines.max-ms:30000}") long maxDeadlineMs,
+                             @Value("${gateway.bff.deadlines.p99-multiplier:2.0}") double multiplier,
+                             @Value("${gateway.bff.deadlines.min-samples:50}") int minSamples,
+                             @Value("${gateway.bff.deadlines.window-size:512}") int windowSize,
+                             @Value("${gateway.bff.deadlines.hedge.enabled:true}") boolean hedgeEnabled,
+                             @Value("${gateway.bff.deadlines.hedge.initial-delay-ms:1000}") long hedgeInitialDelayMs,
+                             @Value("${gateway.bff.deadlines.hedge.min-delay-ms:50}") long hedgeMinDelayMs,
+                             @Value("${gateway.bff.deadlines.hedge.max-ratio:0.1}") double hedgeMaxRatio,
+                             MeterRegistry meterRegistry) {
+        this(enabled, minDeadlineMs, maxDeadlineMs, multiplier, minSamples, windowSize,
+                hedgeEnabled, hedgeInitialDelayMs, hedgeMinDelayMs, hedgeMaxRatio, meterRegistry,
+                System::currentTimeMillis);
+    }
+
+    AdaptiveDeadlines(boolean enabled, long minDeadlineMs, long maxDeadlineMs, double multiplier,
+                      int minSamples, int windowSize, boolean hedgeEnabled, long hedgeInitialDelayMs,
+                      long hedgeMinDelayMs, double hedgeMaxRatio, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = enabled;
+        this.minDeadlineMs = minDeadlineMs;
+        this.maxDeadlineMs = Math.max(minDeadlineMs, maxDeadlineMs);
+        this.multiplier = multiplier;
+        this.minSamples = Math.max(1, minSamples);
+        this.windowSize = Math.max(this.minSamples, windowSize);
+        this.hedgeEnabled = hedgeEnabled;
+        this.hedgeInitialDelayMs = hedgeInitialDelayMs;
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+        this.hedgeMaxRatio = hedgeMaxRatio;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * ✅ Deadline for one call of this operation: p99 x multiplier, clamped to [min, max].
+     * Until enough replies have been seen, the max deadline applies.
+     */
+    public Duration deadline(String operation) {
+        if (!enabled) {
+            return Duration.ofMillis(maxDeadlineMs);
+        }
+        return Duration.ofMillis(window(operation).deadlineMs());
+    }
+
+    /**
+     * ✅ How long to wait for the primary transport before issuing a hedge: the observed p95
+     */
+    public Duration hedgeDelay(String operation) {
+        return Duration.ofMillis(window(operation).hedgeDelayMs());
+    }
+
+    /**
+     * ✅ Record one reply latency for the operation
+     */
+    public void record(String operation, long latencyMs) {
+        window(operation).record(latencyMs);
+    }
+
+    /**
+     * ✅ Run a call under the operation's adaptive deadline, without a hedge
+     */
+    public <T> Mono<T> call(String operation, Function<Duration, Mono<T>> primary) {
+        return call(operation, primary, null);
+    }
+
+    /**
+     * ✅ Run a call under the operation's adaptive deadline. If {@code alternate} is given, it is
+     * issued once the primary has been outstanding for the hedge delay; whichever transport
+     * answers first wins and the other is cancelled.
+     */
+    public <T> Mono<T> call(String operation, Function<Duration, Mono<T>> primary, Supplier<Mono<T>> alternate) {
+        return Mono.defer(() -> {
+            LatencyWindow window = window(operation);
+            Duration deadline = deadline(operation);
+            long start = clock.getAsLong();
+
+            Mono<T> viaPrimary = Mono.defer(() -> primary.apply(deadline))
+                    .timeout(deadline)
+                    .doOnSuccess(response -> {
+                        if (response != null) {
+                            window.record(clock.getAsLong() - start);
+                        }
+                    })
+                    .doOnError(error -> {
+                        long elapsed = clock.getAsLong() - start;
+                        if (elapsed >= deadline.toMillis()) {
+                            // a timed-out call still tells us the latency is at least the deadline
+                            window.record(elapsed);
+                            window.timeouts.increment();
+                            log.warn("BFF {} call hit its {}ms deadline", operation, deadline.toMillis());
+                        }
+                    });
+
+            if (alternate == null || !enabled || !hedgeEnabled) {
+                return viaPrimary;
+            }
+
+            Duration hedgeDelay = Duration.ofMillis(Math.min(window.hedgeDelayMs(), deadline.toMillis()));
+            AtomicBoolean hedgeWon = new AtomicBoolean();
+            Mono<T> viaAlternate = Mono.delay(hedgeDelay)
+                    .filter(tick -> window.tryAcquireHedge())
+                    .flatMap(tick -> {
+                        window.hedges.increment();
+                        log.info("BFF {} call still pending after {}ms, hedging over alternate transport",
+                                operation, hedgeDelay.toMillis());
+                        return Mono.defer(alternate).timeout(deadline);
+                    })
+                    .doOnNext(response -> {
+                        hedgeWon.set(true);
+                        window.alternateWins.increment();
+                    });
+
+            return Mono.firstWithValue(
+                    viaPrimary.doOnNext(response -> window.primaryWins.increment())
+                            .doOnCancel(() -> {
+                                if (hedgeWon.get()) {
+                                    // censored sample: the primary would have taken at least this long -
+                                    // leaving it out would skew the window towards the fast replies
+                                    window.record(clock.getAsLong() - start);
+                                }
+                            }),
+                    viaAlternate);
+        });
+    }
+
+    private LatencyWindow window(String operation) {
+        return windows.computeIfAbsent(operation, LatencyWindow::new);
+    }
+
+    /**
+     * Ring buffer of the most recent latencies for one operation. Percentiles are recomputed every
+     * few samples rather than on every call.
+     */
+    private final class LatencyWindow {
+
+        private static final int RECOMPUTE_EVERY = 16;
+
+        private final long[] samples = new long[windowSize];
+        private int next;
+        private int count;
+        private int sinceRecompute;
+        private double hedgeCredit;
+
+        private volatile long deadlineMs = maxDeadlineMs;
+        private volatile long hedgeDelayMs = hedgeInitialDelayMs;
+
+        private final Counter timeouts;
+        private final Counter hedges;
+        private final Counter primaryWins;
+        private final Counter alternateWins;
+
+        LatencyWindow(String operation) {
+            this.timeouts = Counter.builder("gateway.bff.deadline.timeouts")
+                    .tag("operation", operation)
+                    .description("BFF calls that ran into their adaptive deadline")
+                    .register(meterRegistry);
+            this.hedges = Counter.builder("gateway.bff.hedge.issued")
+                    .tag("operation", operation)
+                    .description("Hedged requests issued over the alternate transport")
+                    .register(meterRegistry);
+            this.primaryWins = Counter.builder("gateway.bff.hedge.wins")
+                    .tag("operation", operation).tag("transport", "primary")
+                    .register(meterRegistry);
+            this.alternateWins = Counter.builder("gateway.bff.hedge.wins")
+                    .tag("operation", operation).tag("transport", "alternate")
+                    .register(meterRegistry);
+            Gauge.builder("gateway.bff.deadline.ms", this, window -> window.deadlineMs)
+                    .tag("operation", operation)
+                    .description("Current adaptive deadline")
+                    .register(meterRegistry);
+            Gauge.builder("gateway.bff.hedge.delay.ms", this, window -> window.hedgeDelayMs)
+                    .tag("operation", operation)
+                    .description("Current hedge delay (observed p95)")
+                    .register(meterRegistry);
+        }
+
+        long deadlineMs() {
+            return deadlineMs;
+        }
+
+        long hedgeDelayMs() {
+            return hedgeDelayMs;
+        }
+
+        synchronized void record(long latencyMs) {
+            samples[next] = Math.max(0, latencyMs);
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+            hedgeCredit = Math.min(hedgeCredit + hedgeMaxRatio, Math.max(1.0, hedgeMaxRatio * minSamples));
+
+            if (count >= minSamples && (++sinceRecompute >= RECOMPUTE_EVERY || count == minSamples)) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                long p95 = percentile(sorted, 0.95);
+                long p99 = percentile(sorted, 0.99);
+
+                deadlineMs = Math.max(minDeadlineMs, Math.min(maxDeadlineMs, (long) Math.ceil(p99 * multiplier)));
+                hedgeDelayMs = Math.max(hedgeMinDelayMs, Math.min(p95, deadlineMs));
+            }
+        }
+
+        /**
+         * Each recorded reply earns {@code hedgeMaxRatio} of a hedge, so hedges stay a bounded
+         * share of the traffic even while the downstream is slow
+         */
+        synchronized boolean tryAcquireHedge() {
+            if (count < minSamples) {
+                return true; // nothing observed yet, the initial delay alone limits hedging
+            }
+            if (hedgeCredit >= 1.0) {
+                hedgeCredit -= 1.0;
+                return true;
+            }
+            return false;
+        }
+
+        private long percentile(long[] sorted, double quantile) {
+            int index = (int) Math.ceil(quantile * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+        }
+    }
+}
@@ -3,6 +3,8 @@ package com.Ecommerce.Gateway_Service.Service;
 import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
 import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,75 +27,89 @@ public class AsyncCartBffService {
     private final AsyncResponseManager asyncResponseManager;
     private final AsyncProductService asyncProductService;
     private final ObjectMapper objectMapper;
+    private final BffSingleFlight bffSingleFlight;
+    private final AdaptiveDeadlines adaptiveDeadlines;
+    private final CartBffService cartBffService;
+    private final BffStageTimers stageTimers;
+    private final HotPathLog hotPathLog;
 
     /**
      * ✅ Get enriched cart using async Kafka communication - WITHOUT product enrichment
      */
     public Mono<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> getEnrichedCart(String userId) {
-        String correlationId = UUID.randomUUID().toString();
-
-        log.info("Starting async cart request for userId: {} with correlationId: {}", userId, correlationId);
-
-        try {
-            if (userId == null || userId.trim().isEmpty()) {
-                log.error("Invalid userId provided: {}", userId);
-                return Mono.just(createEmptyCartResponse(userId));
-            }
+        return bffSingleFlight.execute("cart", userId, () -> fetchEnrichedCart(userId));
+    }
 
-            // Create cart request
-            Map<String, Object> cartRequest = new HashMap<>();
-            cartRequest.put("correlationId", correlationId);
-            cartRequest.put("userId", userId);
-            cartRequest.put("timestamp", System.currentTimeMillis());
-
-            log.info("🔍 SERVICE: Sending cart request to Kafka: {}", cartRequest);
-
-            // Send request to cart service
-            gatewayKafkaTemplate.send("cart.request", correlationId, cartRequest);
-
-            // Wait for response with timeout
-            Duration timeout = Duration.ofSeconds(30);
-
-            return asyncResponseManager.waitForResponse(
-                            correlationId,
-                            timeout,
-                            EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class
-                    )
-                    .doOnSuccess(response -> {
-                        log.info("🔍 SERVICE: Successfully received async cart response for correlationId: {} with {} items",
-                                correlationId, response.getItemCount());
-                        log.info("🔍 SERVICE: Cart response details - id: {}, userId: {}, total: {}, itemCount: {}, totalQuantity: {}",
-                                response.getId(), response.getUserId(), response.getTotal(),
-                                response.getItemCount(), response.getTotalQuantity());
-                    })
-                    .doOnError(error -> {
-                        log.error("Failed to get async cart response for correlationId: {}", correlationId, error);
-                    })
-                    .onErrorReturn(createEmptyCartResponse(userId));
-
-        } catch (Exception e) {
-            log.error("Error initiating async cart request for userId: {}", userId, e);
+    /**
+     * ✅ Single Kafka round trip to Cart-Service - concurrent identical requests share it.
+     * Runs under the adaptive cart deadline and is hedged over HTTP when the reply is late.
+     */
+    private Mono<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> fetchEnrichedCart(String userId) {
+        if (userId == null || userId.trim().isEmpty()) {
+            log.error("Invalid userId provided: {}", userId);
             return Mono.just(createEmptyCartResponse(userId));
         }
+
+        return adaptiveDeadlines.call("cart",
+                        deadline -> requestCartOverKafka(userId, deadline),
+                        () -> cartBffService.getBasicCartOverHttp(userId))
+                .doOnSuccess(response -> hotPathLog.summary(log, "cart",
+                        "🔍 SERVICE: Cart response details - id: {}, userId: {}, total: {}, itemCount: {}, totalQuantity: {}",
+                        response::getId, response::getUserId, response::getTotal,
+                        response::getItemCount, response::getTotalQuantity))
+                .doOnError(error -> {
+                    log.error("Failed to get cart for userId: {}", userId, error);
+                })
+                .onErrorReturn(createEmptyCartResponse(userId));
+    }
+
+    private Mono<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> requestCartOverKafka(String userId, Duration timeout) {
+        String correlationId = UUID.randomUUID().toString();
+
+        // Create cart request
+        Map<String, Object> cartRequest = new HashMap<>();
+        cartRequest.put("correlationId", correlationId);
+        cartRequest.put("userId", userId);
+        cartRequest.put("timestamp", System.currentTimeMillis());
+
+        hotPathLog.verbose(log, "cart.payload", correlationId,
+                "🔍 SERVICE: Sending cart request to Kafka: {}", () -> cartRequest);
+
+        // Register for the reply first, then send the request to cart service
+        Mono<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> reply = asyncResponseManager.register(
+                correlationId,
+                timeout,
+                EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class
+        );
+        stageTimers.timeSend("cart", gatewayKafkaTemplate.send(
+                RequestDeadline.request(KafkaTopics.CART_REQUEST, correlationId, cartRequest, timeout)));
+
+        return stageTimers.time("cart", BffStageTimers.REPLY_WAIT, reply)
+                .doOnSuccess(response -> hotPathLog.verbose(log, "cart", correlationId,
+                        "🔍 SERVICE: Successfully received async cart response for correlationId: {} with {} items",
+                        () -> correlationId, response::getItemCount));
     }
 
     /**
      * ✅ Get enriched cart WITH product enrichment - FIXED version
      */
     public Mono<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> getEnrichedCartWithProducts(String userId) {
-        log.info("🔍 SERVICE: Starting enriched cart with products for userId: {}", userId);
+        // ✅ One sampling decision for the whole enrichment so a sampled request logs completely
+        boolean sampled = hotPathLog.sampled("cart.payload", null);
 
         return getEnrichedCart(userId)
                 .flatMap(cartResponse -> {
-                    log.info("🔍 SERVICE: Received cart response before product enrichment:");
-                    log.info("   - Cart ID: {}", cartResponse.getId());
-                    log.info("   - User ID: {}", cartResponse.getUserId());
-                    log.info("   - Total: {}", cartResponse.getTotal());
-                    log.info("   - Item Count: {}", cartResponse.getItemCount());
-                    log.info("   - Total Quantity: {}", cartResponse.getTotalQuantity());
-                    log.info("   - Created At: {}", cartResponse.getCreatedAt());
-                    log.info("   - Updated At: {}", cartResponse.getUpdatedAt());
-                    log.info("   - Expires At: {}", cartResponse.getExpiresAt());
+                    if (hotPathLog.isVerbose(log, "cart.payload", sampled)) {
+                        log.info("🔍 SERVICE: Received cart response before product enrichment:");
+                        log.info("   - Cart ID: {}", cartResponse.getId());
+                        log.info("   - User ID: {}", cartResponse.getUserId());
+                        log.info("   - Total: {}", cartResponse.getTotal());
+                        log.info("   - Item Count: {}", cartResponse.getItemCount());
+                        log.info("   - Total Quantity: {}", cartResponse.getTotalQuantity());
+                        log.info("   - Created At: {}", cartResponse.getCreatedAt());
+                        log.info("   - Updated At: {}", cartResponse.getUpdatedAt());
+                        log.info("   - Expires At: {}", cartResponse.getExpiresAt());
+                    }
 
                     if (cartResponse.getItemCount() != null && cartResponse.getItemCount() > 0) {
                         // Extract product IDs from cart items
@@ -103,45 +119,45 @@ public class AsyncCartBffService {
                                 .collect(Collectors.toList());
 
                         if (!productIds.isEmpty()) {
-                            log.info("🔍 SERVICE: Enriching {} cart items with product data", productIds.size());
-                            log.info("🔍 SERVICE: Product IDs to fetch: {}", productIds);
+                            if (hotPathLog.isVerbose(log, "cart.payload", sampled)) {
+                                log.info("🔍 SERVICE: Enriching {} cart items with product data", productIds.size());
+                                log.info("🔍 SERVICE: Product IDs to fetch: {}", productIds);
+                            }
 
                             // ✅ FIXED: Handle the correct return type from AsyncProductService
-                            return asyncProductService.getProductsBatch(productIds)
+                            return stageTimers.time("cart", BffStageTimers.PRODUCT_BATCH,
+                                            asyncProductService.getProductsBatch(productIds))
                                     .map(productResponse -> {
-                                        log.info("🔍 SERVICE: Received product response");
-                                        log.info("🔍 SERVICE: Response type: {}", productResponse.getClass().getSimpleName());
-
                                         // ✅ Your AsyncProductService returns List<EnrichedCartItemDTO>, not ProductBatchResponseDTO
                                         @SuppressWarnings("unchecked")
                                         List<EnrichedCartItemDTO> productItems = (List<EnrichedCartItemDTO>) productResponse;
 
-                                        log.info("🔍 SERVICE: Successfully cast to List<EnrichedCartItemDTO> with {} items", productItems.size());
-
-                                        // Log the product details we received
-                                        for (EnrichedCartItemDTO product : productItems) {
-                                            log.info("🔍 SERVICE: Product: id={}, name={}, status={}, inStock={}, availableQuantity={}",
-                                                    product.getProductId(), product.getProductName(),
-                                                    product.getProductStatus(), product.getInStock(), product.getAvailableQuantity());
+                                        // Log the product details we received - sampled traces only
+                                        if (hotPathLog.isVerbose(log, "cart.payload", sampled)) {
+                                            log.info("🔍 SERVICE: Received {} product items", productItems.size());
+                                            for (EnrichedCartItemDTO product : productItems) {
+                                                log.info("🔍 SERVICE: Product: id={}, name={}, status={}, inStock={}, availableQuantity={}",
+                                                        product.getProductId(), product.getProductName(),
+                                                        product.getProductStatus(), product.getInStock(), product.getAvailableQuantity());
+                                            }
                                         }
 
                                         // ✅ Use the correct merge method for List<EnrichedCartItemDTO>
-                                        return mergeCartWithProductItems(cartResponse, productItems);
-                                    })
-                                    .doOnSuccess(enrichedCart -> {
-                                        log.info("🔍 SERVICE: Successfully enriched cart with product details");
-                                        log.info("🔍 SERVICE: Final enriched cart - id: {}, userId: {}, total: {}, itemCount: {}",
-                                                enrichedCart.getId(), enrichedCart.getUserId(),
-                                                enrichedCart.getTotal(), enrichedCart.getItemCount());
+                                        return stageTimers.time("cart", BffStageTimers.MERGE,
+                                                () -> mergeCartWithProductItems(cartResponse, productItems));
                                     })
+                                    .doOnSuccess(enrichedCart -> hotPathLog.summary(log, "cart",
+                                            "🔍 SERVICE: Final enriched cart - id: {}, userId: {}, total: {}, itemCount: {}",
+                                            enrichedCart::getId, enrichedCart::getUserId,
+                                            enrichedCart::getTotal, enrichedCart::getItemCount))
                                     .onErrorResume(error -> {
                                         log.error("🔍 SERVICE: Error enriching cart with products", error);
-                                        return Mono.just(cartResponse); // Return cart without enrichment on error
+                                        // Return cart without enrichment on error - a copy, the single-flight shares cartResponse
+                                        return Mono.just(cartResponse.toBuilder().degraded(true).build());
                                     });
                         }
                     }
 
-                    log.info("🔍 SERVICE: Cart has no items to enrich, returning basic cart data");
                     return Mono.just(cartResponse);
                 });
     }
@@ -149,20 +165,25 @@ public class AsyncCartBffService {
     /**
      * ✅ Enhanced merge method with detailed discount field logging
      */
-    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO mergeCartWithProductItems(
+    EnrichedShoppingCartResponse.EnrichedCartResponseDTO mergeCartWithProductItems(
             EnrichedShoppingCartResponse.EnrichedCartResponseDTO cartResponse,
             List<EnrichedCartItemDTO> productItems) {
 
-        log.info("🔍 SERVICE: Merging cart with {} cart items and {} product items",
-                cartResponse.getItemCount(), productItems.size());
+        // ✅ Per-item debug lines only for sampled merges
+        boolean verbose = hotPathLog.isVerbose(log, "cart.merge", (String) null);
 
-        // ✅ DEBUG: Log all product items with their discount fields
-        for (EnrichedCartItemDTO productItem : productItems) {
-            log.info("🔍 PRODUCT ITEM DEBUG: productId={}, name={}, discountValue={}, discountType={}",
-                    productItem.getProductId(),
-                    productItem.getProductName(),
-                    productItem.getDiscountValue(),
-                    productItem.getDiscountType());
+        if (verbose) {
+            log.info("🔍 SERVICE: Merging cart with {} cart items and {} product items",
+                    cartResponse.getItemCount(), productItems.size());
+
+            // ✅ DEBUG: Log all product items with their discount fields
+            for (EnrichedCartItemDTO productItem : productItems) {
+                log.info("🔍 PRODUCT ITEM DEBUG: productId={}, name={}, discountValue={}, discountType={}",
+                        productItem.getProductId(),
+                        productItem.getProductName(),
+                        productItem.getDiscountValue(),
+                        productItem.getDiscountType());
+            }
         }
 
         // Create a map of productId -> product details for quick lookup
@@ -173,7 +194,6 @@ public class AsyncCartBffService {
                         (existing, replacement) -> existing // Handle duplicates
                 ));
 
-        log.info("🔍 SERVICE: Created product map with {} entries", productMap.size());
 
         // Enrich cart items with product details
         List<EnrichedCartItemDTO> enrichedItems = cartResponse.getItems().stream()
@@ -181,13 +201,13 @@ public class AsyncCartBffService {
                     EnrichedCartItemDTO productDetail = productMap.get(cartItem.getProductId());
 
                     if (productDetail != null) {
-                        log.info("🔍 SERVICE: Enriching cart item {} with product details", cartItem.getProductId());
-
                         // ✅ DEBUG: Log the product detail discount fields before merging
-                        log.info("🔍 PRODUCT DETAIL DEBUG: productId={}, discountValue={}, discountType={}",
-                                productDetail.getProductId(),
-                                productDetail.getDiscountValue(),
-                                productDetail.getDiscountType());
+                        if (verbose) {
+                            log.info("🔍 PRODUCT DETAIL DEBUG: productId={}, discountValue={}, discountType={}",
+                                    productDetail.getProductId(),
+                                    productDetail.getDiscountValue(),
+                                    productDetail.getDiscountType());
+                        }
 
                         // ✅ FIXED: Merge ALL cart item data with product details INCLUDING DISCOUNT FIELDS
                         EnrichedCartItemDTO enrichedItem = EnrichedCartItemDTO.builder()
@@ -212,10 +232,12 @@ public class AsyncCartBffService {
                                 .build();
 
                         // ✅ DEBUG: Log the final enriched item discount fields
-                        log.info("🔍 ENRICHED ITEM DEBUG: productId={}, discountValue={}, discountType={}",
-                                enrichedItem.getProductId(),
-                                enrichedItem.getDiscountValue(),
-                                enrichedItem.getDiscountType());
+                        if (verbose) {
+                            log.info("🔍 ENRICHED ITEM DEBUG: productId={}, discountValue={}, discountType={}",
+                                    enrichedItem.getProductId(),
+                                    enrichedItem.getDiscountValue(),
+                                    enrichedItem.getDiscountType());
+                        }
 
                         return enrichedItem;
                     } else {
@@ -245,7 +267,6 @@ public class AsyncCartBffService {
                 })
                 .collect(Collectors.toList());
 
-        log.info("🔍 SERVICE: Successfully enriched {} items", enrichedItems.size());
 
         // ✅ PRESERVE ALL ORIGINAL CART DATA, only update items and timestamp
         EnrichedShoppingCartResponse.EnrichedCartResponseDTO result =
@@ -257,16 +278,18 @@ public class AsyncCartBffService {
                         .itemCount(cartResponse.getItemCount())             // Original item count
                         .totalQuantity(cartResponse.getTotalQuantity())     // Original total quantity
                         .createdAt(cartResponse.getCreatedAt())             // Original creation time
+                        .updatedAt(cartResponse.getUpdatedAt())             // Original update time - the cart's version for ETags
                         .expiresAt(cartResponse.getExpiresAt())             // Original expiration time
 
                         // ✅ UPDATE ONLY ENRICHED DATA
                         .items(enrichedItems)                               // Enriched items
-                        .updatedAt(LocalDateTime.now())                     // Updated timestamp
                         .build();
 
-        log.info("🔍 SERVICE: Final merged cart result - id: {}, userId: {}, total: {}, itemCount: {}, totalQuantity: {}",
-                result.getId(), result.getUserId(), result.getTotal(),
-                result.getItemCount(), result.getTotalQuantity());
+        if (verbose) {
+            log.info("🔍 SERVICE: Final merged cart result - id: {}, userId: {}, total: {}, itemCount: {}, totalQuantity: {}",
+                    result.getId(), result.getUserId(), result.getTotal(),
+                    result.getItemCount(), result.getTotalQuantity());
+        }
 
         return result;
     }
@@ -296,6 +319,7 @@ public class AsyncCartBffService {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .expiresAt(null)
+                .degraded(true)
                 .build();
     }
 
@@ -7,15 +7,18 @@ import com.Ecommerce.Gateway_Service.DTOs.Order.BatchOrderResponseDTO;
 import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
 import com.Ecommerce.Gateway_Service.DTOs.Order.OrderResult;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -29,20 +32,39 @@ public class AsyncOrderBffService {
     private final AsyncResponseManager asyncResponseManager;
     private final AsyncProductService asyncProductService;
     private final ObjectMapper objectMapper;
+    private final BffSingleFlight bffSingleFlight;
+    private final AdaptiveDeadlines adaptiveDeadlines;
+    private final BffStageTimers stageTimers;
+    private final HotPathLog hotPathLog;
+
+    @Value("${gateway.bff.order-stream.concurrency:8}")
+    private int orderStreamConcurrency;
 
     /**
      * ✅ Get enriched order using async Kafka communication - WITHOUT product enrichment
      */
     public Mono<EnrichedOrderResponse> getEnrichedOrder(String orderId) {
-        String correlationId = UUID.randomUUID().toString();
+        return bffSingleFlight.execute("order", orderId, () -> fetchEnrichedOrder(orderId));
+    }
 
-        log.info("Starting async order request for orderId: {} with correlationId: {}", orderId, correlationId);
+    /**
+     * ✅ Single Kafka round trip to Order-Service - concurrent identical requests share it
+     */
+    private Mono<EnrichedOrderResponse> fetchEnrichedOrder(String orderId) {
+        if (orderId == null || orderId.trim().isEmpty()) {
+            log.error("Invalid orderId provided: {}", orderId);
+            return Mono.just(createEmptyOrderResponse());
+        }
+        return requestOrder(orderId).onErrorReturn(createEmptyOrderResponse());
+    }
+
+    /**
+     * ✅ The Kafka round trip itself - errors are passed on, callers decide how to degrade
+     */
+    private Mono<EnrichedOrderResponse> requestOrder(String orderId) {
+        String correlationId = UUID.randomUUID().toString();
 
         try {
-            if (orderId == null || orderId.trim().isEmpty()) {
-                log.error("Invalid orderId provided: {}", orderId);
-                return Mono.just(createEmptyOrderResponse());
-            }
 
             // Create order request
             Map<String, Object> orderRequest = new HashMap<>();
@@ -50,33 +72,31 @@ public class AsyncOrderBffService {
             orderRequest.put("orderId", orderId);
             orderRequest.put("timestamp", System.currentTimeMillis());
 
-            log.info("🔍 SERVICE: Sending order request to Kafka: {}", orderRequest);
-
-            // Send request to order service
-            gatewayKafkaTemplate.send("order.request", correlationId, orderRequest);
-
-            // Wait for response with timeout
-            Duration timeout = Duration.ofSeconds(30);
-
-            return asyncResponseManager.waitForResponse(
-                            correlationId,
-                            timeout,
-                            EnrichedOrderResponse.class
-                    )
-                    .doOnSuccess(response -> {
-                        log.info("🔍 SERVICE: Successfully received async order response for correlationId: {} with {} items",
-                                correlationId, response.getItems().size());
-                        log.info("🔍 SERVICE: Order response details - id: {}, userId: {}, status: {}, totalAmount: {}",
-                                response.getId(), response.getUserId(), response.getStatus(), response.getTotalAmount());
+            hotPathLog.verbose(log, "order.payload", correlationId,
+                    "🔍 SERVICE: Sending order request to Kafka: {}", () -> orderRequest);
+
+            // Send request to order service and wait under the adaptive order deadline
+            return adaptiveDeadlines.call("order", timeout -> {
+                        Mono<EnrichedOrderResponse> reply = asyncResponseManager.register(
+                                correlationId,
+                                timeout,
+                                EnrichedOrderResponse.class
+                        );
+                        stageTimers.timeSend("order", gatewayKafkaTemplate.send(RequestDeadline.request(
+                                KafkaTopics.ORDER_REQUEST, correlationId, orderRequest, timeout)));
+                        return stageTimers.time("order", BffStageTimers.REPLY_WAIT, reply);
                     })
+                    .doOnSuccess(response -> hotPathLog.summary(log, "order",
+                            "🔍 SERVICE: Order response details - id: {}, userId: {}, status: {}, totalAmount: {}, items: {}",
+                            response::getId, response::getUserId, response::getStatus, response::getTotalAmount,
+                            () -> response.getItems().size()))
                     .doOnError(error -> {
                         log.error("Failed to get async order response for correlationId: {}", correlationId, error);
-                    })
-                    .onErrorReturn(createEmptyOrderResponse());
+                    });
 
         } catch (Exception e) {
             log.error("Error initiating async order request for orderId: {}", orderId, e);
-            return Mono.just(createEmptyOrderResponse());
+            return Mono.error(e);
         }
     }
 
@@ -84,16 +104,23 @@ public class AsyncOrderBffService {
      * ✅ Get enriched order WITH product enrichment
      */
     public Mono<EnrichedOrderResponse> getEnrichedOrderWithProducts(String orderId) {
-        log.info("🔍 SERVICE: Starting enriched order with products for orderId: {}", orderId);
+        return withProducts(getEnrichedOrder(orderId));
+    }
+
+    private Mono<EnrichedOrderResponse> withProducts(Mono<EnrichedOrderResponse> order) {
+        // ✅ One sampling decision for the whole enrichment so a sampled request logs completely
+        boolean sampled = hotPathLog.sampled("order.payload", null);
 
-        return getEnrichedOrder(orderId)
+        return order
                 .flatMap(orderResponse -> {
-                    log.info("🔍 SERVICE: Received order response before product enrichment:");
-                    log.info("   - Order ID: {}", orderResponse.getId());
-                    log.info("   - User ID: {}", orderResponse.getUserId());
-                    log.info("   - Status: {}", orderResponse.getStatus());
-                    log.info("   - Total Amount: {}", orderResponse.getTotalAmount());
-                    log.info("   - Item Count: {}", orderResponse.getItems().size());
+                    if (hotPathLog.isVerbose(log, "order.payload", sampled)) {
+                        log.info("🔍 SERVICE: Received order response before product enrichment:");
+                        log.info("   - Order ID: {}", orderResponse.getId());
+                        log.info("   - User ID: {}", orderResponse.getUserId());
+                        log.info("   - Status: {}", orderResponse.getStatus());
+                        log.info("   - Total Amount: {}", orderResponse.getTotalAmount());
+                        log.info("   - Item Count: {}", orderResponse.getItems().size());
+                    }
 
                     if (!orderResponse.getItems().isEmpty()) {
                         // Extract product IDs from order items
@@ -103,44 +130,44 @@ public class AsyncOrderBffService {
                                 .collect(Collectors.toList());
 
                         if (!productIds.isEmpty()) {
-                            log.info("🔍 SERVICE: Enriching {} order items with product data", productIds.size());
-                            log.info("🔍 SERVICE: Product IDs to fetch: {}", productIds);
+                            if (hotPathLog.isVerbose(log, "order.payload", sampled)) {
+                                log.info("🔍 SERVICE: Enriching {} order items with product data", productIds.size());
+                                log.info("🔍 SERVICE: Product IDs to fetch: {}", productIds);
+                            }
 
                             // Use the existing AsyncProductService to get product details
-                            return asyncProductService.getProductsBatch(productIds)
+                            return stageTimers.time("order", BffStageTimers.PRODUCT_BATCH,
+                                            asyncProductService.getProductsBatch(productIds))
                                     .map(productResponse -> {
-                                        log.info("🔍 SERVICE: Received product response");
-                                        log.info("🔍 SERVICE: Response type: {}", productResponse.getClass().getSimpleName());
-
                                         // AsyncProductService returns List<EnrichedCartItemDTO>
                                         List<EnrichedCartItemDTO> productItems = productResponse;
 
-                                        log.info("🔍 SERVICE: Successfully received {} product items", productItems.size());
-
-                                        // Log the product details we received
-                                        for (EnrichedCartItemDTO product : productItems) {
-                                            log.info("🔍 SERVICE: Product: id={}, name={}, status={}, inStock={}, availableQuantity={}",
-                                                    product.getProductId(), product.getProductName(),
-                                                    product.getProductStatus(), product.getInStock(), product.getAvailableQuantity());
+                                        // Log the product details we received - sampled traces only
+                                        if (hotPathLog.isVerbose(log, "order.payload", sampled)) {
+                                            log.info("🔍 SERVICE: Successfully received {} product items", productItems.size());
+                                            for (EnrichedCartItemDTO product : productItems) {
+                                                log.info("🔍 SERVICE: Product: id={}, name={}, status={}, inStock={}, availableQuantity={}",
+                                                        product.getProductId(), product.getProductName(),
+                                                        product.getProductStatus(), product.getInStock(), product.getAvailableQuantity());
+                                            }
                                         }
 
                                         // Merge order items with product details
-                                        return mergeOrderWithProductItems(orderResponse, productItems);
-                                    })
-                                    .doOnSuccess(enrichedOrder -> {
-                                        log.info("🔍 SERVICE: Successfully enriched order with product details");
-                                        log.info("🔍 SERVICE: Final enriched order - id: {}, userId: {}, status: {}, totalAmount: {}",
-                                                enrichedOrder.getId(), enrichedOrder.getUserId(),
-                                                enrichedOrder.getStatus(), enrichedOrder.getTotalAmount());
+                                        return stageTimers.time("order", BffStageTimers.MERGE,
+                                                () -> mergeOrderWithProductItems(orderResponse, productItems));
                                     })
+                                    .doOnSuccess(enrichedOrder -> hotPathLog.summary(log, "order",
+                                            "🔍 SERVICE: Final enriched order - id: {}, userId: {}, status: {}, totalAmount: {}",
+                                            enrichedOrder::getId, enrichedOrder::getUserId,
+                                            enrichedOrder::getStatus, enrichedOrder::getTotalAmount))
                                     .onErrorResume(error -> {
                                         log.error("🔍 SERVICE: Error enriching order with products", error);
-                                        return Mono.just(orderResponse); // Return order without enrichment on error
+                                        // Return order without enrichment on error - a copy, the single-flight shares orderResponse
+                                        return Mono.just(orderResponse.toBuilder().degraded(true).build());
                                     });
                         }
                     }
 
-                    log.info("🔍 SERVICE: Order has no items to enrich, returning basic order data");
                     return Mono.just(orderResponse);
                 });
     }
@@ -152,8 +179,12 @@ public class AsyncOrderBffService {
             EnrichedOrderResponse orderResponse,
             List<EnrichedCartItemDTO> productItems) {
 
-        log.info("🔍 SERVICE: Merging order with {} order items and {} product items",
-                orderResponse.getItems().size(), productItems.size());
+        // ✅ Per-item lines only for sampled merges
+        boolean verbose = hotPathLog.isVerbose(log, "order.merge", (String) null);
+        if (verbose) {
+            log.info("🔍 SERVICE: Merging order with {} order items and {} product items",
+                    orderResponse.getItems().size(), productItems.size());
+        }
 
         // Create a map of productId -> product details for quick lookup
         Map<UUID, EnrichedCartItemDTO> productMap = productItems.stream()
@@ -163,16 +194,12 @@ public class AsyncOrderBffService {
                         (existing, replacement) -> existing // Handle duplicates
                 ));
 
-        log.info("🔍 SERVICE: Created product map with {} entries", productMap.size());
-
         // Enrich order items with product details
         List<EnrichedOrderItemDTO> enrichedItems = orderResponse.getItems().stream()
                 .map(orderItem -> {
                     EnrichedCartItemDTO productDetail = productMap.get(orderItem.getProductId());
 
                     if (productDetail != null) {
-                        log.info("🔍 SERVICE: Enriching order item {} with product details", orderItem.getProductId());
-
                         // Merge order item data with product details
                         EnrichedOrderItemDTO enrichedItem = EnrichedOrderItemDTO.builder()
                                 // Preserve all order-specific data
@@ -193,9 +220,11 @@ public class AsyncOrderBffService {
                                 .discountValue(productDetail.getDiscountValue())
                                 .build();
 
-                        log.info("🔍 SERVICE: Enriched order item - productId={}, name={}, quantity={}, total={}",
-                                enrichedItem.getProductId(), enrichedItem.getProductName(),
-                                enrichedItem.getQuantity(), enrichedItem.getTotal());
+                        if (verbose) {
+                            log.info("🔍 SERVICE: Enriched order item - productId={}, name={}, quantity={}, total={}",
+                                    enrichedItem.getProductId(), enrichedItem.getProductName(),
+                                    enrichedItem.getQuantity(), enrichedItem.getTotal());
+                        }
 
                         return enrichedItem;
                     } else {
@@ -223,8 +252,6 @@ public class AsyncOrderBffService {
                 })
                 .collect(Collectors.toList());
 
-        log.info("🔍 SERVICE: Successfully enriched {} items", enrichedItems.size());
-
         // Preserve all original order data, only update items and timestamp
         EnrichedOrderResponse result = EnrichedOrderResponse.builder()
                 // Preserve all original order fields
@@ -237,17 +264,19 @@ public class AsyncOrderBffService {
                 .shippingCost(orderResponse.getShippingCost())
                 .discount(orderResponse.getDiscount())
                 .createdAt(orderResponse.getCreatedAt())
+                .updatedAt(orderResponse.getUpdatedAt())
                 .billingAddressId(orderResponse.getBillingAddressId())
                 .shippingAddressId(orderResponse.getShippingAddressId())
 
                 // Update only enriched data
                 .items(enrichedItems)
-                .updatedAt(LocalDateTime.now())
                 .build();
 
-        log.info("🔍 SERVICE: Final merged order result - id: {}, userId: {}, status: {}, totalAmount: {}, itemCount: {}",
-                result.getId(), result.getUserId(), result.getStatus(),
-                result.getTotalAmount(), result.getItems().size());
+        if (verbose) {
+            log.info("🔍 SERVICE: Final merged order result - id: {}, userId: {}, status: {}, totalAmount: {}, itemCount: {}",
+                    result.getId(), result.getUserId(), result.getStatus(),
+                    result.getTotalAmount(), result.getItems().size());
+        }
 
         return result;
     }
@@ -272,6 +301,7 @@ public class AsyncOrderBffService {
                 .updatedAt(LocalDateTime.now())
                 .billingAddressId(null)
                 .shippingAddressId(null)
+                .degraded(true)
                 .build();
     }
 
@@ -401,6 +431,34 @@ public class AsyncOrderBffService {
                 });
     }
 
+    /**
+     * ✅ STREAMING: Emit each order as soon as it (and its products) is ready, at most
+     * orderStreamConcurrency orders in flight. Concurrent per-order product lookups are still
+     * merged into shared batches by AsyncProductService. An order that can't be loaded ends the
+     * stream with its error rather than silently dropping out of it.
+     */
+    public Flux<EnrichedOrderResponse> streamEnrichedOrders(List<String> orderIds, boolean includeProducts) {
+        if (orderIds == null || orderIds.isEmpty()) {
+            return Flux.empty();
+        }
+
+        log.info("🔍 SERVICE: Streaming {} orders with includeProducts: {}, concurrency: {}",
+                orderIds.size(), includeProducts, orderStreamConcurrency);
+
+        return Flux.fromIterable(new LinkedHashSet<>(orderIds))
+                .flatMap(orderId -> streamedOrder(orderId, includeProducts), Math.max(1, orderStreamConcurrency));
+    }
+
+    private Mono<EnrichedOrderResponse> streamedOrder(String orderId, boolean includeProducts) {
+        if (orderId == null || orderId.trim().isEmpty()) {
+            return Mono.error(new IllegalArgumentException("Invalid orderId in stream: " + orderId));
+        }
+        Mono<EnrichedOrderResponse> order = requestOrder(orderId);
+        return (includeProducts ? withProducts(order) : order)
+                .doOnError(error -> log.warn("Ending order stream, order {} could not be loaded: {}",
+                        orderId, error.getMessage()));
+    }
+
     /**
      * ✅ Get basic order without product enrichment (for batch processing)
      */
@@ -416,7 +474,7 @@ public class AsyncOrderBffService {
     /**
      * ✅ Enrich single order with pre-fetched product data
      */
-    private EnrichedOrderResponse enrichOrderWithProducts(
+    EnrichedOrderResponse enrichOrderWithProducts(
             EnrichedOrderResponse order,
             Map<UUID, EnrichedCartItemDTO> productMap) {
 
@@ -472,12 +530,12 @@ public class AsyncOrderBffService {
                 .shippingCost(order.getShippingCost())
                 .discount(order.getDiscount())
                 .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
                 .billingAddressId(order.getBillingAddressId())
                 .shippingAddressId(order.getShippingAddressId())
 
                 // Update with enriched items
                 .items(enrichedItems)
-                .updatedAt(LocalDateTime.now())
                 .build();
     }
 
@@ -510,14 +568,16 @@ public class AsyncOrderBffService {
             idsRequest.put("status", status);
             idsRequest.put("limit", limit);
 
-            log.info("🔍 SERVICE: Sending order IDs request to Kafka: {}", idsRequest);
+            hotPathLog.verbose(log, "order.payload", correlationId,
+                    "🔍 SERVICE: Sending order IDs request to Kafka: {}", () -> idsRequest);
 
             // Send to dedicated IDs endpoint
-            gatewayKafkaTemplate.send("order.ids.request", correlationId, idsRequest);
-
-            Duration timeout = Duration.ofSeconds(15);
-
-            return asyncResponseManager.waitForResponse(correlationId, timeout, List.class)
+            return adaptiveDeadlines.call("order-ids", timeout -> {
+                        Mono<List> reply = asyncResponseManager.register(correlationId, timeout, List.class);
+                        stageTimers.timeSend("order-ids", gatewayKafkaTemplate.send(RequestDeadline.request(
+                                KafkaTopics.ORDER_IDS_REQUEST, correlationId, idsRequest, timeout)));
+                        return stageTimers.time("order-ids", BffStageTimers.REPLY_WAIT, reply);
+                    })
                     .map(response -> {
                         // The response should be a List<String> directly since handleOrderIdsResponse
                         // already extracts the order IDs from the response map
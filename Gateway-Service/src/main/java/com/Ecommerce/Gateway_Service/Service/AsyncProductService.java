@@ -6,13 +6,18 @@ import com.Ecommerce.Gateway_Service.Kafka.DTOs.ProductBatchResponseDTO;
 import com.Ecommerce.Gateway_Service.DTOs.Product.ProductBatchInfoDTO;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
 import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -24,9 +29,42 @@ public class AsyncProductService {
 
     private final KafkaTemplate<String, Object> gatewayKafkaTemplate;
     private final AsyncResponseManager asyncResponseManager;
+    private final MeterRegistry meterRegistry;
+    private final ProductNearCache productNearCache;
+    private final AdaptiveDeadlines adaptiveDeadlines;
+    private final BffStageTimers stageTimers;
+    private final HotPathLog hotPathLog;
+
+    @Value("${gateway.bff.product-batch.coalescing.enabled:true}")
+    private boolean coalescingEnabled;
+
+    @Value("${gateway.bff.product-batch.coalescing.window-ms:10}")
+    private long coalescingWindowMs;
+
+    @Value("${gateway.bff.product-batch.coalescing.max-batch-size:200}")
+    private int coalescingMaxBatchSize;
+
+    private ProductRequestCoalescer coalescer;
+
+    @PostConstruct
+    void initCoalescer() {
+        if (coalescingEnabled) {
+            coalescer = new ProductRequestCoalescer(
+                    Duration.ofMillis(coalescingWindowMs),
+                    coalescingMaxBatchSize,
+                    this::fetchProductsBatch,
+                    meterRegistry);
+            log.info("Product batch coalescing enabled - window: {}ms, max batch size: {}",
+                    coalescingWindowMs, coalescingMaxBatchSize);
+        }
+    }
 
     /**
-     * ✅ Fetch product details for multiple product IDs using async Kafka communication
+     * ✅ Fetch product details for multiple product IDs using async Kafka communication.
+     * Cached products are served from the near-cache; only misses go to Product-Service,
+     * and concurrent misses are coalesced into one deduplicated batch per window.
+     * A failed batch is an error rather than an empty list, so callers can tell missing products
+     * from an unreachable Product-Service.
      */
     public Mono<List<EnrichedCartItemDTO>> getProductsBatch(List<UUID> productIds) {
         if (productIds == null || productIds.isEmpty()) {
@@ -34,9 +72,47 @@ public class AsyncProductService {
             return Mono.just(List.of());
         }
 
+        if (!productNearCache.isEnabled()) {
+            return loadProducts(productIds);
+        }
+
+        return productNearCache.lookup(productIds)
+                .flatMap(lookup -> {
+                    if (lookup.missing().isEmpty()) {
+                        log.debug("All {} products served from near-cache", lookup.cached().size());
+                        return Mono.just(lookup.cached());
+                    }
+
+                    return loadProducts(lookup.missing())
+                            .map(fetched -> {
+                                productNearCache.store(fetched, lookup.sequence());
+                                if (lookup.cached().isEmpty()) {
+                                    return fetched;
+                                }
+                                List<EnrichedCartItemDTO> combined = new ArrayList<>(lookup.cached());
+                                combined.addAll(fetched);
+                                return combined;
+                            });
+                });
+    }
+
+    /**
+     * ✅ Load products from Product-Service, through the coalescer when enabled
+     */
+    private Mono<List<EnrichedCartItemDTO>> loadProducts(List<UUID> productIds) {
+        if (coalescer != null) {
+            return coalescer.getProducts(productIds);
+        }
+        return fetchProductsBatch(productIds);
+    }
+
+    /**
+     * ✅ Send a single product batch request over Kafka and wait for the reply
+     */
+    private Mono<List<EnrichedCartItemDTO>> fetchProductsBatch(List<UUID> productIds) {
         String correlationId = UUID.randomUUID().toString();
 
-        log.info("Starting async product batch request for {} products with correlationId: {}",
+        log.debug("Starting async product batch request for {} products with correlationId: {}",
                 productIds.size(), correlationId);
 
         try {
@@ -47,41 +123,40 @@ public class AsyncProductService {
                     .timestamp(System.currentTimeMillis())
                     .build();
 
-            log.info("Sending product batch request to Kafka topic '{}': {}",
-                    KafkaTopics.PRODUCT_BATCH_REQUEST, productRequest);
-
-            // Send request to product service
-            gatewayKafkaTemplate.send(KafkaTopics.PRODUCT_BATCH_REQUEST, correlationId, productRequest)
-                    .whenComplete((result, ex) -> {
-                        if (ex != null) {
-                            log.error("Failed to send product request to Kafka", ex);
-                        } else {
-                            log.info("Successfully sent product request to Kafka: {}", result.getRecordMetadata());
-                        }
-                    });
-
-            // Wait for response with timeout
-            Duration timeout = Duration.ofSeconds(30);
-
-            return asyncResponseManager.waitForResponse(  // ✅ Updated method name
-                            correlationId,
-                            timeout,
-                            ProductBatchResponseDTO.class
-                    )
-                    .map(this::convertToEnrichedCartItems)
-                    .doOnSuccess(response -> {
-                        log.info("Successfully received async product batch response for correlationId: {} with {} products",
-                                correlationId, response.size());
+            hotPathLog.verbose(log, "product.payload", correlationId,
+                    "Sending product batch request to Kafka topic '{}': {}",
+                    () -> KafkaTopics.PRODUCT_BATCH_REQUEST, () -> productRequest);
+
+            // Send request to product service and wait under the adaptive product-batch deadline
+            return adaptiveDeadlines.call("product-batch", timeout -> {
+                        Mono<ProductBatchResponseDTO> reply = asyncResponseManager.register(
+                                correlationId,
+                                timeout,
+                                ProductBatchResponseDTO.class
+                        );
+                        stageTimers.timeSend("product-batch", gatewayKafkaTemplate.send(RequestDeadline.request(
+                                        KafkaTopics.PRODUCT_BATCH_REQUEST, correlationId, productRequest, timeout))
+                                .whenComplete((result, ex) -> {
+                                    if (ex != null) {
+                                        log.error("Failed to send product request to Kafka", ex);
+                                    } else {
+                                        log.debug("Successfully sent product request to Kafka: {}", result.getRecordMetadata());
+                                    }
+                                }));
+                        return stageTimers.time("product-batch", BffStageTimers.REPLY_WAIT, reply);
                     })
+                    .map(this::convertToEnrichedCartItems)
+                    .doOnSuccess(response -> hotPathLog.summary(log, "product",
+                            "Received async product batch response for correlationId: {} with {} products",
+                            () -> correlationId, response::size))
                     .doOnError(error -> {
                         log.error("Failed to get async product batch response for correlationId: {}",
                                 correlationId, error);
-                    })
-                    .onErrorReturn(List.of()); // ✅ Return empty list on error
+                    });
 
         } catch (Exception e) {
             log.error("Error initiating async product batch request for products: {}", productIds, e);
-            return Mono.just(List.of());
+            return Mono.error(e);
         }
     }
 
@@ -90,8 +165,8 @@ public class AsyncProductService {
      */
     private List<EnrichedCartItemDTO> convertToEnrichedCartItems(ProductBatchResponseDTO response) {
         if (response == null || !response.isSuccess() || response.getProducts() == null) {
-            log.warn("Invalid or unsuccessful product batch response: {}", response);
-            return List.of();
+            throw new IllegalStateException("Unsuccessful product batch response: "
+                    + (response != null ? response.getMessage() : "no response"));
         }
 
         return response.getProducts().stream()
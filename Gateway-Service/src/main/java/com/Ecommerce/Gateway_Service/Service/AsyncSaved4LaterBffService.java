@@ -8,6 +8,7 @@ import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.SavedItemDTO;
 import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.SavedItemsResponseDTO;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
 import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -15,7 +16,6 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -29,6 +29,8 @@ public class AsyncSaved4LaterBffService {
     private final AsyncResponseManager asyncResponseManager;
     private final AsyncProductService asyncProductService;
     private final ObjectMapper objectMapper;
+    private final AdaptiveDeadlines adaptiveDeadlines;
+    private final BffStageTimers stageTimers;
 
     /**
      * ✅ Get saved items using async Kafka communication - WITHOUT product enrichment
@@ -52,17 +54,17 @@ public class AsyncSaved4LaterBffService {
 
             log.info("🔍 SERVICE: Sending saved4later request to Kafka: {}", saved4laterRequest);
 
-            // Send request to cart service (saved4later endpoints)
-            gatewayKafkaTemplate.send(KafkaTopics.SAVED4LATER_REQUEST, correlationId, saved4laterRequest);
-
-            // Wait for response with timeout
-            Duration timeout = Duration.ofSeconds(30);
-
-            return asyncResponseManager.waitForResponse(
-                            correlationId,
-                            timeout,
-                            SavedItemsResponseDTO.class
-                    )
+            // Send request to cart service (saved4later endpoints) and wait under the adaptive deadline
+            return adaptiveDeadlines.call("saved4later", timeout -> {
+                        Mono<SavedItemsResponseDTO> reply = asyncResponseManager.register(
+                                correlationId,
+                                timeout,
+                                SavedItemsResponseDTO.class
+                        );
+                        stageTimers.timeSend("saved4later", gatewayKafkaTemplate.send(RequestDeadline.request(
+                                KafkaTopics.SAVED4LATER_REQUEST, correlationId, saved4laterRequest, timeout)));
+                        return stageTimers.time("saved4later", BffStageTimers.REPLY_WAIT, reply);
+                    })
                     .doOnSuccess(response -> {
                         log.info("🔍 SERVICE: Successfully received async saved4later response for correlationId: {} with {} items",
                                 correlationId, response.getItemCount());
@@ -104,7 +106,8 @@ public class AsyncSaved4LaterBffService {
                             log.info("🔍 SERVICE: Enriching {} saved items with product data", productIds.size());
                             log.info("🔍 SERVICE: Product IDs to fetch: {}", productIds);
 
-                            return asyncProductService.getProductsBatch(productIds)
+                            return stageTimers.time("saved4later", BffStageTimers.PRODUCT_BATCH,
+                                            asyncProductService.getProductsBatch(productIds))
                                     .map(productResponse -> {
                                         log.info("🔍 SERVICE: Received product response");
                                         log.info("🔍 SERVICE: Response type: {}", productResponse.getClass().getSimpleName());
@@ -121,7 +124,8 @@ public class AsyncSaved4LaterBffService {
                                                     product.getProductStatus(), product.getInStock(), product.getAvailableQuantity());
                                         }
 
-                                        return mergeSavedItemsWithProductItems(savedItemsResponse, productItems);
+                                        return stageTimers.time("saved4later", BffStageTimers.MERGE,
+                                                () -> mergeSavedItemsWithProductItems(savedItemsResponse, productItems));
                                     })
                                     .doOnSuccess(enrichedSavedItems -> {
                                         log.info("🔍 SERVICE: Successfully enriched saved4later with product details");
@@ -144,7 +148,7 @@ public class AsyncSaved4LaterBffService {
     /**
      * ✅ Enhanced merge method for saved items with product details
      */
-    private EnrichedSavedItemsResponse mergeSavedItemsWithProductItems(
+    EnrichedSavedItemsResponse mergeSavedItemsWithProductItems(
             SavedItemsResponseDTO savedItemsResponse,
             List<EnrichedCartItemDTO> productItems) {
 
@@ -237,7 +241,7 @@ public class AsyncSaved4LaterBffService {
     /**
      * ✅ Create enriched response from basic response (when no products to enrich)
      */
-    private EnrichedSavedItemsResponse createEnrichedResponseFromBasic(SavedItemsResponseDTO basicResponse) {
+    EnrichedSavedItemsResponse createEnrichedResponseFromBasic(SavedItemsResponseDTO basicResponse) {
         // Convert basic saved items to enriched items without product data
         List<EnrichedSavedItemDTO> enrichedItems = basicResponse.getItems().stream()
                 .map(savedItem -> EnrichedSavedItemDTO.builder()
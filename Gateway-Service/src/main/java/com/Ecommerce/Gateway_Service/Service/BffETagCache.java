@@ -0,0 +1,316 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Strong ETags for the enriched cart and order endpoints, plus the last ETag served per resource so a
+ * matching If-None-Match can be answered with 304 without the Kafka fan-out.
+ *
+ * Carts are versioned by updatedAt, orders by status and updatedAt; enriched responses also fold in the
+ * product near-cache generation. A remembered ETag only short-circuits while no cart/order event has
+ * touched the resource and, for product-enriched responses, no product event has bumped the generation.
+ * Cart events reach the gateway late (they go through Cart-Service's outbox), so a cart mutation
+ * proxied by this gateway invalidates the cart too. Cart item events only name the cart, so the owner
+ * of every cart an ETag was produced for is remembered alongside it. The TTL is only a safety net for
+ * missed events.
+ */
+@Component
+@Slf4j
+public class BffETagCache {
+
+    /** Per-user data: clients may keep it but must revalidate, shared caches must not store it */
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+    /** Fallback content: nothing may keep it, so the next request goes downstream again */
+    private static final CacheControl NO_STORE = CacheControl.noStore();
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ProductNearCache productNearCache;
+    private final LongSupplier clock;
+
+    private final Map<String, Entry> entries;
+    /** Cart id to cart key, for events that only carry the cart id */
+    private final Map<String, String> cartOwners;
+    /** Bumped on every invalidation; the resource keeps a tombstone so fetches that raced it don't remember a stale ETag */
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    private final Counter shortCircuits;
+    private final Counter notModifiedAfterFetch;
+    private final Counter invalidations;
+
+    @Autowired
+    public BffETagCache(@Value("${gateway.bff.conditional.enabled:true}") boolean enabled,
+                        @Value("${gateway.bff.conditional.max-entries:50000}") int maxEntries,
+                        @Value("${gateway.bff.conditional.ttl-seconds:60}") long ttlSeconds,
+                        ProductNearCache productNearCache,
+                        MeterRegistry meterRegistry) {
+        this(enabled, maxEntries, Duration.ofSeconds(ttlSeconds), productNearCache, meterRegistry,
+                System::currentTimeMillis);
+    }
+
+    BffETagCache(boolean enabled,
+                 int maxEntries,
+                 Duration ttl,
+                 ProductNearCache productNearCache,
+                 MeterRegistry meterRegistry,
+                 LongSupplier clock) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.productNearCache = productNearCache;
+        this.clock = clock;
+
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > BffETagCache.this.maxEntries;
+            }
+        };
+        this.cartOwners = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > BffETagCache.this.maxEntries;
+            }
+        };
+
+        this.shortCircuits = Counter.builder("gateway.bff.conditional.not.modified")
+                .tag("path", "short-circuit")
+                .description("304s answered from a remembered ETag without calling downstream services")
+                .register(meterRegistry);
+        this.notModifiedAfterFetch = Counter.builder("gateway.bff.conditional.not.modified")
+                .tag("path", "after-fetch")
+                .description("304s answered after a full fetch produced the ETag the client already had")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("gateway.bff.conditional.invalidations")
+                .description("Remembered ETags dropped because of a cart or order event")
+                .register(meterRegistry);
+        Gauge.builder("gateway.bff.conditional.size", this, BffETagCache::size)
+                .description("Resources with a remembered ETag")
+                .register(meterRegistry);
+    }
+
+    // Path IDs may differ in case from the UUIDs in events
+    public static String cartKey(String userId) {
+        return "cart:" + userId.toLowerCase(Locale.ROOT);
+    }
+
+    public static String orderKey(String orderId, boolean includeProducts) {
+        return "order:" + orderId.toLowerCase(Locale.ROOT) + (includeProducts ? ":products" : ":basic");
+    }
+
+    /**
+     * ✅ Snapshot taken before the downstream fetch, so {@link #remember} can tell if it raced an event
+     */
+    public Validation begin(String key, boolean productEnriched) {
+        return new Validation(key, productEnriched, invalidationSequence.get(), productGeneration());
+    }
+
+    /**
+     * ✅ The remembered ETag, if it matches If-None-Match and nothing has changed since it was produced
+     */
+    public Optional<String> notModified(String key, String ifNoneMatch) {
+        if (!enabled || ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return Optional.empty();
+        }
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.storedAt() > ttlMillis) {
+                entries.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null || entry.eTag() == null
+                || (entry.productEnriched() && entry.productGeneration() != productGeneration())
+                || !matches(ifNoneMatch, entry.eTag())) {
+            return Optional.empty();
+        }
+
+        shortCircuits.increment();
+        return Optional.of(entry.eTag());
+    }
+
+    /**
+     * ✅ ETag for a freshly fetched cart; null when its freshness can't be tracked
+     */
+    public String cartETag(EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart, Validation validation) {
+        if (enabled && cart.getId() != null) {
+            synchronized (entries) {
+                cartOwners.put(cart.getId().toString().toLowerCase(Locale.ROOT), validation.key());
+            }
+        }
+        Object version = cart.getUpdatedAt() != null ? cart.getUpdatedAt() : cart.getCreatedAt();
+        return eTag(validation, "cart", cart.getId(), version, cart.getItemCount(), cart.getTotal());
+    }
+
+    /**
+     * ✅ ETag for a freshly fetched order; null when its freshness can't be tracked
+     */
+    public String orderETag(EnrichedOrderResponse order, Validation validation) {
+        return eTag(validation, "order", order.getId(), order.getStatus(), order.getUpdatedAt());
+    }
+
+    /**
+     * ✅ Remember the ETag just served, unless a cart/order event arrived while it was being fetched
+     */
+    public void remember(Validation validation, String eTag) {
+        if (!enabled || eTag == null) {
+            return;
+        }
+        synchronized (entries) {
+            Entry current = entries.get(validation.key());
+            if (current != null && current.sequence() > validation.sequence()) {
+                return;
+            }
+            entries.put(validation.key(), new Entry(eTag, validation.productEnriched(),
+                    validation.productGeneration(), validation.sequence(), clock.getAsLong()));
+        }
+    }
+
+    /**
+     * ✅ 304 for a short-circuited request
+     */
+    public <T> ResponseEntity<T> notModifiedResponse(String eTag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .build();
+    }
+
+    /**
+     * ✅ 200 carrying the ETag - WebFlux turns it into a 304 by itself when it matches If-None-Match
+     */
+    public <T> ResponseEntity<T> okWithETag(T body, String eTag, String ifNoneMatch) {
+        if (eTag == null) {
+            return ResponseEntity.ok(body);
+        }
+        if (ifNoneMatch != null && matches(ifNoneMatch, eTag)) {
+            notModifiedAfterFetch.increment();
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag)
+                .cacheControl(REVALIDATE)
+                .body(body);
+    }
+
+    /**
+     * ✅ 200 for a degraded fallback - no ETag, so it is never remembered or answered with a 304
+     */
+    public <T> ResponseEntity<T> degradedResponse(T body) {
+        return ResponseEntity.ok()
+                .cacheControl(NO_STORE)
+                .body(body);
+    }
+
+    public void invalidate(String... keys) {
+        long sequence = invalidationSequence.incrementAndGet();
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            for (String key : keys) {
+                entries.put(key, new Entry(null, false, 0L, sequence, now));
+            }
+        }
+        invalidations.increment();
+    }
+
+    /**
+     * ✅ Invalidate the cart an item event names by its cart id; nothing was remembered for an unknown cart
+     */
+    public void invalidateCartById(String cartId) {
+        String key;
+        synchronized (entries) {
+            key = cartOwners.get(cartId.toLowerCase(Locale.ROOT));
+        }
+        if (key != null) {
+            invalidate(key);
+        }
+    }
+
+    public void invalidateOrder(String orderId) {
+        invalidate(orderKey(orderId, true), orderKey(orderId, false));
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so W/ prefixes are ignored
+     */
+    static boolean matches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String eTag(Validation validation, String kind, Object... parts) {
+        // Without the near-cache nothing tracks product changes, so enriched data has no version to hash
+        if (!enabled || (validation.productEnriched() && !productNearCache.isEnabled())) {
+            return null;
+        }
+
+        StringBuilder source = new StringBuilder(kind);
+        for (Object part : parts) {
+            source.append('|').append(part);
+        }
+        if (validation.productEnriched()) {
+            source.append("|p").append(validation.productGeneration());
+        }
+
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(source.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private long productGeneration() {
+        return productNearCache.isEnabled() ? productNearCache.generation() : 0L;
+    }
+
+    /** eTag is null for a tombstone left by an invalidation */
+    private record Entry(String eTag, boolean productEnriched, long productGeneration, long sequence, long storedAt) {
+    }
+
+    /**
+     * Resource key plus the invalidation sequence and product generation seen before the fetch
+     */
+    public record Validation(String key, boolean productEnriched, long sequence, long productGeneration) {
+    }
+}
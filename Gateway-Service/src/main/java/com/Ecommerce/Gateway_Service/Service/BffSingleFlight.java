@@ -0,0 +1,80 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for BFF reads: concurrent callers asking for the same (operation, key) share one
+ * in-flight downstream call instead of each doing its own Kafka round trip. The flight is
+ * forgotten as soon as it terminates, so results are never served past the call that produced them.
+ */
+@Component
+@Slf4j
+public class BffSingleFlight {
+
+    private final boolean enabled;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Mono<Object>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, Counter> leaderCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> savedCounters = new ConcurrentHashMap<>();
+
+    public BffSingleFlight(@Value("${gateway.bff.single-flight.enabled:true}") boolean enabled,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("gateway.bff.singleflight.inflight", inFlight, Map::size)
+                .description("Distinct BFF downstream calls currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * ✅ Join the in-flight call for this operation and key, or start it if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> execute(String operation, String key, Supplier<Mono<T>> call) {
+        if (!enabled || key == null) {
+            return Mono.defer(call);
+        }
+
+        return Mono.defer(() -> {
+            String flightKey = operation + ":" + key;
+
+            AtomicReference<Mono<Object>> self = new AtomicReference<>();
+            Mono<Object> flight = Mono.defer(call)
+                    .cast(Object.class)
+                    .doFinally(signal -> inFlight.remove(flightKey, self.get()))
+                    .cache();
+            self.set(flight);
+
+            Mono<Object> existing = inFlight.putIfAbsent(flightKey, flight);
+            if (existing != null) {
+                counter(savedCounters, "gateway.bff.singleflight.saved", operation).increment();
+                log.debug("Joined in-flight {} call for key {}", operation, key);
+                return (Mono<T>) existing;
+            }
+
+            counter(leaderCounters, "gateway.bff.singleflight.calls", operation).increment();
+            return (Mono<T>) flight;
+        });
+    }
+
+    private Counter counter(Map<String, Counter> counters, String name, String operation) {
+        return counters.computeIfAbsent(operation, op -> Counter.builder(name)
+                .tag("operation", op)
+                .description(name.endsWith("saved")
+                        ? "Downstream calls avoided by joining an identical in-flight request"
+                        : "Downstream calls actually issued through single-flight")
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,125 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ✅ Percentile-histogram timers for every hop of a BFF request, so a slow enriched read can be
+ * pinned on one stage (gateway filter, Kafka send, reply wait, downstream queue, downstream
+ * processing, product batch or merge) instead of being guessed from the end-to-end latency.
+ *
+ * <ul>
+ *   <li>{@code gateway.filter.duration{filter}} - time a gateway filter spends before handing
+ *       the exchange on (JWT parsing, rate limit decision)</li>
+ *   <li>{@code gateway.bff.stage.duration{operation,stage}} - one timer per BFF stage</li>
+ * </ul>
+ *
+ * Reply-side stages compare the gateway clock with timestamps written by the downstream
+ * service, so they are only as accurate as the clock sync between hosts.
+ */
+@Component
+public class BffStageTimers {
+
+    public static final String KAFKA_SEND = "kafka.send";
+    public static final String REPLY_WAIT = "reply.wait";
+    public static final String REQUEST_QUEUE = "request.queue";
+    public static final String PROCESSING = "processing";
+    public static final String REPLY_QUEUE = "reply.queue";
+    public static final String PRODUCT_BATCH = "product.batch";
+    public static final String MERGE = "merge";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public BffStageTimers(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * ✅ Time a BFF stage from subscription until it completes, errors or is cancelled
+     */
+    public <T> Mono<T> time(String operation, String stage, Mono<T> source) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return source.doFinally(signal -> record(operation, stage, System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * ✅ Time a synchronous BFF stage such as a merge
+     */
+    public <T> T time(String operation, String stage, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(operation, stage, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * ✅ Kafka send latency - until the broker acknowledged the request record
+     */
+    public void timeSend(String operation, CompletableFuture<?> sendResult) {
+        if (sendResult == null) {
+            return;
+        }
+        long start = System.nanoTime();
+        sendResult.whenComplete((result, error) -> record(operation, KAFKA_SEND, System.nanoTime() - start));
+    }
+
+    /**
+     * ✅ Split a Kafka round trip using the timestamps carried by the reply: the gateway's request
+     * timestamp, when the downstream picked the request up, and when it produced the reply.
+     * Missing (non-positive) timestamps skip the stages that need them.
+     */
+    public void recordReply(String operation, long requestTimestamp, long receivedAt, long replyTimestamp) {
+        long now = System.currentTimeMillis();
+        if (requestTimestamp > 0 && receivedAt >= requestTimestamp) {
+            recordMillis(operation, REQUEST_QUEUE, receivedAt - requestTimestamp);
+        }
+        if (receivedAt > 0 && replyTimestamp >= receivedAt) {
+            recordMillis(operation, PROCESSING, replyTimestamp - receivedAt);
+        }
+        if (replyTimestamp > 0 && now >= replyTimestamp) {
+            recordMillis(operation, REPLY_QUEUE, now - replyTimestamp);
+        }
+    }
+
+    /**
+     * ✅ Record a gateway filter's own time, measured from filter entry to its decision
+     */
+    public void recordFilter(String filter, long startNanos) {
+        timers.computeIfAbsent("filter:" + filter, key -> Timer.builder("gateway.filter.duration")
+                        .description("Time a gateway filter spends before passing the request on")
+                        .tag("filter", filter)
+                        .publishPercentileHistogram()
+                        .register(meterRegistry))
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void recordMillis(String operation, String stage, long millis) {
+        stageTimer(operation, stage).record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    private void record(String operation, String stage, long nanos) {
+        stageTimer(operation, stage).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer stageTimer(String operation, String stage) {
+        return timers.computeIfAbsent(operation + ":" + stage, key -> Timer.builder("gateway.bff.stage.duration")
+                .description("Duration of one stage of a BFF request")
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -64,6 +64,22 @@ public class CartBffService {
                 .onErrorReturn(createEmptyEnrichedCart(userId));
     }
 
+    /**
+     * ✅ Basic cart (no product enrichment) straight from Cart-Service over HTTP - the alternate
+     * transport for hedged cart reads. Errors are propagated, not replaced with an empty cart,
+     * so a failed hedge never wins the race against the Kafka reply.
+     */
+    public Mono<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> getBasicCartOverHttp(String userId) {
+        WebClient webClient = webClientBuilder.baseUrl(cartServiceUrl).build();
+
+        return webClient.get()
+                .uri("/api/carts/{userId}", userId)
+                .retrieve()
+                .bodyToMono(CartServiceResponseDTO.class)
+                .filter(response -> response.isSuccess() && response.getData() != null)
+                .map(response -> toBasicCart(response.getData()));
+    }
+
     private Mono<CartServiceResponseDTO> getCartFromService(String userId) {
         WebClient webClient = webClientBuilder.baseUrl(cartServiceUrl).build();
 
@@ -125,6 +141,31 @@ public class CartBffService {
                 .build();
     }
 
+    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO toBasicCart(ShoppingCartDTO cart) {
+        List<EnrichedCartItemDTO> items = cart.getItems() == null ? List.of() : cart.getItems().stream()
+                .map(cartItem -> EnrichedCartItemDTO.builder()
+                        .id(cartItem.getId())
+                        .productId(cartItem.getProductId())
+                        .quantity(cartItem.getQuantity())
+                        .price(cartItem.getPrice())
+                        .subtotal(cartItem.getSubtotal())
+                        .addedAt(cartItem.getAddedAt())
+                        .build())
+                .collect(Collectors.toList());
+
+        return EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder()
+                .id(cart.getId())
+                .userId(cart.getUserId())
+                .items(items)
+                .total(cart.getTotal())
+                .itemCount(items.size())
+                .totalQuantity(items.stream().mapToInt(item -> item.getQuantity() == null ? 0 : item.getQuantity()).sum())
+                .createdAt(cart.getCreatedAt())
+                .updatedAt(cart.getUpdatedAt())
+                .expiresAt(cart.getExpiresAt())
+                .build();
+    }
+
     private EnrichedCartItemDTO enrichCartItem(CartItemDTO cartItem, ProductBatchInfoDTO productInfo) {
         EnrichedCartItemDTO.EnrichedCartItemDTOBuilder builder = EnrichedCartItemDTO.builder()
                 .id(cartItem.getId())
@@ -0,0 +1,56 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Drops the remembered enriched-cart ETag of a user whose cart is changed through the cart-service
+ * route, without waiting for Cart-Service's events. Invalidates once the proxied call has finished,
+ * so a read that fetched the cart while the change was in flight is not remembered either.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CartMutationETagFilter implements GatewayFilter {
+
+    private static final String CARTS_PATH = "/api/carts/";
+
+    private final BffETagCache eTagCache;
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HttpMethod method = exchange.getRequest().getMethod();
+        if (HttpMethod.GET.equals(method) || HttpMethod.HEAD.equals(method) || HttpMethod.OPTIONS.equals(method)) {
+            return chain.filter(exchange);
+        }
+        String userId = userId(exchange.getRequest().getPath().value());
+        if (userId == null) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange)
+                .doFinally(signal -> {
+                    log.debug("Invalidating cart ETag for user {} after {} {}", userId, method,
+                            exchange.getRequest().getPath());
+                    eTagCache.invalidate(BffETagCache.cartKey(userId));
+                });
+    }
+
+    /**
+     * The {userId} segment of /api/carts/{userId}/...
+     */
+    static String userId(String path) {
+        if (!path.startsWith(CARTS_PATH)) {
+            return null;
+        }
+        String rest = path.substring(CARTS_PATH.length());
+        int end = rest.indexOf('/');
+        String userId = end < 0 ? rest : rest.substring(0, end);
+        return userId.isEmpty() ? null : userId;
+    }
+}
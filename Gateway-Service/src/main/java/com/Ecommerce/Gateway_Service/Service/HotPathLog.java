@@ -0,0 +1,188 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * ✅ Hot-path logging for the BFF request/reply flow. With the Kafka logback appender every INFO
+ * line costs gateway CPU and Kafka bandwidth, so per-request logs go through here:
+ *
+ * <ul>
+ *   <li>{@link #summary} - one line per request, capped at {@code max-per-second} per category</li>
+ *   <li>{@link #verbose} / {@link #isVerbose} - payload dumps and per-item lines, only for sampled
+ *       traces (and still rate capped)</li>
+ * </ul>
+ *
+ * Arguments are {@link Supplier}s so payload {@code toString()}s are never built for dropped lines.
+ * Sampling is keyed on the correlation id when there is one, so a sampled trace logs completely
+ * on both the request and the reply side. {@code gateway.log.events{category,outcome}} reports
+ * the volume per category. With {@code enabled=false} every line is logged as before.
+ */
+@Component
+public class HotPathLog {
+
+    private final boolean enabled;
+    private final double defaultSampleRate;
+    private final Map<String, Double> sampleRates;
+    private final int maxPerSecond;
+    private final MeterRegistry meterRegistry;
+    private final LongSupplier clock;
+
+    private final Map<String, RateWindow> windows = new ConcurrentHashMap<>();
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public HotPathLog(@Value("${gateway.logging.hot-path.enabled:true}") boolean enabled,
+                      @Value("${gateway.logging.hot-path.sample-rate:0.01}") double defaultSampleRate,
+                      @Value("${gateway.logging.hot-path.sample-rates:}") String sampleRates,
+                      @Value("${gateway.logging.hot-path.max-per-second:50}") int maxPerSecond,
+                      MeterRegistry meterRegistry) {
+        this(enabled, defaultSampleRate, sampleRates, maxPerSecond, meterRegistry, System::currentTimeMillis);
+    }
+
+    HotPathLog(boolean enabled, double defaultSampleRate, String sampleRates, int maxPerSecond,
+               MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = enabled;
+        this.defaultSampleRate = defaultSampleRate;
+        this.sampleRates = parseRates(sampleRates);
+        this.maxPerSecond = maxPerSecond;
+        this.meterRegistry = meterRegistry;
+        this.clock = clock;
+    }
+
+    /**
+     * ✅ Whether the trace identified by {@code traceKey} is sampled for verbose logs in this category.
+     * A null key samples this call on its own.
+     */
+    public boolean sampled(String category, String traceKey) {
+        if (!enabled) {
+            return true;
+        }
+        double rate = sampleRates.getOrDefault(category, defaultSampleRate);
+        if (rate >= 1.0) {
+            return true;
+        }
+        if (rate <= 0.0) {
+            return false;
+        }
+        int bucket = traceKey != null
+                ? Math.floorMod(traceKey.hashCode(), 10_000)
+                : ThreadLocalRandom.current().nextInt(10_000);
+        return bucket < rate * 10_000;
+    }
+
+    /**
+     * ✅ Per-request summary line - always considered, only rate capped
+     */
+    public void summary(Logger log, String category, String format, Supplier<?>... args) {
+        if (!log.isInfoEnabled()) {
+            return;
+        }
+        if (admit(category)) {
+            log.info(format, evaluate(args));
+        }
+    }
+
+    /**
+     * ✅ Verbose line - payloads and per-item details, only for sampled traces
+     */
+    public void verbose(Logger log, String category, String traceKey, String format, Supplier<?>... args) {
+        if (isVerbose(log, category, traceKey)) {
+            log.info(format, evaluate(args));
+        }
+    }
+
+    /**
+     * ✅ Guard for a block of verbose lines (item loops, multi-line dumps) - counts as one event
+     */
+    public boolean isVerbose(Logger log, String category, String traceKey) {
+        return isVerbose(log, category, sampled(category, traceKey));
+    }
+
+    /**
+     * ✅ Same guard when the sampling decision was already taken for this request
+     */
+    public boolean isVerbose(Logger log, String category, boolean sampled) {
+        if (!log.isInfoEnabled()) {
+            return false;
+        }
+        if (!sampled) {
+            count(category, "sampled_out");
+            return false;
+        }
+        return admit(category);
+    }
+
+    private boolean admit(String category) {
+        if (!enabled) {
+            count(category, "emitted");
+            return true;
+        }
+        if (!windows.computeIfAbsent(category, key -> new RateWindow()).tryAcquire(clock.getAsLong() / 1000, maxPerSecond)) {
+            count(category, "rate_limited");
+            return false;
+        }
+        count(category, "emitted");
+        return true;
+    }
+
+    private void count(String category, String outcome) {
+        counters.computeIfAbsent(category + ":" + outcome, key -> Counter.builder("gateway.log.events")
+                        .description("Hot-path log lines by category and outcome")
+                        .tag("category", category)
+                        .tag("outcome", outcome)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private static Object[] evaluate(Supplier<?>[] args) {
+        Object[] values = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = args[i].get();
+        }
+        return values;
+    }
+
+    private static Map<String, Double> parseRates(String rates) {
+        Map<String, Double> parsed = new HashMap<>();
+        if (rates == null || rates.isBlank()) {
+            return parsed;
+        }
+        for (String entry : rates.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length == 2) {
+                parsed.put(parts[0].trim(), Double.parseDouble(parts[1].trim()));
+            }
+        }
+        return parsed;
+    }
+
+    /**
+     * One-second fixed window - cheap and good enough to cap log bursts
+     */
+    private static final class RateWindow {
+        private final AtomicLong second = new AtomicLong(-1);
+        private final AtomicInteger count = new AtomicInteger();
+
+        boolean tryAcquire(long now, int max) {
+            long current = second.get();
+            if (current != now && second.compareAndSet(current, now)) {
+                count.set(0);
+            }
+            return count.incrementAndGet() <= max;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded product near-cache for BFF enrichment. Entries are dropped as soon as Product-Service
+ * publishes a change for the product; the TTL is only a safety net for missed events.
+ * Optionally backed by Redis so replicas share warm entries.
+ */
+@Component
+@Slf4j
+public class ProductNearCache {
+
+    private static final String REDIS_KEY_PREFIX = "gateway:product:";
+
+    @Getter
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final LongSupplier clock;
+
+    private final Map<UUID, CachedProduct> entries;
+    /** Bumped on every invalidation so fetches that started before it don't re-insert stale data */
+    private final AtomicLong invalidationSequence = new AtomicLong();
+
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    private final Counter invalidations;
+    private final Counter skippedStores;
+    private final Timer staleness;
+
+    @Autowired
+    public ProductNearCache(@Value("${gateway.bff.product-cache.enabled:true}") boolean enabled,
+                            @Value("${gateway.bff.product-cache.max-entries:10000}") int maxEntries,
+                            @Value("${gateway.bff.product-cache.ttl-seconds:300}") long ttlSeconds,
+                            @Value("${gateway.bff.product-cache.redis.enabled:false}") boolean redisEnabled,
+                            ObjectProvider<ReactiveRedisTemplate<String, Object>> redisTemplate,
+                            MeterRegistry meterRegistry) {
+        this(enabled, maxEntries, Duration.ofSeconds(ttlSeconds),
+                redisEnabled ? redisTemplate.getIfAvailable() : null,
+                meterRegistry, System::currentTimeMillis);
+    }
+
+    ProductNearCache(boolean enabled,
+                     int maxEntries,
+                     Duration ttl,
+                     ReactiveRedisTemplate<String, Object> redisTemplate,
+                     MeterRegistry meterRegistry,
+                     LongSupplier clock) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttl.toMillis();
+        this.redisTemplate = redisTemplate;
+        this.clock = clock;
+
+        // Access-ordered so the least recently used product is dropped first once the bound is hit
+        this.entries = new LinkedHashMap<>(Math.min(maxEntries, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, CachedProduct> eldest) {
+                return size() > ProductNearCache.this.maxEntries;
+            }
+        };
+
+        this.localHits = Counter.builder("gateway.product.cache.hits")
+                .tag("tier", "local")
+                .description("Product lookups served from the in-process near-cache")
+                .register(meterRegistry);
+        this.redisHits = Counter.builder("gateway.product.cache.hits")
+                .tag("tier", "redis")
+                .description("Product lookups served from the shared Redis tier")
+                .register(meterRegistry);
+        this.misses = Counter.builder("gateway.product.cache.misses")
+                .description("Product lookups that had to go to Product-Service over Kafka")
+                .register(meterRegistry);
+        this.invalidations = Counter.builder("gateway.product.cache.invalidations")
+                .description("Products dropped because of a product or discount event")
+                .register(meterRegistry);
+        this.skippedStores = Counter.builder("gateway.product.cache.stores.skipped")
+                .description("Fetched products not cached because an invalidation raced the fetch")
+                .register(meterRegistry);
+        this.staleness = Timer.builder("gateway.product.cache.staleness")
+                .description("Age of near-cache entries at the time they are served")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Gauge.builder("gateway.product.cache.size", this, ProductNearCache::size)
+                .description("Products currently held in the near-cache")
+                .register(meterRegistry);
+        Gauge.builder("gateway.product.cache.hit.ratio", this, ProductNearCache::hitRatio)
+                .description("Share of product lookups served without a Kafka round trip")
+                .register(meterRegistry);
+
+        if (enabled) {
+            log.info("Product near-cache enabled - max entries: {}, ttl: {}s, redis tier: {}",
+                    maxEntries, ttl.toSeconds(), redisTemplate != null);
+        }
+    }
+
+    /**
+     * ✅ Resolve as many products as possible from the cache tiers; the rest are reported as misses
+     */
+    public Mono<Lookup> lookup(List<UUID> productIds) {
+        long sequence = invalidationSequence.get();
+        long now = clock.getAsLong();
+
+        Map<UUID, EnrichedCartItemDTO> found = new LinkedHashMap<>();
+        List<UUID> missing = new ArrayList<>();
+
+        synchronized (entries) {
+            for (UUID productId : new LinkedHashSet<>(productIds)) {
+                if (productId == null) {
+                    continue;
+                }
+                CachedProduct cached = entries.get(productId);
+                if (cached != null && now - cached.cachedAt() <= ttlMillis) {
+                    found.put(productId, cached.product());
+                    staleness.record(now - cached.cachedAt(), TimeUnit.MILLISECONDS);
+                } else {
+                    if (cached != null) {
+                        entries.remove(productId);
+                    }
+                    missing.add(productId);
+                }
+            }
+        }
+        localHits.increment(found.size());
+
+        if (missing.isEmpty() || redisTemplate == null) {
+            misses.increment(missing.size());
+            return Mono.just(new Lookup(List.copyOf(found.values()), missing, sequence));
+        }
+
+        List<String> keys = missing.stream().map(ProductNearCache::redisKey).toList();
+        return redisTemplate.opsForValue().multiGet(keys)
+                .map(values -> {
+                    List<UUID> stillMissing = new ArrayList<>();
+                    List<EnrichedCartItemDTO> fromRedis = new ArrayList<>();
+                    for (int i = 0; i < missing.size(); i++) {
+                        Object value = i < values.size() ? values.get(i) : null;
+                        if (value instanceof EnrichedCartItemDTO product) {
+                            found.put(missing.get(i), product);
+                            fromRedis.add(product);
+                        } else {
+                            stillMissing.add(missing.get(i));
+                        }
+                    }
+                    redisHits.increment(fromRedis.size());
+                    misses.increment(stillMissing.size());
+                    storeLocal(fromRedis, sequence);
+                    return new Lookup(List.copyOf(found.values()), stillMissing, sequence);
+                })
+                .onErrorResume(error -> {
+                    log.warn("Redis product cache lookup failed, falling back to Kafka: {}", error.getMessage());
+                    misses.increment(missing.size());
+                    return Mono.just(new Lookup(List.copyOf(found.values()), missing, sequence));
+                });
+    }
+
+    /**
+     * ✅ Cache products fetched from Product-Service, unless an invalidation happened while they were in flight
+     */
+    public void store(List<EnrichedCartItemDTO> products, long sequence) {
+        if (products.isEmpty() || !storeLocal(products, sequence)) {
+            return;
+        }
+
+        if (redisTemplate != null) {
+            Duration ttl = Duration.ofMillis(ttlMillis);
+            for (EnrichedCartItemDTO product : products) {
+                if (product.getProductId() != null) {
+                    redisTemplate.opsForValue().set(redisKey(product.getProductId()), product, ttl)
+                            .subscribe(ok -> { }, error ->
+                                    log.warn("Failed to write product {} to Redis cache: {}",
+                                            product.getProductId(), error.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * ✅ Drop a product from every tier - called from the product/discount event listener
+     */
+    public void invalidate(UUID productId) {
+        invalidationSequence.incrementAndGet();
+        synchronized (entries) {
+            entries.remove(productId);
+        }
+        invalidations.increment();
+
+        if (redisTemplate != null) {
+            redisTemplate.delete(redisKey(productId))
+                    .subscribe(deleted -> { }, error ->
+                            log.warn("Failed to evict product {} from Redis cache: {}", productId, error.getMessage()));
+        }
+    }
+
+    /**
+     * ✅ Changes whenever any product is invalidated - lets callers tell that cached enrichment may be stale
+     */
+    public long generation() {
+        return invalidationSequence.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private boolean storeLocal(List<EnrichedCartItemDTO> products, long sequence) {
+        if (invalidationSequence.get() != sequence) {
+            skippedStores.increment(products.size());
+            return false;
+        }
+
+        long now = clock.getAsLong();
+        synchronized (entries) {
+            for (EnrichedCartItemDTO product : products) {
+                if (product.getProductId() != null) {
+                    entries.put(product.getProductId(), new CachedProduct(product, now));
+                }
+            }
+        }
+        return true;
+    }
+
+    private double hitRatio() {
+        double hits = localHits.count() + redisHits.count();
+        double total = hits + misses.count();
+        return total == 0 ? 0.0 : hits / total;
+    }
+
+    private static String redisKey(UUID productId) {
+        return REDIS_KEY_PREFIX + productId;
+    }
+
+    private record CachedProduct(EnrichedCartItemDTO product, long cachedAt) {
+    }
+
+    /**
+     * Products served from cache, the IDs still to fetch, and the invalidation sequence to store them under
+     */
+    public record Lookup(List<EnrichedCartItemDTO> cached, List<UUID> missing, long sequence) {
+    }
+}
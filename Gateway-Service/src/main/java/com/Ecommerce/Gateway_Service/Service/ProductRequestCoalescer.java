@@ -0,0 +1,166 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Micro-batches product lookups: callers arriving within the same window share one
+ * deduplicated product batch request, and every caller gets back only the products it asked for.
+ */
+@Slf4j
+public class ProductRequestCoalescer {
+
+    private final Duration window;
+    private final int maxBatchSize;
+    private final Function<List<UUID>, Mono<List<EnrichedCartItemDTO>>> batchFetcher;
+    private final Scheduler scheduler;
+
+    private final DistributionSummary batchSize;
+    private final DistributionSummary dedupRatio;
+    private final Timer windowWait;
+    private final Counter coalescedRequests;
+    private final Counter dispatchedBatches;
+
+    private final Object lock = new Object();
+    private PendingBatch current;
+
+    public ProductRequestCoalescer(Duration window,
+                                   int maxBatchSize,
+                                   Function<List<UUID>, Mono<List<EnrichedCartItemDTO>>> batchFetcher,
+                                   MeterRegistry meterRegistry) {
+        this(window, maxBatchSize, batchFetcher, meterRegistry, Schedulers.parallel());
+    }
+
+    ProductRequestCoalescer(Duration window,
+                            int maxBatchSize,
+                            Function<List<UUID>, Mono<List<EnrichedCartItemDTO>>> batchFetcher,
+                            MeterRegistry meterRegistry,
+                            Scheduler scheduler) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.batchFetcher = batchFetcher;
+        this.scheduler = scheduler;
+
+        this.batchSize = DistributionSummary.builder("gateway.product.batch.size")
+                .description("Unique product IDs sent per coalesced product batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.dedupRatio = DistributionSummary.builder("gateway.product.batch.dedup.ratio")
+                .description("Requested product IDs divided by unique product IDs per batch")
+                .register(meterRegistry);
+        this.windowWait = Timer.builder("gateway.product.batch.window.wait")
+                .description("Time a batch stays open collecting product IDs before dispatch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.coalescedRequests = Counter.builder("gateway.product.batch.requests")
+                .description("Callers served by coalesced product batches")
+                .register(meterRegistry);
+        this.dispatchedBatches = Counter.builder("gateway.product.batch.dispatched")
+                .description("Product batch requests actually sent to Product-Service")
+                .register(meterRegistry);
+    }
+
+    /**
+     * ✅ Join the open batch (or open a new one) and receive the products for the given IDs
+     */
+    public Mono<List<EnrichedCartItemDTO>> getProducts(List<UUID> productIds) {
+        return Mono.defer(() -> {
+            PendingBatch batch;
+            PendingBatch full = null;
+
+            synchronized (lock) {
+                if (current == null) {
+                    current = new PendingBatch();
+                    PendingBatch opened = current;
+                    scheduler.schedule(() -> flush(opened), window.toMillis(), TimeUnit.MILLISECONDS);
+                }
+                batch = current;
+                batch.add(productIds);
+
+                if (batch.uniqueIds.size() >= maxBatchSize) {
+                    full = batch;
+                    current = null;
+                }
+            }
+
+            coalescedRequests.increment();
+            if (full != null) {
+                dispatch(full);
+            }
+
+            Set<UUID> wanted = new HashSet<>(productIds);
+            return batch.result.asMono()
+                    .map(products -> products.entrySet().stream()
+                            .filter(entry -> wanted.contains(entry.getKey()))
+                            .map(Map.Entry::getValue)
+                            .collect(Collectors.toList()));
+        });
+    }
+
+    private void flush(PendingBatch batch) {
+        synchronized (lock) {
+            if (current != batch) {
+                return; // already dispatched because it reached the size cap
+            }
+            current = null;
+        }
+        dispatch(batch);
+    }
+
+    private void dispatch(PendingBatch batch) {
+        List<UUID> ids = new ArrayList<>(batch.uniqueIds);
+
+        batchSize.record(ids.size());
+        dedupRatio.record((double) batch.requestedIds / Math.max(1, ids.size()));
+        windowWait.record(System.nanoTime() - batch.openedAtNanos, TimeUnit.NANOSECONDS);
+        dispatchedBatches.increment();
+
+        log.debug("Dispatching coalesced product batch - {} unique IDs from {} requested",
+                ids.size(), batch.requestedIds);
+
+        batchFetcher.apply(ids)
+                .map(products -> products.stream()
+                        .filter(product -> product.getProductId() != null)
+                        .collect(Collectors.toMap(
+                                EnrichedCartItemDTO::getProductId,
+                                product -> product,
+                                (existing, replacement) -> existing)))
+                .defaultIfEmpty(Map.of())
+                .subscribe(
+                        batch.result::tryEmitValue,
+                        error -> {
+                            log.error("Coalesced product batch failed for {} products", ids.size(), error);
+                            batch.result.tryEmitError(error);
+                        });
+    }
+
+    private static final class PendingBatch {
+        private final Set<UUID> uniqueIds = new LinkedHashSet<>();
+        private final Sinks.One<Map<UUID, EnrichedCartItemDTO>> result = Sinks.one();
+        private final long openedAtNanos = System.nanoTime();
+        private int requestedIds;
+
+        private void add(List<UUID> productIds) {
+            for (UUID productId : productIds) {
+                if (productId != null) {
+                    uniqueIds.add(productId);
+                    requestedIds++;
+                }
+            }
+        }
+    }
+}
@@ -9,6 +9,8 @@ import reactor.test.StepVerifier;
 import java.time.Duration;
 import java.util.concurrent.TimeoutException;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
 class AsyncResponseTimeoutTest {
 
     private AsyncResponseManager asyncResponseManager;
@@ -25,7 +27,7 @@ class AsyncResponseTimeoutTest {
         Duration timeout = Duration.ofMillis(100);
 
         // When
-        Mono<String> result = asyncResponseManager.waitForResponse(
+        Mono<String> result = asyncResponseManager.register(
                 correlationId, timeout, String.class
         );
 
@@ -43,7 +45,7 @@ class AsyncResponseTimeoutTest {
         Duration timeout = Duration.ofSeconds(1);
 
         // When
-        Mono<String> result = asyncResponseManager.waitForResponse(
+        Mono<String> result = asyncResponseManager.register(
                 correlationId, timeout, String.class
         );
 
@@ -66,7 +68,7 @@ class AsyncResponseTimeoutTest {
         Duration timeout = Duration.ofSeconds(1);
 
         // When
-        Mono<String> result = asyncResponseManager.waitForResponse(
+        Mono<String> result = asyncResponseManager.register(
                 correlationId, timeout, String.class
         );
 
@@ -80,4 +82,22 @@ class AsyncResponseTimeoutTest {
                 .expectErrorMessage("Test error")
                 .verify();
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldDeliverReplyThatArrivesBeforeSubscription() {
+        // Given
+        String correlationId = "test-correlation-id";
+        Mono<String> result = asyncResponseManager.register(
+                correlationId, Duration.ofSeconds(1), String.class
+        );
+
+        // When - the reply beats the subscriber
+        asyncResponseManager.completeRequest(correlationId, "fast-response");
+
+        // Then
+        StepVerifier.create(result)
+                .expectNext("fast-response")
+                .verifyComplete();
+        assertEquals(0, asyncResponseManager.pendingCount());
+    }
+}
@@ -0,0 +1,111 @@
+package com.Ecommerce.Gateway_Service.Async;
+
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse.EnrichedCartResponseDTO;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireDeserializer;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireSerializer;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KafkaWireFormatTest {
+
+    private final KafkaWireDeserializer deserializer = new KafkaWireDeserializer()
+            .withType(Pattern.compile("^cart\\.response(\\..+)?$"),
+                    KafkaWireFormat.type(KafkaReplyDTO.class, EnrichedCartResponseDTO.class))
+            .undecodableAsNull();
+
+    @Test
+    void shouldDecodeSmileReplyStraightIntoDto() {
+        UUID productId = UUID.randomUUID();
+        LocalDateTime addedAt = LocalDateTime.of(2025, 7, 11, 23, 37, 35);
+        Map<String, Object> reply = cartReply(productId, addedAt);
+
+        Headers headers = new RecordHeaders();
+        byte[] payload = new KafkaWireSerializer().serialize("cart.response.gateway-1", headers, reply);
+
+        assertThat(KafkaWireFormat.format(headers)).isEqualTo(KafkaWireFormat.SMILE_V1);
+
+        @SuppressWarnings("unchecked")
+        KafkaReplyDTO<EnrichedCartResponseDTO> decoded =
+                (KafkaReplyDTO<EnrichedCartResponseDTO>) deserializer.deserialize("cart.response.gateway-1", headers, payload);
+
+        assertThat(decoded.isSuccess()).isTrue();
+        assertThat(decoded.getCorrelationId()).isEqualTo("corr-1");
+        assertThat(decoded.getData().getItems()).hasSize(1);
+        assertThat(decoded.getData().getItems().get(0).getProductId()).isEqualTo(productId);
+        assertThat(decoded.getData().getItems().get(0).getAddedAt()).isEqualTo(addedAt);
+        assertThat(decoded.getData().getTotal()).isEqualByComparingTo("39.98");
+    }
+
+    @Test
+    void shouldStillDecodeJsonFromServicesNotYetUpgraded() {
+        UUID productId = UUID.randomUUID();
+        byte[] json = new JsonSerializer<>().noTypeInfo()
+                .serialize("cart.response", cartReply(productId, LocalDateTime.now()));
+
+        Object decoded = deserializer.deserialize("cart.response", new RecordHeaders(), json);
+
+        assertThat(decoded).isInstanceOf(KafkaReplyDTO.class);
+        assertThat(((KafkaReplyDTO<?>) decoded).getData()).isInstanceOf(EnrichedCartResponseDTO.class);
+    }
+
+    @Test
+    void shouldKeepUnregisteredTopicsAsMapsAndDropUndecodablePayloads() {
+        Headers headers = new RecordHeaders();
+        byte[] event = new KafkaWireSerializer().serialize("product-updated", headers, Map.of("productId", "p-1"));
+
+        assertThat(deserializer.deserialize("product-updated", headers, event)).isEqualTo(Map.of("productId", "p-1"));
+        assertThat(deserializer.deserialize("cart.response", "{not json".getBytes(StandardCharsets.UTF_8))).isNull();
+        // a Smile payload without its header is not sniffed as Smile
+        assertThat(deserializer.deserialize("cart.response", new RecordHeaders(), event)).isNull();
+    }
+
+    @Test
+    void shouldBeSmallerThanJsonForCartReplies() {
+        Map<String, Object> reply = cartReply(UUID.randomUUID(), LocalDateTime.now());
+
+        byte[] json = new JsonSerializer<>().noTypeInfo().serialize("cart.response", reply);
+        byte[] smile = KafkaWireFormat.encode(reply);
+
+        assertThat(smile.length).isLessThan(json.length);
+        assertThat(KafkaWireFormat.BFF_TOPICS.matcher("product.batch.request").matches()).isTrue();
+        assertThat(KafkaWireFormat.BFF_TOPICS.matcher("product-updated").matches()).isFalse();
+    }
+
+    private static Map<String, Object> cartReply(UUID productId, LocalDateTime addedAt) {
+        Map<String, Object> item = Map.of(
+                "id", UUID.randomUUID(),
+                "productId", productId,
+                "quantity", 2,
+                "price", new BigDecimal("19.99"),
+                "subtotal", new BigDecimal("39.98"),
+                "addedAt", addedAt);
+
+        Map<String, Object> cart = Map.of(
+                "id", UUID.randomUUID(),
+                "userId", UUID.randomUUID(),
+                "items", List.of(item),
+                "total", new BigDecimal("39.98"),
+                "createdAt", addedAt);
+
+        return Map.of(
+                "correlationId", "corr-1",
+                "success", true,
+                "message", "Cart retrieved successfully",
+                "data", cart,
+                "timestamp", 1L);
+    }
+}
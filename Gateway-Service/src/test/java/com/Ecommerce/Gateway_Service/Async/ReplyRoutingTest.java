@@ -0,0 +1,56 @@
+package com.Ecommerce.Gateway_Service.Async;
+
+import com.Ecommerce.Gateway_Service.Kafka.KafkaReplyRouting;
+import com.Ecommerce.Gateway_Service.Kafka.KafkaTopics;
+import com.Ecommerce.Gateway_Service.Kafka.ReplyInstanceProducerInterceptor;
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplyRoutingTest {
+
+    @Test
+    void shouldSuffixReplyTopicsWithInstanceId() {
+        KafkaReplyRouting routing = new KafkaReplyRouting("gateway-1");
+
+        assertThat(routing.replyTopic(KafkaTopics.CART_RESPONSE)).isEqualTo("cart.response.gateway-1");
+        assertThat(routing.getConsumerGroup()).isEqualTo("gateway-bff-group.gateway-1");
+        assertThat(routing.getReplyTopicNames()).contains("product.batch.response.gateway-1", "order.error.gateway-1");
+    }
+
+    @Test
+    void shouldSanitizeOrGenerateInstanceId() {
+        assertThat(new KafkaReplyRouting("pod/1:8099").getInstanceId()).isEqualTo("pod-1-8099");
+        assertThat(new KafkaReplyRouting("").getInstanceId()).isNotBlank();
+    }
+
+    @Test
+    void shouldTreatHostnameFallbackAsEphemeral() {
+        KafkaReplyRouting configured = new KafkaReplyRouting("gateway-1", "gateway-7f9c-x2k");
+        KafkaReplyRouting fromHostname = new KafkaReplyRouting("", "gateway-7f9c-x2k");
+
+        assertThat(configured.getInstanceId()).isEqualTo("gateway-1");
+        assertThat(configured.isEphemeral()).isFalse();
+        assertThat(fromHostname.getInstanceId()).isEqualTo("gateway-7f9c-x2k");
+        assertThat(fromHostname.isEphemeral()).isTrue();
+    }
+
+    @Test
+    void shouldStampReplyInstanceHeaderOnRequests() {
+        ReplyInstanceProducerInterceptor interceptor =
+                new ReplyInstanceProducerInterceptor(new KafkaReplyRouting("gateway-1"));
+
+        ProducerRecord<String, Object> record = interceptor.onSend(
+                new ProducerRecord<>(KafkaTopics.CART_REQUEST, "corr-1", Map.of("userId", "u1")));
+
+        Header header = record.headers().lastHeader(ReplyRouting.REPLY_INSTANCE_HEADER);
+        assertThat(header).isNotNull();
+        assertThat(new String(header.value(), StandardCharsets.UTF_8)).isEqualTo("gateway-1");
+    }
+}
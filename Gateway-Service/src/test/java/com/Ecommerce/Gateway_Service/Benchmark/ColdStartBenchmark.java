@@ -0,0 +1,91 @@
+package com.Ecommerce.Gateway_Service.Benchmark;
+
+import com.Ecommerce.Gateway_Service.Config.GatewayWarmup;
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
+import com.Ecommerce.Gateway_Service.Security.JwtUtil;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of the very first authenticated BFF request in a fresh JVM: JWT verification, the
+ * reply codec round trip and the reply wait, with and without GatewayWarmup's in-process priming.
+ * Single-shot over many forks, since only the first call after startup is interesting.
+ *
+ * Run after mvn test-compile with the test classpath:
+ *   java -cp target/test-classes:target/classes:&lt;deps&gt; org.openjdk.jmh.Main ColdStartBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(20)
+public class ColdStartBenchmark {
+
+    private static final String SECRET = "c03a546beee68b92784e681b537540349c386d02b6dbf9917cf438e47e5c1ee93fdebc55652af00cb3ebc6bff17dc3bedaa33ea6cfdd1959b114ede448c4ac87853021cc3c32f1ef6d5951d0c6b1398bc01c563c7638a0000e6b4064c5733c5552aa232aa8547be8b4b1f8dddacac8256f319acd6832ff5ae9365358e20624fc99dab8489d33e582cf621444e9d944442559707a1f92d556862bb53ce12deb3ec17d3a8bc3c7159b672e4f02189af368a8e71d8547a5b71518de7a1d9a4997d20b4f646fae73e73c26666799b21cdec5544b74319756bb0a27d4e124ec5f13bf8f338ce3ba5ad8b3af1a8aae211bef3eb6ca4f8a24e6b80662c94530e168b0dc";
+
+    @Param({"false", "true"})
+    public boolean primed;
+
+    private String token;
+    private JwtUtil jwtUtil;
+    private AsyncResponseManager responseManager;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        responseManager = new AsyncResponseManager();
+        if (primed) {
+            GatewayWarmup.primeInProcess(jwtUtil);
+        }
+        // signing shares little with parsing, so creating the token here keeps the cold case cold
+        token = Jwts.builder()
+                .setSubject("benchmark-user")
+                .claim("roles", List.of("ROLE_USER"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+
+    /** First request after startup: authenticate, wait for the cart reply and decode it */
+    @Benchmark
+    public Object firstEnrichedCartRequest() {
+        jwtUtil.verify(token).orElseThrow();
+
+        KafkaReplyDTO<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> reply = KafkaReplyDTO.<EnrichedShoppingCartResponse.EnrichedCartResponseDTO>builder()
+                .correlationId("first-request")
+                .success(true)
+                .data(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder().items(List.of()).build())
+                .timestamp(System.currentTimeMillis())
+                .build();
+        Object decoded = KafkaWireFormat.decode(KafkaWireFormat.encode(reply), KafkaWireFormat.SMILE_V1,
+                KafkaWireFormat.type(KafkaReplyDTO.class, EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class));
+
+        Mono<Object> pending = responseManager.register("first-request", Duration.ofSeconds(5), Object.class);
+        responseManager.completeRequest("first-request", decoded);
+        return pending.block();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(ColdStartBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+package com.Ecommerce.Gateway_Service.Benchmark;
+
+import com.Ecommerce.Gateway_Service.Security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of authenticating one request: the old filter path (validate + username + roles, each
+ * re-verifying the signature) against a single verify() with and without the claims cache.
+ *
+ * Run after mvn test-compile with the test classpath:
+ *   java -cp target/test-classes:target/classes:&lt;deps&gt; org.openjdk.jmh.Main JwtClaimsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtClaimsBenchmark {
+
+    private static final String SECRET = "c03a546beee68b92784e681b537540349c386d02b6dbf9917cf438e47e5c1ee93fdebc55652af00cb3ebc6bff17dc3bedaa33ea6cfdd1959b114ede448c4ac87853021cc3c32f1ef6d5951d0c6b1398bc01c563c7638a0000e6b4064c5733c5552aa232aa8547be8b4b1f8dddacac8256f319acd6832ff5ae9365358e20624fc99dab8489d33e582cf621444e9d944442559707a1f92d556862bb53ce12deb3ec17d3a8bc3c7159b672e4f02189af368a8e71d8547a5b71518de7a1d9a4997d20b4f646fae73e73c26666799b21cdec5544b74319756bb0a27d4e124ec5f13bf8f338ce3ba5ad8b3af1a8aae211bef3eb6ca4f8a24e6b80662c94530e168b0dc";
+
+    private Key key;
+    private String token;
+    private JwtUtil cachedJwtUtil;
+
+    @Setup
+    public void setUp() {
+        key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+        token = Jwts.builder()
+                .setSubject("benchmark-user")
+                .claim("roles", List.of("ROLE_USER"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 3_600_000))
+                .signWith(key)
+                .compact();
+
+        cachedJwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(cachedJwtUtil, "jwtSecret", SECRET);
+    }
+
+    /** Before: validateToken, extractUsername and extractRoles each parsed and verified the token */
+    @Benchmark
+    public Object perRequestTripleVerification() {
+        Claims validated = parse();
+        Claims forUsername = parse();
+        Claims forRoles = parse();
+        return validated.getExpiration().after(new Date())
+                ? List.of(forUsername.getSubject(), forRoles.get("roles", List.class))
+                : null;
+    }
+
+    /** Verify once per request, no cache (first request with a token) */
+    @Benchmark
+    public Object singleVerification() {
+        Claims claims = parse();
+        return List.of(claims.getSubject(), claims.get("roles", List.class));
+    }
+
+    /** After: repeat request with the same bearer token served from the verified-claims cache */
+    @Benchmark
+    public Object cachedVerification() {
+        Claims claims = cachedJwtUtil.verify(token).orElseThrow();
+        return List.of(claims.getSubject(), claims.get("roles", List.class));
+    }
+
+    private Claims parse() {
+        return Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtClaimsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
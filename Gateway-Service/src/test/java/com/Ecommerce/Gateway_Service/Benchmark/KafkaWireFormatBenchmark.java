@@ -0,0 +1,145 @@
+package com.Ecommerce.Gateway_Service.Benchmark;
+
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse.EnrichedCartResponseDTO;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireDeserializer;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireSerializer;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.JacksonUtils;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * One cart reply (20 items) through the old JSON path - JsonSerializer, JsonDeserializer to a
+ * generic map, then map to DTO - against the Smile wire format decoded straight into the DTO.
+ * Payload sizes are printed on setup.
+ *
+ * Run after mvn test-compile with the test classpath:
+ *   java -cp target/test-classes:target/classes:&lt;deps&gt; org.openjdk.jmh.Main KafkaWireFormatBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KafkaWireFormatBenchmark {
+
+    private static final String TOPIC = "cart.response.gateway-1";
+
+    private final JavaType replyType = KafkaWireFormat.type(KafkaReplyDTO.class, EnrichedCartResponseDTO.class);
+    private final ObjectMapper mapper = JacksonUtils.enhancedObjectMapper();
+
+    private Map<String, Object> reply;
+    private JsonSerializer<Object> jsonSerializer;
+    private JsonDeserializer<Object> jsonDeserializer;
+    private KafkaWireSerializer wireSerializer;
+    private KafkaWireDeserializer wireDeserializer;
+    private byte[] jsonPayload;
+    private byte[] smilePayload;
+    private Headers smileHeaders;
+
+    @Setup
+    public void setUp() {
+        reply = cartReply(20);
+
+        jsonSerializer = new JsonSerializer<>().noTypeInfo();
+        jsonDeserializer = new JsonDeserializer<>(Object.class, false);
+        wireSerializer = new KafkaWireSerializer();
+        wireDeserializer = new KafkaWireDeserializer()
+                .withType(Pattern.compile("^cart\\.response(\\..+)?$"), replyType);
+
+        jsonPayload = jsonSerializer.serialize(TOPIC, new RecordHeaders(), reply);
+        smileHeaders = new RecordHeaders();
+        smilePayload = wireSerializer.serialize(TOPIC, smileHeaders, reply);
+        System.out.printf("%ncart reply with 20 items - json: %d bytes, smile: %d bytes (%.0f%% smaller)%n",
+                jsonPayload.length, smilePayload.length,
+                100.0 * (jsonPayload.length - smilePayload.length) / jsonPayload.length);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() {
+        return jsonSerializer.serialize(TOPIC, new RecordHeaders(), reply);
+    }
+
+    @Benchmark
+    public byte[] encodeSmile() {
+        return wireSerializer.serialize(TOPIC, new RecordHeaders(), reply);
+    }
+
+    /** Before: generic map from the deserializer, then a second pass into the DTO */
+    @Benchmark
+    public Object decodeJsonViaMap() {
+        Object map = jsonDeserializer.deserialize(TOPIC, jsonPayload);
+        return mapper.convertValue(map, replyType);
+    }
+
+    /** After: one pass from the wire bytes into the DTO */
+    @Benchmark
+    public Object decodeSmileTyped() {
+        return wireDeserializer.deserialize(TOPIC, smileHeaders, smilePayload);
+    }
+
+    /** Rolling upgrade: JSON from a service not yet on the binary format, still decoded typed */
+    @Benchmark
+    public Object decodeJsonTyped() {
+        return wireDeserializer.deserialize(TOPIC, jsonPayload);
+    }
+
+    static Map<String, Object> cartReply(int itemCount) {
+        LocalDateTime now = LocalDateTime.of(2025, 7, 11, 23, 37, 35, 974_000_000);
+        List<Map<String, Object>> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < itemCount; i++) {
+            BigDecimal price = BigDecimal.valueOf(1999 + i * 100L, 2);
+            BigDecimal subtotal = price.multiply(BigDecimal.valueOf(i % 3 + 1));
+            total = total.add(subtotal);
+
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("id", UUID.randomUUID());
+            item.put("productId", UUID.randomUUID());
+            item.put("quantity", i % 3 + 1);
+            item.put("price", price);
+            item.put("subtotal", subtotal);
+            item.put("addedAt", now.minusHours(i));
+            items.add(item);
+        }
+
+        Map<String, Object> cart = new LinkedHashMap<>();
+        cart.put("id", UUID.randomUUID());
+        cart.put("userId", UUID.randomUUID());
+        cart.put("items", items);
+        cart.put("total", total);
+        cart.put("createdAt", now.minusDays(2));
+        cart.put("updatedAt", now);
+        cart.put("expiresAt", now.plusDays(30));
+
+        Map<String, Object> reply = new LinkedHashMap<>();
+        reply.put("correlationId", UUID.randomUUID().toString());
+        reply.put("success", true);
+        reply.put("message", "Cart retrieved successfully");
+        reply.put("data", cart);
+        reply.put("timestamp", System.currentTimeMillis());
+        return reply;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(KafkaWireFormatBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
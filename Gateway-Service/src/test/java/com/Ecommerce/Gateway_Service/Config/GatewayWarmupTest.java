@@ -0,0 +1,120 @@
+package com.Ecommerce.Gateway_Service.Config;
+
+import com.Ecommerce.Gateway_Service.Kafka.KafkaReplyRouting;
+import com.Ecommerce.Gateway_Service.Security.JwtUtil;
+import com.Ecommerce.Gateway_Service.Service.AsyncProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class GatewayWarmupTest {
+
+    private static final String SECRET = "c03a546beee68b92784e681b537540349c386d02b6dbf9917cf438e47e5c1ee93fdebc55652af00cb3ebc6bff17dc3bedaa33ea6cfdd1959b114ede448c4ac87853021cc3c32f1ef6d5951d0c6b1398bc01c563c7638a0000e6b4064c5733c5552aa232aa8547be8b4b1f8dddacac8256f319acd6832ff5ae9365358e20624fc99dab8489d33e582cf621444e9d944442559707a1f92d556862bb53ce12deb3ec17d3a8bc3c7159b672e4f02189af368a8e71d8547a5b71518de7a1d9a4997d20b4f646fae73e73c26666799b21cdec5544b74319756bb0a27d4e124ec5f13bf8f338ce3ba5ad8b3af1a8aae211bef3eb6ca4f8a24e6b80662c94530e168b0dc";
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    private AsyncProductService asyncProductService;
+
+    @Mock
+    private MessageListenerContainer replyListener;
+
+    @Mock
+    private MessageListenerContainer otherListener;
+
+    private final KafkaReplyRouting replyRouting = new KafkaReplyRouting("gw-1");
+    private final JwtUtil jwtUtil = new JwtUtil();
+    private final UUID hotProduct = UUID.randomUUID();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", SECRET);
+        lenient().when(redisTemplate.hasKey(anyString())).thenReturn(Mono.just(false));
+        lenient().when(listenerRegistry.getListenerContainers()).thenReturn(List.of(replyListener, otherListener));
+        lenient().when(replyListener.getGroupId()).thenReturn(replyRouting.getConsumerGroup());
+        lenient().when(otherListener.getGroupId()).thenReturn("gateway-product-events");
+    }
+
+    @Test
+    void shouldStayOutOfServiceUntilReplyPartitionsAreAssigned() {
+        when(replyListener.isRunning()).thenReturn(true);
+        when(replyListener.getAssignedPartitions())
+                .thenReturn(List.of())
+                .thenReturn(List.of())
+                .thenReturn(List.of(new TopicPartition("cart.response.gw-1", 0)));
+        when(asyncProductService.getProductsBatch(anyList())).thenReturn(Mono.just(List.of()));
+        GatewayWarmup warmup = warmup(true, 5_000);
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+
+        StepVerifier.create(warmup.warmUp()).verifyComplete();
+
+        assertThat(warmup.isReady()).isTrue();
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmup.health().getDetails()).containsEntry("reply-assignment", "done").containsEntry("products", "done");
+        verify(replyListener, times(3)).getAssignedPartitions();
+        verify(otherListener, never()).getAssignedPartitions();
+        verify(asyncProductService).getProductsBatch(List.of(hotProduct));
+        verify(kafkaTemplate).partitionsFor("cart.request");
+        assertThat(meterRegistry.get("gateway.startup.ready").gauge().value()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldGoReadyAnywayWhenWarmUpTimesOut() {
+        when(replyListener.isRunning()).thenReturn(true);
+        when(replyListener.getAssignedPartitions()).thenReturn(List.of());
+        GatewayWarmup warmup = warmup(true, 200);
+
+        StepVerifier.create(warmup.warmUp()).expectComplete().verify(Duration.ofSeconds(5));
+
+        assertThat(warmup.isReady()).isTrue();
+        assertThat(meterRegistry.get("gateway.startup.warmup.timeouts").counter().count()).isEqualTo(1.0);
+        verifyNoInteractions(asyncProductService);
+    }
+
+    @Test
+    void shouldBeReadyImmediatelyWhenDisabled() {
+        GatewayWarmup warmup = warmup(false, 5_000);
+
+        StepVerifier.create(warmup.warmUp()).verifyComplete();
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        verifyNoInteractions(kafkaTemplate, redisTemplate, asyncProductService);
+    }
+
+    private GatewayWarmup warmup(boolean enabled, long timeoutMs) {
+        return new GatewayWarmup(listenerRegistry, replyRouting, kafkaTemplate, redisTemplate, jwtUtil,
+                asyncProductService, meterRegistry, enabled, timeoutMs, 10, hotProduct.toString());
+    }
+}
@@ -0,0 +1,163 @@
+package com.Ecommerce.Gateway_Service.Controllers;
+
+import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Gateway_Service.Service.AdaptiveDeadlines;
+import com.Ecommerce.Gateway_Service.Service.AsyncCartBffService;
+import com.Ecommerce.Gateway_Service.Service.AsyncProductService;
+import com.Ecommerce.Gateway_Service.Service.BffETagCache;
+import com.Ecommerce.Gateway_Service.Service.BffSingleFlight;
+import com.Ecommerce.Gateway_Service.Service.BffStageTimers;
+import com.Ecommerce.Gateway_Service.Service.CartBffService;
+import com.Ecommerce.Gateway_Service.Service.HotPathLog;
+import com.Ecommerce.Gateway_Service.Service.ProductNearCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.core.KafkaTemplate;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncEnrichedCartControllerTest {
+
+    private static final String USER_ID = "123e4567-e89b-12d3-a456-426614174000";
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private AsyncResponseManager asyncResponseManager;
+
+    @Mock
+    private AsyncProductService asyncProductService;
+
+    @Mock
+    private CartBffService cartBffService;
+
+    @Mock
+    private ProductNearCache productNearCache;
+
+    private final UUID productId = UUID.randomUUID();
+    private AsyncEnrichedCartController controller;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        when(productNearCache.isEnabled()).thenReturn(true);
+
+        AsyncCartBffService service = new AsyncCartBffService(
+                kafkaTemplate, asyncResponseManager, asyncProductService, new ObjectMapper(),
+                new BffSingleFlight(true, meterRegistry),
+                new AdaptiveDeadlines(true, 500, 30000, 2.0, 50, 512, false, 1000, 50, 0.1, meterRegistry),
+                cartBffService,
+                new BffStageTimers(meterRegistry),
+                new HotPathLog(true, 0.01, "", 50, meterRegistry));
+        controller = new AsyncEnrichedCartController(service,
+                new BffETagCache(true, 100, 60, productNearCache, meterRegistry));
+    }
+
+    @Test
+    void shouldNotValidateTheFallbackServedWhileTheCartReplyFailed() {
+        when(asyncResponseManager.register(anyString(), any(Duration.class),
+                eq(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class)))
+                .thenReturn(Mono.error(new TimeoutException("no cart reply")))
+                .thenReturn(Mono.just(cart()));
+        when(asyncProductService.getProductsBatch(anyList())).thenReturn(Mono.just(List.of(product())));
+
+        ResponseEntity<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> fallback = getCart(null);
+
+        assertThat(fallback.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(fallback.getBody().getId()).isNull();
+        assertThat(fallback.getHeaders().getETag()).isNull();
+        assertThat(fallback.getHeaders().getCacheControl()).isEqualTo("no-store");
+
+        // the client revalidates with whatever it was given - the real cart must come back, not a 304
+        ResponseEntity<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> recovered =
+                getCart(fallback.getHeaders().getETag());
+
+        assertThat(recovered.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(recovered.getBody().getItems()).extracting(EnrichedCartItemDTO::getProductName)
+                .containsExactly("Test Product");
+        assertThat(recovered.getHeaders().getETag()).isNotNull();
+    }
+
+    @Test
+    void shouldNotValidateACartServedWithoutProductDetails() {
+        when(asyncResponseManager.register(anyString(), any(Duration.class),
+                eq(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class)))
+                .thenReturn(Mono.just(cart()));
+        when(asyncProductService.getProductsBatch(anyList()))
+                .thenReturn(Mono.error(new TimeoutException("no product reply")))
+                .thenReturn(Mono.just(List.of(product())));
+
+        ResponseEntity<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> unenriched = getCart(null);
+
+        assertThat(unenriched.getBody().isDegraded()).isTrue();
+        assertThat(unenriched.getHeaders().getETag()).isNull();
+        assertThat(unenriched.getHeaders().getCacheControl()).isEqualTo("no-store");
+
+        ResponseEntity<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> recovered =
+                getCart(unenriched.getHeaders().getETag());
+
+        assertThat(recovered.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(recovered.getBody().isDegraded()).isFalse();
+        assertThat(recovered.getHeaders().getETag()).isNotNull();
+    }
+
+    private ResponseEntity<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> getCart(String ifNoneMatch) {
+        return controller.getEnrichedCart(USER_ID, ifNoneMatch).block(Duration.ofSeconds(5));
+    }
+
+    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart() {
+        EnrichedCartItemDTO item = EnrichedCartItemDTO.builder()
+                .id(UUID.randomUUID())
+                .productId(productId)
+                .quantity(2)
+                .price(BigDecimal.valueOf(29.99))
+                .subtotal(BigDecimal.valueOf(59.98))
+                .addedAt(LocalDateTime.of(2025, 7, 11, 10, 0))
+                .build();
+
+        return EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder()
+                .id(UUID.randomUUID())
+                .userId(UUID.fromString(USER_ID))
+                .items(List.of(item))
+                .total(BigDecimal.valueOf(59.98))
+                .itemCount(1)
+                .totalQuantity(2)
+                .createdAt(LocalDateTime.of(2025, 7, 11, 10, 0))
+                .updatedAt(LocalDateTime.of(2025, 7, 11, 10, 5))
+                .build();
+    }
+
+    private EnrichedCartItemDTO product() {
+        return EnrichedCartItemDTO.builder()
+                .productId(productId)
+                .productName("Test Product")
+                .inStock(true)
+                .availableQuantity(10)
+                .productStatus("AVAILABLE")
+                .build();
+    }
+}
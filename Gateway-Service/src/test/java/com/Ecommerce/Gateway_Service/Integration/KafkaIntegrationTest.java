@@ -3,7 +3,12 @@ package com.Ecommerce.Gateway_Service.Integration;
 import com.Ecommerce.Gateway_Service.Consumer.KafkaCartResponseConsumer;
 import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Gateway_Service.Kafka.DTOs.KafkaReplyDTO;
+import com.Ecommerce.Gateway_Service.Service.BffStageTimers;
+import com.Ecommerce.Gateway_Service.Service.HotPathLog;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -42,14 +47,15 @@ class KafkaIntegrationTest {
         String correlationId = UUID.randomUUID().toString();
         Map<String, Object> responsePayload = createSuccessfulCartResponse(correlationId);
 
-        ConsumerRecord<String, Object> record = new ConsumerRecord<>(
-                "cart.response", 0, 0, correlationId, responsePayload
+        ConsumerRecord<String, KafkaReplyDTO<EnrichedShoppingCartResponse.EnrichedCartResponseDTO>> record = new ConsumerRecord<>(
+                "cart.response", 0, 0, correlationId, decodeCartReply(responsePayload)
         );
 
         AsyncResponseManager mockAsyncResponseManager = mock(AsyncResponseManager.class);
 
         KafkaCartResponseConsumer consumer = new KafkaCartResponseConsumer(
-                mockAsyncResponseManager, objectMapper
+                mockAsyncResponseManager, new BffStageTimers(new SimpleMeterRegistry()),
+                new HotPathLog(true, 0.01, "", 50, new SimpleMeterRegistry())
         );
 
         // When
@@ -68,14 +74,15 @@ class KafkaIntegrationTest {
         String correlationId = UUID.randomUUID().toString();
         Map<String, Object> errorPayload = createErrorCartResponse(correlationId);
 
-        ConsumerRecord<String, Object> record = new ConsumerRecord<>(
-                "cart.response", 0, 0, correlationId, errorPayload
+        ConsumerRecord<String, KafkaReplyDTO<EnrichedShoppingCartResponse.EnrichedCartResponseDTO>> record = new ConsumerRecord<>(
+                "cart.response", 0, 0, correlationId, decodeCartReply(errorPayload)
         );
 
         AsyncResponseManager mockAsyncResponseManager = mock(AsyncResponseManager.class);
 
         KafkaCartResponseConsumer consumer = new KafkaCartResponseConsumer(
-                mockAsyncResponseManager, objectMapper
+                mockAsyncResponseManager, new BffStageTimers(new SimpleMeterRegistry()),
+                new HotPathLog(true, 0.01, "", 50, new SimpleMeterRegistry())
         );
 
         // When
@@ -88,6 +95,12 @@ class KafkaIntegrationTest {
         );
     }
 
+    // Same path as the listener container: encode on the wire, decode into the reply DTO
+    private KafkaReplyDTO<EnrichedShoppingCartResponse.EnrichedCartResponseDTO> decodeCartReply(Map<String, Object> payload) {
+        return KafkaWireFormat.decode(KafkaWireFormat.encode(payload), KafkaWireFormat.SMILE_V1,
+                KafkaWireFormat.type(KafkaReplyDTO.class, EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class));
+    }
+
     private Map<String, Object> createSuccessfulCartResponse(String correlationId) {
         Map<String, Object> response = new HashMap<>();
         response.put("correlationId", correlationId);
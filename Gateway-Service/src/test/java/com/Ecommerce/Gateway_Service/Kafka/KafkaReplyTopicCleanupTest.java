@@ -0,0 +1,49 @@
+package com.Ecommerce.Gateway_Service.Kafka;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.DeleteConsumerGroupsResult;
+import org.apache.kafka.clients.admin.DeleteTopicsResult;
+import org.apache.kafka.common.KafkaFuture;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class KafkaReplyTopicCleanupTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldDeleteReplyTopicsAndGroupOfEphemeralInstance() {
+        KafkaReplyRouting routing = new KafkaReplyRouting(null, "gateway-7f9c-x2k");
+        Admin admin = mock(Admin.class);
+        DeleteConsumerGroupsResult groups = mock(DeleteConsumerGroupsResult.class);
+        DeleteTopicsResult topics = mock(DeleteTopicsResult.class);
+        when(admin.deleteConsumerGroups(anyCollection())).thenReturn(groups);
+        when(groups.all()).thenReturn(KafkaFuture.completedFuture(null));
+        when(admin.deleteTopics(anyCollection())).thenReturn(topics);
+        when(topics.all()).thenReturn(KafkaFuture.completedFuture(null));
+
+        new KafkaReplyTopicCleanup(routing, mock(KafkaAdmin.class), true).deleteReplyTopics(admin);
+
+        ArgumentCaptor<Collection<String>> deleted = ArgumentCaptor.forClass(Collection.class);
+        verify(admin).deleteConsumerGroups(List.of("gateway-bff-group.gateway-7f9c-x2k"));
+        verify(admin).deleteTopics(deleted.capture());
+        assertThat(deleted.getValue()).hasSize(KafkaReplyRouting.REPLY_TOPICS.size())
+                .allMatch(topic -> topic.endsWith(".gateway-7f9c-x2k"));
+    }
+
+    @Test
+    void shouldKeepReplyTopicsOfStableInstance() {
+        KafkaAdmin kafkaAdmin = mock(KafkaAdmin.class);
+
+        new KafkaReplyTopicCleanup(new KafkaReplyRouting("gateway-1"), kafkaAdmin, true).deleteReplyTopics();
+
+        verifyNoInteractions(kafkaAdmin);
+    }
+}
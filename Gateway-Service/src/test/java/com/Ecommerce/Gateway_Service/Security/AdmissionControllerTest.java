@@ -0,0 +1,91 @@
+package com.Ecommerce.Gateway_Service.Security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControllerTest {
+
+    private static final String CRITICAL = "/api/users/auth/**,/api/carts/*/checkout,POST /api/orders/**";
+    private static final String LOW = "/api/cart/**,/api/order/**,GET /api/products/**";
+
+    private final AtomicInteger pendingReplies = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private AdmissionController controller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        controller = new AdmissionController(true, 10, 100, 200, 0.5, 0,
+                CRITICAL, LOW, pendingReplies::get, meterRegistry);
+    }
+
+    @Test
+    void shouldClassifyRoutesAndDownstreams() {
+        assertThat(controller.priorityOf("POST", "/api/users/auth/login")).isEqualTo(AdmissionController.Priority.CRITICAL);
+        assertThat(controller.priorityOf("POST", "/api/carts/42/checkout")).isEqualTo(AdmissionController.Priority.CRITICAL);
+        assertThat(controller.priorityOf("POST", "/api/orders")).isEqualTo(AdmissionController.Priority.CRITICAL);
+        assertThat(controller.priorityOf("GET", "/api/orders/1")).isEqualTo(AdmissionController.Priority.NORMAL);
+        assertThat(controller.priorityOf("GET", "/api/cart/u1/enriched")).isEqualTo(AdmissionController.Priority.LOW);
+        assertThat(controller.priorityOf("POST", "/api/products/batch")).isEqualTo(AdmissionController.Priority.NORMAL);
+
+        assertThat(AdmissionController.downstreamOf("/api/saved4later/u1/enriched")).isEqualTo("cart");
+        assertThat(AdmissionController.downstreamOf("/api/orders/1")).isEqualTo("order");
+        assertThat(AdmissionController.downstreamOf("/favicon.ico")).isEqualTo("other");
+    }
+
+    @Test
+    void shouldShedLowPriorityFirstWhenADownstreamIsSaturated() {
+        for (int i = 0; i < 5; i++) {
+            assertThat(controller.admit("GET", "/api/orders/" + i).admitted()).isTrue();
+        }
+
+        // low priority stops at half the in-flight limit, normal keeps going up to the limit
+        AdmissionController.Decision low = controller.admit("GET", "/api/order/1/enriched");
+        assertThat(low.admitted()).isFalse();
+        assertThat(low.reason()).isEqualTo("in-flight");
+        for (int i = 5; i < 10; i++) {
+            assertThat(controller.admit("GET", "/api/orders/" + i).admitted()).isTrue();
+        }
+        assertThat(controller.admit("GET", "/api/orders/10").admitted()).isFalse();
+
+        // checkout keeps its capacity, other downstreams are unaffected
+        assertThat(controller.admit("POST", "/api/orders").admitted()).isTrue();
+        assertThat(controller.admit("GET", "/api/cart/u1/enriched").admitted()).isTrue();
+
+        assertThat(meterRegistry.get("gateway.admission.inflight").tag("downstream", "order").gauge().value())
+                .isEqualTo(11.0);
+        assertThat(meterRegistry.get("gateway.admission.rejected").tag("priority", "low").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldAdmitAgainOnceRequestsAreReleased() {
+        AdmissionController.Decision[] admitted = new AdmissionController.Decision[10];
+        for (int i = 0; i < 10; i++) {
+            admitted[i] = controller.admit("GET", "/api/orders/" + i);
+        }
+        assertThat(controller.admit("GET", "/api/orders/x").admitted()).isFalse();
+
+        controller.release(admitted[0]);
+
+        assertThat(controller.admit("GET", "/api/orders/x").admitted()).isTrue();
+    }
+
+    @Test
+    void shouldShedOnPendingRepliesAndEventLoopLag() {
+        pendingReplies.set(60);
+        assertThat(controller.admit("GET", "/api/cart/u1/enriched").reason()).isEqualTo("pending-replies");
+        assertThat(controller.admit("GET", "/api/orders/1").admitted()).isTrue();
+
+        pendingReplies.set(0);
+        controller.recordEventLoopLag(250);
+        assertThat(controller.admit("GET", "/api/orders/2").reason()).isEqualTo("event-loop-lag");
+        assertThat(controller.admit("POST", "/api/users/auth/login").admitted()).isTrue();
+        assertThat(meterRegistry.get("gateway.admission.overloaded").gauge().value()).isEqualTo(1.0);
+    }
+}
@@ -19,6 +19,7 @@ import reactor.test.StepVerifier;
 
 import java.net.InetSocketAddress;
 import java.time.Duration;
+import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
@@ -49,7 +50,7 @@ class CustomRateLimitFilterFactoryTest {
 
     @BeforeEach
     void setUp() {
-        filterFactory = new CustomRateLimitFilterFactory(redisTemplate);
+        filterFactory = new CustomRateLimitFilterFactory(redisTemplate, Optional.empty(), Optional.empty());
         config = new CustomRateLimitFilterFactory.Config();
         config.setLimit(5);
         config.setWindowSizeInSeconds(60);
@@ -0,0 +1,97 @@
+package com.Ecommerce.Gateway_Service.Security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class HybridRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(10_000);
+    private final List<Object[]> leaseCalls = new ArrayList<>();
+    private ReactiveStringRedisTemplate redisTemplate;
+    private SimpleMeterRegistry meterRegistry;
+    private HybridRateLimiter limiter;
+
+    /** Simulated global window: limit 20 per window */
+    private long globalCount;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        redisTemplate = mock(ReactiveStringRedisTemplate.class);
+        meterRegistry = new SimpleMeterRegistry();
+        globalCount = 0;
+
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenAnswer(invocation -> {
+            Object[] raw = invocation.getRawArguments();
+            Object[] args = raw[2] instanceof Object[] array ? array : Arrays.copyOfRange(raw, 2, raw.length);
+            leaseCalls.add(args);
+            long limit = Long.parseLong(args[0].toString());
+            long want = Long.parseLong(args[2].toString());
+            long grant = Math.max(0, Math.min(want, limit - globalCount));
+            globalCount += grant;
+            return Flux.just(List.of(grant, limit - globalCount, 60_000L));
+        });
+
+        limiter = new HybridRateLimiter(redisTemplate, meterRegistry, true, 0.25, 50, 1000,
+                Duration.ofSeconds(1), 120_000, now::get);
+    }
+
+    @Test
+    void shouldServeMostRequestsFromLocalLease() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(limiter.tryAcquireWindow("rate_limit:ip:1.2.3.4:/api", 20, 60).block().allowed()).isTrue();
+        }
+
+        // lease size is 25% of the limit - 10 requests need at most 2 leases plus one prefetch
+        assertThat(leaseCalls.size()).isLessThanOrEqualTo(3);
+        assertThat(meterRegistry.get("gateway.ratelimit.decisions")
+                .tag("source", "local").tag("result", "allowed").counter().count()).isGreaterThanOrEqualTo(7.0);
+    }
+
+    @Test
+    void shouldEnforceGlobalLimitAndDenyLocallyUntilWindowResets() {
+        int allowed = 0;
+        for (int i = 0; i < 30; i++) {
+            if (limiter.tryAcquireWindow("rate_limit:ip:1.2.3.4:/api", 20, 60).block().allowed()) {
+                allowed++;
+            }
+        }
+        assertThat(allowed).isEqualTo(20);
+
+        int leasesAfterExhaustion = leaseCalls.size();
+        limiter.tryAcquireWindow("rate_limit:ip:1.2.3.4:/api", 20, 60).block();
+        assertThat(leaseCalls).hasSize(leasesAfterExhaustion);
+    }
+
+    @Test
+    void shouldDropIdleBucketsOnReconcile() {
+        limiter.tryAcquireWindow("rate_limit:ip:1.2.3.4:/api", 20, 60).block();
+        assertThat(limiter.bucketCount()).isEqualTo(1);
+
+        now.addAndGet(121_000);
+        limiter.reconcile();
+
+        assertThat(limiter.bucketCount()).isZero();
+    }
+
+    @Test
+    void shouldNormalizeDynamicPathSegments() {
+        assertThat(PathNormalizer.normalize("/api/orders/123e4567-e89b-12d3-a456-426614174000/items/42"))
+                .isEqualTo("/api/orders/{id}/items/{id}");
+    }
+}
@@ -2,6 +2,7 @@ package com.Ecommerce.Gateway_Service.Security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -89,6 +90,52 @@ class JwtUtilTest {
         assertThat(isValid).isFalse();
     }
 
+    @Test
+    void shouldVerifyRepeatedTokenOnceAndServeCachedClaims() {
+        // Given
+        String token = createTokenSignedWithConfiguredKey("cacheduser", 3600000);
+
+        // When
+        Claims first = jwtUtil.verify(token).orElseThrow();
+        Claims second = jwtUtil.verify(token).orElseThrow();
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(jwtUtil.extractUsername(token)).isEqualTo("cacheduser");
+        assertThat(jwtUtil.cachedTokenCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedTokenOnceCacheIsFull() {
+        // Given
+        ReflectionTestUtils.setField(jwtUtil, "claimsCacheMaxEntries", 2);
+        String first = createTokenSignedWithConfiguredKey("first", 3600000);
+        String second = createTokenSignedWithConfiguredKey("second", 3600000);
+        String third = createTokenSignedWithConfiguredKey("third", 3600000);
+
+        // When
+        Claims firstClaims = jwtUtil.verify(first).orElseThrow();
+        Claims secondClaims = jwtUtil.verify(second).orElseThrow();
+        jwtUtil.verify(first); // first is now the most recently used
+        jwtUtil.verify(third);
+
+        // Then
+        assertThat(jwtUtil.cachedTokenCount()).isEqualTo(2);
+        assertThat(jwtUtil.verify(first).orElseThrow()).isSameAs(firstClaims);
+        assertThat(jwtUtil.verify(second).orElseThrow()).isNotSameAs(secondClaims);
+    }
+
+    private String createTokenSignedWithConfiguredKey(String username, long validForMillis) {
+        SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(testSecret));
+        return Jwts.builder()
+                .setSubject(username)
+                .claim("roles", List.of("ROLE_USER"))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + validForMillis))
+                .signWith(key)
+                .compact();
+    }
+
     private String createValidToken(String username, List<String> roles) {
         SecretKey key = Keys.hmacShaKeyFor(testSecret.getBytes());
         return Jwts.builder()
@@ -0,0 +1,179 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.AccountHome.AccountHomeResponseDTO;
+import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedOrderItemDTO;
+import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
+import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.SavedItemDTO;
+import com.Ecommerce.Gateway_Service.DTOs.Saved4Later.SavedItemsResponseDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AccountHomeBffServiceTest {
+
+    @Mock
+    private AsyncCartBffService asyncCartBffService;
+
+    @Mock
+    private AsyncSaved4LaterBffService asyncSaved4LaterBffService;
+
+    @Mock
+    private AsyncOrderBffService asyncOrderBffService;
+
+    @Mock
+    private AsyncProductService asyncProductService;
+
+    private AccountHomeBffService accountHomeBffService;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID inCartAndOrder = UUID.randomUUID();
+    private final UUID savedOnly = UUID.randomUUID();
+    private final UUID orderOnly = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        accountHomeBffService = new AccountHomeBffService(
+                asyncCartBffService, asyncSaved4LaterBffService, asyncOrderBffService, asyncProductService,
+                new BffStageTimers(new SimpleMeterRegistry()));
+
+        // the composite reuses each section's own merge
+        HotPathLog hotPathLog = new HotPathLog(true, 0.01, "", 50, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(asyncCartBffService, "hotPathLog", hotPathLog);
+        lenient().when(asyncCartBffService.mergeCartWithProductItems(any(), anyList())).thenCallRealMethod();
+        lenient().when(asyncSaved4LaterBffService.mergeSavedItemsWithProductItems(any(), anyList())).thenCallRealMethod();
+        lenient().when(asyncSaved4LaterBffService.createEnrichedResponseFromBasic(any())).thenCallRealMethod();
+        lenient().when(asyncOrderBffService.enrichOrderWithProducts(any(), anyMap())).thenCallRealMethod();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldEnrichAllSectionsFromOneProductBatch() {
+        UUID orderId = UUID.randomUUID();
+        when(asyncCartBffService.getBasicCart(userId.toString())).thenReturn(Mono.just(cart(inCartAndOrder)));
+        when(asyncSaved4LaterBffService.getBasicSavedItems(userId.toString())).thenReturn(Mono.just(saved(savedOnly)));
+        when(asyncOrderBffService.getUserOrderIds(userId, null, 5)).thenReturn(Mono.just(List.of(orderId.toString())));
+        when(asyncOrderBffService.getBasicOrder(orderId.toString()))
+                .thenReturn(Mono.just(order(orderId, inCartAndOrder, orderOnly)));
+        when(asyncProductService.getProductsBatch(anyList())).thenReturn(Mono.just(List.of(
+                product(inCartAndOrder), product(savedOnly), product(orderOnly))));
+
+        StepVerifier.create(accountHomeBffService.getAccountHome(userId, 5))
+                .assertNext(home -> {
+                    assertThat(home.isProductsEnriched()).isTrue();
+                    assertThat(home.getProductCount()).isEqualTo(3);
+                    assertThat(home.getCart().getItems().get(0).getProductName()).isEqualTo("p-" + inCartAndOrder);
+                    assertThat(home.getSavedItems().getItems().get(0).getProductName()).isEqualTo("p-" + savedOnly);
+                    assertThat(home.getRecentOrders().get(0).getItems())
+                            .extracting(EnrichedOrderItemDTO::getProductName)
+                            .containsExactly("p-" + inCartAndOrder, "p-" + orderOnly);
+                })
+                .verifyComplete();
+
+        ArgumentCaptor<List<UUID>> productIds = ArgumentCaptor.forClass(List.class);
+        verify(asyncProductService, times(1)).getProductsBatch(productIds.capture());
+        assertThat(productIds.getValue()).containsExactlyInAnyOrder(inCartAndOrder, savedOnly, orderOnly);
+    }
+
+    @Test
+    void shouldReturnSectionsUnenrichedWhenTheProductBatchFails() {
+        when(asyncCartBffService.getBasicCart(userId.toString())).thenReturn(Mono.just(cart(inCartAndOrder)));
+        when(asyncSaved4LaterBffService.getBasicSavedItems(userId.toString())).thenReturn(Mono.just(saved(savedOnly)));
+        when(asyncOrderBffService.getUserOrderIds(userId, null, 5)).thenReturn(Mono.just(List.of()));
+        when(asyncProductService.getProductsBatch(anyList())).thenReturn(Mono.error(new RuntimeException("product service down")));
+
+        StepVerifier.create(accountHomeBffService.getAccountHome(userId, 5))
+                .assertNext(home -> {
+                    assertThat(home.isProductsEnriched()).isFalse();
+                    assertThat(home.getCart().getItems()).hasSize(1);
+                    assertThat(home.getSavedItems().getItems().get(0).getProductName()).isEqualTo("Loading...");
+                    assertThat(home.getRecentOrders()).isEmpty();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void shouldSkipOrdersAndProductsWhenThereIsNothingToEnrich() {
+        when(asyncCartBffService.getBasicCart(userId.toString())).thenReturn(Mono.just(cart()));
+        when(asyncSaved4LaterBffService.getBasicSavedItems(userId.toString())).thenReturn(Mono.just(saved()));
+
+        AccountHomeResponseDTO home = accountHomeBffService.getAccountHome(userId, 0).block();
+
+        assertThat(home.getRecentOrders()).isEmpty();
+        assertThat(home.getProductCount()).isZero();
+        verify(asyncOrderBffService, never()).getUserOrderIds(any(), any(), anyInt());
+        verifyNoInteractions(asyncProductService);
+    }
+
+    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart(UUID... productIds) {
+        return EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .items(java.util.Arrays.stream(productIds)
+                        .map(productId -> EnrichedCartItemDTO.builder()
+                                .id(UUID.randomUUID())
+                                .productId(productId)
+                                .quantity(1)
+                                .price(BigDecimal.TEN)
+                                .build())
+                        .toList())
+                .itemCount(productIds.length)
+                .total(BigDecimal.TEN)
+                .build();
+    }
+
+    private SavedItemsResponseDTO saved(UUID... productIds) {
+        return SavedItemsResponseDTO.builder()
+                .userId(userId)
+                .items(java.util.Arrays.stream(productIds)
+                        .map(productId -> SavedItemDTO.builder()
+                                .id(UUID.randomUUID())
+                                .userId(userId)
+                                .productId(productId)
+                                .build())
+                        .toList())
+                .itemCount(productIds.length)
+                .build();
+    }
+
+    private EnrichedOrderResponse order(UUID orderId, UUID... productIds) {
+        return EnrichedOrderResponse.builder()
+                .id(orderId)
+                .userId(userId)
+                .status("PAID")
+                .items(java.util.Arrays.stream(productIds)
+                        .map(productId -> EnrichedOrderItemDTO.builder()
+                                .id(UUID.randomUUID())
+                                .productId(productId)
+                                .quantity(1)
+                                .build())
+                        .toList())
+                .build();
+    }
+
+    private EnrichedCartItemDTO product(UUID productId) {
+        return EnrichedCartItemDTO.builder()
+                .productId(productId)
+                .productName("p-" + productId)
+                .inStock(true)
+                .availableQuantity(10)
+                .build();
+    }
+}
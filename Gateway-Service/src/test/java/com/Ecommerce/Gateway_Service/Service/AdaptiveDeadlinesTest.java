@@ -0,0 +1,137 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveDeadlinesTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptiveDeadlines deadlines;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        deadlines = new AdaptiveDeadlines(true, 100, 30_000, 2.0, 50, 512,
+                true, 1_000, 10, 0.1, meterRegistry, System::currentTimeMillis);
+    }
+
+    @Test
+    void shouldDeriveDeadlineAndHedgeDelayFromObservedLatency() {
+        assertThat(deadlines.deadline("cart")).isEqualTo(Duration.ofSeconds(30));
+        assertThat(deadlines.hedgeDelay("cart")).isEqualTo(Duration.ofSeconds(1));
+
+        warmUp("cart");
+
+        // percentiles are refreshed every few samples, so allow for the last handful not being folded in yet
+        assertThat(deadlines.deadline("cart")).isBetween(Duration.ofMillis(190), Duration.ofMillis(200));
+        assertThat(deadlines.hedgeDelay("cart")).isBetween(Duration.ofMillis(90), Duration.ofMillis(100));
+        // other operations keep their own window
+        assertThat(deadlines.deadline("order")).isEqualTo(Duration.ofSeconds(30));
+    }
+
+    @Test
+    void shouldTakeTheHedgeAndCancelTheSlowPrimary() {
+        AtomicBoolean primaryCancelled = new AtomicBoolean();
+
+        StepVerifier.withVirtualTime(() -> deadlines.call("cart",
+                        deadline -> Mono.delay(Duration.ofSeconds(5)).thenReturn("kafka")
+                                .doOnCancel(() -> primaryCancelled.set(true)),
+                        () -> Mono.just("http")))
+                .expectSubscription()
+                .expectNoEvent(Duration.ofMillis(999))
+                .thenAwait(Duration.ofMillis(1))
+                .expectNext("http")
+                .verifyComplete();
+
+        assertThat(primaryCancelled).isTrue();
+        assertThat(meterRegistry.get("gateway.bff.hedge.issued").tag("operation", "cart").counter().count())
+                .isEqualTo(1.0);
+        assertThat(meterRegistry.get("gateway.bff.hedge.wins").tag("transport", "alternate").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldRecordTheCancelledPrimaryAsAtLeastItsElapsedTime() {
+        AdaptiveDeadlines virtualClock = new AdaptiveDeadlines(true, 100, 30_000, 2.0, 1, 512,
+                true, 1_000, 10, 0.1, new SimpleMeterRegistry(), () -> Schedulers.parallel().now(TimeUnit.MILLISECONDS));
+        for (int i = 0; i < 16; i++) {
+            virtualClock.record("cart", 400); // the next sample refreshes the percentiles
+        }
+        assertThat(virtualClock.deadline("cart")).isEqualTo(Duration.ofMillis(800));
+
+        StepVerifier.withVirtualTime(() -> virtualClock.call("cart",
+                        deadline -> Mono.delay(Duration.ofSeconds(5)).thenReturn("kafka"),
+                        () -> Mono.delay(Duration.ofMillis(300)).thenReturn("http")))
+                .expectSubscription()
+                .thenAwait(Duration.ofMillis(700))
+                .expectNext("http")
+                .verifyComplete();
+
+        // the hedge fired at the 400ms p95 and answered 300ms later: the primary took at least 700ms
+        assertThat(virtualClock.hedgeDelay("cart")).isEqualTo(Duration.ofMillis(700));
+    }
+
+    @Test
+    void shouldNotHedgeWhenThePrimaryAnswersInTime() {
+        AtomicBoolean alternateCalled = new AtomicBoolean();
+
+        StepVerifier.withVirtualTime(() -> deadlines.call("cart",
+                        deadline -> Mono.delay(Duration.ofMillis(200)).thenReturn("kafka"),
+                        () -> {
+                            alternateCalled.set(true);
+                            return Mono.just("http");
+                        }))
+                .thenAwait(Duration.ofMillis(200))
+                .expectNext("kafka")
+                .verifyComplete();
+
+        assertThat(alternateCalled).isFalse();
+    }
+
+    @Test
+    void shouldFailAtTheAdaptiveDeadline() {
+        warmUp("order");
+        Duration deadline = deadlines.deadline("order");
+        assertThat(deadline).isLessThan(Duration.ofSeconds(1));
+
+        StepVerifier.withVirtualTime(() -> deadlines.call("order", timeout -> Mono.<String>never()))
+                .expectSubscription()
+                .expectNoEvent(deadline.minusMillis(1))
+                .thenAwait(Duration.ofMillis(1))
+                .expectError(TimeoutException.class)
+                .verify();
+    }
+
+    @Test
+    void shouldCapHedgesToTheConfiguredShareOfCalls() {
+        AdaptiveDeadlines noBudget = new AdaptiveDeadlines(true, 100, 30_000, 2.0, 50, 512,
+                true, 1_000, 10, 0.0, new SimpleMeterRegistry(), System::currentTimeMillis);
+        for (int i = 1; i <= 100; i++) {
+            noBudget.record("cart", i);
+        }
+
+        StepVerifier.withVirtualTime(() -> noBudget.call("cart",
+                        deadline -> Mono.delay(Duration.ofMillis(150)).thenReturn("kafka"),
+                        () -> Mono.just("http")))
+                .thenAwait(Duration.ofMillis(150))
+                .expectNext("kafka")
+                .verifyComplete();
+    }
+
+    private void warmUp(String operation) {
+        for (int i = 1; i <= 100; i++) {
+            deadlines.record(operation, i);
+        }
+    }
+}
@@ -3,7 +3,10 @@ package com.Ecommerce.Gateway_Service.Service;
 import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
 import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
 import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -39,12 +42,19 @@ class AsyncCartBffServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private CartBffService cartBffService;
+
     private AsyncCartBffService asyncCartBffService;
 
     @BeforeEach
     void setUp() {
         asyncCartBffService = new AsyncCartBffService(
-                kafkaTemplate, asyncResponseManager, asyncProductService, objectMapper
+                kafkaTemplate, asyncResponseManager, asyncProductService, objectMapper,
+                new BffSingleFlight(true, new SimpleMeterRegistry()),
+                new AdaptiveDeadlines(true, 500, 30000, 2.0, 50, 512, true, 1000, 50, 0.1, new SimpleMeterRegistry()), cartBffService,
+                new BffStageTimers(new SimpleMeterRegistry()),
+                new HotPathLog(true, 0.01, "", 50, new SimpleMeterRegistry())
         );
     }
 
@@ -57,7 +67,7 @@ class AsyncCartBffServiceTest {
         EnrichedShoppingCartResponse.EnrichedCartResponseDTO basicCart = createBasicCartResponse(userUuid);
         List<EnrichedCartItemDTO> productItems = createProductItems();
 
-        when(asyncResponseManager.waitForResponse(anyString(), any(Duration.class), eq(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class)))
+        when(asyncResponseManager.register(anyString(), any(Duration.class), eq(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class)))
                 .thenReturn(Mono.just(basicCart));
         when(asyncProductService.getProductsBatch(anyList()))
                 .thenReturn(Mono.just(productItems));
@@ -79,7 +89,8 @@ class AsyncCartBffServiceTest {
                 })
                 .verifyComplete();
 
-        verify(kafkaTemplate).send(eq("cart.request"), anyString(), any());
+        verify(kafkaTemplate).send(argThat((ProducerRecord<String, Object> record) -> record.topic().equals("cart.request")
+                && record.headers().lastHeader(RequestDeadline.REQUEST_DEADLINE_HEADER) != null));
     }
 
     @Test
@@ -90,7 +101,7 @@ class AsyncCartBffServiceTest {
 
         EnrichedShoppingCartResponse.EnrichedCartResponseDTO emptyCart = createEmptyCartResponse(userUuid);
 
-        when(asyncResponseManager.waitForResponse(anyString(), any(Duration.class), eq(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class)))
+        when(asyncResponseManager.register(anyString(), any(Duration.class), eq(EnrichedShoppingCartResponse.EnrichedCartResponseDTO.class)))
                 .thenReturn(Mono.just(emptyCart));
 
         // When
@@ -0,0 +1,107 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
+import com.Ecommerce.Gateway_Service.Kafka.AsyncResponseManager;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncOrderBffServiceStreamTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private AsyncResponseManager asyncResponseManager;
+
+    @Mock
+    private AsyncProductService asyncProductService;
+
+    private AsyncOrderBffService asyncOrderBffService;
+
+    @BeforeEach
+    void setUp() {
+        asyncOrderBffService = new AsyncOrderBffService(
+                kafkaTemplate, asyncResponseManager, asyncProductService, new ObjectMapper(),
+                new BffSingleFlight(true, new SimpleMeterRegistry()),
+                new AdaptiveDeadlines(true, 500, 30000, 2.0, 50, 512, true, 1000, 50, 0.1, new SimpleMeterRegistry()),
+                new BffStageTimers(new SimpleMeterRegistry()),
+                new HotPathLog(true, 0.01, "", 50, new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(asyncOrderBffService, "orderStreamConcurrency", 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldStreamEachOrderOnce() {
+        UUID firstId = UUID.randomUUID();
+        UUID secondId = UUID.randomUUID();
+
+        when(asyncResponseManager.register(anyString(), any(Duration.class), eq(EnrichedOrderResponse.class)))
+                .thenReturn(Mono.just(order(firstId)))
+                .thenReturn(Mono.just(order(secondId)));
+
+        StepVerifier.create(asyncOrderBffService.streamEnrichedOrders(
+                        List.of(firstId.toString(), secondId.toString(), firstId.toString()), false))
+                .recordWith(ArrayList::new)
+                .expectNextCount(2)
+                .consumeRecordedWith(orders -> assertThat(orders)
+                        .extracting(EnrichedOrderResponse::getId)
+                        .containsExactlyInAnyOrder(firstId, secondId))
+                .verifyComplete();
+
+        // duplicate order ID is requested only once
+        verify(kafkaTemplate, times(2)).send(argThat((ProducerRecord<String, Object> record) ->
+                record.topic().equals("order.request") && record.value() instanceof Map
+                        && record.headers().lastHeader(RequestDeadline.REQUEST_DEADLINE_HEADER) != null));
+        verifyNoInteractions(asyncProductService);
+    }
+
+    @Test
+    void shouldEndTheStreamWithTheErrorOfAnOrderThatFailsToLoad() {
+        UUID firstId = UUID.randomUUID();
+        ReflectionTestUtils.setField(asyncOrderBffService, "orderStreamConcurrency", 1);
+
+        when(asyncResponseManager.register(anyString(), any(Duration.class), eq(EnrichedOrderResponse.class)))
+                .thenReturn(Mono.just(order(firstId)))
+                .thenReturn(Mono.error(new RuntimeException("order service down")));
+
+        StepVerifier.create(asyncOrderBffService.streamEnrichedOrders(
+                        List.of(firstId.toString(), UUID.randomUUID().toString(), UUID.randomUUID().toString()), false))
+                .assertNext(order -> assertThat(order.getId()).isEqualTo(firstId))
+                .expectErrorMessage("order service down")
+                .verify();
+
+        // the rest of the stream is not requested once it has failed
+        verify(kafkaTemplate, times(2)).send(any(ProducerRecord.class));
+    }
+
+    private EnrichedOrderResponse order(UUID id) {
+        return EnrichedOrderResponse.builder()
+                .id(id)
+                .userId(UUID.randomUUID())
+                .status("PAID")
+                .items(List.of())
+                .build();
+    }
+}
@@ -0,0 +1,169 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.EnrichedShoppingCartResponse;
+import com.Ecommerce.Gateway_Service.DTOs.Order.EnrichedOrderResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BffETagCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private SimpleMeterRegistry meterRegistry;
+    private ProductNearCache productNearCache;
+    private BffETagCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        productNearCache = new ProductNearCache(true, 100, Duration.ofSeconds(300), null, meterRegistry, now::get);
+        cache = new BffETagCache(true, 100, Duration.ofSeconds(60), productNearCache, meterRegistry, now::get);
+    }
+
+    @Test
+    void shouldShortCircuitMatchingIfNoneMatchUntilTheCartChanges() {
+        UUID userId = UUID.randomUUID();
+        String key = BffETagCache.cartKey(userId.toString().toUpperCase());
+
+        BffETagCache.Validation validation = cache.begin(key, true);
+        String eTag = cache.cartETag(cart(userId, LocalDateTime.of(2025, 7, 11, 10, 0)), validation);
+        cache.remember(validation, eTag);
+
+        assertThat(eTag).startsWith("\"").endsWith("\"");
+        assertThat(cache.notModified(key, "W/" + eTag)).contains(eTag);
+        assertThat(cache.notModified(key, "\"something-else\"")).isEmpty();
+
+        // cart events carry the lower-case UUID
+        cache.invalidate(BffETagCache.cartKey(userId.toString()));
+        assertThat(cache.notModified(key, eTag)).isEmpty();
+        assertThat(meterRegistry.get("gateway.bff.conditional.not.modified").tag("path", "short-circuit")
+                .counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldNotRememberAnETagFetchedBeforeAnInvalidation() {
+        String orderId = UUID.randomUUID().toString();
+        String key = BffETagCache.orderKey(orderId, false);
+
+        BffETagCache.Validation validation = cache.begin(key, false);
+        cache.invalidateOrder(orderId);
+        cache.remember(validation, cache.orderETag(order(orderId, "PENDING"), validation));
+
+        assertThat(cache.notModified(key, cache.orderETag(order(orderId, "PENDING"), validation))).isEmpty();
+    }
+
+    @Test
+    void shouldChangeEnrichedETagsWhenAProductChanges() {
+        UUID userId = UUID.randomUUID();
+        String key = BffETagCache.cartKey(userId.toString());
+        EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart = cart(userId, LocalDateTime.now());
+
+        BffETagCache.Validation before = cache.begin(key, true);
+        String eTag = cache.cartETag(cart, before);
+        cache.remember(before, eTag);
+
+        productNearCache.invalidate(UUID.randomUUID());
+
+        assertThat(cache.notModified(key, eTag)).isEmpty();
+        assertThat(cache.cartETag(cart, cache.begin(key, true))).isNotEqualTo(eTag);
+    }
+
+    @Test
+    void shouldLetRememberedETagsExpire() {
+        String orderId = UUID.randomUUID().toString();
+        String key = BffETagCache.orderKey(orderId, true);
+
+        BffETagCache.Validation validation = cache.begin(key, true);
+        String eTag = cache.orderETag(order(orderId, "SHIPPED"), validation);
+        cache.remember(validation, eTag);
+
+        now.addAndGet(Duration.ofSeconds(61).toMillis());
+        assertThat(cache.notModified(key, eTag)).isEmpty();
+    }
+
+    @Test
+    void shouldSkipETagsForEnrichedDataWhenProductChangesAreNotTracked() {
+        BffETagCache untracked = new BffETagCache(true, 100, Duration.ofSeconds(60),
+                new ProductNearCache(false, 100, Duration.ofSeconds(300), null, meterRegistry, now::get),
+                new SimpleMeterRegistry(), now::get);
+        String orderId = UUID.randomUUID().toString();
+
+        BffETagCache.Validation enriched = untracked.begin(BffETagCache.orderKey(orderId, true), true);
+        BffETagCache.Validation basic = untracked.begin(BffETagCache.orderKey(orderId, false), false);
+
+        assertThat(untracked.orderETag(order(orderId, "PENDING"), enriched)).isNull();
+        ResponseEntity<EnrichedOrderResponse> response =
+                untracked.okWithETag(order(orderId, "PENDING"), untracked.orderETag(order(orderId, "PENDING"), basic), null);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(response.getHeaders().getETag()).isNotNull();
+    }
+
+    @Test
+    void shouldInvalidateTheOwningCartOnACartItemEvent() {
+        UUID userId = UUID.randomUUID();
+        String key = BffETagCache.cartKey(userId.toString());
+        EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart = cart(userId, LocalDateTime.of(2025, 7, 11, 10, 0));
+
+        BffETagCache.Validation validation = cache.begin(key, true);
+        String eTag = cache.cartETag(cart, validation);
+        cache.remember(validation, eTag);
+        cache.invalidateCartById(UUID.randomUUID().toString());
+        assertThat(cache.notModified(key, eTag)).contains(eTag);
+
+        // item events name the cart, not the user
+        cache.invalidateCartById(cart.getId().toString().toUpperCase());
+        assertThat(cache.notModified(key, eTag)).isEmpty();
+    }
+
+    @Test
+    void shouldInvalidateTheCartAfterAProxiedMutation() {
+        UUID userId = UUID.randomUUID();
+        String key = BffETagCache.cartKey(userId.toString());
+        BffETagCache.Validation validation = cache.begin(key, false);
+        String eTag = cache.cartETag(cart(userId, LocalDateTime.of(2025, 7, 11, 10, 0)), validation);
+        cache.remember(validation, eTag);
+        CartMutationETagFilter filter = new CartMutationETagFilter(cache);
+        GatewayFilterChain chain = exchange -> Mono.empty();
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.get("/api/carts/" + userId)), chain).block();
+        assertThat(cache.notModified(key, eTag)).contains(eTag);
+
+        filter.filter(MockServerWebExchange.from(MockServerHttpRequest.post("/api/carts/" + userId + "/items")), chain).block();
+        assertThat(cache.notModified(key, eTag)).isEmpty();
+        assertThat(CartMutationETagFilter.userId("/api/products/1")).isNull();
+    }
+
+    private EnrichedShoppingCartResponse.EnrichedCartResponseDTO cart(UUID userId, LocalDateTime updatedAt) {
+        return EnrichedShoppingCartResponse.EnrichedCartResponseDTO.builder()
+                .id(UUID.randomUUID())
+                .userId(userId)
+                .items(List.of())
+                .itemCount(0)
+                .total(BigDecimal.ZERO)
+                .updatedAt(updatedAt)
+                .build();
+    }
+
+    private EnrichedOrderResponse order(String orderId, String status) {
+        return EnrichedOrderResponse.builder()
+                .id(UUID.fromString(orderId))
+                .status(status)
+                .updatedAt(LocalDateTime.of(2025, 7, 11, 10, 0))
+                .build();
+    }
+}
@@ -0,0 +1,65 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BffSingleFlightTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BffSingleFlight singleFlight;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        singleFlight = new BffSingleFlight(true, meterRegistry);
+    }
+
+    @Test
+    void shouldShareOneDownstreamCallBetweenConcurrentCallers() {
+        AtomicInteger downstreamCalls = new AtomicInteger();
+        Sinks.One<String> reply = Sinks.one();
+
+        Mono<String> first = singleFlight.execute("cart", "user-1", () -> {
+            downstreamCalls.incrementAndGet();
+            return reply.asMono();
+        });
+        Mono<String> second = singleFlight.execute("cart", "user-1", () -> {
+            downstreamCalls.incrementAndGet();
+            return reply.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> reply.tryEmitValue("cart"))
+                .assertNext(results -> assertThat(results.getT1()).isEqualTo(results.getT2()))
+                .verifyComplete();
+
+        assertThat(downstreamCalls).hasValue(1);
+        assertThat(meterRegistry.get("gateway.bff.singleflight.saved").tag("operation", "cart").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldStartFreshCallOnceFlightCompletesAndKeepKeysApart() {
+        AtomicInteger downstreamCalls = new AtomicInteger();
+
+        StepVerifier.create(singleFlight.execute("order", "o-1", () -> Mono.fromCallable(downstreamCalls::incrementAndGet)))
+                .expectNext(1)
+                .verifyComplete();
+        StepVerifier.create(singleFlight.execute("order", "o-1", () -> Mono.fromCallable(downstreamCalls::incrementAndGet)))
+                .expectNext(2)
+                .verifyComplete();
+        StepVerifier.create(singleFlight.execute("cart", "o-1", () -> Mono.fromCallable(downstreamCalls::incrementAndGet)))
+                .expectNext(3)
+                .verifyComplete();
+
+        assertThat(meterRegistry.get("gateway.bff.singleflight.inflight").gauge().value()).isZero();
+    }
+}
@@ -0,0 +1,86 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BffStageTimersTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private BffStageTimers stageTimers;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        stageTimers = new BffStageTimers(meterRegistry);
+    }
+
+    @Test
+    void shouldTimeReactiveAndSynchronousStages() {
+        StepVerifier.create(stageTimers.time("cart", BffStageTimers.REPLY_WAIT, Mono.just("reply")))
+                .expectNext("reply")
+                .verifyComplete();
+        StepVerifier.create(stageTimers.time("cart", BffStageTimers.PRODUCT_BATCH, Mono.error(new RuntimeException("down"))))
+                .verifyError();
+        assertThat(stageTimers.time("cart", BffStageTimers.MERGE, () -> "merged")).isEqualTo("merged");
+
+        assertThat(stage("cart", BffStageTimers.REPLY_WAIT).count()).isEqualTo(1);
+        assertThat(stage("cart", BffStageTimers.PRODUCT_BATCH).count()).isEqualTo(1);
+        assertThat(stage("cart", BffStageTimers.MERGE).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordSendOnceTheBrokerAcknowledges() {
+        CompletableFuture<String> ack = new CompletableFuture<>();
+
+        stageTimers.timeSend("order", ack);
+        assertThat(meterRegistry.find("gateway.bff.stage.duration").tag("stage", BffStageTimers.KAFKA_SEND).timer()).isNull();
+
+        ack.complete("ok");
+        assertThat(stage("order", BffStageTimers.KAFKA_SEND).count()).isEqualTo(1);
+
+        // mocked templates return no future - nothing to time
+        stageTimers.timeSend("order", null);
+    }
+
+    @Test
+    void shouldSplitTheRoundTripIntoQueueAndProcessingTime() {
+        long now = System.currentTimeMillis();
+
+        stageTimers.recordReply("cart", now - 300, now - 200, now - 50);
+
+        assertThat(stage("cart", BffStageTimers.REQUEST_QUEUE).totalTime(TimeUnit.MILLISECONDS)).isEqualTo(100);
+        assertThat(stage("cart", BffStageTimers.PROCESSING).totalTime(TimeUnit.MILLISECONDS)).isEqualTo(150);
+        assertThat(stage("cart", BffStageTimers.REPLY_QUEUE).totalTime(TimeUnit.MILLISECONDS)).isBetween(50.0, 1_000.0);
+    }
+
+    @Test
+    void shouldSkipStagesWhoseTimestampsAreMissing() {
+        stageTimers.recordReply("product-batch", 0, 0, System.currentTimeMillis());
+
+        assertThat(meterRegistry.find("gateway.bff.stage.duration").tag("stage", BffStageTimers.REQUEST_QUEUE).timer()).isNull();
+        assertThat(meterRegistry.find("gateway.bff.stage.duration").tag("stage", BffStageTimers.PROCESSING).timer()).isNull();
+        assertThat(stage("product-batch", BffStageTimers.REPLY_QUEUE).count()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldTimeGatewayFiltersSeparately() {
+        stageTimers.recordFilter("jwt", System.nanoTime());
+        stageTimers.recordFilter("rate-limit", System.nanoTime());
+
+        assertThat(meterRegistry.get("gateway.filter.duration").tag("filter", "jwt").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("gateway.filter.duration").tag("filter", "rate-limit").timer().count()).isEqualTo(1);
+    }
+
+    private Timer stage(String operation, String stage) {
+        return meterRegistry.get("gateway.bff.stage.duration").tag("operation", operation).tag("stage", stage).timer();
+    }
+}
@@ -0,0 +1,83 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotPathLogTest {
+
+    private static final Logger log = LoggerFactory.getLogger(HotPathLogTest.class);
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private SimpleMeterRegistry meterRegistry;
+    private HotPathLog hotPathLog;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        hotPathLog = new HotPathLog(true, 0.0, "cart.payload=1.0", 3, meterRegistry, clock::get);
+    }
+
+    @Test
+    void shouldNotEvaluateArgumentsOfDroppedLines() {
+        AtomicInteger evaluations = new AtomicInteger();
+
+        hotPathLog.verbose(log, "order.payload", "c-1", "payload {}", () -> evaluations.incrementAndGet());
+        hotPathLog.verbose(log, "cart.payload", "c-1", "payload {}", () -> evaluations.incrementAndGet());
+
+        assertThat(evaluations).hasValue(1);
+        assertThat(events("order.payload", "sampled_out")).isEqualTo(1.0);
+        assertThat(events("cart.payload", "emitted")).isEqualTo(1.0);
+    }
+
+    @Test
+    void shouldCapEachCategoryPerSecond() {
+        for (int i = 0; i < 5; i++) {
+            hotPathLog.summary(log, "reply", "line {}", () -> "x");
+        }
+        hotPathLog.summary(log, "cart", "line {}", () -> "x");
+
+        assertThat(events("reply", "emitted")).isEqualTo(3.0);
+        assertThat(events("reply", "rate_limited")).isEqualTo(2.0);
+        assertThat(events("cart", "emitted")).isEqualTo(1.0);
+
+        clock.addAndGet(1_000);
+        hotPathLog.summary(log, "reply", "line {}", () -> "x");
+        assertThat(events("reply", "emitted")).isEqualTo(4.0);
+    }
+
+    @Test
+    void shouldSampleWholeTracesByCorrelationId() {
+        HotPathLog half = new HotPathLog(true, 0.5, "", 100, meterRegistry, clock::get);
+        int sampled = 0;
+        for (int i = 0; i < 2_000; i++) {
+            String correlationId = UUID.randomUUID().toString();
+            boolean first = half.sampled("reply", correlationId);
+            // the same trace gets the same answer on the request and the reply side
+            assertThat(half.sampled("reply", correlationId)).isEqualTo(first);
+            sampled += first ? 1 : 0;
+        }
+        assertThat(sampled).isBetween(800, 1_200);
+    }
+
+    @Test
+    void shouldLogEverythingWhenDisabled() {
+        HotPathLog off = new HotPathLog(false, 0.0, "", 1, meterRegistry, clock::get);
+
+        assertThat(off.isVerbose(log, "cart.merge", (String) null)).isTrue();
+        assertThat(off.isVerbose(log, "cart.merge", (String) null)).isTrue();
+        assertThat(events("cart.merge", "emitted")).isEqualTo(2.0);
+    }
+
+    private double events(String category, String outcome) {
+        return meterRegistry.get("gateway.log.events").tag("category", category).tag("outcome", outcome).counter().count();
+    }
+}
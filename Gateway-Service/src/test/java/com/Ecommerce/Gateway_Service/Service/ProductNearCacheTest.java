@@ -0,0 +1,74 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductNearCacheTest {
+
+    private final AtomicLong now = new AtomicLong(1_000);
+    private SimpleMeterRegistry meterRegistry;
+    private ProductNearCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ProductNearCache(true, 2, Duration.ofSeconds(60), null, meterRegistry, now::get);
+    }
+
+    @Test
+    void shouldServeCachedProductsAndReportOnlyMisses() {
+        UUID cached = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+
+        ProductNearCache.Lookup first = cache.lookup(List.of(cached)).block();
+        cache.store(List.of(product(cached)), first.sequence());
+
+        ProductNearCache.Lookup second = cache.lookup(List.of(cached, missing)).block();
+
+        assertThat(second.cached()).extracting(EnrichedCartItemDTO::getProductId).containsExactly(cached);
+        assertThat(second.missing()).containsExactly(missing);
+        assertThat(meterRegistry.get("gateway.product.cache.hit.ratio").gauge().value()).isEqualTo(1.0 / 3.0);
+    }
+
+    @Test
+    void shouldDropProductOnInvalidationAndSkipStoresThatRacedIt() {
+        UUID productId = UUID.randomUUID();
+
+        ProductNearCache.Lookup lookup = cache.lookup(List.of(productId)).block();
+        cache.store(List.of(product(productId)), lookup.sequence());
+        cache.invalidate(productId);
+
+        assertThat(cache.lookup(List.of(productId)).block().missing()).containsExactly(productId);
+
+        // a fetch that started before the invalidation must not put the old data back
+        cache.store(List.of(product(productId)), lookup.sequence());
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtlAndStayBounded() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+
+        long sequence = cache.lookup(List.of(first)).block().sequence();
+        cache.store(List.of(product(first), product(second), product(third)), sequence);
+        assertThat(cache.size()).isEqualTo(2);
+
+        now.addAndGet(Duration.ofSeconds(61).toMillis());
+        assertThat(cache.lookup(List.of(second, third)).block().missing()).containsExactly(second, third);
+    }
+
+    private EnrichedCartItemDTO product(UUID productId) {
+        return EnrichedCartItemDTO.builder().productId(productId).productName("p-" + productId).build();
+    }
+}
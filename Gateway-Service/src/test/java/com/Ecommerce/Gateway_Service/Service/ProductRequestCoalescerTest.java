@@ -0,0 +1,91 @@
+package com.Ecommerce.Gateway_Service.Service;
+
+import com.Ecommerce.Gateway_Service.DTOs.Cart.EnrichedCartItemDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductRequestCoalescerTest {
+
+    private final List<List<UUID>> dispatchedBatches = new CopyOnWriteArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dispatchedBatches.clear();
+    }
+
+    @Test
+    void shouldCoalesceConcurrentCallersIntoOneDeduplicatedBatch() {
+        ProductRequestCoalescer coalescer = new ProductRequestCoalescer(
+                Duration.ofMillis(50), 100, this::fetch, meterRegistry);
+
+        UUID shared = UUID.randomUUID();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        Mono<List<EnrichedCartItemDTO>> callerA = coalescer.getProducts(List.of(shared, first));
+        Mono<List<EnrichedCartItemDTO>> callerB = coalescer.getProducts(List.of(shared, second));
+
+        StepVerifier.create(Mono.zip(callerA, callerB))
+                .assertNext(results -> {
+                    assertThat(ids(results.getT1())).containsExactlyInAnyOrder(shared, first);
+                    assertThat(ids(results.getT2())).containsExactlyInAnyOrder(shared, second);
+                })
+                .verifyComplete();
+
+        assertThat(dispatchedBatches).hasSize(1);
+        assertThat(dispatchedBatches.get(0)).containsExactlyInAnyOrder(shared, first, second);
+        assertThat(meterRegistry.get("gateway.product.batch.dedup.ratio").summary().mean())
+                .isEqualTo(4.0 / 3.0);
+    }
+
+    @Test
+    void shouldDispatchImmediatelyWhenBatchSizeCapIsReached() {
+        ProductRequestCoalescer coalescer = new ProductRequestCoalescer(
+                Duration.ofSeconds(10), 2, this::fetch, meterRegistry);
+
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        StepVerifier.create(coalescer.getProducts(List.of(first, second)))
+                .assertNext(products -> assertThat(ids(products)).containsExactlyInAnyOrder(first, second))
+                .expectComplete()
+                .verify(Duration.ofSeconds(2));
+
+        assertThat(dispatchedBatches).hasSize(1);
+    }
+
+    @Test
+    void shouldFailAllCallersWhenBatchFails() {
+        ProductRequestCoalescer coalescer = new ProductRequestCoalescer(
+                Duration.ofMillis(20), 100, ids -> Mono.error(new RuntimeException("boom")), meterRegistry);
+
+        StepVerifier.create(coalescer.getProducts(List.of(UUID.randomUUID())))
+                .expectErrorMessage("boom")
+                .verify(Duration.ofSeconds(2));
+    }
+
+    private Mono<List<EnrichedCartItemDTO>> fetch(List<UUID> productIds) {
+        dispatchedBatches.add(new ArrayList<>(productIds));
+        return Mono.just(productIds.stream()
+                .map(id -> EnrichedCartItemDTO.builder().productId(id).productName("Product " + id).build())
+                .collect(Collectors.toList()));
+    }
+
+    private List<UUID> ids(List<EnrichedCartItemDTO> products) {
+        return products.stream().map(EnrichedCartItemDTO::getProductId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,100 @@
+package com.Ecommerce.Kafka_Wire_Format;
+
+import com.fasterxml.jackson.databind.JavaType;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Decodes {@link KafkaWireFormat} payloads straight into the DTO registered for the topic, in the format
+ * named by the record's header; unregistered topics decode to the default type.
+ *
+ * Undecodable payloads throw, so wrap it in an ErrorHandlingDeserializer - or, for listeners that answer
+ * them by record key (an error reply, failing the pending request), use {@link #undecodableAsNull()}.
+ */
+public class KafkaWireDeserializer implements Deserializer<Object> {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaWireDeserializer.class);
+
+    private final Map<Pattern, JavaType> topicTypes = new LinkedHashMap<>();
+    private final JavaType defaultType;
+    private boolean undecodableAsNull;
+
+    public KafkaWireDeserializer() {
+        this(KafkaWireFormat.type(Object.class));
+    }
+
+    public KafkaWireDeserializer(Class<?> defaultType) {
+        this(KafkaWireFormat.type(defaultType));
+    }
+
+    public KafkaWireDeserializer(JavaType defaultType) {
+        this.defaultType = defaultType;
+    }
+
+    /**
+     * Decode topics matching the pattern into the given type
+     */
+    public KafkaWireDeserializer withType(Pattern topicPattern, JavaType type) {
+        topicTypes.put(topicPattern, type);
+        return this;
+    }
+
+    /**
+     * Decode the topic into the given type
+     */
+    public KafkaWireDeserializer withType(String topic, Class<?> type) {
+        return withType(Pattern.compile(Pattern.quote(topic)), KafkaWireFormat.type(type));
+    }
+
+    /**
+     * Hand undecodable payloads over as {@code null} values instead of failing the record
+     */
+    public KafkaWireDeserializer undecodableAsNull() {
+        this.undecodableAsNull = true;
+        return this;
+    }
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        return deserialize(topic, data, null);
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data, KafkaWireFormat.format(headers));
+    }
+
+    private Object deserialize(String topic, byte[] data, String format) {
+        if (data == null) {
+            return null;
+        }
+
+        JavaType type = typeFor(topic);
+        try {
+            return KafkaWireFormat.decode(data, format, type);
+        } catch (SerializationException e) {
+            if (!undecodableAsNull) {
+                throw e;
+            }
+            log.error("Undecodable payload on topic {} ({} bytes, {}, expected {}): {}",
+                    topic, data.length, format != null ? format : "JSON", type, e.getMessage());
+            return null;
+        }
+    }
+
+    JavaType typeFor(String topic) {
+        for (Map.Entry<Pattern, JavaType> entry : topicTypes.entrySet()) {
+            if (entry.getKey().matcher(topic).matches()) {
+                return entry.getValue();
+            }
+        }
+        return defaultType;
+    }
+}
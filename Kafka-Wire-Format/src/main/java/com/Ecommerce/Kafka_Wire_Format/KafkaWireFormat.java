@@ -0,0 +1,105 @@
+package com.Ecommerce.Kafka_Wire_Format;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Wire format of the BFF request/reply topics ({@code cart.*}, {@code order.*}, {@code product.batch.*},
+ * {@code product.error}, {@code saved4later.*} and their per-instance reply topics).
+ *
+ * Payloads are Jackson Smile: a binary encoding of the JSON data model, so the DTO classes on both
+ * sides remain the schema and field names keep their meaning. Records carry a {@value #HEADER} header
+ * naming the format version, and readers decode by that header: no header means plain JSON from a
+ * peer that has not been upgraded yet, an unknown version is rejected rather than guessed at.
+ */
+public final class KafkaWireFormat {
+
+    public static final String HEADER = "wire-format";
+    public static final String SMILE_V1 = "smile-v1";
+
+    /** Topics written in the binary format - domain events (dash-separated names) stay JSON */
+    public static final Pattern BFF_TOPICS =
+            Pattern.compile("^(cart|order|product\\.batch|product\\.error|saved4later)\\..+");
+
+    private static final ObjectMapper SMILE = configure(new ObjectMapper(SmileFactory.builder()
+            .enable(SmileGenerator.Feature.CHECK_SHARED_STRING_VALUES)
+            .build()));
+    private static final ObjectMapper JSON = configure(new ObjectMapper());
+
+    private KafkaWireFormat() {
+    }
+
+    public static byte[] encode(Object value) {
+        try {
+            return SMILE.writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new SerializationException("Can't encode " + value.getClass().getName() + " as " + SMILE_V1, e);
+        }
+    }
+
+    /**
+     * Decode a payload written in {@code format} - the record's {@value #HEADER} header, {@code null} for JSON
+     */
+    public static <T> T decode(byte[] data, String format, JavaType type) {
+        ObjectMapper mapper = mapperFor(format);
+        try {
+            return mapper.readValue(data, type);
+        } catch (IOException e) {
+            throw new SerializationException("Can't decode " + (format != null ? format : "JSON")
+                    + " payload as " + type, e);
+        }
+    }
+
+    public static <T> T decode(byte[] data, String format, Class<T> type) {
+        return decode(data, format, JSON.constructType(type));
+    }
+
+    public static JavaType type(Class<?> rawType, Class<?>... parameters) {
+        return parameters.length == 0
+                ? JSON.constructType(rawType)
+                : JSON.getTypeFactory().constructParametricType(rawType, parameters);
+    }
+
+    /**
+     * The format named by the record's {@value #HEADER} header, {@code null} when it has none
+     */
+    public static String format(Headers headers) {
+        Header header = headers != null ? headers.lastHeader(HEADER) : null;
+        return header != null && header.value() != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    public static byte[] headerValue() {
+        return SMILE_V1.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ObjectMapper mapperFor(String format) {
+        if (format == null) {
+            return JSON;
+        }
+        if (SMILE_V1.equals(format)) {
+            return SMILE;
+        }
+        throw new SerializationException("Unsupported " + HEADER + " '" + format + "', expected " + SMILE_V1);
+    }
+
+    // Same modules as spring-kafka's JSON mapper - findAndRegisterModules() would also pick up
+    // whatever else is on the classpath and change what generic payloads decode to
+    private static ObjectMapper configure(ObjectMapper mapper) {
+        mapper.registerModule(new Jdk8Module());
+        mapper.registerModule(new JavaTimeModule());
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        return mapper;
+    }
+}
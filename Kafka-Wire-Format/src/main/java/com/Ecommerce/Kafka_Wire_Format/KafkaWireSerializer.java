@@ -0,0 +1,33 @@
+package com.Ecommerce.Kafka_Wire_Format;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes BFF request/reply payloads in {@link KafkaWireFormat} and tags the record with the format version
+ */
+public class KafkaWireSerializer implements Serializer<Object> {
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (data instanceof String json) {
+            return json.getBytes(StandardCharsets.UTF_8); // already serialized JSON
+        }
+        return KafkaWireFormat.encode(data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        headers.remove(KafkaWireFormat.HEADER);
+        byte[] payload = serialize(topic, data);
+        if (payload != null && !(data instanceof String)) {
+            headers.add(KafkaWireFormat.HEADER, KafkaWireFormat.headerValue());
+        }
+        return payload;
+    }
+}
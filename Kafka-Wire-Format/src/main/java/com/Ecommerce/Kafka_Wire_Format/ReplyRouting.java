@@ -0,0 +1,35 @@
+package com.Ecommerce.Kafka_Wire_Format;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Routes BFF replies back to the gateway instance that sent the request.
+ *
+ * The gateway advertises its instance id in the {@value #REPLY_INSTANCE_HEADER} header and
+ * consumes {@code <baseTopic>.<instanceId>}. Requests without the header (older gateways)
+ * are answered on the shared base topic.
+ */
+public final class ReplyRouting {
+
+    public static final String REPLY_INSTANCE_HEADER = "reply-instance";
+
+    private ReplyRouting() {
+    }
+
+    public static String replyInstance(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(REPLY_INSTANCE_HEADER);
+        return header != null && header.value() != null
+                ? new String(header.value(), StandardCharsets.UTF_8)
+                : null;
+    }
+
+    public static String replyTopic(String baseTopic, String replyInstance) {
+        if (replyInstance == null || replyInstance.isBlank()) {
+            return baseTopic;
+        }
+        return baseTopic + "." + replyInstance;
+    }
+}
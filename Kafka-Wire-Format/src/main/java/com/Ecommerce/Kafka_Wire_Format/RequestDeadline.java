@@ -0,0 +1,55 @@
+package com.Ecommerce.Kafka_Wire_Format;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Absolute deadline the gateway puts on BFF requests.
+ *
+ * The gateway sends {@value #REQUEST_DEADLINE_HEADER} as epoch millis (decimal string); once it
+ * has passed the gateway is no longer waiting, so the request is dropped before touching the
+ * database. Requests without the header (older gateways) never expire.
+ */
+public final class RequestDeadline {
+
+    public static final String REQUEST_DEADLINE_HEADER = "request-deadline";
+
+    private RequestDeadline() {
+    }
+
+    /**
+     * Request record whose deadline is {@code timeout} from now
+     */
+    public static ProducerRecord<String, Object> request(String topic, String key, Object value, Duration timeout) {
+        ProducerRecord<String, Object> record = new ProducerRecord<>(topic, key, value);
+        long deadline = System.currentTimeMillis() + timeout.toMillis();
+        record.headers().add(REQUEST_DEADLINE_HEADER, Long.toString(deadline).getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    public static boolean isExpired(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(REQUEST_DEADLINE_HEADER);
+        if (header == null || header.value() == null) {
+            return false;
+        }
+        return isExpired(new String(header.value(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Same check for listeners that bind the header as a String
+     */
+    public static boolean isExpired(String deadline) {
+        if (deadline == null || deadline.isBlank()) {
+            return false;
+        }
+        try {
+            return System.currentTimeMillis() > Long.parseLong(deadline.trim());
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+}
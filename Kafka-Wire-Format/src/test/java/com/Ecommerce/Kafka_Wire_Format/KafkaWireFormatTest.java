@@ -0,0 +1,74 @@
+package com.Ecommerce.Kafka_Wire_Format;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class KafkaWireFormatTest {
+
+    private final KafkaWireDeserializer deserializer = new KafkaWireDeserializer()
+            .withType("cart.request", Request.class);
+
+    @Test
+    void shouldTagSmilePayloadsAndDecodeThemByHeader() {
+        LocalDateTime sentAt = LocalDateTime.of(2025, 7, 11, 23, 37, 35);
+        Headers headers = new RecordHeaders();
+
+        byte[] payload = new KafkaWireSerializer().serialize("cart.request", headers,
+                new Request("corr-1", new BigDecimal("19.99"), sentAt));
+
+        assertThat(KafkaWireFormat.format(headers)).isEqualTo(KafkaWireFormat.SMILE_V1);
+        Object decoded = deserializer.deserialize("cart.request", headers, payload);
+        assertThat(decoded).isEqualTo(new Request("corr-1", new BigDecimal("19.99"), sentAt));
+    }
+
+    @Test
+    void shouldDecodeUntaggedRecordsAsJson() {
+        Headers headers = new RecordHeaders();
+        byte[] json = new KafkaWireSerializer().serialize("cart.request", headers,
+                "{\"correlationId\":\"corr-2\",\"amount\":5}");
+
+        assertThat(KafkaWireFormat.format(headers)).isNull();
+        assertThat(deserializer.deserialize("cart.request", headers, json))
+                .isEqualTo(new Request("corr-2", new BigDecimal("5"), null));
+        assertThat(deserializer.deserialize("product-updated", json))
+                .isEqualTo(Map.of("correlationId", "corr-2", "amount", 5));
+    }
+
+    @Test
+    void shouldRejectUnknownFormatsAndUndecodablePayloads() {
+        Headers future = new RecordHeaders().add(KafkaWireFormat.HEADER, "smile-v2".getBytes(StandardCharsets.UTF_8));
+        byte[] smile = KafkaWireFormat.encode(new Request("corr-3", BigDecimal.ONE, null));
+        byte[] broken = "{not json".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> deserializer.deserialize("cart.request", future, smile))
+                .isInstanceOf(SerializationException.class)
+                .hasMessageContaining("smile-v2");
+        assertThatThrownBy(() -> deserializer.deserialize("cart.request", new RecordHeaders(), broken))
+                .isInstanceOf(SerializationException.class);
+
+        KafkaWireDeserializer lenient = new KafkaWireDeserializer().withType("cart.request", Request.class)
+                .undecodableAsNull();
+        assertThat(lenient.deserialize("cart.request", future, smile)).isNull();
+        assertThat(lenient.deserialize("cart.request", new RecordHeaders(), broken)).isNull();
+    }
+
+    @Test
+    void shouldOnlyCoverBffTopics() {
+        assertThat(KafkaWireFormat.BFF_TOPICS.matcher("product.batch.request").matches()).isTrue();
+        assertThat(KafkaWireFormat.BFF_TOPICS.matcher("cart.response.gateway-1").matches()).isTrue();
+        assertThat(KafkaWireFormat.BFF_TOPICS.matcher("product-updated").matches()).isFalse();
+    }
+
+    record Request(String correlationId, BigDecimal amount, LocalDateTime sentAt) {
+    }
+}
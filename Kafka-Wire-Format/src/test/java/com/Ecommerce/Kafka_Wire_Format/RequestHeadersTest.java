@@ -0,0 +1,42 @@
+package com.Ecommerce.Kafka_Wire_Format;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestHeadersTest {
+
+    @Test
+    void shouldRouteRepliesToTheAdvertisedInstance() {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("cart.request", 0, 0, "corr-1", null);
+        assertThat(ReplyRouting.replyInstance(record)).isNull();
+        assertThat(ReplyRouting.replyTopic("cart.response", null)).isEqualTo("cart.response");
+
+        record.headers().add(ReplyRouting.REPLY_INSTANCE_HEADER, "gateway-1".getBytes(StandardCharsets.UTF_8));
+
+        assertThat(ReplyRouting.replyTopic("cart.response", ReplyRouting.replyInstance(record)))
+                .isEqualTo("cart.response.gateway-1");
+    }
+
+    @Test
+    void shouldExpireRequestsOnlyOnceTheirDeadlinePassed() {
+        ProducerRecord<String, Object> live = RequestDeadline.request("cart.request", "corr-1", "{}", Duration.ofMinutes(1));
+        ProducerRecord<String, Object> expired = RequestDeadline.request("cart.request", "corr-2", "{}", Duration.ofMillis(-1));
+
+        assertThat(RequestDeadline.isExpired(received(live))).isFalse();
+        assertThat(RequestDeadline.isExpired(received(expired))).isTrue();
+        assertThat(RequestDeadline.isExpired(new ConsumerRecord<>("cart.request", 0, 0, "corr-3", null))).isFalse();
+        assertThat(RequestDeadline.isExpired("not-a-number")).isFalse();
+    }
+
+    private static ConsumerRecord<String, Object> received(ProducerRecord<String, Object> sent) {
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>(sent.topic(), 0, 0, sent.key(), sent.value());
+        sent.headers().forEach(header -> record.headers().add(header));
+        return record;
+    }
+}
@@ -1,11 +1,14 @@
 package com.Ecommerce.Order_Service.Listeners.AsyncComm;
 
 
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
 import com.Ecommerce.Order_Service.Entities.Order;
 import com.Ecommerce.Order_Service.Entities.OrderItem;
 import com.Ecommerce.Order_Service.Entities.OrderStatus;
 import com.Ecommerce.Order_Service.Repositories.OrderRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -26,6 +29,19 @@ public class OrderKafkaEventHandler {
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final OrderRepository orderRepository;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * ✅ Drop requests the gateway has already given up on, before any query runs
+     */
+    private boolean skipIfExpired(ConsumerRecord<String, Object> record) {
+        if (!RequestDeadline.isExpired(record)) {
+            return false;
+        }
+        log.warn("📦 ORDER SERVICE: Skipping expired {} with correlationId: {}", record.topic(), record.key());
+        meterRegistry.counter("bff.requests.expired", "topic", record.topic()).increment();
+        return true;
+    }
 
     /**
      * ✅ Listen for order requests from Gateway Service
@@ -39,8 +55,13 @@ public class OrderKafkaEventHandler {
     public void handleOrderRequest(ConsumerRecord<String, Object> record) {
         Object requestPayload = record.value();
         String correlationId = record.key();
+        String replyInstance = ReplyRouting.replyInstance(record);
 
         log.info("📦 ORDER SERVICE: Received order request with correlationId: {}", correlationId);
+
+        if (skipIfExpired(record)) {
+            return;
+        }
         log.info("📦 ORDER SERVICE: Request payload: {}", requestPayload);
 
         try {
@@ -49,7 +70,7 @@ public class OrderKafkaEventHandler {
             String orderId = (String) request.get("orderId");
 
             if (orderId == null || orderId.trim().isEmpty()) {
-                sendErrorResponse(correlationId, "Order ID is required");
+                sendErrorResponse(correlationId, "Order ID is required", replyInstance);
                 return;
             }
 
@@ -67,19 +88,19 @@ public class OrderKafkaEventHandler {
                 Map<String, Object> orderData = convertOrderToMap(order);
 
                 // Send successful response
-                sendSuccessResponse(correlationId, orderData);
+                sendSuccessResponse(correlationId, orderData, replyInstance);
 
             } else {
                 log.warn("📦 ORDER SERVICE: Order not found for ID: {}", orderId);
-                sendErrorResponse(correlationId, "Order not found with ID: " + orderId);
+                sendErrorResponse(correlationId, "Order not found with ID: " + orderId, replyInstance);
             }
 
         } catch (IllegalArgumentException e) {
             log.error("📦 ORDER SERVICE: Invalid UUID format", e);
-            sendErrorResponse(correlationId, "Invalid order ID format: " + e.getMessage());
+            sendErrorResponse(correlationId, "Invalid order ID format: " + e.getMessage(), replyInstance);
         } catch (Exception e) {
             log.error("📦 ORDER SERVICE: Error processing order request", e);
-            sendErrorResponse(correlationId, "Internal error: " + e.getMessage());
+            sendErrorResponse(correlationId, "Internal error: " + e.getMessage(), replyInstance);
         }
     }
 
@@ -137,7 +158,7 @@ public class OrderKafkaEventHandler {
     /**
      * ✅ Send successful response to Gateway
      */
-    private void sendSuccessResponse(String correlationId, Map<String, Object> orderData) {
+    private void sendSuccessResponse(String correlationId, Map<String, Object> orderData, String replyInstance) {
         Map<String, Object> response = new HashMap<>();
         response.put("correlationId", correlationId);
         response.put("success", true);
@@ -147,7 +168,7 @@ public class OrderKafkaEventHandler {
 
         log.info("📦 ORDER SERVICE: Sending success response for correlationId: {}", correlationId);
 
-        kafkaTemplate.send("order.response", correlationId, response)
+        kafkaTemplate.send(ReplyRouting.replyTopic("order.response", replyInstance), correlationId, response)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
                         log.error("📦 ORDER SERVICE: Failed to send success response", ex);
@@ -160,7 +181,7 @@ public class OrderKafkaEventHandler {
     /**
      * ✅ Send error response to Gateway
      */
-    private void sendErrorResponse(String correlationId, String errorMessage) {
+    private void sendErrorResponse(String correlationId, String errorMessage, String replyInstance) {
         Map<String, Object> response = new HashMap<>();
         response.put("correlationId", correlationId);
         response.put("success", false);
@@ -170,7 +191,7 @@ public class OrderKafkaEventHandler {
         log.error("📦 ORDER SERVICE: Sending error response for correlationId: {} - {}",
                 correlationId, errorMessage);
 
-        kafkaTemplate.send("order.error", correlationId, response)
+        kafkaTemplate.send(ReplyRouting.replyTopic("order.error", replyInstance), correlationId, response)
                 .whenComplete((result, ex) -> {
                     if (ex != null) {
                         log.error("📦 ORDER SERVICE: Failed to send error response", ex);
@@ -206,9 +227,14 @@ public class OrderKafkaEventHandler {
     public void handleOrderBatchRequest(ConsumerRecord<String, Object> record) {
         Object requestPayload = record.value();
         String correlationId = record.key();
+        String replyInstance = ReplyRouting.replyInstance(record);
 
         log.info("📦 ORDER SERVICE: Received batch order request with correlationId: {}", correlationId);
 
+        if (skipIfExpired(record)) {
+            return;
+        }
+
         try {
             Map<String, Object> request = convertToMap(requestPayload);
             String userId = (String) request.get("userId");
@@ -216,7 +242,7 @@ public class OrderKafkaEventHandler {
             Integer limit = (Integer) request.get("limit");
 
             if (userId == null || userId.trim().isEmpty()) {
-                sendBatchErrorResponse(correlationId, "User ID is required for batch request");
+                sendBatchErrorResponse(correlationId, "User ID is required for batch request", replyInstance);
                 return;
             }
 
@@ -246,18 +272,18 @@ public class OrderKafkaEventHandler {
                     .collect(Collectors.toList());
 
             // Send successful response
-            sendBatchSuccessResponse(correlationId, orderDataList);
+            sendBatchSuccessResponse(correlationId, orderDataList, replyInstance);
 
         } catch (Exception e) {
             log.error("📦 ORDER SERVICE: Error processing batch order request", e);
-            sendBatchErrorResponse(correlationId, "Internal error: " + e.getMessage());
+            sendBatchErrorResponse(correlationId, "Internal error: " + e.getMessage(), replyInstance);
         }
     }
 
     /**
      * ✅ Send batch success response
      */
-    private void sendBatchSuccessResponse(String correlationId, List<Map<String, Object>> orders) {
+    private void sendBatchSuccessResponse(String correlationId, List<Map<String, Object>> orders, String replyInstance) {
         Map<String, Object> response = new HashMap<>();
         response.put("correlationId", correlationId);
         response.put("success", true);
@@ -268,20 +294,20 @@ public class OrderKafkaEventHandler {
 
         log.info("📦 ORDER SERVICE: Sending batch success response with {} orders", orders.size());
 
-        kafkaTemplate.send("order.batch.response", correlationId, response);
+        kafkaTemplate.send(ReplyRouting.replyTopic("order.batch.response", replyInstance), correlationId, response);
     }
 
     /**
      * ✅ Send batch error response
      */
-    private void sendBatchErrorResponse(String correlationId, String errorMessage) {
+    private void sendBatchErrorResponse(String correlationId, String errorMessage, String replyInstance) {
         Map<String, Object> response = new HashMap<>();
         response.put("correlationId", correlationId);
         response.put("success", false);
         response.put("message", errorMessage);
         response.put("timestamp", System.currentTimeMillis());
 
-        kafkaTemplate.send("order.batch.error", correlationId, response);
+        kafkaTemplate.send(ReplyRouting.replyTopic("order.batch.error", replyInstance), correlationId, response);
     }
 
     /**
@@ -296,9 +322,14 @@ public class OrderKafkaEventHandler {
     public void handleOrderIdsRequest(ConsumerRecord<String, Object> record) {
         Object requestPayload = record.value();
         String correlationId = record.key();
+        String replyInstance = ReplyRouting.replyInstance(record);
 
         log.info("📦 ORDER SERVICE: Received order IDs request with correlationId: {}", correlationId);
 
+        if (skipIfExpired(record)) {
+            return;
+        }
+
         try {
             Map<String, Object> request = convertToMap(requestPayload);
             String userId = (String) request.get("userId");
@@ -306,7 +337,7 @@ public class OrderKafkaEventHandler {
             Integer limit = (Integer) request.get("limit");
 
             if (userId == null || userId.trim().isEmpty()) {
-                sendIdsErrorResponse(correlationId, "User ID is required");
+                sendIdsErrorResponse(correlationId, "User ID is required", replyInstance);
                 return;
             }
 
@@ -336,18 +367,18 @@ public class OrderKafkaEventHandler {
             log.info("📦 ORDER SERVICE: Found {} order IDs for user: {}", orderIds.size(), userId);
 
             // Send IDs-only response
-            sendIdsSuccessResponse(correlationId, orderIds);
+            sendIdsSuccessResponse(correlationId, orderIds, replyInstance);
 
         } catch (Exception e) {
             log.error("📦 ORDER SERVICE: Error processing order IDs request", e);
-            sendIdsErrorResponse(correlationId, "Internal error: " + e.getMessage());
+            sendIdsErrorResponse(correlationId, "Internal error: " + e.getMessage(), replyInstance);
         }
     }
 
     /**
      * Send IDs-only success response
      */
-    private void sendIdsSuccessResponse(String correlationId, List<String> orderIds) {
+    private void sendIdsSuccessResponse(String correlationId, List<String> orderIds, String replyInstance) {
         Map<String, Object> response = new HashMap<>();
         response.put("correlationId", correlationId);
         response.put("success", true);
@@ -356,19 +387,19 @@ public class OrderKafkaEventHandler {
         response.put("count", orderIds.size());
         response.put("timestamp", System.currentTimeMillis());
 
-        kafkaTemplate.send("order.ids.response", correlationId, response);
+        kafkaTemplate.send(ReplyRouting.replyTopic("order.ids.response", replyInstance), correlationId, response);
     }
 
     /**
      * Send IDs-only error response
      */
-    private void sendIdsErrorResponse(String correlationId, String errorMessage) {
+    private void sendIdsErrorResponse(String correlationId, String errorMessage, String replyInstance) {
         Map<String, Object> response = new HashMap<>();
         response.put("correlationId", correlationId);
         response.put("success", false);
         response.put("message", errorMessage);
         response.put("timestamp", System.currentTimeMillis());
 
-        kafkaTemplate.send("order.ids.error", correlationId, response);
+        kafkaTemplate.send(ReplyRouting.replyTopic("order.ids.error", replyInstance), correlationId, response);
     }
 }
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.Ecommerce.Product_Service.Config;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireDeserializer;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireFormat;
+import com.Ecommerce.Kafka_Wire_Format.KafkaWireSerializer;
+import com.Ecommerce.Product_Service.Payload.Kafka.ProductBatchRequestEventDTO;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.admin.NewTopic;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -12,7 +17,8 @@ import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.*;
 import org.springframework.kafka.listener.ContainerProperties;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.DelegatingByTopicSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.kafka.support.serializer.JsonSerializer;
 
 import java.util.HashMap;
@@ -24,6 +30,9 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    @Value("${kafka.wire-format.binary:true}")
+    private boolean binaryWireFormat;
+
     // Product Topics
     public static final String TOPIC_PRODUCT_CREATED = "product-created";
     public static final String TOPIC_PRODUCT_UPDATED = "product-updated";
@@ -77,15 +86,19 @@ public class KafkaProducerConfig {
     public ProducerFactory<String, Object> producerFactory() {
         Map<String, Object> configProps = new HashMap<>();
         configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
 
         // Add additional producer properties for reliability
         configProps.put(ProducerConfig.ACKS_CONFIG, "all");
         configProps.put(ProducerConfig.RETRIES_CONFIG, 3);
         configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
 
-        return new DefaultKafkaProducerFactory<>(configProps);
+        // ✅ Replies to the gateway use the binary wire format, domain events stay JSON
+        JsonSerializer<Object> jsonSerializer = new JsonSerializer<>();
+        Serializer<Object> valueSerializer = binaryWireFormat
+                ? new DelegatingByTopicSerializer(Map.of(KafkaWireFormat.BFF_TOPICS, new KafkaWireSerializer()), jsonSerializer)
+                : jsonSerializer;
+
+        return new DefaultKafkaProducerFactory<>(configProps, new StringSerializer(), valueSerializer);
     }
 
     @Bean
@@ -98,20 +111,15 @@ public class KafkaProducerConfig {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "product-service-group");
-        props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-
-        // ✅ CRITICAL: Configure JsonDeserializer properly
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "*"); // Allow all packages for now
-        props.put(JsonDeserializer.USE_TYPE_INFO_HEADERS, false); // Don't rely on type headers
-        props.put(JsonDeserializer.VALUE_DEFAULT_TYPE, "com.Ecommerce.Product_Service.Payload.Kafka.ProductBatchRequestEventDTO");
 
         // Consumer reliability settings
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
         props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
         props.put(ConsumerConfig.AUTO_COMMIT_INTERVAL_MS_CONFIG, 1000);
 
-        return new DefaultKafkaConsumerFactory<>(props);
+        // ✅ Smile from upgraded gateways, JSON from everyone else - picked by the wire-format header
+        return new DefaultKafkaConsumerFactory<>(props,
+                new StringDeserializer(), new ErrorHandlingDeserializer<>(new KafkaWireDeserializer(ProductBatchRequestEventDTO.class)));
     }
 
     @Bean
@@ -1,11 +1,14 @@
 package com.Ecommerce.Product_Service.Listener.AsyncComm;
 
+import com.Ecommerce.Kafka_Wire_Format.ReplyRouting;
+import com.Ecommerce.Kafka_Wire_Format.RequestDeadline;
 import com.Ecommerce.Product_Service.Entities.Product;
 import com.Ecommerce.Product_Service.Payload.Kafka.ProductBatchInfoDTO;
 import com.Ecommerce.Product_Service.Payload.Kafka.ProductBatchRequestEventDTO;
 import com.Ecommerce.Product_Service.Payload.Kafka.ProductBatchResponseDTO;
 import com.Ecommerce.Product_Service.Services.ProductService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -26,6 +29,7 @@ public class ProductKafkaEventHandler {
     private final ProductService productService;
     private final KafkaTemplate<String, Object> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
 
     @KafkaListener(
             topics = "product.batch.request",
@@ -33,6 +37,15 @@ public class ProductKafkaEventHandler {
             containerFactory = "kafkaListenerContainerFactory"
     )
     public void handleProductBatchRequest(ConsumerRecord<String, Object> record) {
+        String replyInstance = ReplyRouting.replyInstance(record);
+
+        // ✅ The gateway already gave up on this request - don't load the products
+        if (RequestDeadline.isExpired(record)) {
+            log.warn("Skipping expired product batch request with correlationId: {}", record.key());
+            meterRegistry.counter("bff.requests.expired", "topic", record.topic()).increment();
+            return;
+        }
+
         log.info("=== PRODUCT SERVICE KAFKA LISTENER TRIGGERED ===");
         log.info("Received message on topic: {}", record.topic());
         log.info("Message key: {}", record.key());
@@ -52,14 +65,14 @@ public class ProductKafkaEventHandler {
                     request.getCorrelationId(), request.getProductIds().size());
 
             // Process the request
-            processProductBatchRequest(request);
+            processProductBatchRequest(request, replyInstance);
 
         } catch (Exception e) {
             log.error("Error processing product batch request from record: {}", record, e);
 
             try {
                 String correlationId = extractCorrelationId(record.value());
-                sendErrorResponse(correlationId, e.getMessage());
+                sendErrorResponse(correlationId, e.getMessage(), replyInstance);
             } catch (Exception extractError) {
                 log.error("Failed to extract correlationId for error response", extractError);
             }
@@ -114,7 +127,7 @@ public class ProductKafkaEventHandler {
     /**
      * ✅ Process the product batch request using service batch method
      */
-    private void processProductBatchRequest(ProductBatchRequestEventDTO request) {
+    private void processProductBatchRequest(ProductBatchRequestEventDTO request, String replyInstance) {
         try {
             log.info("Processing product batch request for {} products", request.getProductIds().size());
             log.info("Product IDs to fetch: {}", request.getProductIds());
@@ -140,11 +153,12 @@ public class ProductKafkaEventHandler {
                     .timestamp(System.currentTimeMillis())
                     .build();
 
-            log.info("Sending success response to 'product.batch.response' with correlationId: {}",
-                    request.getCorrelationId());
+            String replyTopic = ReplyRouting.replyTopic("product.batch.response", replyInstance);
+            log.info("Sending success response to '{}' with correlationId: {}",
+                    replyTopic, request.getCorrelationId());
             log.info("Response payload: {}", response);
 
-            kafkaTemplate.send("product.batch.response", request.getCorrelationId(), response)
+            kafkaTemplate.send(replyTopic, request.getCorrelationId(), response)
                     .whenComplete((result, ex) -> {
                         if (ex != null) {
                             log.error("Failed to send product response for correlationId: {}",
@@ -158,7 +172,7 @@ public class ProductKafkaEventHandler {
         } catch (Exception e) {
             log.error("Error processing product batch request for correlationId: {}",
                     request.getCorrelationId(), e);
-            sendErrorResponse(request.getCorrelationId(), e.getMessage());
+            sendErrorResponse(request.getCorrelationId(), e.getMessage(), replyInstance);
         }
     }
 
@@ -183,7 +197,7 @@ public class ProductKafkaEventHandler {
     /**
      * ✅ Send error response
      */
-    private void sendErrorResponse(String correlationId, String errorMessage) {
+    private void sendErrorResponse(String correlationId, String errorMessage, String replyInstance) {
         try {
             ProductBatchResponseDTO errorResponse = ProductBatchResponseDTO.builder()
                     .correlationId(correlationId)
@@ -193,9 +207,10 @@ public class ProductKafkaEventHandler {
                     .timestamp(System.currentTimeMillis())
                     .build();
 
-            log.info("Sending error response to 'product.error' with correlationId: {}", correlationId);
+            String replyTopic = ReplyRouting.replyTopic("product.error", replyInstance);
+            log.info("Sending error response to '{}' with correlationId: {}", replyTopic, correlationId);
 
-            kafkaTemplate.send("product.error", correlationId, errorResponse)
+            kafkaTemplate.send(replyTopic, correlationId, errorResponse)
                     .whenComplete((result, ex) -> {
                         if (ex != null) {
                             log.error("Failed to send error response for correlationId: {}", correlationId, ex);